@@ -1,21 +1,22 @@
 import java.util.Scanner;
 
-import boundary.AuthInterface;
-import boundary.ManagerInterface;
-import boundary.OfficerInterface;
-import boundary.ApplicantInterface;
+import boundary.BatchRunner;
+import boundary.Session;
+import boundary.SessionServer;
+import control.CsvImporter;
 import control.Initialize;
-import entity.User;
-import entity.Manager;
-import entity.Officer;
-import entity.Applicant;
+import control.JsonExporter;
 import shared.Data;
 
 /**
  * {@code BTOApp} class serves as the main entry point for the BTO system
  * application.
  * The application utilizes a Data Transfer Object (DTO) to maintain application
- * data, which is loaded at startup and saved at logout.
+ * data, which is loaded at startup, committed at logout and saved on exit.
+ * Run with {@code server [port]} to serve sessions over TCP instead of the
+ * console, with {@code batch file} to run a script of commands, with
+ * {@code import type file [rejects]} to import users or projects from a CSV
+ * file, or with {@code export file} to export the data as JSON lines.
  */
 // Main class, calls interfaces from boundary classes after login
 public class BTOApp {
@@ -25,31 +26,40 @@ public class BTOApp {
      * Initialize necessary data.
      * Handle user authentication.
      * Display UI menu based on user role.
+     *
+     * @param args {@code server [port]} to start the session server,
+     *             {@code batch file} to run a script,
+     *             {@code import type file [rejects]} to import a CSV file,
+     *             {@code export file} to export the data, or none to run on
+     *             the console
      */
     public static void main(String[] args) {
+        if (args.length > 1 && args[0].equalsIgnoreCase("batch")) {
+            BatchRunner.run(args[1]); // Loads and saves data once
+            return;
+        }
+        if (args.length > 2 && args[0].equalsIgnoreCase("import")) {
+            String rejectsFile = args.length > 3 ? args[3] : args[2] + ".rejected.csv";
+            CsvImporter.run(args[1], args[2], rejectsFile); // Loads and saves data once
+            return;
+        }
+        if (args.length > 1 && args[0].equalsIgnoreCase("export")) {
+            JsonExporter.run(args[1]);
+            return;
+        }
+
         // Initialize data transfer object - Stores all Objects / Convrete classes used
         Data dataDTO = Initialize.initializeData();
-        Scanner sc = new Scanner(System.in);
-        User loggedInUser = null;
-
-        do {
-            loggedInUser = AuthInterface.authenticate(sc, dataDTO);
-            if (loggedInUser == null)
-                break;
-
-            if (loggedInUser instanceof Manager)
-                ManagerInterface.showMenu((Manager) loggedInUser, sc, dataDTO);
+        Initialize.scheduleCheckpoints(dataDTO);
 
-            else if (loggedInUser instanceof Officer)
-                OfficerInterface.showMenu((Officer) loggedInUser, sc, dataDTO);
-
-            else if (loggedInUser instanceof Applicant)
-                ApplicantInterface.showMenu((Applicant) loggedInUser, sc, dataDTO);
-
-            Initialize.saveData(dataDTO); // Save data every logout
-
-        } while (loggedInUser != null);
+        if (args.length > 0 && args[0].equalsIgnoreCase("server")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : SessionServer.DEFAULT_PORT;
+            new SessionServer(dataDTO).run(port); // Saves data when stopped
+            return;
+        }
 
+        Scanner sc = new Scanner(System.in);
+        Session.run(sc, dataDTO);
         sc.close();
 
         // Save data
@@ -0,0 +1,146 @@
+package benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import control.BallotControl;
+import control.BallotControl.BallotResult;
+import entity.Applicant;
+import entity.Application;
+import entity.Manager;
+import entity.Project;
+import entity.Unit;
+import enums.MaritalStatus;
+import enums.Status;
+import enums.UnitType;
+import shared.Data;
+
+/**
+ * The BallotBenchmark class measures ballots over projects with many pending
+ * applications, one project at a time and in parallel across projects.
+ * Each project has more applications than units of either type, so every
+ * ballot approves some applications and rejects the rest. The outcome is
+ * checked against the units available.
+ * Run with {@code java -jar target/benchmarks.jar BallotBenchmark} after
+ * {@code mvn -P jmh package}, adding {@code -p applications=<n>} or
+ * {@code -p projectCount=<n>} for other sizes. Each ballot runs over fresh
+ * projects, so it is timed once per invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BallotBenchmark {
+
+    /** The number of units of each type per project. */
+    private static final int UNITS = 5_000;
+
+    /** The seed of the ballots. */
+    private static final long SEED = 2002;
+
+    /** The number of pending applications per project. */
+    @Param({ "100000" })
+    public int applications;
+
+    /** The number of projects. */
+    @Param({ "8" })
+    public int projectCount;
+
+    // Attributes
+    private List<Project> projects;
+    private long seed = SEED;
+
+    /**
+     * Creates fresh projects, each with pending applications for both unit
+     * types.
+     */
+    @Setup(Level.Invocation)
+    public void setUp() {
+        Data data = new Data();
+        for (int i = 0; i < this.projectCount; i++) {
+            Manager manager = new Manager(DataGenerator.nric(i), "Manager " + i, 40, MaritalStatus.Married);
+            List<Unit> units = new ArrayList<>();
+            units.add(new Unit(UnitType.TWO_ROOM, UNITS, 300_000));
+            units.add(new Unit(UnitType.THREE_ROOM, UNITS, 450_000));
+            Project project = manager.createProject("Project " + i, "Bedok", units, LocalDate.now(),
+                    LocalDate.now().plusDays(30), true, 10, data.getProjectList());
+            for (int j = 0; j < this.applications; j++) {
+                int index = this.projectCount + i * this.applications + j;
+                Applicant applicant = new Applicant(DataGenerator.nric(index), "Applicant " + index, 40,
+                        MaritalStatus.Married);
+                new Application(applicant, project, j % 2 == 0 ? UnitType.TWO_ROOM : UnitType.THREE_ROOM);
+            }
+        }
+        this.projects = data.getProjectList();
+        this.seed++;
+    }
+
+    /**
+     * Checks that each ballot approved as many applications of each type as
+     * there were units, and settled every pending application. Projects no
+     * ballot ran over are left as they were.
+     */
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        int expected = Math.min(UNITS, (this.applications + 1) / 2) + Math.min(UNITS, this.applications / 2);
+        for (Project project : this.projects) {
+            if (project.getApplicationCount(Status.Pending) == this.applications)
+                continue;
+            if (project.getApplicationCount(Status.Pending) != 0
+                    || project.getApplicationCount(Status.Successful) != expected)
+                throw new IllegalStateException("Ballot over " + project.getName() + " went wrong");
+        }
+    }
+
+    /**
+     * Runs a ballot over one project.
+     *
+     * @return the outcome of the ballot
+     */
+    @Benchmark
+    public BallotResult runBallotOneProject() {
+        return BallotControl.runBallot(this.projects.get(0), this.seed);
+    }
+
+    /**
+     * Runs a ballot over each project in turn.
+     *
+     * @return the outcomes of the ballots
+     */
+    @Benchmark
+    public List<BallotResult> runBallotEachProject() {
+        List<BallotResult> results = new ArrayList<>();
+        for (Project project : this.projects) {
+            results.add(BallotControl.runBallot(project, this.seed));
+        }
+        return results;
+    }
+
+    /**
+     * Runs the ballots over all projects in parallel.
+     *
+     * @return the outcomes of the ballots
+     */
+    @Benchmark
+    public List<BallotResult> runBallotsAllProjects() {
+        return BallotControl.runBallots(this.projects, this.seed);
+    }
+}
@@ -0,0 +1,256 @@
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import control.AuthControl;
+import control.Checkpointer;
+import entity.Applicant;
+import entity.Officer;
+import entity.Project;
+import entity.ProjectListing;
+import entity.User;
+import enums.MaritalStatus;
+import service.ApplicantService;
+import service.ManagerService;
+import service.OfficerService;
+import service.ReportFilter;
+import shared.Data;
+
+/**
+ * The ControlBenchmark class measures the hot paths of the control layer
+ * against synthetic data from {@link DataGenerator}.
+ * Run with {@code java -jar target/benchmarks.jar ControlBenchmark} after
+ * {@code mvn -P jmh package} to measure the default scales, or add
+ * {@code -p scale=users:projects:applications:enquiries} to measure another.
+ * Each benchmark reports the average time per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ControlBenchmark {
+
+    /** The seed of the generated data. */
+    private static final long SEED = 2002;
+
+    /** The scale, as users, projects, applications and enquiries. */
+    @Param({ "1000:50:500:1000", "10000:200:5000:10000", "100000:1000:50000:100000" })
+    public String scale;
+
+    // Attributes
+    private Data data;
+    private List<User> users;
+    private List<Applicant> applicants;
+    private List<Officer> officers;
+    private List<Project> projects;
+    private Project reportProject;
+    private File dataFile;
+    private Checkpointer checkpointer;
+    private PrintStream console;
+
+    /**
+     * The random inputs of each benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Inputs {
+
+        // Attributes
+        private final Random random = new Random(SEED);
+
+        /**
+         * Picks one of the given items at random.
+         *
+         * @param <T>   the type of the items
+         * @param items the items to pick from
+         * @return the item picked
+         */
+        <T> T pick(List<T> items) {
+            return items.get(this.random.nextInt(items.size()));
+        }
+    }
+
+    /**
+     * The sort settings of {@link Project#sortProjects}, in both directions.
+     */
+    @State(Scope.Benchmark)
+    public static class Sort {
+
+        /** The setting to sort by. */
+        @Param({ "1", "2", "3", "4" })
+        public int setting;
+
+        /** Whether to sort in reverse. */
+        @Param({ "false", "true" })
+        public boolean reverse;
+    }
+
+    /**
+     * Generates the data, and saves it once for the load benchmark. The
+     * messages printed by the control layer are silenced until the trial ends.
+     *
+     * @throws IOException if the temporary data file could not be created
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String[] counts = this.scale.split(":");
+        this.data = new DataGenerator(Integer.parseInt(counts[0]), Integer.parseInt(counts[1]),
+                Integer.parseInt(counts[2]), Integer.parseInt(counts[3])).generate(SEED);
+        this.users = new ArrayList<>();
+        this.users.addAll(this.data.getManagerList());
+        this.users.addAll(this.data.getOfficerList());
+        this.users.addAll(this.data.getApplicantList());
+        this.applicants = this.data.getApplicantList();
+        this.officers = this.data.getOfficerList();
+        this.projects = this.data.getProjectList();
+
+        // Report on the project with the most applications
+        this.reportProject = this.projects.stream()
+                .max(Comparator.comparingInt(p -> p.getApplications().size())).get();
+
+        this.dataFile = File.createTempFile("benchmark", ".bin");
+        this.dataFile.deleteOnExit();
+        this.checkpointer = new Checkpointer(this.dataFile.getPath());
+        this.checkpointer.checkpoint(this.data, true);
+
+        this.console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    /**
+     * Restores the console once the trial ends.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(this.console);
+    }
+
+    /**
+     * Logs in a random user.
+     *
+     * @param inputs the random inputs of this thread
+     * @return the user logged in
+     */
+    @Benchmark
+    public User login(Inputs inputs) {
+        return AuthControl.login(inputs.pick(this.users).getNRIC(), "password", this.data);
+    }
+
+    /**
+     * Gets the listings a random applicant can apply for.
+     *
+     * @param inputs the random inputs of this thread
+     * @return the listings
+     */
+    @Benchmark
+    public Object getApplicableListings(Inputs inputs) {
+        return ApplicantService.getApplicableListings(inputs.pick(this.applicants), this.data);
+    }
+
+    /**
+     * Gets the listings a random applicant can apply for, sorted by their sort
+     * settings, which is cached until the catalog changes.
+     *
+     * @param inputs the random inputs of this thread
+     * @return the sorted listings
+     */
+    @Benchmark
+    public List<ProjectListing> getSortedListings(Inputs inputs) {
+        return ApplicantService.getSortedListings(inputs.pick(this.applicants), this.data);
+    }
+
+    /**
+     * Publishes a random project to the catalog.
+     *
+     * @param inputs the random inputs of this thread
+     * @return the catalog
+     */
+    @Benchmark
+    public Object publishProject(Inputs inputs) {
+        this.data.publishProject(inputs.pick(this.projects));
+        return this.data.getCatalog();
+    }
+
+    /**
+     * Sorts a copy of the projects.
+     *
+     * @param sort the sort setting
+     * @return the sorted projects
+     */
+    @Benchmark
+    public List<Project> sortProjects(Sort sort) {
+        List<Project> sorted = new ArrayList<>(this.projects);
+        Project.sortProjects(sorted, sort.setting, sort.reverse);
+        return sorted;
+    }
+
+    /**
+     * Writes the report of the project with the most applications, filtered
+     * to married applicants aged 30 and above.
+     *
+     * @throws IOException never, as the report is discarded
+     */
+    @Benchmark
+    public void writeReport() throws IOException {
+        ManagerService.writeReport(this.reportProject, new ReportFilter(null, 30, 0, MaritalStatus.Married),
+                Writer.nullWriter(), null);
+    }
+
+    /**
+     * Gets the projects a random officer can register for.
+     *
+     * @param inputs the random inputs of this thread
+     * @return the projects
+     */
+    @Benchmark
+    public List<Project> getRegistrableProjects(Inputs inputs) {
+        return OfficerService.getRegistrableProjects(inputs.pick(this.officers), this.data);
+    }
+
+    /**
+     * Saves the data, waiting until it is on disk.
+     *
+     * @return the size of the data file
+     */
+    @Benchmark
+    public long checkpoint() {
+        this.checkpointer.checkpoint(this.data, true);
+        return this.dataFile.length();
+    }
+
+    /**
+     * Loads the data saved by the trial setup.
+     *
+     * @return the data loaded
+     * @throws IOException            if the data file could not be read
+     * @throws ClassNotFoundException if the data file does not hold data
+     */
+    @Benchmark
+    public Data load() throws IOException, ClassNotFoundException {
+        return DataGenerator.load(this.dataFile.getPath());
+    }
+}
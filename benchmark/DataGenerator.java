@@ -0,0 +1,333 @@
+package benchmark;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import control.Checkpointer;
+import entity.Applicant;
+import entity.Application;
+import entity.Enquiry;
+import entity.FlatBooking;
+import entity.Manager;
+import entity.Officer;
+import entity.Project;
+import entity.Registration;
+import entity.Unit;
+import entity.Withdrawal;
+import enums.MaritalStatus;
+import enums.UnitType;
+import shared.Data;
+import shared.MappedSnapshot;
+import shared.ShardedSnapshot;
+
+/**
+ * The DataGenerator class builds synthetic application data for benchmarks and
+ * load tests.
+ * Entities are created through the same constructors and methods the
+ * application uses, so all links between them are set up as usual.
+ * The data is split into estates, each made up of one manager with a few
+ * projects and a share of the officers, applicants, applications and
+ * enquiries. Estates share no entities, so they are generated in parallel,
+ * each with its own random source derived from the seed. The same counts and
+ * seed therefore always produce the same data.
+ * Run with {@code java benchmark.DataGenerator users projects applications
+ * enquiries seed file} to write the data in the format of the data file.
+ */
+public class DataGenerator {
+
+    /** The number of projects managed by each manager. */
+    private static final int PROJECTS_PER_MANAGER = 8;
+
+    /** The length of a project's application period, in days. */
+    private static final int WINDOW_DAYS = 30;
+
+    /** The share of users that are officers, in percent. */
+    private static final int OFFICER_PERCENT = 10;
+
+    /** The neighbourhoods projects are located in. */
+    private static final String[] NEIGHBOURHOODS = { "Ang Mo Kio", "Bedok", "Bukit Batok", "Bukit Merah",
+            "Choa Chu Kang", "Clementi", "Hougang", "Jurong West", "Pasir Ris", "Punggol", "Queenstown",
+            "Sembawang", "Sengkang", "Tampines", "Toa Payoh", "Woodlands", "Yishun" };
+
+    // Attributes
+    private final int users;
+    private final int projects;
+    private final int applications;
+    private final int enquiries;
+    private final int managers;
+    private final int officers;
+
+    /**
+     * Creates a generator for the given entity counts.
+     *
+     * @param users        the number of users, split between managers, officers
+     *                     and applicants
+     * @param projects     the number of projects
+     * @param applications the number of applications, at most one per eligible
+     *                     applicant
+     * @param enquiries    the number of enquiries
+     * @throws IllegalArgumentException if there are too few users to manage the
+     *                                  projects
+     */
+    public DataGenerator(int users, int projects, int applications, int enquiries) {
+        this.users = users;
+        this.projects = projects;
+        this.applications = applications;
+        this.enquiries = enquiries;
+        this.managers = Math.max(1, (projects + PROJECTS_PER_MANAGER - 1) / PROJECTS_PER_MANAGER);
+        if (users < this.managers)
+            throw new IllegalArgumentException("At least " + this.managers + " users are needed");
+        this.officers = (users - this.managers) * OFFICER_PERCENT / 100;
+    }
+
+    /**
+     * Generates the data, one estate per manager in parallel.
+     *
+     * @param seed the seed of the random choices
+     * @return the generated Data object
+     */
+    public Data generate(long seed) {
+        List<Data> estates = IntStream.range(0, this.managers).parallel()
+                .mapToObj(estate -> generateEstate(estate, seed))
+                .collect(Collectors.toList());
+
+        // Merge the estates in order
+        Data data = new Data();
+        for (Data estate : estates) {
+            estate.getManagerList().forEach(data::addManager);
+        }
+        for (Data estate : estates) {
+            estate.getOfficerList().forEach(data::addOfficer);
+        }
+        for (Data estate : estates) {
+            estate.getApplicantList().forEach(data::addApplicant);
+            data.getProjectList().addAll(estate.getProjectList());
+            data.getApplicationList().addAll(estate.getApplicationList());
+            data.getRegistrationList().addAll(estate.getRegistrationList());
+            data.getEnquiryList().addAll(estate.getEnquiryList());
+            data.getFlatBookings().addAll(estate.getFlatBookings());
+            data.getWithdrawals().addAll(estate.getWithdrawals());
+        }
+        return data;
+    }
+
+    /**
+     * Generates one estate into its own Data object.
+     *
+     * @param estate the index of the estate
+     * @param seed   the seed of the random choices
+     * @return the Data object holding the estate's entities
+     */
+    private Data generateEstate(int estate, long seed) {
+        Random random = new Random(seed ^ (estate * 0x9E3779B97F4A7C15L));
+        Data data = new Data();
+
+        // Users, with the estate's share of officers and applicants
+        int officerStart = this.managers + slice(this.officers, estate);
+        int officerEnd = this.managers + slice(this.officers, estate + 1);
+        int applicantCount = this.users - this.managers - this.officers;
+        int applicantStart = this.managers + this.officers + slice(applicantCount, estate);
+        int applicantEnd = this.managers + this.officers + slice(applicantCount, estate + 1);
+        Manager manager = new Manager(nric(estate), "Manager " + estate, age(random), maritalStatus(random));
+        data.addManager(manager);
+        for (int i = officerStart; i < officerEnd; i++) {
+            data.addOfficer(new Officer(nric(i), "Officer " + i, age(random), maritalStatus(random)));
+        }
+        for (int i = applicantStart; i < applicantEnd; i++) {
+            data.addApplicant(new Applicant(nric(i), "Applicant " + i, age(random), maritalStatus(random)));
+        }
+
+        // Projects, with application periods following one another and one of
+        // them open today
+        LocalDate today = LocalDate.now();
+        int projectStart = slice(this.projects, estate);
+        int projectEnd = slice(this.projects, estate + 1);
+        for (int i = projectStart; i < projectEnd; i++) {
+            int window = i - projectStart - PROJECTS_PER_MANAGER / 2;
+            LocalDate openDate = today.plusDays((long) window * WINDOW_DAYS - WINDOW_DAYS / 2);
+            List<Unit> units = new ArrayList<>();
+            units.add(new Unit(UnitType.TWO_ROOM, 50 + random.nextInt(450), 200_000 + random.nextInt(200_000)));
+            units.add(new Unit(UnitType.THREE_ROOM, 50 + random.nextInt(750), 300_000 + random.nextInt(300_000)));
+            manager.createProject("Project " + i, NEIGHBOURHOODS[random.nextInt(NEIGHBOURHOODS.length)], units,
+                    openDate, openDate.plusDays(WINDOW_DAYS - 1), random.nextInt(10) != 0, 1 + random.nextInt(10),
+                    data.getProjectList());
+        }
+        List<Project> projectList = data.getProjectList();
+        if (projectList.isEmpty())
+            return data;
+
+        // Officer registrations, some approved or rejected
+        for (Officer officer : data.getOfficerList()) {
+            int count = 1 + random.nextInt(2);
+            for (int i = 0; i < count; i++) {
+                Project project = projectList.get(random.nextInt(projectList.size()));
+                if (officer.getRegistrations().stream().anyMatch(r -> r.getProject() == project))
+                    continue;
+                Registration registration = new Registration(officer, project);
+                data.addRegistration(registration);
+                int roll = random.nextInt(10);
+                if (roll < 5 && !officer.hasClash(project))
+                    registration.approve(officer);
+                else if (roll < 7)
+                    registration.reject();
+            }
+        }
+
+        // Applications from eligible applicants, in every status
+        List<Applicant> applicants = data.getApplicantList();
+        int applying = slice(this.applications, estate + 1) - slice(this.applications, estate);
+        for (int i = 0; i < applicants.size() && applying > 0; i++) {
+            Applicant applicant = applicants.get(i);
+            UnitType unitType;
+            if (applicant.isMarried())
+                unitType = random.nextBoolean() ? UnitType.THREE_ROOM : UnitType.TWO_ROOM;
+            else if (applicant.getAge() >= 35)
+                unitType = UnitType.TWO_ROOM;
+            else
+                continue;
+            Project project = projectList.get(random.nextInt(projectList.size()));
+            Application application = new Application(applicant, project, unitType);
+            data.addApplication(application);
+            applying--;
+            progress(application, random.nextInt(100), data);
+        }
+
+        // Enquiries, some answered
+        int enquiring = slice(this.enquiries, estate + 1) - slice(this.enquiries, estate);
+        for (int i = 0; i < enquiring && !applicants.isEmpty(); i++) {
+            Applicant applicant = applicants.get(random.nextInt(applicants.size()));
+            Project project = projectList.get(random.nextInt(projectList.size()));
+            Enquiry enquiry = new Enquiry(applicant, project, "Enquiry " + i, "Is parking available?");
+            data.addEnquiry(enquiry);
+            if (random.nextBoolean())
+                enquiry.setReply("Yes, there is a multi-storey car park.");
+        }
+        return data;
+    }
+
+    /**
+     * Moves a new application along its life cycle: pending, pending with a
+     * withdrawal request, rejected, approved, booked, or booked and confirmed.
+     *
+     * @param application the new application
+     * @param roll        a random number from 0 to 99 choosing the outcome
+     * @param data        the Data object holding the estate's entities
+     */
+    private static void progress(Application application, int roll, Data data) {
+        if (roll < 45)
+            return;
+        if (roll < 55) {
+            data.addWithdrawal(new Withdrawal(application, application.getApplicant()));
+            return;
+        }
+        if (roll < 65) {
+            application.reject();
+            return;
+        }
+        application.approve();
+        if (roll < 75)
+            return;
+        application.book(data);
+        FlatBooking booking = data.getFlatBookings().get(data.getFlatBookings().size() - 1);
+        if (roll >= 85)
+            booking.confirm();
+    }
+
+    /**
+     * Gets the start of an estate's share of a count.
+     *
+     * @param count  the total count
+     * @param estate the index of the estate
+     * @return the index of the estate's first item
+     */
+    private int slice(int count, int estate) {
+        return (int) ((long) count * estate / this.managers);
+    }
+
+    /**
+     * Picks an adult age, with most users in their thirties and forties.
+     *
+     * @param random the random source
+     * @return the age
+     */
+    private static int age(Random random) {
+        return 21 + random.nextInt(25) + random.nextInt(25);
+    }
+
+    /**
+     * Picks a marital status, with about two in three users married.
+     *
+     * @param random the random source
+     * @return the marital status
+     */
+    private static MaritalStatus maritalStatus(Random random) {
+        return random.nextInt(3) == 0 ? MaritalStatus.Single : MaritalStatus.Married;
+    }
+
+    /**
+     * Builds a valid, unique NRIC for the i-th generated user.
+     *
+     * @param i the index of the user
+     * @return the NRIC of the user
+     */
+    static String nric(int i) {
+        return String.format("s%07d%c", i % 10_000_000, (char) ('a' + i / 10_000_000));
+    }
+
+    /**
+     * Loads data written by a {@link Checkpointer}, in any of its formats, as
+     * the application does on startup.
+     *
+     * @param dataFile the path to the data file
+     * @return the data stored in the file
+     * @throws IOException            if the file could not be read
+     * @throws ClassNotFoundException if the file does not hold a Data object
+     */
+    static Data load(String dataFile) throws IOException, ClassNotFoundException {
+        if (MappedSnapshot.isSnapshot(dataFile))
+            return MappedSnapshot.open(dataFile);
+        if (ShardedSnapshot.isSnapshot(dataFile))
+            return ShardedSnapshot.open(dataFile);
+        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(dataFile))) {
+            return (Data) in.readObject();
+        }
+    }
+
+    /**
+     * Generates data and writes it to a file in the format of the data file.
+     *
+     * @param args the users, projects, applications, enquiries, seed and output
+     *             file
+     */
+    public static void main(String[] args) {
+        if (args.length != 6) {
+            System.out.println(
+                    "Usage: java benchmark.DataGenerator <users> <projects> <applications> <enquiries> <seed> <file>");
+            return;
+        }
+        DataGenerator generator = new DataGenerator(Integer.parseInt(args[0]), Integer.parseInt(args[1]),
+                Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+        long seed = Long.parseLong(args[4]);
+        String file = args[5];
+
+        long start = System.nanoTime();
+        Data data = generator.generate(seed);
+        System.out.printf("Generated %d users, %d projects, %d applications, %d registrations, %d enquiries, "
+                + "%d bookings and %d withdrawals in %d ms%n",
+                data.getManagerList().size() + data.getOfficerList().size() + data.getApplicantList().size(),
+                data.getProjectList().size(), data.getApplicationList().size(), data.getRegistrationList().size(),
+                data.getEnquiryList().size(), data.getFlatBookings().size(), data.getWithdrawals().size(),
+                (System.nanoTime() - start) / 1_000_000);
+
+        long written = System.nanoTime();
+        new Checkpointer(file).checkpoint(data, true);
+        System.out.printf("Written to %s in %d ms%n", file, (System.nanoTime() - written) / 1_000_000);
+    }
+}
@@ -0,0 +1,145 @@
+package benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import entity.Applicant;
+import entity.Application;
+import entity.FlatBooking;
+import entity.Manager;
+import entity.Project;
+import entity.Unit;
+import enums.MaritalStatus;
+import enums.UnitType;
+import shared.Data;
+
+/**
+ * The InventoryStress class checks that concurrent booking confirmations never
+ * oversell a project.
+ * Many threads race to confirm more pending bookings than there are units,
+ * each trying every booking, so the same booking is also confirmed by several
+ * threads at once. Every round must confirm exactly as many bookings as there
+ * were units, and leave none available. The confirmed bookings are then
+ * deleted by the same threads, which must release every unit back to the
+ * project. Meanwhile another thread watches the available count, which must
+ * never fall below zero nor rise above the number of units.
+ * Run with {@code java benchmark.InventoryStress}; it fails with an exception
+ * on the first oversell or lost unit.
+ */
+public class InventoryStress {
+
+    /** The number of two-room units in the project. */
+    private static final int UNITS = 1_000;
+
+    /** The number of pending bookings competing for the units. */
+    private static final int BOOKINGS = 5_000;
+
+    /** The number of threads confirming bookings. */
+    private static final int THREADS = 16;
+
+    /** The number of rounds to run. */
+    private static final int ROUNDS = 50;
+
+    /**
+     * Runs the stress test and prints the result of each round.
+     *
+     * @param args unused
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public static void main(String[] args) throws InterruptedException {
+        for (int round = 1; round <= ROUNDS; round++) {
+            Data data = new Data();
+            Manager manager = new Manager("m0000000a", "Manager", 40, MaritalStatus.Married);
+            List<Unit> units = new ArrayList<>();
+            Unit unit = new Unit(UnitType.TWO_ROOM, UNITS, 300_000);
+            units.add(unit);
+            Project project = manager.createProject("Project", "Bedok", units, LocalDate.now(),
+                    LocalDate.now().plusDays(30), true, 10, data.getProjectList());
+
+            for (int i = 0; i < BOOKINGS; i++) {
+                Application application = new Application(
+                        new Applicant(DataGenerator.nric(i), "Applicant " + i, 40, MaritalStatus.Married),
+                        project, UnitType.TWO_ROOM);
+                application.approve();
+                application.book(data);
+            }
+            List<FlatBooking> bookings = data.getFlatBookings();
+
+            AtomicInteger confirmed = new AtomicInteger();
+            AtomicBoolean done = new AtomicBoolean();
+            AtomicInteger lowest = new AtomicInteger(UNITS);
+            AtomicInteger highest = new AtomicInteger(UNITS);
+            Thread watcher = new Thread(() -> {
+                while (!done.get()) {
+                    int available = unit.getUnitsAvailable();
+                    lowest.accumulateAndGet(available, Math::min);
+                    highest.accumulateAndGet(available, Math::max);
+                }
+            });
+            watcher.start();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                List<FlatBooking> order = new ArrayList<>(bookings);
+                Collections.shuffle(order, new Random(round * THREADS + t));
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (FlatBooking booking : order) {
+                        if (booking.confirm())
+                            confirmed.incrementAndGet();
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            List<FlatBooking> booked = new ArrayList<>();
+            for (FlatBooking booking : bookings) {
+                if (booking.isBooked())
+                    booked.add(booking);
+            }
+            System.out.printf("Round %d: %d confirmed, %d booked, %d units left%n",
+                    round, confirmed.get(), booked.size(), unit.getUnitsAvailable());
+            if (confirmed.get() != UNITS || booked.size() != UNITS || unit.getUnitsAvailable() != 0)
+                throw new IllegalStateException("Oversold in round " + round);
+
+            threads.clear();
+            for (int t = 0; t < THREADS; t++) {
+                List<FlatBooking> share = booked.subList(t * UNITS / THREADS, (t + 1) * UNITS / THREADS);
+                Thread thread = new Thread(() -> {
+                    for (FlatBooking booking : share) {
+                        booking.deleteBooking(data);
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            done.set(true);
+            watcher.join();
+            if (lowest.get() < 0 || highest.get() > UNITS)
+                throw new IllegalStateException("Available units went from " + lowest.get() + " to "
+                        + highest.get() + " in round " + round);
+            if (unit.getUnitsAvailable() != UNITS)
+                throw new IllegalStateException("Released " + unit.getUnitsAvailable() + " of " + UNITS
+                        + " units in round " + round);
+        }
+        System.out.println("No oversell, negative count or lost unit in " + ROUNDS + " rounds.");
+    }
+}
@@ -0,0 +1,114 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import control.AuthControl;
+import entity.Applicant;
+import entity.User;
+import enums.MaritalStatus;
+import shared.Data;
+
+/**
+ * The LoginBenchmark class measures the latency of {@link AuthControl#login}
+ * and {@link AuthControl#NRICExists} as the number of registered users grows.
+ * Run with {@code java -jar target/benchmarks.jar LoginBenchmark} after
+ * {@code mvn -P jmh package}; latency should stay flat from 1k to 1M users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoginBenchmark {
+
+    /** The number of registered users. */
+    @Param({ "1000", "10000", "100000", "1000000" })
+    public int users;
+
+    // Attributes
+    private Data data;
+    private PrintStream console;
+
+    /**
+     * The random users picked by each benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Inputs {
+
+        // Attributes
+        private Random random;
+
+        /**
+         * Seeds the random users with the number of users.
+         *
+         * @param benchmark the benchmark state
+         */
+        @Setup(Level.Trial)
+        public void setUp(LoginBenchmark benchmark) {
+            this.random = new Random(benchmark.users);
+        }
+    }
+
+    /**
+     * Registers the users. The welcome message printed on each successful
+     * login is silenced until the trial ends.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.data = new Data();
+        for (int i = 0; i < this.users; i++) {
+            this.data.addApplicant(new Applicant(DataGenerator.nric(i), "Applicant " + i, 21 + i % 60,
+                    i % 2 == 0 ? MaritalStatus.Single : MaritalStatus.Married));
+        }
+        this.console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    /**
+     * Restores the console once the trial ends.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(this.console);
+    }
+
+    /**
+     * Logs in a random user.
+     *
+     * @param inputs the random users of this thread
+     * @return the user logged in
+     */
+    @Benchmark
+    public User login(Inputs inputs) {
+        return AuthControl.login(DataGenerator.nric(inputs.random.nextInt(this.users)), "password", this.data);
+    }
+
+    /**
+     * Checks that a random user exists.
+     *
+     * @param inputs the random users of this thread
+     * @return true if the user exists
+     */
+    @Benchmark
+    public boolean NRICExists(Inputs inputs) {
+        return AuthControl.NRICExists(DataGenerator.nric(inputs.random.nextInt(this.users)), this.data);
+    }
+}
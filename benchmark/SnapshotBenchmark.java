@@ -0,0 +1,259 @@
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import control.Checkpointer;
+import entity.Applicant;
+import entity.Project;
+import entity.User;
+import service.ApplicantService;
+import service.ManagerService;
+import shared.Data;
+
+/**
+ * The SnapshotBenchmark class measures the time taken to save and load the
+ * data file, for data from {@link DataGenerator}, as serialized data, as a
+ * {@link shared.MappedSnapshot} and as a {@link shared.ShardedSnapshot}. The
+ * time to find the first user to log in after loading is measured too, as a
+ * mapped snapshot only reads entities as they are used. Saves are timed for
+ * all of the data, and after a change to a single project or a single
+ * applicant, as when a user logs out; only the sharded snapshot writes less
+ * for those. The size of the data file is printed at the end of each trial.
+ * Run with {@code java -jar target/benchmarks.jar SnapshotBenchmark} after
+ * {@code mvn -P jmh package} for about a million applicants, or add
+ * {@code -p scale=users:projects:applications:enquiries} for another scale.
+ * The same seed always gives the same data, so builds with different data
+ * file formats can be compared by running the benchmark against each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SnapshotBenchmark {
+
+    /** The seed of the generated data. */
+    private static final long SEED = 2002;
+
+    /** The scale, as users, projects, applications and enquiries. */
+    @Param({ "1111250:2000:500000:200000" })
+    public String scale;
+
+    /** The format to save the data in: serial, mapped or sharded. */
+    @Param({ "serial", "mapped", "sharded" })
+    public String format;
+
+    // Attributes
+    private Data data;
+    private Applicant applicant;
+    private Project project;
+    private File dataFile;
+    private Checkpointer checkpointer;
+    private int runs;
+
+    /**
+     * Marks all of the data as changed before each save.
+     */
+    @State(Scope.Benchmark)
+    public static class AllChanged {
+
+        /**
+         * Marks all of the data as changed.
+         *
+         * @param benchmark the benchmark state
+         */
+        @Setup(Level.Invocation)
+        public void setUp(SnapshotBenchmark benchmark) {
+            benchmark.data.markAllChanged();
+        }
+    }
+
+    /**
+     * Changes a single project before each save.
+     */
+    @State(Scope.Benchmark)
+    public static class ProjectChanged {
+
+        /**
+         * Toggles the visibility of the project.
+         *
+         * @param benchmark the benchmark state
+         */
+        @Setup(Level.Invocation)
+        public void setUp(SnapshotBenchmark benchmark) {
+            ManagerService.toggleVisibility(benchmark.project, benchmark.data);
+        }
+    }
+
+    /**
+     * Changes a single applicant before each save.
+     */
+    @State(Scope.Benchmark)
+    public static class UserChanged {
+
+        /**
+         * Makes an enquiry as the applicant.
+         *
+         * @param benchmark the benchmark state
+         */
+        @Setup(Level.Invocation)
+        public void setUp(SnapshotBenchmark benchmark) {
+            ApplicantService.enquire(benchmark.applicant, benchmark.project, "Benchmark", "Run " + benchmark.runs++,
+                    benchmark.data);
+        }
+    }
+
+    /**
+     * Generates the data, and saves it once for the load benchmarks.
+     *
+     * @throws IOException if the temporary data file could not be created
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String[] counts = this.scale.split(":");
+        this.data = new DataGenerator(Integer.parseInt(counts[0]), Integer.parseInt(counts[1]),
+                Integer.parseInt(counts[2]), Integer.parseInt(counts[3])).generate(SEED);
+        this.applicant = this.data.getApplicantList().get(this.data.getApplicantList().size() / 2);
+        this.project = this.data.getProjectList().get(this.data.getProjectList().size() / 2);
+        this.dataFile = File.createTempFile("snapshot", ".bin");
+        this.dataFile.deleteOnExit();
+        this.checkpointer = new Checkpointer(this.dataFile.getPath(), this.format);
+        this.checkpointer.checkpoint(this.data, true);
+    }
+
+    /**
+     * Prints the size of the data file, and deletes it.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%nData file %d bytes%n", size(this.dataFile));
+        delete(this.dataFile);
+    }
+
+    /**
+     * Saves all of the data.
+     *
+     * @param changed marks all of the data as changed
+     * @return the data file
+     */
+    @Benchmark
+    public File save(AllChanged changed) {
+        this.checkpointer.checkpoint(this.data, true);
+        return this.dataFile;
+    }
+
+    /**
+     * Saves the data after a change to a single project.
+     *
+     * @param changed changes the project
+     * @return the data file
+     */
+    @Benchmark
+    public File saveAfterProject(ProjectChanged changed) {
+        this.checkpointer.checkpoint(this.data, true);
+        return this.dataFile;
+    }
+
+    /**
+     * Saves the data after a change to a single applicant.
+     *
+     * @param changed changes the applicant
+     * @return the data file
+     */
+    @Benchmark
+    public File saveAfterUser(UserChanged changed) {
+        this.checkpointer.checkpoint(this.data, true);
+        return this.dataFile;
+    }
+
+    /**
+     * Loads the data file.
+     *
+     * @return the data loaded
+     * @throws IOException            if the data file could not be read
+     * @throws ClassNotFoundException if the data file does not hold data
+     */
+    @Benchmark
+    public Data load() throws IOException, ClassNotFoundException {
+        return DataGenerator.load(this.dataFile.getPath());
+    }
+
+    /**
+     * Loads the data file and finds the applicant, as the first login after
+     * startup does.
+     *
+     * @return the applicant found
+     * @throws IOException            if the data file could not be read
+     * @throws ClassNotFoundException if the data file does not hold data
+     */
+    @Benchmark
+    public User loadAndLogin() throws IOException, ClassNotFoundException {
+        User user = DataGenerator.load(this.dataFile.getPath()).findUser(this.applicant.getNRIC());
+        if (user == null)
+            throw new IllegalStateException("Loaded data does not match the saved data");
+        return user;
+    }
+
+    /**
+     * Gets the size of a data file, with the shards or mapped snapshots kept
+     * next to it.
+     *
+     * @param dataFile the data file
+     * @return the size in bytes
+     */
+    private static long size(File dataFile) {
+        long size = dataFile.length();
+        for (File directory : directoriesOf(dataFile)) {
+            File[] files = directory.listFiles();
+            if (files == null)
+                continue;
+            for (File file : files) {
+                size += file.length();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Deletes a data file, with the shards or mapped snapshots kept next to
+     * it.
+     *
+     * @param dataFile the data file
+     */
+    private static void delete(File dataFile) {
+        for (File directory : directoriesOf(dataFile)) {
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            directory.delete();
+        }
+        dataFile.delete();
+    }
+
+    private static File[] directoriesOf(File dataFile) {
+        String name = dataFile.getName();
+        String base = name.substring(0, name.lastIndexOf('.'));
+        return new File[] { new File(dataFile.getParentFile(), base + ".shards"),
+                new File(dataFile.getParentFile(), base + ".mapped") };
+    }
+}
@@ -0,0 +1,156 @@
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import control.Journal;
+import entity.Applicant;
+import entity.Application;
+import entity.FlatBooking;
+import entity.Manager;
+import entity.Project;
+import entity.Unit;
+import enums.MaritalStatus;
+import enums.UnitType;
+import service.ApplicantService;
+import service.ManagerService;
+import service.OfficerService;
+import shared.Data;
+
+/**
+ * The WorkflowBenchmark class measures how the application, booking and
+ * confirmation workflow scales with the number of threads running it.
+ * Each workflow applies for a project, approves the application, books a flat
+ * and confirms the booking through the services the interfaces call, so it
+ * takes the same locks as sessions of the session server do, and records each
+ * step in a journal. It is run with the threads spread over separate
+ * projects, which take separate locks, and with all threads on one project,
+ * which share a lock.
+ * Run with {@code java -jar target/benchmarks.jar WorkflowBenchmark -t 16}
+ * after {@code mvn -P jmh package}, with the number of threads to measure; it
+ * runs on 4 threads by default. The scaling it shows is bounded by the number
+ * of processors available.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class WorkflowBenchmark {
+
+    /** The number of projects, one for each thread up to this many. */
+    private static final int PROJECTS = 64;
+
+    /** The number of units of each project, more than any iteration books. */
+    private static final int UNITS = 10_000_000;
+
+    /** Whether to give each thread its own project, or run all threads on one. */
+    @Param({ "true", "false" })
+    public boolean spread;
+
+    // Attributes
+    private Data data;
+    private File journalFile;
+    private Journal journal;
+    private final AtomicInteger threads = new AtomicInteger();
+    private final AtomicInteger applicants = new AtomicInteger();
+
+    /**
+     * The project each benchmark thread runs its workflows on.
+     */
+    @State(Scope.Thread)
+    public static class Worker {
+
+        // Attributes
+        private Project project;
+
+        /**
+         * Picks the project of this thread for the iteration.
+         *
+         * @param benchmark the benchmark state
+         */
+        @Setup(Level.Iteration)
+        public void setUp(WorkflowBenchmark benchmark) {
+            int thread = benchmark.spread ? benchmark.threads.getAndIncrement() % PROJECTS : 0;
+            this.project = benchmark.data.getProjectList().get(thread);
+        }
+    }
+
+    /**
+     * Creates fresh data for each iteration, with a project for each thread
+     * and a journal in a temporary file.
+     *
+     * @throws IOException if the journal could not be created
+     */
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        this.data = new Data();
+        this.journalFile = File.createTempFile("workflow", ".journal");
+        this.journalFile.deleteOnExit();
+        this.journal = new Journal(this.journalFile.getPath(), this.data, 0);
+        this.data.setJournal(this.journal);
+        for (int i = 0; i < PROJECTS; i++) {
+            Manager manager = new Manager(DataGenerator.nric(i), "Manager " + i, 40, MaritalStatus.Married);
+            this.data.addManager(manager);
+            List<Unit> units = new ArrayList<>();
+            units.add(new Unit(UnitType.TWO_ROOM, UNITS, 300_000));
+            ManagerService.createProject(manager, "Project " + i, "Bedok", units, LocalDate.now(),
+                    LocalDate.now().plusDays(30), 10, this.data);
+        }
+        this.threads.set(0);
+        this.applicants.set(PROJECTS);
+    }
+
+    /**
+     * Checks that every workflow of the iteration left a booking, and deletes
+     * the journal.
+     */
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        this.journal.close();
+        this.journalFile.delete();
+        int workflows = this.applicants.get() - PROJECTS;
+        if (this.data.getFlatBookings().size() != workflows)
+            throw new IllegalStateException("Lost bookings: " + this.data.getFlatBookings().size() + " of "
+                    + workflows);
+    }
+
+    /**
+     * Runs one workflow: apply, approve, book and confirm.
+     *
+     * @param worker the project of this thread
+     * @return the confirmed booking
+     */
+    @Benchmark
+    public FlatBooking workflow(Worker worker) {
+        int i = this.applicants.getAndIncrement();
+        Applicant applicant = new Applicant(DataGenerator.nric(i), "Applicant " + i, 40, MaritalStatus.Married);
+        this.data.addApplicant(applicant);
+        Application application = ApplicantService.apply(applicant, worker.project, UnitType.TWO_ROOM, this.data);
+        ManagerService.approveApplication(application, this.data);
+        OfficerService.confirmBooking(ApplicantService.book(applicant, this.data), this.data);
+        return applicant.getBooking();
+    }
+}
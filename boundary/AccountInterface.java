@@ -1,9 +1,12 @@
 package boundary;
 
 import java.util.Scanner;
+import java.util.concurrent.locks.Lock;
 import entity.User;
 import entity.Manager;
+import enums.Operation;
 import shared.Data;
+import shared.ProjectLocks;
 
 /**
  * The AccountInterface class provides methods to handle user account settings
@@ -51,7 +54,16 @@ public class AccountInterface {
                         String oldPass = sc.nextLine();
                         System.out.println("New Password:");
                         String newPass = sc.nextLine();
-                        boolean passChange = user.changePassword(oldPass, newPass);
+                        boolean passChange;
+                        Lock lock = ProjectLocks.forChanges().readLock();
+                        lock.lock();
+                        try {
+                            passChange = user.changePassword(oldPass, newPass);
+                            if (passChange)
+                                data.record(Operation.CHANGE_PASSWORD, user, newPass);
+                        } finally {
+                            lock.unlock();
+                        }
                         if (passChange) {
                             System.out.println("Password changed!");
                             return true;
@@ -131,10 +143,10 @@ public class AccountInterface {
     public static void viewCodes(Data data) {
         System.out.println();
         System.out.println("Manager Codes:");
-        System.out.println(data.getManagerCodes());
+        System.out.println(data.copyOf(data.getManagerCodes()));
         System.out.println();
         System.out.println("Officer Codes:");
-        System.out.println(data.getOfficerCodes());
+        System.out.println(data.copyOf(data.getOfficerCodes()));
         System.out.println("------------------------------");
     }
 
@@ -149,14 +161,25 @@ public class AccountInterface {
         System.out.println();
         System.out.print("Enter new manager code: ");
         String newCode = sc.nextLine();
-        if (data.getManagerCodes().contains(newCode)) {
-            System.out.println("Code already exists!");
-        } else if (data.getOfficerCodes().contains(newCode)) {
-            System.out.println("Officer code already exists!");
-        } else {
-            data.getManagerCodes().add(newCode);
-            System.out.println("Code successfully added.");
+        String message;
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        ProjectLocks.forIndexes().lock();
+        try {
+            if (data.getManagerCodes().contains(newCode)) {
+                message = "Code already exists!";
+            } else if (data.getOfficerCodes().contains(newCode)) {
+                message = "Officer code already exists!";
+            } else {
+                data.getManagerCodes().add(newCode);
+                data.record(Operation.ADD_MANAGER_CODE, newCode);
+                message = "Code successfully added.";
+            }
+        } finally {
+            ProjectLocks.forIndexes().unlock();
+            lock.unlock();
         }
+        System.out.println(message);
         System.out.println("------------------------------");
     }
 
@@ -171,14 +194,25 @@ public class AccountInterface {
         System.out.println();
         System.out.print("Enter new officer code: ");
         String newCode = sc.nextLine();
-        if (data.getManagerCodes().contains(newCode)) {
-            System.out.println("Manager code already exists!");
-        } else if (data.getOfficerCodes().contains(newCode)) {
-            System.out.println("Code already exists!");
-        } else {
-            data.getOfficerCodes().add(newCode);
-            System.out.println("Code successfully added.");
+        String message;
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        ProjectLocks.forIndexes().lock();
+        try {
+            if (data.getManagerCodes().contains(newCode)) {
+                message = "Manager code already exists!";
+            } else if (data.getOfficerCodes().contains(newCode)) {
+                message = "Code already exists!";
+            } else {
+                data.getOfficerCodes().add(newCode);
+                data.record(Operation.ADD_OFFICER_CODE, newCode);
+                message = "Code successfully added.";
+            }
+        } finally {
+            ProjectLocks.forIndexes().unlock();
+            lock.unlock();
         }
+        System.out.println(message);
         System.out.println("------------------------------");
     }
 
@@ -192,9 +226,19 @@ public class AccountInterface {
         System.out.println();
         System.out.print("Enter manager code to remove (case-sensitive): ");
         String code = sc.nextLine();
-        if (data.getManagerCodes().contains(code)) {
-            data.getManagerCodes().remove(code);
-        } else {
+        boolean removed;
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        ProjectLocks.forIndexes().lock();
+        try {
+            removed = data.getManagerCodes().remove(code);
+            if (removed)
+                data.record(Operation.REMOVE_MANAGER_CODE, code);
+        } finally {
+            ProjectLocks.forIndexes().unlock();
+            lock.unlock();
+        }
+        if (!removed) {
             System.out.println("Code does not exist.");
         }
         System.out.println("------------------------------");
@@ -210,9 +254,19 @@ public class AccountInterface {
         System.out.println();
         System.out.print("Enter officer code to remove (case-sensitive): ");
         String code = sc.nextLine();
-        if (data.getOfficerCodes().contains(code)) {
-            data.getOfficerCodes().remove(code);
-        } else {
+        boolean removed;
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        ProjectLocks.forIndexes().lock();
+        try {
+            removed = data.getOfficerCodes().remove(code);
+            if (removed)
+                data.record(Operation.REMOVE_OFFICER_CODE, code);
+        } finally {
+            ProjectLocks.forIndexes().unlock();
+            lock.unlock();
+        }
+        if (!removed) {
             System.out.println("Code does not exist.");
         }
         System.out.println("------------------------------");
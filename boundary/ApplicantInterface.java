@@ -8,8 +8,9 @@ import control.CustomSortControl;
 import control.ArrayControl;
 import entity.Applicant;
 import entity.Officer;
-import entity.Project;
+import entity.ProjectListing;
 import entity.Enquiry;
+import service.ApplicantService;
 import shared.Data;
 import enums.Status;
 
@@ -102,10 +103,9 @@ public class ApplicantInterface {
         System.out.println();
         System.out.println("| Projects List |");
         System.out.println();
-        List<Project> projects = ApplicantControl.getApplicableProjects(applicant, data);
-        if (projects.size() > 0) {
-            Project.sortProjects(projects, applicant);
-            ArrayControl.printFromList(projects, false);
+        List<ProjectListing> listings = ApplicantService.getSortedListings(applicant, data);
+        if (listings.size() > 0) {
+            ArrayControl.printFromList(listings);
             System.out.println();
             System.out.println("(1) Sort Projects");
             System.out.println("(2) Apply for Project");
@@ -118,16 +118,16 @@ public class ApplicantInterface {
                 switch (choice) {
                     case 1:
                         System.out.println();
-                        CustomSortControl.setFilter(applicant, sc);
-                        Project.sortProjects(projects, applicant);
-                        ArrayControl.printFromList(projects, false);
+                        CustomSortControl.setFilter(applicant, sc, data);
+                        listings = ApplicantService.getSortedListings(applicant, data);
+                        ArrayControl.printFromList(listings);
                         System.out.println("------------------------------");
                         break;
                     case 2:
-                        ApplicantControl.applyForProject(applicant, projects, sc, data);
+                        ApplicantControl.applyForProject(applicant, listings, sc, data);
                         break;
                     case 3:
-                        ApplicantControl.enquireAboutProject(applicant, projects, sc, data);
+                        ApplicantControl.enquireAboutProject(applicant, listings, sc, data);
                         break;
                 }
 
@@ -157,7 +157,11 @@ public class ApplicantInterface {
                 System.out.println("Would you like to book flat? (Y/N)");
                 String choice = sc.nextLine().toLowerCase();
                 if (choice.equals("y")) {
-                    applicant.getApplication().book(data);
+                    try {
+                        ApplicantService.book(applicant, data);
+                    } catch (IllegalStateException e) {
+                        System.out.println(e.getMessage());
+                    }
                 }
             }
         } else {
@@ -0,0 +1,583 @@
+package boundary;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import control.AuthControl;
+import control.BallotControl.BallotResult;
+import control.Initialize;
+import control.ManagerControl;
+import entity.Applicant;
+import entity.Application;
+import entity.Enquiry;
+import entity.FlatBooking;
+import entity.Manager;
+import entity.Officer;
+import entity.Project;
+import entity.Registration;
+import entity.Unit;
+import entity.User;
+import entity.Withdrawal;
+import enums.MaritalStatus;
+import enums.Status;
+import enums.UnitType;
+import service.ManagerService;
+import service.OfficerService;
+import service.ReportFilter;
+import shared.Data;
+
+/**
+ * The BatchRunner class runs a script of commands against the data, so bulk
+ * work such as approving hundreds of registrations does not have to go
+ * through the menus one selection at a time.
+ * The script has one command per line, with arguments separated by spaces.
+ * Arguments holding spaces are put in double quotes, and lines starting with
+ * {@code #} are comments. Commands act as the user last logged in with
+ * {@code login}, and are limited to what that user could do from their menu:
+ *
+ * <pre>
+ * login NRIC password
+ * approve-registration project officerNRIC
+ * reject-registration project officerNRIC
+ * approve-application project applicantNRIC
+ * reject-application project applicantNRIC
+ * approve-withdrawal project applicantNRIC
+ * reject-withdrawal project applicantNRIC
+ * confirm-booking project applicantNRIC
+ * reply-enquiry project applicantNRIC header reply
+ * create-project name neighbourhood openingDate closingDate officerSlots type:units:price...
+ * ballot project [seed]
+ * report project [type=2-Room] [min-age=N] [max-age=N] [marital=Married]
+ * </pre>
+ *
+ * A command that fails is reported with its line number and skipped. The data
+ * is loaded once before the script and saved once after it, and the time
+ * taken by each kind of command is printed at the end.
+ */
+public class BatchRunner {
+
+    /**
+     * The time taken by one kind of command.
+     */
+    private static class Timing {
+        int count;
+        int failed;
+        long nanos;
+    }
+
+    // Attributes
+    private final Data data;
+    private final Map<String, Timing> timings = new LinkedHashMap<>();
+    private User user;
+
+    /**
+     * Creates a runner for the given data.
+     *
+     * @param data the data object the commands act on
+     */
+    public BatchRunner(Data data) {
+        this.data = data;
+    }
+
+    /**
+     * Loads the data, runs the script in the given file against it, and saves
+     * the data.
+     *
+     * @param scriptFile the path of the script
+     */
+    public static void run(String scriptFile) {
+        long start = System.nanoTime();
+        Data data = Initialize.initializeData();
+        long loadNanos = System.nanoTime() - start;
+
+        BatchRunner runner = new BatchRunner(data);
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(scriptFile))) {
+            runner.run(reader);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        start = System.nanoTime();
+        Initialize.saveData(data);
+        long saveNanos = System.nanoTime() - start;
+
+        runner.printTimings();
+        System.out.printf("Loaded data in %.1f ms, saved in %.1f ms%n", loadNanos / 1e6, saveNanos / 1e6);
+    }
+
+    /**
+     * Runs each command of a script in turn.
+     *
+     * @param reader the reader of the script
+     * @throws IOException if the script could not be read
+     */
+    public void run(BufferedReader reader) throws IOException {
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+
+            List<String> args;
+            try {
+                args = tokenize(line);
+            } catch (IllegalArgumentException e) {
+                System.out.println("Line " + lineNumber + ": " + e.getMessage());
+                continue;
+            }
+            String command = args.remove(0).toLowerCase();
+            Timing timing = this.timings.computeIfAbsent(command, c -> new Timing());
+            long start = System.nanoTime();
+            try {
+                execute(command, args);
+            } catch (RuntimeException e) {
+                timing.failed++;
+                System.out.println("Line " + lineNumber + ": " + e.getMessage());
+            }
+            timing.nanos += System.nanoTime() - start;
+            timing.count++;
+        }
+    }
+
+    /**
+     * Prints the number of commands of each kind that were run, how many of
+     * them failed, and the time they took.
+     */
+    public void printTimings() {
+        System.out.printf("%-22s%8s%8s%12s%12s%n", "Command", "Count", "Failed", "Total ms", "Mean us");
+        int count = 0;
+        int failed = 0;
+        long nanos = 0;
+        for (Map.Entry<String, Timing> entry : this.timings.entrySet()) {
+            Timing timing = entry.getValue();
+            System.out.printf("%-22s%8d%8d%12.1f%12.1f%n", entry.getKey(), timing.count, timing.failed,
+                    timing.nanos / 1e6, timing.nanos / 1e3 / timing.count);
+            count += timing.count;
+            failed += timing.failed;
+            nanos += timing.nanos;
+        }
+        System.out.printf("%-22s%8d%8d%12.1f%12.1f%n", "Total", count, failed, nanos / 1e6,
+                count == 0 ? 0 : nanos / 1e3 / count);
+    }
+
+    /**
+     * Runs a single command.
+     *
+     * @param command the name of the command
+     * @param args    the arguments of the command
+     * @throws RuntimeException with a message for the user, if the command
+     *                          cannot be run
+     */
+    private void execute(String command, List<String> args) {
+        switch (command) {
+            case "login":
+                requireArgs(args, 2);
+                User user = AuthControl.login(args.get(0), args.get(1), this.data);
+                if (user == null)
+                    throw new IllegalArgumentException("Login as " + args.get(0) + " failed.");
+                this.user = user;
+                break;
+            case "approve-registration":
+                requireArgs(args, 2);
+                ManagerService.approveRegistration(findRegistration(managedProject(args.get(0)), args.get(1)),
+                        this.data);
+                break;
+            case "reject-registration":
+                requireArgs(args, 2);
+                ManagerService.rejectRegistration(findRegistration(managedProject(args.get(0)), args.get(1)),
+                        this.data);
+                break;
+            case "approve-application":
+                requireArgs(args, 2);
+                ManagerService.approveApplication(findApplication(managedProject(args.get(0)), args.get(1)),
+                        this.data);
+                break;
+            case "reject-application":
+                requireArgs(args, 2);
+                ManagerService.rejectApplication(findApplication(managedProject(args.get(0)), args.get(1)),
+                        this.data);
+                break;
+            case "approve-withdrawal":
+                requireArgs(args, 2);
+                ManagerService.approveWithdrawal(findWithdrawal(managedProject(args.get(0)), args.get(1)),
+                        this.data);
+                break;
+            case "reject-withdrawal":
+                requireArgs(args, 2);
+                ManagerService.rejectWithdrawal(findWithdrawal(managedProject(args.get(0)), args.get(1)),
+                        this.data);
+                break;
+            case "confirm-booking":
+                requireArgs(args, 2);
+                OfficerService.confirmBooking(findBooking(assignedProject(args.get(0)), args.get(1)), this.data);
+                break;
+            case "reply-enquiry":
+                requireArgs(args, 4);
+                replyEnquiry(args.get(0), args.get(1), args.get(2), args.get(3));
+                break;
+            case "create-project":
+                requireArgs(args, 6);
+                createProject(args);
+                break;
+            case "ballot":
+                requireArgs(args, 1);
+                Project project = managedProject(args.get(0));
+                long seed = args.size() > 1 ? parseLong(args.get(1)) : new SecureRandom().nextLong();
+                BallotResult result = ManagerService.runBallot(project, seed, this.data);
+                System.out.println("Ballot with seed " + seed + ":");
+                System.out.println(result);
+                break;
+            case "report":
+                requireArgs(args, 1);
+                writeReport(managedProject(args.get(0)), args.subList(1, args.size()));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command " + command + ".");
+        }
+    }
+
+    /**
+     * Replies to an enquiry as the logged in manager or officer.
+     *
+     * @param projectName the name of the project the enquiry is about
+     * @param nric        the NRIC of the applicant who made the enquiry
+     * @param header      the header of the enquiry
+     * @param reply       the reply
+     */
+    private void replyEnquiry(String projectName, String nric, String header, String reply) {
+        if (this.user instanceof Manager) {
+            Enquiry enquiry = findEnquiry(managedProject(projectName), nric, header);
+            ManagerService.reply((Manager) this.user, enquiry, reply, this.data);
+        } else {
+            Enquiry enquiry = findEnquiry(assignedProject(projectName), nric, header);
+            OfficerService.reply((Officer) this.user, enquiry, reply, this.data);
+        }
+    }
+
+    /**
+     * Creates a project managed by the logged in manager.
+     *
+     * @param args the name, neighbourhood, opening date, closing date and
+     *             officer slots of the project, followed by its units as
+     *             {@code type:units:price}
+     */
+    private void createProject(List<String> args) {
+        Manager manager = requireUser(Manager.class);
+        LocalDate openingDate = parseDate(args.get(2));
+        LocalDate closingDate = parseDate(args.get(3));
+        int officerSlots = parseInt(args.get(4));
+
+        List<Unit> units = new ArrayList<>();
+        for (String unit : args.subList(5, args.size())) {
+            String[] fields = unit.split(":");
+            if (fields.length != 3)
+                throw new IllegalArgumentException("Invalid unit " + unit + ", expected type:units:price.");
+            units.add(new Unit(UnitType.fromString(fields[0]), parseInt(fields[1]), parseDouble(fields[2])));
+        }
+        ManagerService.createProject(manager, args.get(0), args.get(1), units, openingDate, closingDate,
+                officerSlots, this.data);
+    }
+
+    /**
+     * Writes a report for a project to the report folder.
+     *
+     * @param project the project
+     * @param options the filter options, as {@code type=}, {@code min-age=},
+     *                {@code max-age=} and {@code marital=}
+     */
+    private void writeReport(Project project, List<String> options) {
+        UnitType unitType = null;
+        int minAge = 0;
+        int maxAge = 0;
+        MaritalStatus maritalStatus = null;
+        for (String option : options) {
+            int split = option.indexOf('=');
+            String key = split < 0 ? option : option.substring(0, split);
+            String value = option.substring(split + 1);
+            switch (key) {
+                case "type":
+                    unitType = UnitType.fromString(value);
+                    break;
+                case "min-age":
+                    minAge = parseInt(value);
+                    break;
+                case "max-age":
+                    maxAge = parseInt(value);
+                    break;
+                case "marital":
+                    maritalStatus = parseMaritalStatus(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown report option " + option + ".");
+            }
+        }
+
+        String filename = ManagerControl.reportFilename(project);
+        try (Writer writer = Files.newBufferedWriter(Paths.get(ManagerControl.REPORT_FILEPATH + filename))) {
+            ManagerService.writeReport(project, new ReportFilter(unitType, minAge, maxAge, maritalStatus), writer,
+                    null);
+            System.out.println("Report generated - " + filename);
+        } catch (IOException e) {
+            throw new IllegalStateException("An error occurred: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the logged in user, who must be of the given role.
+     *
+     * @param <T>  the role
+     * @param role the class of the role
+     * @return the logged in user
+     * @throws IllegalStateException if no user of the role is logged in
+     */
+    private <T extends User> T requireUser(Class<T> role) {
+        if (!role.isInstance(this.user))
+            throw new IllegalStateException("Log in as " + role.getSimpleName().toLowerCase() + " first.");
+        return role.cast(this.user);
+    }
+
+    /**
+     * Finds a project managed by the logged in manager.
+     *
+     * @param name the name of the project
+     * @return the project
+     * @throws IllegalArgumentException if the manager has no such project
+     */
+    private Project managedProject(String name) {
+        return requireProject(requireUser(Manager.class).findProject(name), name);
+    }
+
+    /**
+     * Finds a project the logged in officer is assigned to.
+     *
+     * @param name the name of the project
+     * @return the project
+     * @throws IllegalArgumentException if the officer has no such project
+     */
+    private Project assignedProject(String name) {
+        return requireProject(requireUser(Officer.class).findAssignedProject(name), name);
+    }
+
+    /**
+     * Checks that a project of the logged in user was found by name.
+     *
+     * @param project the project found, or null
+     * @param name    the name of the project
+     * @return the project
+     * @throws IllegalArgumentException if no project was found
+     */
+    private static Project requireProject(Project project, String name) {
+        if (project == null)
+            throw new IllegalArgumentException("No project " + name + " of yours.");
+        return project;
+    }
+
+    /**
+     * Finds a user by NRIC through the user index of the data, so that the
+     * entities of the user are found without scanning those of a project.
+     *
+     * @param nric the NRIC of the user
+     * @param role the type of user expected
+     * @param <T>  the type of user expected
+     * @return the user, or null if there is no such user of that type
+     */
+    private <T extends User> T findUser(String nric, Class<T> role) {
+        User found = this.data.findUser(nric);
+        return role.isInstance(found) ? role.cast(found) : null;
+    }
+
+    /**
+     * Finds the registration of an officer for a project, among the
+     * registrations of the officer.
+     *
+     * @param project the project
+     * @param nric    the NRIC of the officer
+     * @return the registration
+     * @throws IllegalArgumentException if there is no such registration
+     */
+    private Registration findRegistration(Project project, String nric) {
+        Officer officer = findUser(nric, Officer.class);
+        if (officer != null) {
+            for (Registration registration : officer.getRegistrations()) {
+                if (registration.getProject() == project)
+                    return registration;
+            }
+        }
+        throw new IllegalArgumentException("No registration by " + nric + " for " + project.getName() + ".");
+    }
+
+    /**
+     * Finds the application of an applicant for a project.
+     *
+     * @param project the project
+     * @param nric    the NRIC of the applicant
+     * @return the application
+     * @throws IllegalArgumentException if there is no such application
+     */
+    private Application findApplication(Project project, String nric) {
+        Applicant applicant = findUser(nric, Applicant.class);
+        Application application = applicant == null ? null : applicant.getApplication();
+        if (application == null || application.getProject() != project)
+            throw new IllegalArgumentException("No application by " + nric + " for " + project.getName() + ".");
+        return application;
+    }
+
+    /**
+     * Finds the booking of an applicant for a project.
+     *
+     * @param project the project
+     * @param nric    the NRIC of the applicant
+     * @return the booking
+     * @throws IllegalArgumentException if there is no such booking
+     */
+    private FlatBooking findBooking(Project project, String nric) {
+        Applicant applicant = findUser(nric, Applicant.class);
+        FlatBooking booking = applicant == null ? null : applicant.getBooking();
+        if (booking == null || booking.getProject() != project)
+            throw new IllegalArgumentException("No booking by " + nric + " for " + project.getName() + ".");
+        return booking;
+    }
+
+    /**
+     * Finds the pending withdrawal request of an applicant for a project.
+     *
+     * @param project the project
+     * @param nric    the NRIC of the applicant
+     * @return the withdrawal request
+     * @throws IllegalArgumentException if there is no such withdrawal request
+     */
+    private Withdrawal findWithdrawal(Project project, String nric) {
+        Applicant applicant = findUser(nric, Applicant.class);
+        Withdrawal withdrawal = applicant == null ? null : applicant.getWithdrawal();
+        if (withdrawal == null || withdrawal.getStatus() != Status.Pending
+                || withdrawal.getApplication().getProject() != project)
+            throw new IllegalArgumentException("No withdrawal by " + nric + " for " + project.getName() + ".");
+        return withdrawal;
+    }
+
+    /**
+     * Finds an enquiry made by an applicant about a project, among the
+     * enquiries of the applicant, preferring one that has not been answered.
+     *
+     * @param project the project
+     * @param nric    the NRIC of the applicant
+     * @param header  the header of the enquiry
+     * @return the enquiry
+     * @throws IllegalArgumentException if there is no such enquiry
+     */
+    private Enquiry findEnquiry(Project project, String nric, String header) {
+        Applicant applicant = findUser(nric, Applicant.class);
+        List<Enquiry> enquiries = applicant == null ? List.of() : applicant.getEnquiries();
+        Enquiry found = null;
+        for (Enquiry enquiry : enquiries) {
+            if (enquiry.getProject() == project
+                    && enquiry.getEnquiryHeader().equalsIgnoreCase(header)) {
+                if (!enquiry.isAnswered())
+                    return enquiry;
+                found = enquiry;
+            }
+        }
+        if (found == null)
+            throw new IllegalArgumentException("No enquiry " + header + " by " + nric + " for " + project.getName()
+                    + ".");
+        return found;
+    }
+
+    /**
+     * Splits a command into its name and arguments, at spaces outside double
+     * quotes.
+     *
+     * @param line the command
+     * @return the name of the command followed by its arguments
+     */
+    private static List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean quoted = false;
+        boolean inToken = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                inToken = true;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (inToken)
+                    tokens.add(token.toString());
+                token.setLength(0);
+                inToken = false;
+            } else {
+                token.append(c);
+                inToken = true;
+            }
+        }
+        if (quoted)
+            throw new IllegalArgumentException("Unclosed quote.");
+        if (inToken)
+            tokens.add(token.toString());
+        return tokens;
+    }
+
+    /**
+     * Checks that a command has at least the given number of arguments.
+     *
+     * @param args  the arguments of the command
+     * @param count the number of arguments required
+     * @throws IllegalArgumentException if there are too few arguments
+     */
+    private static void requireArgs(List<String> args, int count) {
+        if (args.size() < count)
+            throw new IllegalArgumentException("Expected " + count + " arguments, got " + args.size() + ".");
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number " + value + ".");
+        }
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number " + value + ".");
+        }
+    }
+
+    private static double parseDouble(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number " + value + ".");
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date " + value + ", expected YYYY-MM-DD.");
+        }
+    }
+
+    private static MaritalStatus parseMaritalStatus(String value) {
+        for (MaritalStatus maritalStatus : MaritalStatus.values()) {
+            if (maritalStatus.name().equalsIgnoreCase(value))
+                return maritalStatus;
+        }
+        throw new IllegalArgumentException("Invalid marital status " + value + ".");
+    }
+}
@@ -8,10 +8,12 @@ import entity.Project;
 import entity.Registration;
 import entity.Application;
 import entity.Withdrawal;
+import service.ManagerService;
 import shared.Data;
 import control.ManagerControl;
 import control.ArrayControl;
 import control.CustomSortControl;
+import enums.Status;
 
 /**
  * The ManagerInterface class provides a user interface for a manager to manage
@@ -52,12 +54,12 @@ public class ManagerInterface {
                     case 1:
                         // ALL PROJECTS
                         System.out.println("All Projects:");
-                        ArrayControl.printFromList(data.getProjectList());
+                        ArrayControl.printFromList(data.copyOf(data.getProjectList()));
                         break;
                     case 2:
                         // ALL ENQUIRIES
                         System.out.println("All Enquiries:");
-                        Enquiry.viewEnquiries(data.getEnquiryList());
+                        Enquiry.viewEnquiries(data.copyOf(data.getEnquiryList()));
                         break;
                     case 3:
                         // YOUR PROJECTS
@@ -98,8 +100,7 @@ public class ManagerInterface {
         System.out.println("| Your Projects |");
         System.out.println();
         // Sort before printing
-        Project.sortProjects(manager.getProjects(), manager);
-        ArrayControl.printFromList(manager.getProjects(), true);
+        ArrayControl.printFromList(manager.getSortedProjects(), true);
         System.out.println();
         System.out.println("(1) Sort Projects");
         System.out.println("(2) Select Project");
@@ -113,15 +114,14 @@ public class ManagerInterface {
                 case 1:
                     // SORT PROJECT
                     System.out.println();
-                    CustomSortControl.setFilter(manager, sc);
-                    Project.sortProjects(manager.getProjects(), manager);
-                    ArrayControl.printFromList(manager.getProjects(), true);
+                    CustomSortControl.setFilter(manager, sc, data);
+                    ArrayControl.printFromList(manager.getSortedProjects(), true);
                     System.out.println("------------------------------");
                     break;
                 case 2:
                     // SELECT PROJECT
                     System.out.println();
-                    Project selectedProject = ArrayControl.selectFromList(manager.getProjects(), sc);
+                    Project selectedProject = ArrayControl.selectFromList(manager.getSortedProjects(), sc);
                     System.out.println("------------------------------");
                     if (selectedProject != null)
                         selectedProjectMenu(selectedProject, manager, sc, data);
@@ -163,16 +163,17 @@ public class ManagerInterface {
         System.out.println("(7) View All Enquiries");
         System.out.println("(8) View Unanswered Enquiries");
         System.out.println("(9) Generate Report");
+        System.out.println("(10) Run Ballot for Pending Applications");
         System.out.println("Enter any other key to return");
         System.out.print("Choose an option: ");
         try {
             int choice = Integer.parseInt(sc.nextLine());
             switch (choice) {
                 case 1:
-                    project.toggleVisibility();
+                    ManagerControl.toggleVisibility(project, data);
                     break;
                 case 2:
-                    ManagerControl.editProject(manager, project, sc);
+                    ManagerControl.editProject(manager, project, sc, data);
                     break;
                 case 3:
                     ManagerControl.deleteProject(project, data);
@@ -185,10 +186,13 @@ public class ManagerInterface {
                         System.out.println("(2) Reject application");
                         System.out.println("Enter any other key to return");
                         String applicationChoice = sc.nextLine();
-                        if (applicationChoice.equals("1")) {
-                            selectedRegistration.approve(selectedRegistration.getOfficer());
-                        } else if (applicationChoice.equals("2")) {
-                            selectedRegistration.reject();
+                        try {
+                            if (applicationChoice.equals("1"))
+                                ManagerService.approveRegistration(selectedRegistration, data);
+                            else if (applicationChoice.equals("2"))
+                                ManagerService.rejectRegistration(selectedRegistration, data);
+                        } catch (IllegalStateException e) {
+                            System.out.println(e.getMessage());
                         }
                     }
                     break;
@@ -199,16 +203,19 @@ public class ManagerInterface {
                 case 6:
                     // VIEW PENDING APPLICATIONS
                     Application selectedApplication = ArrayControl.selectFromList(
-                            Application.filterPending(project.getApplications()), sc);
+                            project.getApplications(Status.Pending), sc);
                     if (selectedApplication != null) {
                         System.out.println("(1) Approve application");
                         System.out.println("(2) Reject application");
                         System.out.println("Enter any other key to return");
                         String applicationChoice = sc.nextLine();
-                        if (applicationChoice.equals("1")) {
-                            selectedApplication.approve();
-                        } else if (applicationChoice.equals("2")) {
-                            selectedApplication.reject();
+                        try {
+                            if (applicationChoice.equals("1"))
+                                ManagerService.approveApplication(selectedApplication, data);
+                            else if (applicationChoice.equals("2"))
+                                ManagerService.rejectApplication(selectedApplication, data);
+                        } catch (IllegalStateException e) {
+                            System.out.println(e.getMessage());
                         }
                     }
                     break;
@@ -222,13 +229,21 @@ public class ManagerInterface {
                     if (selectedEnquiry != null) {
                         System.out.println("Enter response:");
                         String reply = sc.nextLine();
-                        selectedEnquiry.setReply(reply);
+                        try {
+                            ManagerService.reply(manager, selectedEnquiry, reply, data);
+                        } catch (IllegalArgumentException e) {
+                            System.out.println(e.getMessage());
+                        }
                     }
                     break;
                 case 9:
                     // GENERATE REPORT
                     ManagerControl.generateReport(project, sc);
                     break;
+                case 10:
+                    // RUN BALLOT
+                    ManagerControl.runBallot(project, sc, data);
+                    break;
             }
         } catch (NumberFormatException e) {
             System.out.println("Please enter a valid input.");
@@ -246,7 +261,7 @@ public class ManagerInterface {
      */
     public static void withdrawalMenu(Manager manager, Scanner sc, Data data) {
         System.out.println();
-        Withdrawal selectedWithdrawal = ArrayControl.selectFromList(data.getWithdrawals(), sc);
+        Withdrawal selectedWithdrawal = ArrayControl.selectFromList(data.copyOf(data.getWithdrawals()), sc);
         System.out.println("------------------------------");
         if (selectedWithdrawal != null) {
             System.out.println("(1) Approve withdrawal");
@@ -255,12 +270,12 @@ public class ManagerInterface {
             int choice = Integer.parseInt(sc.nextLine());
             switch (choice) {
                 case 1:
-                    selectedWithdrawal.approve(data);
+                    ManagerService.approveWithdrawal(selectedWithdrawal, data);
                     System.out.println("Withdrawal request approved.");
                     System.out.println("------------------------------");
                     break;
                 case 2:
-                    selectedWithdrawal.reject(data);
+                    ManagerService.rejectWithdrawal(selectedWithdrawal, data);
                     System.out.println("Withdrawal request rejected.");
                     System.out.println("------------------------------");
                     break;
@@ -9,8 +9,8 @@ import entity.FlatBooking;
 import control.OfficerControl;
 import control.ArrayControl;
 import control.CustomSortControl;
+import service.OfficerService;
 import shared.Data;
-import enums.Status;
 
 /**
  * The OfficerInterface class provides a user interface for officers to manage
@@ -86,7 +86,7 @@ public class OfficerInterface {
         System.out.println();
         System.out.println("| Assigned Projects |");
         System.out.println();
-        ArrayControl.printFromList(officer.getAssignedProjects(), true);
+        ArrayControl.printFromList(officer.getSortedProjects(), true);
         System.out.println();
         System.out.println("(1) Sort Projects");
         System.out.println("(2) Select Project");
@@ -100,13 +100,12 @@ public class OfficerInterface {
             switch (projectChoice) {
                 case 1:
                     System.out.println();
-                    CustomSortControl.setFilter(officer, sc);
-                    Project.sortProjects(officer.getAssignedProjects(), officer);
-                    ArrayControl.printFromList(officer.getAssignedProjects(), true);
+                    CustomSortControl.setFilter(officer, sc, data);
+                    ArrayControl.printFromList(officer.getSortedProjects(), true);
                     System.out.println("------------------------------");
                     break;
                 case 2:
-                    Project selectedProject = ArrayControl.selectFromList(officer.getAssignedProjects(), sc, true);
+                    Project selectedProject = ArrayControl.selectFromList(officer.getSortedProjects(), sc, true);
                     if (selectedProject != null)
                         selectedProjectMenu(selectedProject, officer, sc, data);
                     break;
@@ -160,7 +159,11 @@ public class OfficerInterface {
                     if (selectedEnquiry != null) {
                         System.out.println("Enter response:");
                         String reply = sc.nextLine();
-                        selectedEnquiry.setReply(reply);
+                        try {
+                            OfficerService.reply(officer, selectedEnquiry, reply, data);
+                        } catch (IllegalArgumentException e) {
+                            System.out.println(e.getMessage());
+                        }
                     }
                     break;
                 case 3:
@@ -174,11 +177,12 @@ public class OfficerInterface {
                         System.out.println("Confirm booking? (Y/N)");
                         String confirm = sc.nextLine();
                         if (confirm.equalsIgnoreCase("y")) {
-                            project.decrementUnits(selectedBooking.getUnitType());
-                            System.out.println("Confirmed booking for " + selectedBooking.getApplicant());
-                            selectedBooking.getApplication().setStatus(Status.Booked);
-                            selectedBooking.setBooked(true);
-                            selectedBooking.getApplicant().setUnitType(selectedBooking.getUnitType());
+                            try {
+                                OfficerService.confirmBooking(selectedBooking, data);
+                                System.out.println("Confirmed booking for " + selectedBooking.getApplicant());
+                            } catch (IllegalStateException e) {
+                                System.out.println(e.getMessage());
+                            }
                         }
                     }
                     break;
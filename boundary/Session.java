@@ -0,0 +1,48 @@
+package boundary;
+
+import java.util.Scanner;
+
+import control.Initialize;
+import entity.Applicant;
+import entity.Manager;
+import entity.Officer;
+import entity.User;
+import shared.Data;
+
+/**
+ * The Session class runs the interactive flow of one terminal: logging in,
+ * showing the menu for the user's role, and committing changes at logout,
+ * until the user quits.
+ * It is used both by the console app and by each connection to the session
+ * server.
+ */
+public class Session {
+
+    /**
+     * Runs a session until the user quits.
+     *
+     * @param sc   the scanner object to read user input
+     * @param data the data object containing the application data
+     */
+    public static void run(Scanner sc, Data data) {
+        User loggedInUser = null;
+
+        do {
+            loggedInUser = AuthInterface.authenticate(sc, data);
+            if (loggedInUser == null)
+                break;
+
+            if (loggedInUser instanceof Manager)
+                ManagerInterface.showMenu((Manager) loggedInUser, sc, data);
+
+            else if (loggedInUser instanceof Officer)
+                OfficerInterface.showMenu((Officer) loggedInUser, sc, data);
+
+            else if (loggedInUser instanceof Applicant)
+                ApplicantInterface.showMenu((Applicant) loggedInUser, sc, data);
+
+            Initialize.commitData(data); // Commit changes every logout
+
+        } while (loggedInUser != null);
+    }
+}
@@ -0,0 +1,246 @@
+package boundary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import control.Initialize;
+import shared.Data;
+import shared.ProjectLocks;
+
+/**
+ * The SessionServer class serves the app to many terminals at once over TCP.
+ * Each connection runs its own {@link Session} on its own thread, against the
+ * shared data, and can be opened with any line-based client such as
+ * {@code nc localhost 2002}.
+ * The interfaces print to {@code System.out}, so while the server runs,
+ * {@code System.out} is routed to the output of the session printing to it.
+ * Sessions take no lock of their own. Each change locks only the project and
+ * user it touches, see {@link ProjectLocks}, and reads iterate copies of the
+ * lists they show, or the published catalog, so sessions working on different
+ * projects run in parallel.
+ * On Java 21 and later, each session runs on a virtual thread. The app targets
+ * Java 17, which has no virtual threads, so there each session runs on a
+ * platform thread of its own.
+ */
+public class SessionServer {
+
+    /** The port the server listens on by default. */
+    public static final int DEFAULT_PORT = 2002;
+
+    /** The number of connections that may wait to be accepted. */
+    private static final int BACKLOG = 1024;
+
+    /** The output of the session running on the current thread, if any. */
+    private static final ThreadLocal<ByteArrayOutputStream> sessionOutput = new ThreadLocal<>();
+
+    // Attributes
+    private final Data data;
+    private final ExecutorService sessions = newSessionExecutor();
+    private final AtomicInteger activeSessions = new AtomicInteger();
+
+    /**
+     * Creates a server for the given data.
+     *
+     * @param data the data object shared by all sessions
+     */
+    public SessionServer(Data data) {
+        this.data = data;
+    }
+
+    /**
+     * Runs the server until "stop" is entered on the console, then saves the
+     * data. If the console is closed, the server runs until the process is
+     * stopped, and the data is saved on shutdown.
+     *
+     * @param port the port to listen on
+     */
+    public void run(int port) {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(new RoutedOutputStream(console), true));
+        Thread saveOnShutdown = new Thread(this::save, "save-on-shutdown");
+        Runtime.getRuntime().addShutdownHook(saveOnShutdown);
+
+        try (ServerSocket server = new ServerSocket(port, BACKLOG)) {
+            Thread acceptor = new Thread(() -> accept(server), "session-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            console.println("Serving sessions on port " + port + ".");
+            console.println("Enter \"status\" for the number of sessions, or \"stop\" to save and stop.");
+
+            Scanner sc = new Scanner(System.in);
+            while (true) {
+                if (!sc.hasNextLine()) {
+                    // No console, serve until the process is stopped
+                    acceptor.join();
+                    break;
+                }
+                String command = sc.nextLine().trim();
+                if (command.equalsIgnoreCase("stop"))
+                    break;
+                if (command.equalsIgnoreCase("status"))
+                    console.println(this.activeSessions.get() + " active sessions");
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        Runtime.getRuntime().removeShutdownHook(saveOnShutdown);
+        save();
+        System.setOut(console);
+    }
+
+    /**
+     * Saves the data, once the changes in progress in other sessions have been
+     * recorded.
+     */
+    private void save() {
+        Initialize.saveData(this.data);
+    }
+
+    /**
+     * Accepts connections until the server socket is closed, starting a session
+     * for each.
+     *
+     * @param server the server socket
+     */
+    private void accept(ServerSocket server) {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                this.sessions.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!server.isClosed())
+                    e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Runs a session over a connection until the user quits or disconnects.
+     *
+     * @param socket the connection
+     */
+    private void serve(Socket socket) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        sessionOutput.set(output);
+        this.activeSessions.incrementAndGet();
+        try (socket) {
+            OutputStream out = socket.getOutputStream();
+            Scanner sc = new Scanner(new SessionInputStream(socket.getInputStream(), output, out));
+            Session.run(sc, this.data);
+            out.write(drain(output));
+        } catch (NoSuchElementException | IOException e) {
+            // The user disconnected
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        } finally {
+            sessionOutput.remove();
+            this.activeSessions.decrementAndGet();
+        }
+    }
+
+    /**
+     * Takes everything a session has printed since it was last drained.
+     *
+     * @param output the output of the session
+     * @return the printed bytes
+     */
+    private static byte[] drain(ByteArrayOutputStream output) {
+        System.out.flush();
+        byte[] bytes = output.toByteArray();
+        output.reset();
+        return bytes;
+    }
+
+    /**
+     * Creates the executor running the sessions, with a virtual thread per
+     * session on Java 21 and later, and a daemon thread per session otherwise,
+     * as on the Java 17 the app targets.
+     *
+     * @return the executor
+     */
+    private static ExecutorService newSessionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "session");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * An output stream writing to the output of the session running on the
+     * current thread, or to the console on any other thread.
+     */
+    private static class RoutedOutputStream extends OutputStream {
+        private final OutputStream console;
+
+        private RoutedOutputStream(OutputStream console) {
+            this.console = console;
+        }
+
+        private OutputStream target() {
+            OutputStream output = sessionOutput.get();
+            return output != null ? output : this.console;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target().flush();
+        }
+    }
+
+    /**
+     * The input of a session. Before waiting for the user to type, it sends
+     * everything printed so far.
+     */
+    private static class SessionInputStream extends InputStream {
+        private final InputStream in;
+        private final ByteArrayOutputStream output;
+        private final OutputStream out;
+
+        private SessionInputStream(InputStream in, ByteArrayOutputStream output, OutputStream out) {
+            this.in = in;
+            this.output = output;
+            this.out = out;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            this.out.write(drain(this.output));
+            this.out.flush();
+            return this.in.read(b, off, len);
+        }
+    }
+}
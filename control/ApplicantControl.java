@@ -1,17 +1,15 @@
 package control;
 
 import shared.Data;
-import entity.Application;
 import entity.Applicant;
-import entity.Officer;
 import entity.Project;
+import entity.ProjectListing;
 import entity.Enquiry;
-import entity.Withdrawal;
 import enums.Status;
 import enums.UnitType;
 import enums.MaritalStatus;
+import service.ApplicantService;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 
@@ -22,6 +20,8 @@ import java.util.Scanner;
  * enquiries, and requesting withdrawal.
  * It ensures that applicants can manage their applications and interact with
  * projects within the system.
+ * The prompts are handled here, and the actions themselves are carried out by
+ * {@link ApplicantService}.
  */
 public class ApplicantControl {
 
@@ -32,11 +32,12 @@ public class ApplicantControl {
      * including selecting a unit type if the applicant is married.
      *
      * @param applicant the applicant applying for the project
-     * @param projects  the list of available projects to apply for
+     * @param listings  the listings of available projects to apply for
      * @param sc        the scanner object to read user input
      * @param data      the data object containing the application data
      */
-    public static void applyForProject(Applicant applicant, List<Project> projects, Scanner sc, Data data) {
+    public static void applyForProject(Applicant applicant, List<ProjectListing> listings, Scanner sc,
+            Data data) {
         boolean canApply = false;
         if (applicant.getApplication() == null) {
             canApply = true;
@@ -52,84 +53,51 @@ public class ApplicantControl {
             System.out.println();
             System.out.println("| Eligible Projects |");
             System.out.println();
-            Project selectedProject = ArrayControl.selectFromList(projects, sc);
+            ProjectListing selectedListing = ArrayControl.selectFromList(listings, sc);
             System.out.println("------------------------------");
-            if (selectedProject != null) {
+            if (selectedListing != null) {
+                Project selectedProject = selectedListing.getProject();
                 // Option to select unit type only if married
                 UnitType selectedUnit;
                 if (applicant.getMaritalStatus() == MaritalStatus.Married) {
-                    selectedUnit = ArrayControl.selectUnitType(selectedProject, sc);
+                    selectedUnit = ArrayControl.selectFromList(selectedListing.getAvailableUnitTypes(), sc);
                     if (selectedUnit == null) {
                         System.out.println("------------------------------");
                         return;
                     }
                 } else
                     selectedUnit = UnitType.TWO_ROOM;
-                Application application = new Application(applicant, selectedProject, selectedUnit);
-                data.getApplicationList().add(application);
-                System.out.println("Successfully applied for project!");
+                try {
+                    ApplicantService.apply(applicant, selectedProject, selectedUnit, data);
+                    System.out.println("Successfully applied for project!");
+                } catch (IllegalStateException | IllegalArgumentException e) {
+                    System.out.println(e.getMessage());
+                }
                 System.out.println("------------------------------");
             }
         }
     }
 
-    /**
-     * Retrieves a list of projects that the applicant is eligible to apply for,
-     * based on their marital status
-     * and age. The method applies additional filters, including visibility and date
-     * range for the projects.
-     *
-     * @param applicant the applicant for whom the eligible projects are being
-     *                  retrieved
-     * @param data      the data object containing the project data
-     * @return a list of projects that the applicant can apply for
-     */
-    public static List<Project> getApplicableProjects(Applicant applicant, Data data) {
-        List<Project> applicableProjects = new ArrayList<>();
-        boolean eligible = false;
-        for (Project project : data.getProjectList()) {
-            if (project.getVisibility() && project.inDateRange())
-                // Further filter
-                if (applicant.isMarried())
-                    // Married applicants can apply if 21 years and above
-                    if (applicant.getAge() >= 21)
-                        eligible = true;
-                    // Single applicants must be 35 years and above
-                    else if (applicant.getAge() >= 35)
-                        // Single and >=35 can only apply for 2-Room
-                        if (project.hasTwoRoom())
-                            eligible = true;
-
-            // Additional filter for Officers using Applicant Interface
-            if (applicant instanceof Officer) {
-                if (((Officer) applicant).getAssignedProjects().contains(project))
-                    eligible = false;
-            }
-            if (eligible)
-                applicableProjects.add(project);
-        }
-        return applicableProjects;
-    }
-
     /**
      * Allows an applicant to make an enquiry about a project.
      * The method prompts the applicant to provide a header and body for the
      * enquiry, which is then added to the enquiry list.
      *
      * @param applicant the applicant making the enquiry
-     * @param projects  the list of available projects to enquire about
+     * @param listings  the listings of available projects to enquire about
      * @param sc        the scanner object to read user input
      * @param data      the data object containing the enquiry data
      */
-    public static void enquireAboutProject(Applicant applicant, List<Project> projects, Scanner sc, Data data) {
-        Project selectedProject = ArrayControl.selectFromList(projects, sc);
-        if (selectedProject != null) {
+    public static void enquireAboutProject(Applicant applicant, List<ProjectListing> listings, Scanner sc,
+            Data data) {
+        ProjectListing selectedListing = ArrayControl.selectFromList(listings, sc);
+        if (selectedListing != null) {
+            Project selectedProject = selectedListing.getProject();
             System.out.println("Enquiry header:");
             String header = sc.nextLine();
             System.out.println("Enquiry body (In one line):");
             String body = sc.nextLine();
-            Enquiry enquiry = new Enquiry(applicant, selectedProject, header, body);
-            data.getEnquiryList().add(enquiry);
+            ApplicantService.enquire(applicant, selectedProject, header, body, data);
         }
         System.out.println("------------------------------");
     }
@@ -148,7 +116,7 @@ public class ApplicantControl {
         if (selectedEnquiry != null) {
             System.out.println("Enquiry body (In one line):");
             String body = sc.nextLine();
-            selectedEnquiry.editEnquiry(body);
+            ApplicantService.editEnquiry(selectedEnquiry, body, data);
         }
     }
 
@@ -164,7 +132,7 @@ public class ApplicantControl {
     public static void deleteEnquiry(Applicant applicant, Scanner sc, Data data) {
         Enquiry selectedEnquiry = ArrayControl.selectFromList(applicant.getEnquiries(), sc);
         if (selectedEnquiry != null) {
-            selectedEnquiry.deleteEnquiry(data);
+            ApplicantService.deleteEnquiry(selectedEnquiry, data);
             selectedEnquiry = null;
             System.out.println("Enquiry deleted.");
         }
@@ -182,15 +150,10 @@ public class ApplicantControl {
      * @param data      the data object containing the withdrawal data
      */
     public static void requestWithdrawal(Applicant applicant, Scanner sc, Data data) {
-        if (applicant.getApplication() != null) {
-            if (applicant.getApplication().getStatus() != Status.Booked) {
-                Withdrawal withdrawal = new Withdrawal(applicant.getApplication(), applicant);
-                data.getWithdrawals().add(withdrawal);
-            } else {
-                System.out.println("HDB already booked and approved!");
-            }
-        } else {
-            System.out.println("No application to withdraw from.");
+        try {
+            ApplicantService.requestWithdrawal(applicant, data);
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
         }
     }
 }
@@ -1,6 +1,7 @@
 package control;
 
-import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
 
 import entity.User;
@@ -8,7 +9,9 @@ import entity.Manager;
 import entity.Officer;
 import entity.Applicant;
 import enums.MaritalStatus;
+import enums.Operation;
 import shared.Data;
+import shared.ProjectLocks;
 
 /**
  * The AuthControl class handles user authentication, registration, and
@@ -22,10 +25,12 @@ public class AuthControl {
     /** Pattern for validating NRIC format (e.g., S1234567D). */
     public static final String NRIC_PATTERN = "^[A-Za-z][0-9]{7}[A-Za-z]$";
 
+    /** Compiled form of {@link #NRIC_PATTERN}, shared across calls. */
+    private static final Pattern NRIC_REGEX = Pattern.compile(NRIC_PATTERN);
+
     /**
      * Authenticates a user based on their NRIC and password.
-     * The method checks if the user exists in the manager, officer, or applicant
-     * lists.
+     * The method looks the user up in the NRIC index kept by the data object.
      * If found, returns the authenticated user; otherwise, returns null.
      *
      * @param NRIC     the NRIC of the user
@@ -35,21 +40,17 @@ public class AuthControl {
      * @return the authenticated User, or null if credentials are invalid
      */
     public static User login(String NRIC, String password, Data data) {
-        User user;
         NRIC = NRIC.toLowerCase();
 
         // Validate NRIC format
-        if (!Pattern.matches(NRIC_PATTERN, NRIC)) {
+        if (!NRIC_REGEX.matcher(NRIC).matches()) {
             System.out.println("Invalid NRIC.");
             return null;
         }
 
-        // Authenticate user by checking each user list (manager, officer, applicant)
-        if ((user = authenticate(data.getManagerList(), NRIC, password)) != null)
-            return user;
-        if ((user = authenticate(data.getOfficerList(), NRIC, password)) != null)
-            return user;
-        if ((user = authenticate(data.getApplicantList(), NRIC, password)) != null)
+        // Authenticate user found in the NRIC index
+        User user = data.findUser(NRIC);
+        if (user != null && user.login(password))
             return user;
 
         // If no user is found
@@ -58,36 +59,26 @@ public class AuthControl {
     }
 
     /**
-     * Helper method to authenticate a user from a list of users.
-     * This method checks if the provided NRIC and password match any user in the
-     * list.
+     * Checks if an NRIC is in the format of {@link #NRIC_PATTERN}.
      *
-     * @param <T>      the type of user (Manager, Officer, or Applicant)
-     * @param userList the list of users to authenticate from
-     * @param NRIC     the NRIC of the user
-     * @param password the password of the user
-     * @return the authenticated user, or null if no match is found
+     * @param NRIC the NRIC to check
+     * @return true if the NRIC is valid, false otherwise
      */
-    private static <T extends User> T authenticate(List<T> userList, String NRIC, String password) {
-        return userList.stream()
-                .filter(user -> user.getNRIC().equalsIgnoreCase(NRIC) && user.login(password))
-                .findFirst()
-                .orElse(null);
+    public static boolean isValidNRIC(String NRIC) {
+        return NRIC_REGEX.matcher(NRIC).matches();
     }
 
     /**
      * Checks if a user with the given NRIC exists in the system.
-     * The method checks if the NRIC exists in any of the user lists (managers,
-     * officers, applicants).
+     * The method checks if the NRIC exists in the NRIC index of all users
+     * (managers, officers, applicants).
      *
      * @param NRIC the NRIC of the user
      * @param data the Data object containing the lists of users
      * @return true if the user exists, false otherwise
      */
     public static boolean NRICExists(String NRIC, Data data) {
-        return data.getManagerList().stream().anyMatch(m -> m.getNRIC().equals(NRIC)) ||
-                data.getOfficerList().stream().anyMatch(o -> o.getNRIC().equals(NRIC)) ||
-                data.getApplicantList().stream().anyMatch(a -> a.getNRIC().equals(NRIC));
+        return data.findUser(NRIC) != null;
     }
 
     /**
@@ -114,7 +105,7 @@ public class AuthControl {
             System.out.println("User already exists!");
             return;
         }
-        if (!Pattern.matches(NRIC_PATTERN, NRIC)) {
+        if (!NRIC_REGEX.matcher(NRIC).matches()) {
             System.out.println("Invalid NRIC.");
             return;
         }
@@ -132,18 +123,42 @@ public class AuthControl {
 
         // Create and add user based on the user code
         String userType = data.checkCode(userCode);
-        switch (userType) {
-            case ("Manager"):
-                Manager tempManager = new Manager(NRIC, name, age, maritalStatus);
-                data.addManager(tempManager);
-                break;
-            case ("Officer"):
-                Officer tempOfficer = new Officer(NRIC, name, age, maritalStatus);
-                data.addOfficer(tempOfficer);
-                break;
-            default:
-                Applicant tempApplicant = new Applicant(NRIC, name, age, maritalStatus);
-                data.addApplicant(tempApplicant);
+        User user;
+        Lock lock = ProjectLocks.forChanges().readLock();
+        ReentrantLock indexLock = ProjectLocks.forIndexes();
+        lock.lock();
+        indexLock.lock();
+        try {
+            // Check again while holding the index lock, as another session may
+            // have registered the NRIC since
+            if (NRICExists(NRIC, data)) {
+                user = null;
+            } else {
+                switch (userType) {
+                    case ("Manager"):
+                        Manager tempManager = new Manager(NRIC, name, age, maritalStatus);
+                        data.addManager(tempManager);
+                        user = tempManager;
+                        break;
+                    case ("Officer"):
+                        Officer tempOfficer = new Officer(NRIC, name, age, maritalStatus);
+                        data.addOfficer(tempOfficer);
+                        user = tempOfficer;
+                        break;
+                    default:
+                        Applicant tempApplicant = new Applicant(NRIC, name, age, maritalStatus);
+                        data.addApplicant(tempApplicant);
+                        user = tempApplicant;
+                }
+                data.record(Operation.REGISTER_USER, NRIC, name, age, maritalStatus, userType, user.getId());
+            }
+        } finally {
+            indexLock.unlock();
+            lock.unlock();
+        }
+        if (user == null) {
+            System.out.println("User already exists!");
+            return;
         }
 
         System.out.println("Welcome " + userType + " " + name
@@ -0,0 +1,157 @@
+package control;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import entity.Application;
+import entity.FlatBooking;
+import entity.Project;
+import entity.Unit;
+import enums.Status;
+import enums.UnitType;
+import shared.ProjectLocks;
+
+/**
+ * The BallotControl class allocates flats by ballot, settling all pending
+ * applications of a project at once instead of one at a time.
+ * The pending applications for each unit type are put in order of their ids
+ * and shuffled with a seeded random source, and as many as there are units
+ * left to promise are approved, in shuffled order. The rest are rejected.
+ * Units left to promise are the units available less those already promised
+ * to approved applications and unconfirmed bookings. The same seed and
+ * pending applications always give the same outcome, whatever order the
+ * applications were added to the project in, so a ballot can be replayed
+ * from the journal.
+ */
+public class BallotControl {
+
+    /**
+     * Runs a ballot over the pending applications of a project.
+     *
+     * @param project the project
+     * @param seed    the seed of the shuffle
+     * @return the outcome of the ballot
+     */
+    public static BallotResult runBallot(Project project, long seed) {
+        ReentrantLock lock = ProjectLocks.forProject(project);
+        lock.lock();
+        try {
+            // Units already promised to approved applications and unconfirmed
+            // bookings. An approved application that was booked is counted by
+            // its booking, as data saved before booked applications were kept
+            // in the project has the booking alone
+            Map<UnitType, Integer> promised = new EnumMap<>(UnitType.class);
+            for (Application application : project.getApplications(Status.Successful)) {
+                FlatBooking booking = application.getApplicant().getBooking();
+                if (booking == null || booking.getApplication() != application)
+                    promised.merge(application.getUnitType(), 1, Integer::sum);
+            }
+            for (FlatBooking booking : project.getPendingBookings()) {
+                promised.merge(booking.getUnitType(), 1, Integer::sum);
+            }
+
+            Map<UnitType, List<Application>> pendingByType = new EnumMap<>(UnitType.class);
+            for (Application application : project.getApplications(Status.Pending)) {
+                pendingByType.computeIfAbsent(application.getUnitType(), t -> new ArrayList<>()).add(application);
+            }
+
+            List<Application> successful = new ArrayList<>();
+            List<Application> unsuccessful = new ArrayList<>();
+            Map<UnitType, Integer> allocated = new EnumMap<>(UnitType.class);
+            for (UnitType unitType : UnitType.values()) {
+                List<Application> pending = pendingByType.get(unitType);
+                if (pending == null)
+                    continue;
+                int available = 0;
+                for (Unit unit : project.getUnits()) {
+                    if (unit.getUnitType() == unitType)
+                        available += unit.getUnitsAvailable();
+                }
+                int quota = Math.max(0, available - promised.getOrDefault(unitType, 0));
+                int winners = Math.min(quota, pending.size());
+
+                // Each unit type draws from its own random source, so adding
+                // applications for one type does not change the draw of another
+                pending.sort(Comparator.comparingInt(Application::getId));
+                Collections.shuffle(pending, new Random(seed ^ unitType.ordinal()));
+                successful.addAll(pending.subList(0, winners));
+                unsuccessful.addAll(pending.subList(winners, pending.size()));
+                allocated.put(unitType, winners);
+            }
+            project.settleApplications(successful, unsuccessful);
+            return new BallotResult(project, allocated, unsuccessful.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs a ballot over the pending applications of each of the given
+     * projects, in parallel across projects.
+     *
+     * @param projects the projects
+     * @param seed     the seed of the shuffle, shared by all projects
+     * @return the outcome of each ballot, in the order of the projects
+     */
+    public static List<BallotResult> runBallots(List<Project> projects, long seed) {
+        return projects.parallelStream()
+                .map(project -> runBallot(project, seed))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The outcome of a ballot over one project.
+     */
+    public static class BallotResult {
+        private final Project project;
+        private final Map<UnitType, Integer> successful;
+        private final int unsuccessful;
+
+        private BallotResult(Project project, Map<UnitType, Integer> successful, int unsuccessful) {
+            this.project = project;
+            this.successful = successful;
+            this.unsuccessful = unsuccessful;
+        }
+
+        public Project getProject() {
+            return this.project;
+        }
+
+        /**
+         * Gets the number of applications approved for a unit type.
+         *
+         * @param unitType the unit type
+         * @return the number of successful applications
+         */
+        public int getSuccessful(UnitType unitType) {
+            return this.successful.getOrDefault(unitType, 0);
+        }
+
+        public int getUnsuccessful() {
+            return this.unsuccessful;
+        }
+
+        /**
+         * Returns a summary of the outcome.
+         *
+         * @return the number of successful applications for each unit type and
+         *         the number of unsuccessful applications
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (Map.Entry<UnitType, Integer> entry : this.successful.entrySet()) {
+                sb.append(entry.getKey()).append(" Successful\t: ").append(entry.getValue()).append("\n");
+            }
+            sb.append("Unsuccessful\t\t: ").append(this.unsuccessful).append("\n");
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package control;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import shared.Data;
+import shared.MappedSnapshot;
+import shared.ProjectLocks;
+import shared.ShardedSnapshot;
+
+/**
+ * The Checkpointer class writes snapshots of the application's data to the
+ * binary data file on a background thread.
+ * Data with a journal is not captured itself. Instead, the journal is rolled
+ * over, and the rolled records are replayed on a copy of the data, loaded from
+ * the data file on the first checkpoint and kept by the background thread, so
+ * the copy holds exactly the changes before the roll over. Changes go on while
+ * the copy is brought up to date and captured. Data without a journal is
+ * captured on the background thread while changes are held off, so it is
+ * consistent and later changes cannot leak into it.
+ * The snapshot is then written to a temporary file, forced to disk and
+ * atomically renamed over the data file. A crash mid-write therefore leaves
+ * the previous data file intact, and neither capturing nor writing holds up
+ * the session that asked for it.
+ * Once started, a snapshot is also taken whenever the interval has passed
+ * since the last one.
+ * The data is written serialized by default, as a {@link MappedSnapshot}
+ * when the {@code bto.snapshot} system property is {@code mapped}, or as a
+ * {@link ShardedSnapshot} when it is {@code sharded}. A mapped snapshot is
+ * written to a new file, which the data file is then replaced to name, so a
+ * file still mapped is never renamed over. A sharded snapshot only writes the
+ * shards that changed, each to a new file, before renaming its manifest over
+ * the data file. Any of them is read back by {@link Initialize#initializeData}.
+ */
+public class Checkpointer {
+
+    /**
+     * The default number of seconds between checkpoints, overridable with the
+     * {@code bto.checkpoint.interval} system property.
+     */
+    public static final int DEFAULT_INTERVAL = 300;
+
+    // Attributes
+    private final Path dataFile;
+    private final long intervalMillis;
+    private final String format;
+    private final ScheduledExecutorService writer;
+    private volatile long lastCheckpoint;
+    private Future<?> pending;
+    private Data scheduledData;
+    private ScheduledFuture<?> scheduled;
+    private Data copy; // Only used by the background thread
+    private Journal copyJournal; // The journal the copy replays
+
+    /**
+     * Creates a checkpointer for the given data file, writing the format set
+     * by the {@code bto.snapshot} system property.
+     *
+     * @param dataFile the path to the binary data file
+     */
+    public Checkpointer(String dataFile) {
+        this(dataFile, System.getProperty("bto.snapshot", "serial"));
+    }
+
+    /**
+     * Creates a checkpointer for the given data file.
+     *
+     * @param dataFile the path to the binary data file
+     * @param format   the format to write: serial, mapped or sharded
+     */
+    public Checkpointer(String dataFile, String format) {
+        this.dataFile = Paths.get(dataFile);
+        this.format = format;
+        this.intervalMillis = Integer.getInteger("bto.checkpoint.interval", DEFAULT_INTERVAL) * 1000L;
+        this.writer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.lastCheckpoint = System.currentTimeMillis();
+    }
+
+    /**
+     * Starts taking a checkpoint of the data whenever the interval has passed
+     * since the last one. Only data whose changes all hold the change lock of
+     * {@link ProjectLocks} should be checkpointed this way.
+     *
+     * @param data the Data object to be saved
+     */
+    public synchronized void start(Data data) {
+        this.scheduledData = data;
+        scheduleNext();
+    }
+
+    /**
+     * Checks if a checkpoint is due because the journal has grown past
+     * {@link Journal#CHECKPOINT_THRESHOLD}. Checkpoints due to the interval
+     * are taken by the timer set up by {@link #start}.
+     *
+     * @param journal the journal of the data, or null
+     * @return true if a checkpoint should be taken, false otherwise
+     */
+    public boolean isDue(Journal journal) {
+        return journal == null || journal.size() >= Journal.CHECKPOINT_THRESHOLD;
+    }
+
+    /**
+     * Takes a checkpoint of the data in the background. The journal is rolled
+     * over, the snapshot is captured on the background thread up to that
+     * point, and the rolled records are discarded once the snapshot is on
+     * disk.
+     * If a checkpoint is already pending, this one is skipped unless
+     * {@code wait} is set.
+     *
+     * @param data the Data object to be saved
+     * @param wait whether to block until the snapshot has been written
+     */
+    public void checkpoint(Data data, boolean wait) {
+        Future<?> task;
+        synchronized (this) {
+            if (this.pending != null && !this.pending.isDone() && !wait)
+                return;
+            task = this.writer.submit(() -> write(data));
+            this.pending = task;
+        }
+        if (wait)
+            await(task);
+    }
+
+    /**
+     * Schedules the next checkpoint due to the interval, replacing any
+     * scheduled before.
+     */
+    private synchronized void scheduleNext() {
+        if (this.scheduledData == null)
+            return;
+        if (this.scheduled != null)
+            this.scheduled.cancel(false);
+        Data data = this.scheduledData;
+        long delay = Math.max(0, this.lastCheckpoint + this.intervalMillis - System.currentTimeMillis());
+        this.scheduled = this.writer.schedule(() -> checkpoint(data, false), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Captures a snapshot of the data and writes it to the data file, on the
+     * background thread.
+     * Data with a journal is captured from the copy, once the rolled records
+     * have been replayed on it, without holding up any change. Data without a
+     * journal is captured holding the change lock of {@link ProjectLocks}
+     * exclusively, so the capture waits for changes in progress in other
+     * sessions, and holds up new ones until it is done.
+     *
+     * @param data the Data object to be saved
+     */
+    private void write(Data data) {
+        Journal journal = data.getJournal();
+        Data captured;
+        long sequence;
+        byte[] snapshot;
+        ShardedSnapshot.Checkpoint shards = null;
+        Lock lock = ProjectLocks.forChanges().writeLock();
+        if (journal == null) {
+            captured = data;
+            lock.lock();
+        } else {
+            journal.rollover();
+            captured = replay(journal);
+            if (captured == null)
+                return;
+        }
+        try {
+            sequence = captured.getJournalSequence();
+            if ("sharded".equals(this.format)) {
+                shards = ShardedSnapshot.capture(captured, this.dataFile.toString());
+                snapshot = shards.getManifest();
+            } else {
+                snapshot = capture(captured);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        } finally {
+            if (journal == null)
+                lock.unlock();
+        }
+        this.lastCheckpoint = System.currentTimeMillis();
+        scheduleNext();
+
+        try {
+            if (shards != null)
+                shards.writeShards();
+            if ("mapped".equals(this.format))
+                snapshot = MappedSnapshot.store(snapshot, this.dataFile.toString());
+            replace(snapshot);
+            if (shards != null)
+                shards.deleteUnused();
+            MappedSnapshot.deleteUnused(this.dataFile.toString());
+            if (journal != null)
+                journal.discardRolled(sequence);
+        } catch (IOException e) {
+            // Keep the rolled journal, so its records are replayed on startup
+            if (shards != null)
+                shards.failed();
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Brings the copy of the data up to the records rolled over from its
+     * journal, first loading it from the data file as it was loaded on
+     * startup, if there is no copy of the data with this journal yet.
+     *
+     * @param journal the journal of the data
+     * @return the copy, or null if a record could not be replayed on it
+     */
+    private Data replay(Journal journal) {
+        if (this.copy == null || this.copyJournal != journal) {
+            try {
+                this.copy = Initialize.loadData(this.dataFile.toString());
+            } catch (IOException | ClassNotFoundException e) {
+                this.copy = new Data();
+            }
+            this.copyJournal = journal;
+        }
+        try {
+            journal.replayRolled(this.copy);
+        } catch (IllegalStateException e) {
+            // Load the copy again next time, as the records replayed so far are kept
+            this.copy = null;
+            e.printStackTrace();
+            return null;
+        }
+        return this.copy;
+    }
+
+    /**
+     * Captures the data in the format of this checkpointer.
+     *
+     * @param data the Data object to be saved
+     * @return the bytes of the snapshot
+     * @throws IOException if the data could not be captured
+     */
+    private byte[] capture(Data data) throws IOException {
+        if ("mapped".equals(this.format))
+            return MappedSnapshot.write(data);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(buffer)) {
+            out.writeObject(data);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Writes a snapshot to a temporary file, forces it to disk, and renames it
+     * over the data file.
+     *
+     * @param snapshot the serialized data, the manifest of its shards, or the
+     *                 name of its mapped snapshot
+     * @throws IOException if the snapshot could not be written
+     */
+    private void replace(byte[] snapshot) throws IOException {
+        Path temp = this.dataFile.resolveSibling(this.dataFile.getFileName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp.toFile())) {
+            out.write(snapshot);
+            out.getFD().sync();
+        }
+        Files.move(temp, this.dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // Force the rename itself to disk, where the platform allows it
+        Path directory = this.dataFile.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported on this platform
+        }
+    }
+
+    /**
+     * Waits for a checkpoint to finish.
+     *
+     * @param task the pending checkpoint
+     */
+    private static void await(Future<?> task) {
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,475 @@
+package control;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import entity.Applicant;
+import entity.Manager;
+import entity.Officer;
+import entity.Unit;
+import entity.User;
+import enums.MaritalStatus;
+import enums.UnitType;
+import service.ManagerService;
+import shared.Data;
+
+/**
+ * The CsvImporter class imports users and projects in bulk from CSV files.
+ * The file is read in batches, so its size does not matter. The rows of each
+ * batch are parsed and checked in parallel, then added to the data in order,
+ * and rows that cannot be imported are written to a report of rejected rows
+ * with the reason.
+ * The first line of a file names its columns, in any order:
+ *
+ * <pre>
+ * Users:    Name, NRIC, Age, Marital Status[, Password]
+ * Projects: Name, Neighbourhood, Type 1, Units 1, Price 1[, Type 2, Units 2, Price 2],
+ *           Opening Date, Closing Date, Manager, Officer Slots
+ * </pre>
+ *
+ * Dates are either YYYY-MM-DD or D/M/YYYY, and the manager of a project is
+ * given by NRIC. Quoted fields may hold commas, but not line breaks.
+ * Users are added without journal records, so the data must be saved after an
+ * import.
+ */
+public class CsvImporter {
+
+    /** The number of rows parsed and added at a time. */
+    public static final int BATCH_SIZE = 8192;
+
+    /** The day/month/year format of dates, besides ISO dates. */
+    private static final DateTimeFormatter DAY_MONTH_YEAR = DateTimeFormatter.ofPattern("d/M/yyyy");
+
+    /**
+     * The outcome of an import.
+     */
+    public static class ImportResult {
+
+        // Attributes
+        private int imported;
+        private int rejected;
+
+        public int getImported() {
+            return this.imported;
+        }
+
+        public int getRejected() {
+            return this.rejected;
+        }
+
+        @Override
+        public String toString() {
+            return "Imported " + this.imported + " rows, rejected " + this.rejected + ".";
+        }
+    }
+
+    /**
+     * A row of a file, with the value parsed from it or the reason it was
+     * rejected.
+     *
+     * @param <T> the type of the value
+     */
+    private static class Row<T> {
+        int line;
+        String text;
+        T value;
+        String reason;
+    }
+
+    /**
+     * A project parsed from a row, not yet created.
+     */
+    private static class ProjectRow {
+        String name;
+        String neighbourhood;
+        List<Unit> units;
+        LocalDate openingDate;
+        LocalDate closingDate;
+        String managerNRIC;
+        int officerSlots;
+    }
+
+    /**
+     * Loads the data, imports a file into it, and saves the data.
+     *
+     * @param type        the type of rows in the file, as applicants, officers,
+     *                    managers or projects
+     * @param file        the path of the file
+     * @param rejectsFile the path of the report of rejected rows
+     */
+    public static void run(String type, String file, String rejectsFile) {
+        Data data = Initialize.initializeData();
+
+        long start = System.nanoTime();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(file));
+                Writer rejects = Files.newBufferedWriter(Paths.get(rejectsFile))) {
+            ImportResult result;
+            switch (type.toLowerCase()) {
+                case "applicants":
+                    result = importUsers(reader, Applicant.class, data, rejects);
+                    break;
+                case "officers":
+                    result = importUsers(reader, Officer.class, data, rejects);
+                    break;
+                case "managers":
+                    result = importUsers(reader, Manager.class, data, rejects);
+                    break;
+                case "projects":
+                    result = importProjects(reader, data, rejects);
+                    break;
+                default:
+                    System.out.println("Unknown type " + type + ", expected applicants, officers, managers or "
+                            + "projects.");
+                    return;
+            }
+            System.out.printf("%s Took %.1f ms.%n", result, (System.nanoTime() - start) / 1e6);
+            if (result.getRejected() > 0)
+                System.out.println("Rejected rows written to " + rejectsFile);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Import failed: " + e.getMessage());
+            return;
+        }
+
+        Initialize.saveData(data);
+    }
+
+    /**
+     * Imports users of one type. Rows with an invalid NRIC, name, age or
+     * marital status are rejected, as are rows whose NRIC belongs to an
+     * existing user or an earlier row.
+     *
+     * @param reader  the reader of the file
+     * @param role    the class of the users, one of {@link Applicant},
+     *                {@link Officer} and {@link Manager}
+     * @param data    the data object to add the users to
+     * @param rejects the writer of the report of rejected rows
+     * @return the number of rows imported and rejected
+     * @throws IOException              if the file could not be read, or the
+     *                                  report could not be written
+     * @throws IllegalArgumentException if the file is missing a column
+     */
+    public static ImportResult importUsers(BufferedReader reader, Class<? extends User> role, Data data,
+            Writer rejects) throws IOException {
+        Map<String, Integer> header = readHeader(reader);
+        int nameColumn = column(header, "Name");
+        int nricColumn = column(header, "NRIC");
+        int ageColumn = column(header, "Age");
+        int maritalStatusColumn = column(header, "Marital Status");
+        Integer passwordColumn = header.get("password");
+
+        Function<String[], User> parser = fields -> {
+            String NRIC = field(fields, nricColumn).toLowerCase();
+            if (!AuthControl.isValidNRIC(NRIC))
+                throw new IllegalArgumentException("Invalid NRIC.");
+            String name = field(fields, nameColumn);
+            if (name.isEmpty())
+                throw new IllegalArgumentException("Missing name.");
+            int age = parseInt(field(fields, ageColumn), "age");
+            if (age <= 0)
+                throw new IllegalArgumentException("Invalid age " + age + ".");
+            MaritalStatus maritalStatus = parseMaritalStatus(field(fields, maritalStatusColumn));
+
+            User user;
+            if (role == Manager.class)
+                user = new Manager(NRIC, name, age, maritalStatus);
+            else if (role == Officer.class)
+                user = new Officer(NRIC, name, age, maritalStatus);
+            else
+                user = new Applicant(NRIC, name, age, maritalStatus);
+            if (passwordColumn != null && !field(fields, passwordColumn).isEmpty())
+                user.changePassword("password", field(fields, passwordColumn));
+            return user;
+        };
+
+        Consumer<List<Row<User>>> inserter = rows -> {
+            List<User> users = new ArrayList<>(rows.size());
+            Set<String> seen = new HashSet<>();
+            for (Row<User> row : rows) {
+                if (row.value == null)
+                    continue;
+                String NRIC = row.value.getNRIC();
+                if (!seen.add(NRIC) || data.findUser(NRIC) != null) {
+                    row.reason = "Duplicate NRIC.";
+                    continue;
+                }
+                users.add(row.value);
+            }
+            data.addUsers(users);
+        };
+
+        return importRows(reader, parser, inserter, rejects);
+    }
+
+    /**
+     * Imports projects. Rows with invalid details, an unknown manager, or an
+     * application period clashing with another project of the manager are
+     * rejected.
+     *
+     * @param reader  the reader of the file
+     * @param data    the data object to add the projects to
+     * @param rejects the writer of the report of rejected rows
+     * @return the number of rows imported and rejected
+     * @throws IOException              if the file could not be read, or the
+     *                                  report could not be written
+     * @throws IllegalArgumentException if the file is missing a column
+     */
+    public static ImportResult importProjects(BufferedReader reader, Data data, Writer rejects) throws IOException {
+        Map<String, Integer> header = readHeader(reader);
+        int nameColumn = column(header, "Name");
+        int neighbourhoodColumn = column(header, "Neighbourhood");
+        int[] typeColumns = { column(header, "Type 1"), header.getOrDefault("type 2", -1) };
+        int[] unitsColumns = { column(header, "Units 1"), header.getOrDefault("units 2", -1) };
+        int[] priceColumns = { column(header, "Price 1"), header.getOrDefault("price 2", -1) };
+        int openingDateColumn = column(header, "Opening Date");
+        int closingDateColumn = column(header, "Closing Date");
+        int managerColumn = column(header, "Manager");
+        int officerSlotsColumn = column(header, "Officer Slots");
+
+        Function<String[], ProjectRow> parser = fields -> {
+            ProjectRow project = new ProjectRow();
+            project.name = field(fields, nameColumn);
+            if (project.name.isEmpty())
+                throw new IllegalArgumentException("Missing name.");
+            project.neighbourhood = field(fields, neighbourhoodColumn);
+            project.units = new ArrayList<>();
+            for (int i = 0; i < typeColumns.length; i++) {
+                if (typeColumns[i] < 0 || field(fields, typeColumns[i]).isEmpty())
+                    continue;
+                UnitType unitType = UnitType.fromString(field(fields, typeColumns[i]));
+                int units = parseInt(field(fields, unitsColumns[i]), "number of units");
+                double price = parseDouble(field(fields, priceColumns[i]), "price");
+                if (units < 0 || price < 0)
+                    throw new IllegalArgumentException("Invalid units or price for " + unitType + ".");
+                project.units.add(new Unit(unitType, units, price));
+            }
+            project.openingDate = parseDate(field(fields, openingDateColumn));
+            project.closingDate = parseDate(field(fields, closingDateColumn));
+            project.managerNRIC = field(fields, managerColumn);
+            project.officerSlots = parseInt(field(fields, officerSlotsColumn), "officer slots");
+            return project;
+        };
+
+        Consumer<List<Row<ProjectRow>>> inserter = rows -> {
+            for (Row<ProjectRow> row : rows) {
+                if (row.value == null)
+                    continue;
+                ProjectRow project = row.value;
+                User manager = data.findUser(project.managerNRIC);
+                if (!(manager instanceof Manager)) {
+                    row.reason = "No manager " + project.managerNRIC + ".";
+                    continue;
+                }
+                try {
+                    ManagerService.createProject((Manager) manager, project.name, project.neighbourhood,
+                            project.units, project.openingDate, project.closingDate, project.officerSlots, data);
+                } catch (IllegalArgumentException e) {
+                    row.reason = e.getMessage();
+                }
+            }
+        };
+
+        return importRows(reader, parser, inserter, rejects);
+    }
+
+    /**
+     * Imports the rows of a file a batch at a time. The rows of each batch are
+     * parsed in parallel, then inserted in order, and the rows rejected by
+     * either step are written to the report.
+     *
+     * @param <T>      the type of the values parsed from the rows
+     * @param reader   the reader of the file, after the header
+     * @param parser   the parser of the fields of a row, throwing an
+     *                 {@link IllegalArgumentException} with the reason a row is
+     *                 rejected
+     * @param inserter the inserter of a batch of parsed rows, setting the
+     *                 reason of each row it rejects
+     * @param rejects  the writer of the report of rejected rows
+     * @return the number of rows imported and rejected
+     * @throws IOException if the file could not be read, or the report could
+     *                     not be written
+     */
+    private static <T> ImportResult importRows(BufferedReader reader, Function<String[], T> parser,
+            Consumer<List<Row<T>>> inserter, Writer rejects) throws IOException {
+        ImportResult result = new ImportResult();
+        rejects.write("Line,Reason,Row\n");
+        int line = 1; // The header
+        List<Row<T>> batch = new ArrayList<>(BATCH_SIZE);
+        String text;
+        do {
+            text = reader.readLine();
+            if (text != null) {
+                line++;
+                if (text.isBlank())
+                    continue;
+                Row<T> row = new Row<>();
+                row.line = line;
+                row.text = text;
+                batch.add(row);
+                if (batch.size() < BATCH_SIZE)
+                    continue;
+            }
+
+            // Parse the batch in parallel, then insert it in order
+            List<Row<T>> rows = batch;
+            IntStream.range(0, rows.size()).parallel().forEach(i -> {
+                Row<T> row = rows.get(i);
+                try {
+                    row.value = parser.apply(split(row.text));
+                } catch (IllegalArgumentException e) {
+                    row.reason = e.getMessage();
+                }
+            });
+            inserter.accept(rows);
+
+            for (Row<T> row : rows) {
+                if (row.reason == null) {
+                    result.imported++;
+                    continue;
+                }
+                result.rejected++;
+                rejects.write(row.line + "," + quote(row.reason) + "," + row.text + "\n");
+            }
+            batch = new ArrayList<>(BATCH_SIZE);
+        } while (text != null);
+        return result;
+    }
+
+    /**
+     * Reads the header of a file, mapping the name of each column to its
+     * position.
+     *
+     * @param reader the reader of the file
+     * @return the position of each column, keyed by its lowercase name
+     * @throws IOException              if the file could not be read
+     * @throws IllegalArgumentException if the file is empty
+     */
+    private static Map<String, Integer> readHeader(BufferedReader reader) throws IOException {
+        String text = reader.readLine();
+        if (text == null)
+            throw new IllegalArgumentException("Empty file.");
+        if (text.startsWith("\uFEFF"))
+            text = text.substring(1); // Byte order mark
+        String[] names = split(text);
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            header.put(names[i].toLowerCase(), i);
+        }
+        return header;
+    }
+
+    /**
+     * Gets the position of a column that must be in the file.
+     *
+     * @param header the position of each column, keyed by its lowercase name
+     * @param name   the name of the column
+     * @return the position of the column
+     * @throws IllegalArgumentException if the file has no such column
+     */
+    private static int column(Map<String, Integer> header, String name) {
+        Integer column = header.get(name.toLowerCase());
+        if (column == null)
+            throw new IllegalArgumentException("Missing column " + name + ".");
+        return column;
+    }
+
+    /**
+     * Gets a field of a row, or an empty string if the row is too short.
+     *
+     * @param fields the fields of the row
+     * @param column the position of the field
+     * @return the field
+     */
+    private static String field(String[] fields, int column) {
+        return column < fields.length ? fields[column] : "";
+    }
+
+    /**
+     * Splits a row into its fields at commas outside double quotes. Fields
+     * are trimmed, and a doubled quote within quotes stands for one quote.
+     *
+     * @param text the row
+     * @return the fields of the row
+     */
+    private static String[] split(String text) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted)
+            throw new IllegalArgumentException("Unclosed quote.");
+        fields.add(field.toString().trim());
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Quotes a field for the report of rejected rows.
+     *
+     * @param field the field
+     * @return the field in double quotes
+     */
+    private static String quote(String field) {
+        return "\"" + field.replace("\"", "\"\"") + "\"";
+    }
+
+    private static int parseInt(String value, String name) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + " " + value + ".");
+        }
+    }
+
+    private static double parseDouble(String value, String name) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + " " + value + ".");
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return value.contains("/") ? LocalDate.parse(value, DAY_MONTH_YEAR) : LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date " + value + ".");
+        }
+    }
+
+    private static MaritalStatus parseMaritalStatus(String value) {
+        for (MaritalStatus maritalStatus : MaritalStatus.values()) {
+            if (maritalStatus.name().equalsIgnoreCase(value))
+                return maritalStatus;
+        }
+        throw new IllegalArgumentException("Invalid marital status " + value + ".");
+    }
+}
@@ -1,8 +1,12 @@
 package control;
 
 import java.util.Scanner;
+import java.util.concurrent.locks.Lock;
 
 import entity.User;
+import enums.Operation;
+import shared.Data;
+import shared.ProjectLocks;
 
 /**
  * The CustomSortControl class provides functionality to allow users to
@@ -26,8 +30,9 @@ public class CustomSortControl {
      * @param <T>  the type of user (extends User)
      * @param user the user whose sort settings are to be modified
      * @param sc   the Scanner object for receiving input from the user
+     * @param data the data object recording the change in sort settings
      */
-    public static <T extends User> void setFilter(T user, Scanner sc) {
+    public static <T extends User> void setFilter(T user, Scanner sc, Data data) {
         System.out.println("\nChoose how you want to sort projects:");
         System.out.println("(1) By Project Name");
         System.out.println("(2) By Location");
@@ -47,28 +52,35 @@ public class CustomSortControl {
         // Get the user's choice
         String choice = sc.nextLine();
 
-        // Handle the user's choice
-        switch (choice) {
-            case "1":
-                user.setSortSetting(1); // Sort by project name
-                break;
-            case "2":
-                user.setSortSetting(2); // Sort by location
-                break;
-            case "3":
-                user.setSortSetting(3); // Sort by total units available
-                break;
-            case "4":
-                user.setSortSetting(4); // Sort by average price
-                break;
-            case "5":
-                user.reverseSort(); // Toggle reverse order
-                break;
-            case "6":
-                user.clearSort(); // Clear sorting criteria
-                break;
-            default:
-                break; // Return if the input is invalid
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        try {
+            // Handle the user's choice
+            switch (choice) {
+                case "1":
+                    user.setSortSetting(1); // Sort by project name
+                    break;
+                case "2":
+                    user.setSortSetting(2); // Sort by location
+                    break;
+                case "3":
+                    user.setSortSetting(3); // Sort by total units available
+                    break;
+                case "4":
+                    user.setSortSetting(4); // Sort by average price
+                    break;
+                case "5":
+                    user.reverseSort(); // Toggle reverse order
+                    break;
+                case "6":
+                    user.clearSort(); // Clear sorting criteria
+                    break;
+                default:
+                    return; // Return if the input is invalid
+            }
+            data.record(Operation.SET_SORT, user, user.getSortSetting(), user.getReverseSort());
+        } finally {
+            lock.unlock();
         }
     }
 }
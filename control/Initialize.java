@@ -2,18 +2,21 @@ package control;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InvalidClassException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 
 import shared.Data;
+import shared.LegacyData;
+import shared.MappedSnapshot;
+import shared.ShardedSnapshot;
 
 /**
  * The Initialize class handles the initialization and saving of data to and
  * from a binary file.
  * It manages loading the application's data from the file and saving it back
- * after modifications.
+ * after modifications. Changes made between saves are kept in a journal, which
+ * is replayed on top of the binary file at startup.
  */
 public class Initialize {
 
@@ -23,18 +26,29 @@ public class Initialize {
      */
     private static final String dataFile = "./shared/data.bin";
 
+    /**
+     * The path to the journal file recording changes made since the data file
+     * was last saved.
+     */
+    private static final String journalFile = "./shared/data.journal";
+
+    /**
+     * Writes snapshots of the data to the data file in the background.
+     */
+    private static final Checkpointer checkpointer = new Checkpointer(dataFile);
+
     /**
      * Initializes the application's data by loading it from a binary file.
      * If the data file does not exist, a new file is created, and default values
-     * are set.
+     * are set. Any changes recorded in the journal are then replayed.
      * 
      * @return the initialized Data object, either loaded from the file or with
      *         default values
      */
     public static Data initializeData() {
         Data data = new Data();
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(dataFile))) {
-            data = (Data) in.readObject();
+        try {
+            data = loadData(dataFile);
         } catch (IOException | ClassNotFoundException e) {
             // If the file is not found or an error occurs, inform the user and return a new
             // file.
@@ -42,6 +56,12 @@ public class Initialize {
             new File(dataFile);
         }
 
+        // Replay changes made since the data file was last saved
+        int records = Journal.replay(data, journalFile);
+        if (records > 0)
+            data.markAllChanged();
+        data.setJournal(new Journal(journalFile, data, records));
+
         // Set default manager and officer codes
         data.addManagerCode("managercode");
         data.addOfficerCode("officercode");
@@ -50,16 +70,65 @@ public class Initialize {
     }
 
     /**
-     * Saves the current application's data to the binary data file.
+     * Loads a snapshot of the application's data from a binary file, without
+     * replaying the journal. A mapped snapshot is opened in place, and its
+     * entities are read as they are used. A sharded snapshot has its shards
+     * read in parallel. A file written before entities were given ids is read
+     * by {@link LegacyData}. Also used by {@link Checkpointer} to load the copy
+     * of the data it takes snapshots from.
+     * 
+     * @param dataFile the path to the binary data file
+     * @return the Data object stored in the file
+     * @throws IOException            if the file could not be read
+     * @throws ClassNotFoundException if the file does not hold a Data object
+     */
+    static Data loadData(String dataFile) throws IOException, ClassNotFoundException {
+        if (MappedSnapshot.isSnapshot(dataFile))
+            return MappedSnapshot.open(dataFile);
+        if (ShardedSnapshot.isSnapshot(dataFile))
+            return ShardedSnapshot.open(dataFile);
+        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(dataFile))) {
+            return (Data) in.readObject();
+        } catch (InvalidClassException e) {
+            return LegacyData.read(dataFile);
+        }
+    }
+
+    /**
+     * Starts writing a snapshot of the data to the binary data file in the
+     * background whenever the checkpoint interval has passed, for as long as
+     * the application runs.
+     * 
+     * @param data the Data object to be saved
+     */
+    public static void scheduleCheckpoints(Data data) {
+        checkpointer.start(data);
+    }
+
+    /**
+     * Commits the changes made during a session by forcing the journal to disk.
+     * When the journal has grown large enough, a snapshot of the data is also
+     * written to the binary data file in the background.
+     * 
+     * @param data the Data object whose changes are committed
+     */
+    public static void commitData(Data data) {
+        Journal journal = data.getJournal();
+        if (journal != null)
+            journal.sync();
+        if (checkpointer.isDue(journal))
+            checkpointer.checkpoint(data, false);
+    }
+
+    /**
+     * Saves the current application's data to the binary data file, waiting
+     * until it is safely on disk.
+     * The file is replaced atomically, and the journal records it covers are
+     * discarded once it has been written.
      * 
      * @param data the Data object to be saved to the file
      */
     public static void saveData(Data data) {
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(dataFile))) {
-            out.writeObject(data);
-        } catch (IOException e) {
-            // If an error occurs while saving, print the stack trace
-            e.printStackTrace();
-        }
+        checkpointer.checkpoint(data, true);
     }
 }
@@ -0,0 +1,591 @@
+package control;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import entity.Applicant;
+import entity.Application;
+import entity.Enquiry;
+import entity.FlatBooking;
+import entity.Identifiable;
+import entity.Manager;
+import entity.Officer;
+import entity.Project;
+import entity.Registration;
+import entity.Unit;
+import entity.User;
+import entity.Withdrawal;
+import enums.MaritalStatus;
+import enums.Operation;
+import enums.UnitType;
+import shared.Data;
+
+/**
+ * The Journal class is an append-only log of the mutations made to the
+ * application's data since the last saved snapshot.
+ * Each mutation is appended as a compact, checksummed record, so saving at
+ * logout only costs the work done during the session. On startup, the records
+ * are replayed on top of the snapshot to rebuild the latest state.
+ * Entities are recorded by their id, so a record costs the same however large
+ * the data is, and still finds its entities after others have been removed.
+ * When a snapshot is taken, the active journal file is rolled over to a
+ * segment named after the snapshot's sequence number, which is deleted once
+ * the snapshot is safely on disk. The snapshot itself is built by replaying
+ * the rolled segments on a copy of the data, see {@link Checkpointer}.
+ * Concurrent sessions append to the same journal, so its methods are
+ * synchronized, and records are written in the order of their sequence
+ * numbers.
+ */
+public class Journal {
+
+    /**
+     * The number of records after which the journal is folded into a new
+     * snapshot at logout.
+     */
+    public static final int CHECKPOINT_THRESHOLD = 10000;
+
+    /** Upper bound on the size of a single record, used to detect corruption. */
+    private static final int MAX_RECORD_LENGTH = 1 << 20;
+
+    /**
+     * The bytes a journal file starts with, "BTOJRNL" and the version of its
+     * records. Files of the first version, which referred to entities by their
+     * position in the lists, have no header.
+     */
+    private static final long MAGIC = 0x42544F4A524E4C02L;
+
+    // Attributes
+    private final String journalFile;
+    private final Data data;
+    private FileOutputStream fileOut;
+    private DataOutputStream out;
+    private int records;
+
+    /**
+     * Opens the journal for appending.
+     *
+     * @param journalFile the path to the journal file
+     * @param data        the data object whose mutations are recorded
+     * @param records     the number of records already in the journal file
+     */
+    public Journal(String journalFile, Data data, int records) {
+        this.journalFile = journalFile;
+        this.data = data;
+        this.records = records;
+        open(true);
+    }
+
+    /**
+     * Returns the number of records written since the last snapshot.
+     *
+     * @return the number of records in the journal
+     */
+    public synchronized int size() {
+        return this.records;
+    }
+
+    /**
+     * Appends a mutation record to the journal.
+     * Users are recorded by NRIC, other entities by their id, and lists of
+     * units are flattened into type, count and price.
+     *
+     * @param operation the type of mutation
+     * @param args      the arguments needed to replay the mutation
+     */
+    public synchronized void append(Operation operation, Object... args) {
+        List<String> values = new ArrayList<>();
+        for (Object arg : args) {
+            encode(arg, values);
+        }
+        long sequence = this.data.getJournalSequence() + 1;
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            DataOutputStream record = new DataOutputStream(buffer);
+            record.writeLong(sequence);
+            record.writeUTF(operation.name());
+            record.writeShort(values.size());
+            for (String value : values) {
+                record.writeBoolean(value != null);
+                if (value != null)
+                    record.writeUTF(value);
+            }
+            byte[] payload = buffer.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            this.out.writeInt(payload.length);
+            this.out.write(payload);
+            this.out.writeLong(crc.getValue());
+            this.data.setJournalSequence(sequence);
+            this.records++;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Flushes buffered records and forces them to disk.
+     */
+    public synchronized void sync() {
+        try {
+            this.out.flush();
+            this.fileOut.getFD().sync();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Forces all records to disk, moves them to a rolled segment named after
+     * the last of them, and starts a new, empty journal file. Called when a
+     * snapshot covering those records is taken.
+     * If the journal file cannot be renamed, records keep being appended to
+     * it, and none are rolled over.
+     */
+    public synchronized void rollover() {
+        sync();
+        long sequence = this.data.getJournalSequence();
+        close();
+        File active = new File(this.journalFile);
+        if (active.length() > 0 && !active.renameTo(new File(this.journalFile + "." + sequence))) {
+            // Keep appending to the current file rather than lose records
+            open(true);
+            return;
+        }
+        open(false);
+        this.records = 0;
+    }
+
+    /**
+     * Deletes the rolled segments covered by a snapshot that is now on disk.
+     *
+     * @param sequence the sequence number of the last record in the snapshot
+     */
+    public void discardRolled(long sequence) {
+        for (File segment : rolledSegments(this.journalFile)) {
+            if (segmentSequence(segment) <= sequence)
+                segment.delete();
+        }
+    }
+
+    /**
+     * Flushes and closes the journal file.
+     */
+    public synchronized void close() {
+        try {
+            this.out.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Opens the journal file, either appending to or truncating its contents.
+     * A new file is started with the header.
+     *
+     * @param append whether to keep existing records
+     */
+    private void open(boolean append) {
+        try {
+            this.fileOut = new FileOutputStream(this.journalFile, append);
+            this.out = new DataOutputStream(new BufferedOutputStream(this.fileOut));
+            if (this.fileOut.getChannel().size() == 0)
+                this.out.writeLong(MAGIC);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Converts a record argument to its journal representation.
+     *
+     * @param arg    the argument to convert
+     * @param values the list of values to add the converted argument to
+     */
+    private void encode(Object arg, List<String> values) {
+        if (arg == null) {
+            values.add(null);
+        } else if (arg instanceof Collection) {
+            for (Object element : (Collection<?>) arg) {
+                encode(element, values);
+            }
+        } else if (arg instanceof Unit) {
+            Unit unit = (Unit) arg;
+            values.add(unit.getUnitType().name());
+            values.add(Integer.toString(unit.getUnitsAvailable()));
+            values.add(Double.toString(unit.getSellingPrice()));
+        } else if (arg instanceof User) {
+            values.add(((User) arg).getNRIC());
+        } else if (arg instanceof Identifiable) {
+            values.add(Integer.toString(((Identifiable) arg).getId()));
+        } else if (arg instanceof Enum) {
+            values.add(((Enum<?>) arg).name());
+        } else {
+            values.add(arg.toString());
+        }
+    }
+
+    /**
+     * Replays the rolled segments and the active journal file on top of the
+     * loaded data, in order.
+     *
+     * @param data        the data object loaded from the snapshot
+     * @param journalFile the path to the active journal file
+     * @return the number of valid records in the journal files
+     * @throws IllegalStateException if a record could not be applied, in which
+     *                               case the journal files are left as they
+     *                               are
+     */
+    public static int replay(Data data, String journalFile) {
+        int count = 0;
+        for (File segment : rolledSegments(journalFile)) {
+            count += replay(data, segment);
+        }
+        return count + replay(data, new File(journalFile));
+    }
+
+    /**
+     * Replays the rolled segments on top of a copy of the data, bringing it up
+     * to the last record rolled over. The active journal file, which records
+     * are still being appended to, is left alone.
+     *
+     * @param copy the data loaded from a snapshot, with any segments replayed
+     *             on it before
+     * @throws IllegalStateException if a record could not be applied
+     */
+    public void replayRolled(Data copy) {
+        for (File segment : rolledSegments(this.journalFile)) {
+            replay(copy, segment);
+        }
+    }
+
+    /**
+     * Lists the rolled segments of a journal, ordered by sequence number.
+     *
+     * @param journalFile the path to the active journal file
+     * @return the list of rolled segment files
+     */
+    private static List<File> rolledSegments(String journalFile) {
+        File active = new File(journalFile).getAbsoluteFile();
+        String prefix = active.getName() + ".";
+        File[] files = active.getParentFile().listFiles(
+                (dir, name) -> name.startsWith(prefix) && name.substring(prefix.length()).matches("[0-9]+"));
+        List<File> segments = new ArrayList<>();
+        if (files != null) {
+            for (File file : files) {
+                segments.add(file);
+            }
+        }
+        segments.sort(Comparator.comparingLong(Journal::segmentSequence));
+        return segments;
+    }
+
+    /**
+     * Gets the sequence number a rolled segment is named after.
+     *
+     * @param segment the rolled segment file
+     * @return the sequence number of the segment
+     */
+    private static long segmentSequence(File segment) {
+        String name = segment.getName();
+        return Long.parseLong(name.substring(name.lastIndexOf('.') + 1));
+    }
+
+    /**
+     * Replays the records of a journal file on top of the loaded data.
+     * Records already covered by the snapshot are skipped. Reading stops at the
+     * first incomplete or corrupted record, which is truncated from the file.
+     * A record that cannot be applied stops the replay altogether, as every
+     * later record may depend on it. So does a file of the first version,
+     * whose records referred to entities by list position.
+     *
+     * @param data the data object loaded from the snapshot
+     * @param file the journal file
+     * @return the number of valid records in the journal file
+     * @throws IllegalStateException if a record could not be applied
+     */
+    private static int replay(Data data, File file) {
+        if (!file.exists())
+            return 0;
+
+        int count = 0;
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            long magic;
+            try {
+                magic = in.readLong();
+            } catch (EOFException e) {
+                magic = MAGIC; // Header cut short by a crash, dropped below
+            }
+            if (magic != MAGIC)
+                throw new IllegalStateException(file + " was written by an older version, which referred to entities"
+                        + " by list position. Replay it with that version, or delete it to drop its changes.");
+            validLength = file.length() < 8 ? 0 : 8;
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length <= 0 || length > MAX_RECORD_LENGTH)
+                    break;
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                long checksum = in.readLong();
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if (crc.getValue() != checksum)
+                    break;
+
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                long sequence = record.readLong();
+                Operation operation = Operation.valueOf(record.readUTF());
+                String[] args = new String[record.readShort()];
+                for (int i = 0; i < args.length; i++) {
+                    args[i] = record.readBoolean() ? record.readUTF() : null;
+                }
+                validLength += 4 + length + 8;
+                count++;
+
+                if (sequence <= data.getJournalSequence())
+                    continue;
+                try {
+                    apply(data, operation, args);
+                } catch (RuntimeException e) {
+                    throw new IllegalStateException("Journal record " + sequence + " (" + operation + ") in "
+                            + file + " could not be replayed", e);
+                }
+                data.replayed(operation, args);
+                data.setJournalSequence(sequence);
+            }
+        } catch (EOFException e) {
+            // Incomplete record at the end of the file, written during a crash
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Journal could not be fully read: " + e.getMessage());
+        }
+
+        // Drop any incomplete tail so that new records follow the last valid one
+        if (file.length() > validLength) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(validLength);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Applies a single journal record to the data, mirroring the mutation made
+     * by the original control or boundary call.
+     *
+     * @param data      the data object to apply the record to
+     * @param operation the type of mutation
+     * @param args      the recorded arguments
+     */
+    private static void apply(Data data, Operation operation, String[] args) {
+        switch (operation) {
+            case REGISTER_USER:
+                String NRIC = args[0];
+                String name = args[1];
+                int age = Integer.parseInt(args[2]);
+                MaritalStatus maritalStatus = MaritalStatus.valueOf(args[3]);
+                switch (args[4]) {
+                    case ("Manager"):
+                        Manager manager = new Manager(NRIC, name, age, maritalStatus);
+                        restore(data, manager, args[5]);
+                        data.addManager(manager);
+                        break;
+                    case ("Officer"):
+                        Officer officer = new Officer(NRIC, name, age, maritalStatus);
+                        restore(data, officer, args[5]);
+                        data.addOfficer(officer);
+                        break;
+                    default:
+                        Applicant newApplicant = new Applicant(NRIC, name, age, maritalStatus);
+                        restore(data, newApplicant, args[5]);
+                        data.addApplicant(newApplicant);
+                }
+                break;
+            case CHANGE_PASSWORD:
+                // Only the new password is recorded, last, after the old one in older records
+                user(data, args[0]).setPassword(args[args.length - 1]);
+                break;
+            case SET_SORT:
+                User sortUser = user(data, args[0]);
+                sortUser.setSortSetting(Integer.parseInt(args[1]));
+                if (sortUser.getReverseSort() != Boolean.parseBoolean(args[2]))
+                    sortUser.reverseSort();
+                break;
+            case ADD_MANAGER_CODE:
+                data.addManagerCode(args[0]);
+                break;
+            case REMOVE_MANAGER_CODE:
+                data.removeManagerCode(args[0]);
+                break;
+            case ADD_OFFICER_CODE:
+                data.addOfficerCode(args[0]);
+                break;
+            case REMOVE_OFFICER_CODE:
+                data.removeOfficerCode(args[0]);
+                break;
+            case CREATE_PROJECT:
+                Project newProject = ((Manager) user(data, args[0])).createProject(args[2], args[3],
+                        units(args, 8), LocalDate.parse(args[4]), LocalDate.parse(args[5]),
+                        Boolean.parseBoolean(args[6]), Integer.parseInt(args[7]), data.getProjectList());
+                if (newProject == null)
+                    throw new IllegalStateException("Project " + args[2] + " clashes with another");
+                restore(data, newProject, args[1]);
+                break;
+            case EDIT_PROJECT:
+                ((Manager) user(data, args[0])).editProject(args[2], args[3], units(args, 8),
+                        LocalDate.parse(args[4]), LocalDate.parse(args[5]), Boolean.parseBoolean(args[6]),
+                        Integer.parseInt(args[7]), entity(data, Project.class, args[1]));
+                break;
+            case DELETE_PROJECT:
+                entity(data, Project.class, args[0]).deleteProject(data);
+                break;
+            case TOGGLE_VISIBILITY:
+                entity(data, Project.class, args[0]).toggleVisibility();
+                break;
+            case REGISTER_OFFICER:
+                Registration newRegistration = new Registration((Officer) user(data, args[0]),
+                        entity(data, Project.class, args[1]));
+                restore(data, newRegistration, args[2]);
+                data.addRegistration(newRegistration);
+                break;
+            case APPROVE_REGISTRATION:
+                Registration registration = entity(data, Registration.class, args[0]);
+                registration.approve(registration.getOfficer());
+                break;
+            case REJECT_REGISTRATION:
+                entity(data, Registration.class, args[0]).reject();
+                break;
+            case APPLY:
+                Application newApplication = new Application((Applicant) user(data, args[0]),
+                        entity(data, Project.class, args[1]), UnitType.valueOf(args[2]));
+                restore(data, newApplication, args[3]);
+                data.addApplication(newApplication);
+                break;
+            case APPROVE_APPLICATION:
+                entity(data, Application.class, args[0]).approve();
+                break;
+            case REJECT_APPLICATION:
+                entity(data, Application.class, args[0]).reject();
+                break;
+            case BOOK:
+                Application booked = entity(data, Application.class, args[0]);
+                booked.book(data);
+                restore(data, booked.getApplicant().getBooking(), args[1]);
+                break;
+            case CONFIRM_BOOKING:
+                entity(data, FlatBooking.class, args[0]).confirm();
+                break;
+            case ENQUIRE:
+                Enquiry newEnquiry = new Enquiry((Applicant) user(data, args[0]), entity(data, Project.class, args[1]),
+                        args[2], args[3]);
+                restore(data, newEnquiry, args[4]);
+                data.addEnquiry(newEnquiry);
+                break;
+            case EDIT_ENQUIRY:
+                entity(data, Enquiry.class, args[0]).editEnquiry(args[1]);
+                break;
+            case DELETE_ENQUIRY:
+                entity(data, Enquiry.class, args[0]).deleteEnquiry(data);
+                break;
+            case REPLY_ENQUIRY:
+                entity(data, Enquiry.class, args[0]).setReply(args[1]);
+                break;
+            case REQUEST_WITHDRAWAL:
+                Applicant applicant = (Applicant) user(data, args[0]);
+                Withdrawal newWithdrawal = new Withdrawal(applicant.getApplication(), applicant);
+                restore(data, newWithdrawal, args[1]);
+                data.addWithdrawal(newWithdrawal);
+                break;
+            case APPROVE_WITHDRAWAL:
+                entity(data, Withdrawal.class, args[0]).approve(data);
+                break;
+            case REJECT_WITHDRAWAL:
+                entity(data, Withdrawal.class, args[0]).reject(data);
+                break;
+            case RUN_BALLOT:
+                BallotControl.runBallot(entity(data, Project.class, args[0]), Long.parseLong(args[1]));
+                break;
+        }
+    }
+
+    /**
+     * Finds a user of any type by NRIC.
+     *
+     * @param data the data object containing the lists of users
+     * @param NRIC the NRIC of the user
+     * @return the user with the given NRIC
+     * @throws IllegalStateException if no such user exists
+     */
+    private static User user(Data data, String NRIC) {
+        User user = data.findUser(NRIC);
+        if (user == null)
+            throw new IllegalStateException("Unknown user " + NRIC);
+        return user;
+    }
+
+    /**
+     * Finds an entity by its recorded id.
+     *
+     * @param <T>  the type of the entity
+     * @param data the data object containing the entity
+     * @param type the class of the entity
+     * @param id   the recorded id of the entity
+     * @return the entity with the given id
+     * @throws IllegalStateException if no entity of the type has the id
+     */
+    private static <T> T entity(Data data, Class<T> type, String id) {
+        Identifiable entity = data.findEntity(Integer.parseInt(id));
+        if (!type.isInstance(entity))
+            throw new IllegalStateException("Unknown " + type.getSimpleName() + " " + id);
+        return type.cast(entity);
+    }
+
+    /**
+     * Gives an entity created by a record the id it was recorded with.
+     *
+     * @param data   the data object the entity is added to
+     * @param entity the entity
+     * @param id     the recorded id of the entity
+     */
+    private static void restore(Data data, Identifiable entity, String id) {
+        data.restoreId(entity, Integer.parseInt(id));
+    }
+
+    /**
+     * Rebuilds a list of units from flattened type, count and price values.
+     *
+     * @param args the recorded arguments
+     * @param from the index of the first unit value
+     * @return the list of units
+     */
+    private static List<Unit> units(String[] args, int from) {
+        List<Unit> units = new ArrayList<>();
+        for (int i = from; i + 2 < args.length; i += 3) {
+            units.add(new Unit(UnitType.valueOf(args[i]), Integer.parseInt(args[i + 1]),
+                    Double.parseDouble(args[i + 2])));
+        }
+        return units;
+    }
+}
@@ -0,0 +1,347 @@
+package control;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import entity.Applicant;
+import entity.Application;
+import entity.Enquiry;
+import entity.FlatBooking;
+import entity.Officer;
+import entity.Project;
+import entity.Registration;
+import entity.Unit;
+import entity.User;
+import entity.Withdrawal;
+import enums.Status;
+import shared.Data;
+
+/**
+ * The JsonExporter class writes the whole of the data as JSON lines, one
+ * object per line, so it can be read by other tools a line at a time.
+ * Each object has a {@code type} and an {@code id}, and refers to other
+ * objects by their ids. Users are identified by NRIC, and every other entity by
+ * the id it has in the data, which stays the same from one export to the next.
+ * Bookings and withdrawals follow the application they belong to.
+ * The entities are written straight from the data as they are visited,
+ * through a fixed-size buffer, so the memory used does not grow with the size
+ * of the export. Passwords are not exported.
+ */
+public class JsonExporter {
+
+    /** The version of the export format, written in the first line. */
+    public static final int VERSION = 1;
+
+    /** The size of the buffer between the encoder and the channel. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Attributes
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final StringBuilder line = new StringBuilder(256);
+    private char[] chars = new char[256];
+    private long lines;
+
+    /**
+     * Creates an exporter writing to the given channel.
+     *
+     * @param channel the channel to write to
+     */
+    public JsonExporter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Loads the data and exports it to a file.
+     *
+     * @param file the path of the file
+     */
+    public static void run(String file) {
+        Data data = Initialize.initializeData();
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long lines = new JsonExporter(channel).export(data);
+            System.out.printf("Exported %d lines to %s in %.1f ms.%n", lines, file,
+                    (System.nanoTime() - start) / 1e6);
+        } catch (IOException e) {
+            System.out.println("Export failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Exports the data: a line describing the export, then the users, projects,
+     * registrations, applications with their bookings and withdrawals, and
+     * enquiries.
+     *
+     * @param data the data object to export
+     * @return the number of lines written
+     * @throws IOException if the export could not be written
+     */
+    public long export(Data data) throws IOException {
+        this.line.setLength(0);
+        this.line.append("{\"type\":\"export\",\"version\":").append(VERSION);
+        field("exported", LocalDateTime.now().toString()).end();
+
+        data.assignIds();
+        writeUsers("manager", data.getManagerList());
+        writeUsers("officer", data.getOfficerList());
+        writeUsers("applicant", data.getApplicantList());
+
+        for (Project project : data.getProjectList()) {
+            writeProject(project);
+        }
+
+        for (Registration registration : data.getRegistrationList()) {
+            begin("registration", registration.getId())
+                    .field("officer", registration.getOfficer().getNRIC())
+                    .field("project", projectId(registration.getProject()))
+                    .field("status", registration.getStatus().name())
+                    .end();
+        }
+
+        for (Application application : data.getApplicationList()) {
+            Applicant applicant = application.getApplicant();
+            begin("application", application.getId())
+                    .field("applicant", applicant.getNRIC())
+                    .field("project", projectId(application.getProject()))
+                    .field("unitType", application.getUnitType().name())
+                    .field("status", application.getStatus().name())
+                    .end();
+
+            FlatBooking booking = applicant.getBooking();
+            if (booking != null && booking.getApplication() == application) {
+                begin("booking", booking.getId())
+                        .field("application", application.getId())
+                        .field("applicant", applicant.getNRIC())
+                        .field("project", projectId(booking.getProject()))
+                        .field("confirmed", booking.isBooked())
+                        .end();
+            }
+            Withdrawal withdrawal = applicant.getWithdrawal();
+            if (withdrawal != null && withdrawal.getApplication() == application
+                    && withdrawal.getStatus() == Status.Pending) {
+                begin("withdrawal", withdrawal.getId())
+                        .field("application", application.getId())
+                        .field("applicant", applicant.getNRIC())
+                        .field("status", withdrawal.getStatus().name())
+                        .end();
+            }
+        }
+
+        for (Enquiry enquiry : data.getEnquiryList()) {
+            begin("enquiry", enquiry.getId())
+                    .field("applicant", enquiry.getApplicant().getNRIC())
+                    .field("project", projectId(enquiry.getProject()))
+                    .field("header", enquiry.getEnquiryHeader())
+                    .field("text", enquiry.getEnquiryText())
+                    .field("reply", enquiry.getReply())
+                    .end();
+        }
+
+        flush();
+        return this.lines;
+    }
+
+    /**
+     * Writes a line for each user of a list.
+     *
+     * @param type  the type of the users
+     * @param users the users
+     * @throws IOException if the lines could not be written
+     */
+    private void writeUsers(String type, List<? extends User> users) throws IOException {
+        for (User user : users) {
+            begin(type, user.getNRIC())
+                    .field("name", user.getName())
+                    .field("age", user.getAge())
+                    .field("maritalStatus", user.getMaritalStatus().name())
+                    .end();
+        }
+    }
+
+    /**
+     * Writes the line of a project, with its units and assigned officers.
+     *
+     * @param project the project
+     * @throws IOException if the line could not be written
+     */
+    private void writeProject(Project project) throws IOException {
+        begin("project", project.getId())
+                .field("name", project.getName())
+                .field("neighbourhood", project.getNeighbourhood())
+                .field("manager", project.getManager() == null ? null : project.getManager().getNRIC())
+                .field("openingDate", project.getApplicationOpenDate().toString())
+                .field("closingDate", project.getApplicationClosingDate().toString())
+                .field("visible", project.getVisibility())
+                .field("officerSlots", project.getOfficerSlots());
+
+        this.line.append(",\"units\":[");
+        List<Unit> units = project.getUnits();
+        for (int i = 0; i < units.size(); i++) {
+            Unit unit = units.get(i);
+            if (i > 0)
+                this.line.append(',');
+            this.line.append("{\"unitType\":");
+            appendString(unit.getUnitType().name());
+            this.line.append(",\"available\":").append(unit.getUnitsAvailable());
+            this.line.append(",\"price\":").append(unit.getSellingPrice()).append('}');
+        }
+        this.line.append("],\"officers\":[");
+        List<Officer> officers = project.getAssignedOfficers();
+        for (int i = 0; i < officers.size(); i++) {
+            if (i > 0)
+                this.line.append(',');
+            appendString(officers.get(i).getNRIC());
+        }
+        this.line.append(']');
+        end();
+    }
+
+    /**
+     * Gets the id of a project a line refers to.
+     *
+     * @param project the project, or null
+     * @return the id of the project, or null for none
+     */
+    private static Integer projectId(Project project) {
+        return project == null ? null : project.getId();
+    }
+
+    /**
+     * Starts the line of an entity with a numeric id.
+     *
+     * @param type the type of the entity
+     * @param id   the id of the entity
+     * @return this exporter, to add the fields of the entity
+     */
+    private JsonExporter begin(String type, int id) {
+        this.line.setLength(0);
+        this.line.append("{\"type\":\"").append(type).append("\",\"id\":").append(id);
+        return this;
+    }
+
+    /**
+     * Starts the line of an entity with a text id.
+     *
+     * @param type the type of the entity
+     * @param id   the id of the entity
+     * @return this exporter, to add the fields of the entity
+     */
+    private JsonExporter begin(String type, String id) {
+        this.line.setLength(0);
+        this.line.append("{\"type\":\"").append(type).append("\",\"id\":");
+        appendString(id);
+        return this;
+    }
+
+    private JsonExporter field(String name, String value) {
+        this.line.append(",\"").append(name).append("\":");
+        if (value == null)
+            this.line.append("null");
+        else
+            appendString(value);
+        return this;
+    }
+
+    private JsonExporter field(String name, Integer value) {
+        this.line.append(",\"").append(name).append("\":").append(value == null ? "null" : value.toString());
+        return this;
+    }
+
+    private JsonExporter field(String name, boolean value) {
+        this.line.append(",\"").append(name).append("\":").append(value);
+        return this;
+    }
+
+    /**
+     * Appends a string to the current line as a JSON string, escaping quotes,
+     * backslashes and control characters.
+     *
+     * @param value the string
+     */
+    private void appendString(String value) {
+        this.line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    this.line.append("\\\"");
+                    break;
+                case '\\':
+                    this.line.append("\\\\");
+                    break;
+                case '\n':
+                    this.line.append("\\n");
+                    break;
+                case '\r':
+                    this.line.append("\\r");
+                    break;
+                case '\t':
+                    this.line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                        this.line.append(String.format("\\u%04x", (int) c));
+                    else
+                        this.line.append(c);
+            }
+        }
+        this.line.append('"');
+    }
+
+    /**
+     * Ends the current line and encodes it into the buffer, writing the buffer
+     * to the channel whenever it fills. The line is copied to a reused array
+     * first, which the encoder reads faster than the builder itself.
+     *
+     * @throws IOException if the buffer could not be written
+     */
+    private void end() throws IOException {
+        this.line.append("}\n");
+        int length = this.line.length();
+        if (this.chars.length < length)
+            this.chars = new char[Math.max(length, this.chars.length * 2)];
+        this.line.getChars(0, length, this.chars, 0);
+        CharBuffer chars = CharBuffer.wrap(this.chars, 0, length);
+        while (true) {
+            CoderResult result = this.encoder.encode(chars, this.buffer, true);
+            if (result.isOverflow()) {
+                flush();
+            } else if (result.isUnderflow()) {
+                break;
+            } else {
+                result.throwException();
+            }
+        }
+        this.encoder.reset();
+        this.lines++;
+    }
+
+    /**
+     * Writes the contents of the buffer to the channel.
+     *
+     * @throws IOException if the buffer could not be written
+     */
+    private void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+}
@@ -4,20 +4,26 @@ import shared.Data;
 import entity.Manager;
 import entity.Project;
 import entity.Unit;
-import entity.Application;
+import enums.Status;
 import enums.UnitType;
 import enums.MaritalStatus;
+import service.ManagerService;
+import service.ReportFilter;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
-import java.util.stream.Collectors;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.io.FileWriter;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.security.SecureRandom;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 /**
  * The ManagerControl class manages functionalities for a Manager, such as
@@ -26,6 +32,8 @@ import java.io.IOException;
  * projects, including setting project
  * parameters, filtering applications, and generating reports based on specific
  * criteria.
+ * The prompts are handled here, and the actions themselves are carried out by
+ * {@link ManagerService}.
  */
 public class ManagerControl {
 
@@ -44,8 +52,9 @@ public class ManagerControl {
      * @param manager the manager editing the project
      * @param project the project to be edited
      * @param sc      the scanner object used to capture user input
+     * @param data    the data object recording the edit
      */
-    public static void editProject(Manager manager, Project project, Scanner sc) {
+    public static void editProject(Manager manager, Project project, Scanner sc, Data data) {
         System.out.println("Enter project information:");
         System.out.print("Project name\t\t\t: ");
         String name = sc.nextLine();
@@ -89,12 +98,12 @@ public class ManagerControl {
                 System.out.print("Officer Slots (Max 10)\t\t: ");
                 int officerSlots = Math.abs(sc.nextInt());
                 if (officerSlots <= 10) {
-                    if (manager.editProject(name, neighbourhood,
-                            units, openingDate, closingDate, true, officerSlots, project)) {
+                    try {
+                        ManagerService.editProject(manager, project, name, neighbourhood, units, openingDate,
+                                closingDate, officerSlots, data);
                         System.out.println("Project edited successfully!");
-                    } else {
-                        System.out.println(
-                                "There is a clash in dates! Please double check your existing projects before creating a new one.");
+                    } catch (IllegalArgumentException e) {
+                        System.out.println(e.getMessage());
                     }
                 } else {
                     System.out.println("Officer slots exceeded 10. Please try again.");
@@ -163,18 +172,16 @@ public class ManagerControl {
                 try {
                     int officerSlots = Integer.parseInt(sc.nextLine());
                     if (officerSlots <= 10) {
-                        if (manager.createProject(name, neighbourhood,
-                                units, openingDate, closingDate, true, officerSlots, data.getProjectList())) {
-                            System.out.println("Project created successfully!");
-                        } else {
-                            System.out.println(
-                                    "There is a clash in dates! Please double check your existing projects before creating a new one.");
-                        }
+                        ManagerService.createProject(manager, name, neighbourhood, units, openingDate,
+                                closingDate, officerSlots, data);
+                        System.out.println("Project created successfully!");
                     } else {
                         System.out.println("Officer slots exceeded 10. Please try again.");
                     }
                 } catch (NumberFormatException e) {
                     System.out.println("Invalid input.");
+                } catch (IllegalArgumentException e) {
+                    System.out.println(e.getMessage());
                 }
             } else {
                 System.out.println("Error! Opening date is after closing date. Please try again.");
@@ -184,6 +191,17 @@ public class ManagerControl {
         }
     }
 
+    /**
+     * Toggles the visibility of the specified project, and publishes its new
+     * listing to applicants.
+     *
+     * @param project the project to be toggled
+     * @param data    the data object recording the change
+     */
+    public static void toggleVisibility(Project project, Data data) {
+        ManagerService.toggleVisibility(project, data);
+    }
+
     /**
      * Deletes the specified project and removes it from the data. The project is
      * then set to null.
@@ -192,110 +210,134 @@ public class ManagerControl {
      * @param data    the data object containing the project list
      */
     public static void deleteProject(Project project, Data data) {
-        project.deleteProject(data);
+        ManagerService.deleteProject(project, data);
         project = null;
         System.out.println("Project Deleted");
     }
 
+    /**
+     * Runs a ballot over all pending applications of the specified project,
+     * approving as many as there are units left for each flat type and
+     * rejecting the rest. The manager can enter a seed to make the draw
+     * reproducible, or leave it blank for a random one.
+     *
+     * @param project the project to run the ballot for
+     * @param sc      the scanner object used to capture user input
+     * @param data    the data object recording the ballot
+     */
+    public static void runBallot(Project project, Scanner sc, Data data) {
+        int pending = project.getApplicationCount(Status.Pending);
+        if (pending == 0) {
+            System.out.println("No pending applications.");
+            System.out.println("------------------------------");
+            return;
+        }
+        System.out.print("Seed (leave blank for random)\t: ");
+        String seedString = sc.nextLine().trim();
+        long seed;
+        try {
+            seed = seedString.isEmpty() ? new SecureRandom().nextLong() : Long.parseLong(seedString);
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid seed.");
+            System.out.println("------------------------------");
+            return;
+        }
+        BallotControl.BallotResult result = ManagerService.runBallot(project, seed, data);
+        System.out.println("Ballot of " + pending + " applications with seed " + seed + ":");
+        System.out.print(result);
+        System.out.println("------------------------------");
+    }
+
     /**
      * Generates a report for the specified project, allowing the user to filter the
      * applications based on criteria such as
      * flat type, age range, and marital status. The generated report is saved as a
-     * text file with a timestamped filename.
+     * text file with a timestamped filename, and displayed on the console.
      *
      * @param project the project for which the report is generated
      * @param sc      the scanner object used to capture user input for filtering
      *                and generating the report
      */
     public static void generateReport(Project project, Scanner sc) {
-        String report = "";
-        report += "| Report for Project |\n";
+        generateReport(project, sc, true);
+    }
 
+    /**
+     * Generates a report for the specified project, allowing the user to filter the
+     * applications based on criteria such as
+     * flat type, age range, and marital status. The generated report is saved as a
+     * text file with a timestamped filename.
+     * Each applicant section is written to the file as it is produced, so memory
+     * use does not grow with the number of applications.
+     *
+     * @param project the project for which the report is generated
+     * @param sc      the scanner object used to capture user input for filtering
+     *                and generating the report
+     * @param echo    whether to also display the report on the console
+     */
+    public static void generateReport(Project project, Scanner sc, boolean echo) {
         // Filter report
         System.out.println();
         System.out.println("Filter report (Y/N)");
         String filter = sc.nextLine();
-        List<Application> applications = project.getApplications();
+        ReportFilter reportFilter = ReportFilter.ALL;
 
         if (filter.equalsIgnoreCase("y")) {
-            report += "\nFilter settings:";
             System.out.println("| Filter Report |");
             System.out.println("Leave blank to continue:");
             // Choose flat type
             System.out.println("Flat Type");
             UnitType selUnitType = ArrayControl.selectUnitType(sc);
-            if (selUnitType != null) {
-                report += "\nFlat Type: " + selUnitType;
-                applications = applications.stream().filter(a -> a.getUnitType() == selUnitType)
-                        .collect(Collectors.toList());
-            }
             // Choose age range
+            int minAge = 0;
+            int maxAge = 0;
             try {
                 System.out.print("Minimum Age (0 to skip): ");
-                int minAge = Integer.parseInt(sc.nextLine());
-                if (minAge != 0) {
-                    report += "\nMin Age: " + minAge;
-                    applications = applications.stream()
-                            .filter(a -> a.getApplicant().getAge() >= minAge)
-                            .collect(Collectors.toList());
-                }
+                minAge = Integer.parseInt(sc.nextLine());
                 System.out.print("Maximum Age: (0 to skip)");
-                int maxAge = Integer.parseInt(sc.nextLine());
-                if (maxAge != 0) {
-                    report += "\nMax Age: " + maxAge;
-                    applications = applications.stream()
-                            .filter(a -> a.getApplicant().getAge() <= maxAge)
-                            .collect(Collectors.toList());
-                }
+                maxAge = Integer.parseInt(sc.nextLine());
             } catch (NumberFormatException e) {
                 System.out.println("Invalid input.");
             }
             // Choose marital status
             System.out.println("Marital Status");
             MaritalStatus selMaritalStatus = ArrayControl.selectMaritalStatus(sc);
-            if (selMaritalStatus != null) {
-                report += "\nMarital Status: " + selMaritalStatus;
-                applications = applications.stream()
-                        .filter(a -> a.getApplicant().getMaritalStatus() == selMaritalStatus)
-                        .collect(Collectors.toList());
-            }
-            report += "\n";
+            reportFilter = new ReportFilter(selUnitType, minAge, maxAge, selMaritalStatus);
         } else if (!filter.equalsIgnoreCase("n")) {
             // Cancel report generation
             return;
         }
 
-        // Generate Report String
-        report += project.toString(true);
-        report += "\n";
+        String filename = reportFilename(project);
 
-        if (applications.size() == 0) {
-            report += "No applications.";
-        } else {
-            for (Application application : applications) {
-                report += "\n------------------------------";
-                report += "\nApplicant:\n";
-                report += application.getApplicant().toString(true);
-                report += "\nFlat Booking:\n";
-                report += application.getUnitType();
+        // Stream report to file, one applicant section at a time
+        Writer console = echo ? new BufferedWriter(new OutputStreamWriter(System.out)) : null;
+        try (Writer writer = Files.newBufferedWriter(Paths.get(REPORT_FILEPATH + filename))) {
+            ManagerService.writeReport(project, reportFilter, writer, console);
+
+            if (console != null) {
+                console.flush();
+                System.out.println();
+                System.out.println();
             }
+            System.out.println("Report generated - " + filename);
+        } catch (IOException e) {
+            System.out.println("An error occurred: " + e.getMessage());
         }
+    }
 
-        // Declare filename
+    /**
+     * Names the report file of a project, by the time it is generated and the
+     * name of the project.
+     *
+     * @param project the project
+     * @return the name of the report file, within {@link #REPORT_FILEPATH}
+     */
+    public static String reportFilename(Project project) {
         LocalDateTime now = LocalDateTime.now();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
         String formattedDateTime = now.format(formatter);
 
-        String filename = formattedDateTime + "_" + project.getName() + ".txt";
-
-        // Write to file
-        try (FileWriter writer = new FileWriter(REPORT_FILEPATH + filename)) {
-            writer.write(report);
-            System.out.println(report);
-            System.out.println();
-            System.out.println("Report generated - " + filename);
-        } catch (IOException e) {
-            System.out.println("An error occurred: " + e.getMessage());
-        }
+        return formattedDateTime + "_" + project.getName() + ".txt";
     }
 }
@@ -5,12 +5,11 @@ import entity.Registration;
 import entity.Project;
 import entity.FlatBooking;
 import entity.Applicant;
+import service.OfficerService;
 import shared.Data;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
-import java.util.stream.Collectors;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.io.FileWriter;
@@ -46,12 +45,8 @@ public class OfficerControl {
     }
 
     /**
-     * Allows an officer to register for a project. The officer is presented with a
-     * list of available projects
-     * that are not already applied for, assigned, or have no remaining officer
-     * slots.
-     * Projects that clash with currently assigned projects are also excluded from
-     * the list.
+     * Allows an officer to register for a project. The officer is presented with
+     * the projects returned by {@link OfficerService#getRegistrableProjects}.
      *
      * @param officer the officer who is registering for a project
      * @param sc      the scanner object used to capture user input
@@ -59,31 +54,15 @@ public class OfficerControl {
      *                registrations
      */
     public static void registerForProject(Officer officer, Scanner sc, Data data) {
-        // Filter out projects that 1. Officer applied for 2. Officer already assigned
-        List<Project> filteredProjects = new ArrayList<>(data.getProjectList());
-        if (officer.getApplication() != null)
-            filteredProjects.remove(officer.getApplication().getProject());
-        filteredProjects.removeAll(officer.getAssignedProjects());
-
-        // Filter out projects that clash with currently assigned projects
-        List<Project> projects = filteredProjects.stream()
-                .filter(project -> officer.getAssignedProjects().stream()
-                        .noneMatch(assigned -> project.inDateRange(assigned)))
-                .collect(Collectors.toList());
-
-        // Filter out already registered projects
-        projects.removeAll(
-                officer.getRegistrations().stream()
-                        .map(Registration::getProject)
-                        .collect(Collectors.toList()));
-
-        // Filter out projects with no officer slots remaining
-        projects.removeIf(project -> project.getOfficerSlots() == 0);
+        List<Project> projects = OfficerService.getRegistrableProjects(officer, data);
 
         Project selectedProject = ArrayControl.selectFromList(projects, sc, true);
         if (selectedProject != null) {
-            Registration registration = new Registration(officer, selectedProject);
-            data.getRegistrationList().add(registration);
+            try {
+                OfficerService.register(officer, selectedProject, data);
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage());
+            }
         }
     }
 
@@ -101,13 +80,10 @@ public class OfficerControl {
      */
     public static void generateReceipt(Project project, Scanner sc) {
         FlatBooking approvedBooking = ArrayControl.selectFromList(project.getApprovedBookings(), sc);
+        if (approvedBooking == null)
+            return;
         Applicant applicant = approvedBooking.getApplicant();
-        String s = "";
-        s += applicant.toString(true);
-        s += "\nFlat Type\t:" + approvedBooking.getApplication().getUnitType();
-        s += "\nProject\t: " + project.getName();
-        s += "\nNeighbourhood\t: " + project.getNeighbourhood();
-        s += project;
+        String s = OfficerService.receipt(approvedBooking);
 
         LocalDateTime now = LocalDateTime.now();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
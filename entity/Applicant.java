@@ -1,24 +1,39 @@
 package entity;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.ArrayList;
 import java.util.List;
 
 import enums.UnitType;
 import enums.MaritalStatus;
+import shared.EntityCodec;
+import shared.EntityIds;
+import shared.MappedSnapshot;
+import shared.ProjectSortCache;
 
 /**
  * An applicant user in the BTO system.
  * Extends User class and manages own data related to applications, bookings,
  * and enquiries.
+ * The application, booking and withdrawal request are changed while the lock
+ * of their project is held, and the enquiries are guarded by a lock of their
+ * own, so neither waits for the applicant's monitor.
  */
 public class Applicant extends User {
 
+    private static final long serialVersionUID = -40609333323327673L;
+
     // Attributes
-    private Application application;
-    private FlatBooking booking;
-    private List<Enquiry> enquiries;
+    private transient int[] refs; // Ids referred to in the data file, until linked
+    private transient volatile Application application;
+    private transient volatile FlatBooking booking;
+    private transient List<Enquiry> enquiries;
+    private final transient Object enquiryLock = new Object();
     private UnitType unitType;
-    private Withdrawal withdrawalRequest;
+    private transient volatile Withdrawal withdrawalRequest;
+    private transient volatile ProjectSortCache<ProjectListing> listingCache;
 
     // Constructor
 
@@ -38,6 +53,12 @@ public class Applicant extends User {
         this.withdrawalRequest = null;
     }
 
+    /**
+     * Constructs an empty applicant, to be read from the data file.
+     */
+    public Applicant() {
+    }
+
     // Getters and Setters
     public Application getApplication() {
         return this.application;
@@ -56,7 +77,9 @@ public class Applicant extends User {
     }
 
     public List<Enquiry> getEnquiries() {
-        return this.enquiries;
+        synchronized (this.enquiryLock) {
+            return new ArrayList<>(this.enquiries);
+        }
     }
 
     public UnitType getUnitType() {
@@ -75,6 +98,24 @@ public class Applicant extends User {
         this.withdrawalRequest = withdrawal;
     }
 
+    /**
+     * Returns the given listings sorted by the applicant's sort settings.
+     * The sorted view is cached, and only re-sorted when given other listings,
+     * as the catalog publishes a new list whenever a listing changes, or the
+     * sort settings change.
+     *
+     * @param listings the read-only listings published by the catalog
+     * @return a read-only sorted view of the listings
+     */
+    public List<ProjectListing> getSortedListings(List<ProjectListing> listings) {
+        ProjectSortCache<ProjectListing> cache = this.listingCache;
+        if (cache == null) {
+            cache = new ProjectSortCache<>(ProjectListing::sortListings);
+            this.listingCache = cache;
+        }
+        return cache.get(listings, 0, getSortSetting(), getReverseSort());
+    }
+
     // Methods
 
     /**
@@ -83,7 +124,9 @@ public class Applicant extends User {
      * @param enquiry The enquiry to add.
      */
     public void addEnquiry(Enquiry enquiry) {
-        this.enquiries.add(enquiry);
+        synchronized (this.enquiryLock) {
+            this.enquiries.add(enquiry);
+        }
     }
 
     /**
@@ -100,7 +143,7 @@ public class Applicant extends User {
      * project.
      */
     public void clearApplication() {
-        this.application.getProject().getApplications().remove(this.application);
+        this.application.getProject().removeApplication(this.application);
         this.application = null;
     }
 
@@ -110,6 +153,78 @@ public class Applicant extends User {
      * @param enquiry The enquiry to remove.
      */
     public void removeEnquiry(Enquiry enquiry) {
-        this.enquiries.remove(enquiry);
+        synchronized (this.enquiryLock) {
+            this.enquiries.remove(enquiry);
+        }
+    }
+
+    /**
+     * Writes the applicant in the compact form of the data file, see
+     * {@link EntityCodec}.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If the applicant could not be written.
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        super.writeExternal(out);
+        EntityCodec.writeEnum(out, this.unitType);
+        EntityIds.writeRefs(out, this.application, this.booking, this.enquiries, this.withdrawalRequest);
+    }
+
+    /**
+     * Reads the applicant written by {@link #writeExternal}, to be linked to the
+     * entities it refers to once they have all been read.
+     *
+     * @param in The stream to read from.
+     * @throws IOException If the applicant could not be read.
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        super.readExternal(in);
+        this.unitType = EntityCodec.readEnum(in, UnitType.class);
+        this.refs = EntityIds.readRefs(in);
+    }
+
+    @Override
+    public void link(EntityIds ids) {
+        super.link(ids);
+        EntityIds.Cursor refs = ids.cursor(this.refs);
+        this.application = refs.next(Application.class);
+        this.booking = refs.next(FlatBooking.class);
+        this.enquiries = refs.nextList(Enquiry.class);
+        this.withdrawalRequest = refs.next(Withdrawal.class);
+        this.refs = null;
+    }
+
+    /**
+     * Writes the applicant as a row of a {@link MappedSnapshot}, with the same
+     * fields as {@link #writeExternal}.
+     *
+     * @param row The row to write to.
+     */
+    @Override
+    public void writeRow(MappedSnapshot.RowWriter row) {
+        super.writeRow(row);
+        row.writeEnum(this.unitType);
+        row.writeRef(this.application);
+        row.writeRef(this.booking);
+        row.writeRefs(this.enquiries);
+        row.writeRef(this.withdrawalRequest);
+    }
+
+    /**
+     * Reads the applicant from its row, written by {@link #writeRow}.
+     *
+     * @param row The row to read from.
+     */
+    @Override
+    public void readRow(MappedSnapshot.RowReader row) {
+        super.readRow(row);
+        this.unitType = row.readEnum(UnitType.class);
+        this.application = row.readRef(Application.class);
+        this.booking = row.readRef(FlatBooking.class);
+        this.enquiries = row.readRefs(Enquiry.class);
+        this.withdrawalRequest = row.readRef(Withdrawal.class);
     }
 }
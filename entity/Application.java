@@ -1,10 +1,15 @@
 package entity;
 
-import java.io.Serializable;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.concurrent.locks.ReentrantLock;
 
 import shared.Data;
+import shared.EntityCodec;
+import shared.EntityIds;
+import shared.MappedSnapshot;
+import shared.ProjectLocks;
 import enums.UnitType;
 import enums.Status;
 
@@ -12,11 +17,15 @@ import enums.Status;
  * An application made by an applicant for a project.
  * Application includes the status and the associated project.
  */
-public class Application implements Serializable {
+public class Application implements Identifiable {
+
+    private static final long serialVersionUID = -5778617775353737724L;
 
     // Attributes
-    private Applicant applicant;
-    private Project project;
+    private int id;
+    private transient int[] refs; // Ids referred to in the data file, until linked
+    private transient Applicant applicant;
+    private transient Project project;
     private UnitType unitType;
     private Status status; // Unsuccessful, Pending, Successful, Booked, NULL
 
@@ -35,11 +44,34 @@ public class Application implements Serializable {
         this.project = project;
         this.unitType = unitType;
         this.status = Status.Pending;
-        this.applicant.setApplication(this);
-        this.project.addApplication(this);
+        ReentrantLock lock = ProjectLocks.forProject(project);
+        lock.lock();
+        try {
+            this.applicant.setApplication(this);
+            this.project.addApplication(this);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Constructs an empty application, to be read from the data file.
+     */
+    public Application() {
     }
 
     // Getters and Setters
+
+    @Override
+    public int getId() {
+        return this.id;
+    }
+
+    @Override
+    public void setId(int id) {
+        this.id = id;
+    }
+
     public Applicant getApplicant() {
         return this.applicant;
     }
@@ -57,6 +89,18 @@ public class Application implements Serializable {
     }
 
     public void setStatus(Status status) {
+        Status previous = this.status;
+        this.status = status;
+        this.project.updateApplicationStatus(this, previous);
+    }
+
+    /**
+     * Sets the status without moving the application between the project's
+     * status partitions, for bulk changes that rebuild the partitions once.
+     *
+     * @param status The new status.
+     */
+    void settle(Status status) {
         this.status = status;
     }
 
@@ -66,7 +110,13 @@ public class Application implements Serializable {
      * Approves the application, changing its status to "Successful".
      */
     public void approve() {
-        this.status = Status.Successful;
+        ReentrantLock lock = ProjectLocks.forProject(this.project);
+        lock.lock();
+        try {
+            setStatus(Status.Successful);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -74,31 +124,32 @@ public class Application implements Serializable {
      * The application is also removed from the project's application list.
      */
     public void reject() {
-        this.status = Status.Unsuccessful;
-        this.project.getApplications().remove(this);
+        ReentrantLock lock = ProjectLocks.forProject(this.project);
+        lock.lock();
+        try {
+            setStatus(Status.Unsuccessful);
+            this.project.removeApplication(this);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
      * Books the application by creating a new FlatBooking.
-     * The application is removed from the project's application list and added to the flat booking list.
+     * The application stays in the project's application list, and moves to
+     * its Booked partition once the booking is confirmed.
      *
      * @param data The data containing the list of flat bookings.
      */
     public void book(Data data) {
-        FlatBooking booking = new FlatBooking(this);
-        data.getFlatBookings().add(booking);
-        this.project.getApplications().remove(this);
-    }
-
-    /**
-     * Filters and returns all pending applications from a list of applications.
-     *
-     * @param applications The list of applications to filter.
-     * @return A list of applications with "Pending" status.
-     */
-    public static List<Application> filterPending(List<Application> applications) {
-        return applications.stream().filter(p -> p.getStatus() == Status.Pending)
-                .collect(Collectors.toList());
+        ReentrantLock lock = ProjectLocks.forProject(this.project);
+        lock.lock();
+        try {
+            FlatBooking booking = new FlatBooking(this);
+            data.addFlatBooking(booking);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -107,8 +158,14 @@ public class Application implements Serializable {
      * @param data The data containing the list of applications.
      */
     public void deleteApplication(Data data) {
-        this.applicant.clearApplication();
-        data.getApplicationList().remove(this);
+        ReentrantLock lock = ProjectLocks.forProject(this.project);
+        lock.lock();
+        try {
+            this.applicant.clearApplication();
+            data.removeApplication(this);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -125,4 +182,70 @@ public class Application implements Serializable {
         s += "\n\n" + applicant.toString(true);
         return s;
     }
+
+    /**
+     * Writes the application in the compact form of the data file, see
+     * {@link EntityCodec}.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If the application could not be written.
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        EntityCodec.writeVarInt(out, this.id);
+        EntityCodec.writeEnum(out, this.unitType);
+        EntityCodec.writeEnum(out, this.status);
+        EntityIds.writeRefs(out, this.applicant, this.project);
+    }
+
+    /**
+     * Reads the application written by {@link #writeExternal}, to be linked to the
+     * entities it refers to once they have all been read.
+     *
+     * @param in The stream to read from.
+     * @throws IOException If the application could not be read.
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        this.id = EntityCodec.readVarInt(in);
+        this.unitType = EntityCodec.readEnum(in, UnitType.class);
+        this.status = EntityCodec.readEnum(in, Status.class);
+        this.refs = EntityIds.readRefs(in);
+        EntityIds.register(this);
+    }
+
+    @Override
+    public void link(EntityIds ids) {
+        EntityIds.Cursor refs = ids.cursor(this.refs);
+        this.applicant = refs.next(Applicant.class);
+        this.project = refs.next(Project.class);
+        this.refs = null;
+    }
+
+    /**
+     * Writes the application as a row of a {@link MappedSnapshot}, with the same
+     * fields as {@link #writeExternal}.
+     *
+     * @param row The row to write to.
+     */
+    @Override
+    public void writeRow(MappedSnapshot.RowWriter row) {
+        row.writeEnum(this.unitType);
+        row.writeEnum(this.status);
+        row.writeRef(this.applicant);
+        row.writeRef(this.project);
+    }
+
+    /**
+     * Reads the application from its row, written by {@link #writeRow}.
+     *
+     * @param row The row to read from.
+     */
+    @Override
+    public void readRow(MappedSnapshot.RowReader row) {
+        this.unitType = row.readEnum(UnitType.class);
+        this.status = row.readEnum(Status.class);
+        this.applicant = row.readRef(Applicant.class);
+        this.project = row.readRef(Project.class);
+    }
 }
@@ -1,19 +1,30 @@
 package entity;
 
 import shared.Data;
+import shared.EntityCodec;
+import shared.EntityIds;
+import shared.MappedSnapshot;
+import shared.ProjectLocks;
 
-import java.io.Serializable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * An enquiry made by an applicant regarding a project.
  * The enquiry includes a header, text, and an optional reply.
  */
-public class Enquiry implements Serializable {
+public class Enquiry implements Identifiable {
+
+    private static final long serialVersionUID = -4690924469552726942L;
 
     // Attributes
-    private Applicant applicant;
-    private Project project;
+    private int id;
+    private transient int[] refs; // Ids referred to in the data file, until linked
+    private transient Applicant applicant;
+    private transient Project project;
     private String enquiryHeader;
     private String enquiryText;
     private String reply;
@@ -36,11 +47,52 @@ public class Enquiry implements Serializable {
         this.enquiryHeader = enquiryHeader;
         this.enquiryText = enquiryText;
         this.reply = null;
-        this.applicant.addEnquiry(this);
-        this.project.addEnquiry(this);
+        ReentrantLock lock = ProjectLocks.forProject(project);
+        lock.lock();
+        try {
+            this.applicant.addEnquiry(this);
+            this.project.addEnquiry(this);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Constructs an empty enquiry, to be read from the data file.
+     */
+    public Enquiry() {
     }
 
     // Getters and Setters
+    @Override
+    public int getId() {
+        return this.id;
+    }
+
+    @Override
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public Applicant getApplicant() {
+        return this.applicant;
+    }
+
+    public Project getProject() {
+        return this.project;
+    }
+
+    public String getEnquiryHeader() {
+        return this.enquiryHeader;
+    }
+
+    public String getEnquiryText() {
+        return this.enquiryText;
+    }
+
+    public String getReply() {
+        return this.reply;
+    }
 
     /**
      * Checks if the enquiry has been answered by checking if a reply exists.
@@ -57,7 +109,18 @@ public class Enquiry implements Serializable {
      * @param reply The reply text.
      */
     public void setReply(String reply) {
-        this.reply = reply;
+        ReentrantLock lock = ProjectLocks.forProject(this.project);
+        lock.lock();
+        try {
+            boolean answered = isAnswered();
+            this.reply = reply;
+            if (answered != isAnswered())
+                this.project.updateEnquiryAnswered(this);
+            else
+                this.project.childChanged();
+        } finally {
+            lock.unlock();
+        }
     }
 
     // Methods
@@ -90,9 +153,16 @@ public class Enquiry implements Serializable {
      * @param text The new text for the enquiry.
      */
     public void editEnquiry(String text) {
-        if (!this.enquiryHeader.contains("Edited"))
-            this.enquiryHeader += " (Edited)";
-        this.enquiryText = text;
+        ReentrantLock lock = ProjectLocks.forProject(this.project);
+        lock.lock();
+        try {
+            if (!this.enquiryHeader.contains("Edited"))
+                this.enquiryHeader += " (Edited)";
+            this.enquiryText = text;
+            this.project.childChanged();
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -103,9 +173,15 @@ public class Enquiry implements Serializable {
      * @param data The data object containing the list of all enquiries.
      */
     public void deleteEnquiry(Data data) {
-        this.applicant.removeEnquiry(this);
-        this.project.removeEnquiry(this);
-        data.getEnquiryList().remove(this);
+        ReentrantLock lock = ProjectLocks.forProject(this.project);
+        lock.lock();
+        try {
+            this.applicant.removeEnquiry(this);
+            this.project.removeEnquiry(this);
+            data.removeEnquiry(this);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -124,4 +200,74 @@ public class Enquiry implements Serializable {
         }
         return sb.toString();
     }
+
+    /**
+     * Writes the enquiry in the compact form of the data file, see
+     * {@link EntityCodec}.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If the enquiry could not be written.
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        EntityCodec.writeVarInt(out, this.id);
+        EntityCodec.writeString(out, this.enquiryHeader);
+        EntityCodec.writeString(out, this.enquiryText);
+        EntityCodec.writeString(out, this.reply);
+        EntityIds.writeRefs(out, this.applicant, this.project);
+    }
+
+    /**
+     * Reads the enquiry written by {@link #writeExternal}, to be linked to the
+     * entities it refers to once they have all been read.
+     *
+     * @param in The stream to read from.
+     * @throws IOException If the enquiry could not be read.
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        this.id = EntityCodec.readVarInt(in);
+        this.enquiryHeader = EntityCodec.readString(in);
+        this.enquiryText = EntityCodec.readString(in);
+        this.reply = EntityCodec.readString(in);
+        this.refs = EntityIds.readRefs(in);
+        EntityIds.register(this);
+    }
+
+    @Override
+    public void link(EntityIds ids) {
+        EntityIds.Cursor refs = ids.cursor(this.refs);
+        this.applicant = refs.next(Applicant.class);
+        this.project = refs.next(Project.class);
+        this.refs = null;
+    }
+
+    /**
+     * Writes the enquiry as a row of a {@link MappedSnapshot}, with the same
+     * fields as {@link #writeExternal}.
+     *
+     * @param row The row to write to.
+     */
+    @Override
+    public void writeRow(MappedSnapshot.RowWriter row) {
+        row.writeString(this.enquiryHeader);
+        row.writeString(this.enquiryText);
+        row.writeString(this.reply);
+        row.writeRef(this.applicant);
+        row.writeRef(this.project);
+    }
+
+    /**
+     * Reads the enquiry from its row, written by {@link #writeRow}.
+     *
+     * @param row The row to read from.
+     */
+    @Override
+    public void readRow(MappedSnapshot.RowReader row) {
+        this.enquiryHeader = row.readString();
+        this.enquiryText = row.readString();
+        this.reply = row.readString();
+        this.applicant = row.readRef(Applicant.class);
+        this.project = row.readRef(Project.class);
+    }
 }
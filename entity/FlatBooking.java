@@ -1,21 +1,33 @@
 package entity;
 
-import java.io.Serializable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.concurrent.locks.ReentrantLock;
 
+import enums.Status;
 import enums.UnitType;
 import shared.Data;
+import shared.EntityCodec;
+import shared.EntityIds;
+import shared.MappedSnapshot;
+import shared.ProjectLocks;
 
 /**
  * A booking made by an applicant for a unit in a project.
  * The booking links an applicant, application, and project, and tracks its
  * booking status.
  */
-public class FlatBooking implements Serializable {
+public class FlatBooking implements Identifiable {
+
+    private static final long serialVersionUID = -4544774333777424010L;
 
     // Attributes
-    private Applicant applicant;
-    private Application application;
-    private Project project;
+    private int id;
+    private transient int[] refs; // Ids referred to in the data file, until linked
+    private transient Applicant applicant;
+    private transient Application application;
+    private transient Project project;
     private boolean booked;
 
     // Constructor
@@ -33,11 +45,32 @@ public class FlatBooking implements Serializable {
         this.application = application;
         this.project = application.getProject();
         this.booked = false;
-        this.applicant.setBooking(this);
-        this.project.addBooking(this);
+        ReentrantLock lock = ProjectLocks.forProject(this.project);
+        lock.lock();
+        try {
+            this.applicant.setBooking(this);
+            this.project.addBooking(this);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Constructs an empty booking, to be read from the data file.
+     */
+    public FlatBooking() {
     }
 
     // Getters and Setters
+    @Override
+    public int getId() {
+        return this.id;
+    }
+
+    @Override
+    public void setId(int id) {
+        this.id = id;
+    }
 
     public Applicant getApplicant() {
         return applicant;
@@ -45,6 +78,8 @@ public class FlatBooking implements Serializable {
 
     public void setApplicant(Applicant applicant) {
         this.applicant = applicant;
+        if (this.project != null)
+            this.project.childChanged();
     }
 
     public Project getProject() {
@@ -53,10 +88,15 @@ public class FlatBooking implements Serializable {
 
     public void setProject(Project project) {
         this.project = project;
+        if (this.project != null)
+            this.project.childChanged();
     }
 
     public void setBooked(boolean booked) {
+        if (this.booked == booked)
+            return;
         this.booked = booked;
+        this.project.updateBookingConfirmed(this);
     }
 
     public Application getApplication() {
@@ -78,16 +118,50 @@ public class FlatBooking implements Serializable {
         return booked;
     }
 
+    /**
+     * Confirms the booking, reserving one unit of the booked unit type from the
+     * project and marking the application as booked.
+     * The booking is only confirmed if a unit could be reserved, and a booking
+     * confirmed by two officers at once still reserves only one unit, as both
+     * take the project's lock.
+     *
+     * @return true if the booking was confirmed, false if it was already
+     *         confirmed or no units of its type are left
+     */
+    public boolean confirm() {
+        ReentrantLock lock = ProjectLocks.forProject(this.project);
+        lock.lock();
+        try {
+            if (this.booked || !this.project.reserveUnit(getUnitType()))
+                return false;
+            setBooked(true);
+            this.application.setStatus(Status.Booked);
+            this.applicant.setUnitType(getUnitType());
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Deletes the booking, removing the relationship between the applicant,
-     * project, and the global data.
+     * project, and the global data. The unit reserved by a confirmed booking is
+     * released back to the project.
      *
      * @param data The data object containing the list of all bookings.
      */
     public void deleteBooking(Data data) {
-        this.applicant.setBooking(null);
-        this.project.getBookings().remove(this);
-        data.getFlatBookings().remove(this);
+        ReentrantLock lock = ProjectLocks.forProject(this.project);
+        lock.lock();
+        try {
+            this.applicant.setBooking(null);
+            this.project.removeBooking(this);
+            if (this.booked)
+                this.project.releaseUnit(getUnitType());
+            data.removeFlatBooking(this);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -100,4 +174,69 @@ public class FlatBooking implements Serializable {
     public String toString() {
         return this.application.toString();
     }
+
+    /**
+     * Writes the booking in the compact form of the data file, see
+     * {@link EntityCodec}.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If the booking could not be written.
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        EntityCodec.writeVarInt(out, this.id);
+        out.writeBoolean(this.booked);
+        EntityIds.writeRefs(out, this.applicant, this.application, this.project);
+    }
+
+    /**
+     * Reads the booking written by {@link #writeExternal}, to be linked to the
+     * entities it refers to once they have all been read.
+     *
+     * @param in The stream to read from.
+     * @throws IOException If the booking could not be read.
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        this.id = EntityCodec.readVarInt(in);
+        this.booked = in.readBoolean();
+        this.refs = EntityIds.readRefs(in);
+        EntityIds.register(this);
+    }
+
+    @Override
+    public void link(EntityIds ids) {
+        EntityIds.Cursor refs = ids.cursor(this.refs);
+        this.applicant = refs.next(Applicant.class);
+        this.application = refs.next(Application.class);
+        this.project = refs.next(Project.class);
+        this.refs = null;
+    }
+
+    /**
+     * Writes the booking as a row of a {@link MappedSnapshot}, with the same
+     * fields as {@link #writeExternal}.
+     *
+     * @param row The row to write to.
+     */
+    @Override
+    public void writeRow(MappedSnapshot.RowWriter row) {
+        row.writeBoolean(this.booked);
+        row.writeRef(this.applicant);
+        row.writeRef(this.application);
+        row.writeRef(this.project);
+    }
+
+    /**
+     * Reads the booking from its row, written by {@link #writeRow}.
+     *
+     * @param row The row to read from.
+     */
+    @Override
+    public void readRow(MappedSnapshot.RowReader row) {
+        this.booked = row.readBoolean();
+        this.applicant = row.readRef(Applicant.class);
+        this.application = row.readRef(Application.class);
+        this.project = row.readRef(Project.class);
+    }
 }
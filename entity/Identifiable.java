@@ -0,0 +1,55 @@
+package entity;
+
+import java.io.Externalizable;
+
+import shared.EntityIds;
+import shared.MappedSnapshot;
+
+/**
+ * An entity with a numeric id, unique among all entities of the same data.
+ * Ids are given out by {@link shared.Data}, and are what entities refer to
+ * each other by in the data file, where each entity writes itself as a
+ * compact record, or in a {@link MappedSnapshot}, where each entity is a row
+ * of its table.
+ */
+public interface Identifiable extends Externalizable {
+
+    /**
+     * Gets the id of the entity.
+     *
+     * @return the id, or 0 if none has been given yet
+     */
+    int getId();
+
+    /**
+     * Sets the id of the entity. Called by {@link shared.Data} only.
+     *
+     * @param id the id
+     */
+    void setId(int id);
+
+    /**
+     * Resolves the ids the entity referred to in the data file into the
+     * entities themselves, once every entity has been read.
+     *
+     * @param ids the entities read, by id
+     */
+    void link(EntityIds ids);
+
+    /**
+     * Writes the fields of the entity, other than its id, as a row of a
+     * mapped snapshot. Every entity of a type must write the same columns.
+     *
+     * @param row the row to write to
+     */
+    void writeRow(MappedSnapshot.RowWriter row);
+
+    /**
+     * Reads the fields of the entity from its row of a mapped snapshot, in
+     * the order {@link #writeRow} wrote them. Referred entities are read as
+     * they are needed, rather than linked afterwards.
+     *
+     * @param row the row to read from
+     */
+    void readRow(MappedSnapshot.RowReader row);
+}
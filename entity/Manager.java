@@ -1,19 +1,38 @@
 package entity;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 import enums.MaritalStatus;
+import shared.EntityCodec;
+import shared.EntityIds;
+import shared.MappedSnapshot;
+import shared.ProjectIntervalIndex;
+import shared.ProjectLocks;
+import shared.ProjectNameIndex;
+import shared.ProjectSortCache;
 
 /**
  * A manager user in the BTO system.
  * A manager can manage multiple projects, but only one at a time.
+ * The managed projects are guarded by the manager's monitor, as the same
+ * manager may be logged in to more than one session.
  */
 public class Manager extends User {
 
+    private static final long serialVersionUID = 7379040906265318688L;
+
     // Attributes
-    private List<Project> managedProjects;
+    private transient int[] refs; // Ids referred to in the data file, until linked
+    private transient List<Project> managedProjects;
+    private transient ProjectIntervalIndex projectIndex;
+    private transient ProjectSortCache<Project> sortCache;
+    private transient ProjectNameIndex nameIndex;
 
     // Constructor
 
@@ -31,9 +50,53 @@ public class Manager extends User {
         this.managedProjects = new ArrayList<>();
     }
 
+    /**
+     * Constructs an empty manager, to be read from the data file.
+     */
+    public Manager() {
+    }
+
     // Getters and Setters
-    public List<Project> getProjects() {
-        return this.managedProjects;
+    public synchronized List<Project> getProjects() {
+        return new ArrayList<>(this.managedProjects);
+    }
+
+    /**
+     * Returns the date index of the managed projects, building it if it has not
+     * been built since the manager was loaded.
+     *
+     * @return the interval index of managed projects
+     */
+    private ProjectIntervalIndex getProjectIndex() {
+        if (this.projectIndex == null)
+            this.projectIndex = new ProjectIntervalIndex(this.managedProjects);
+        return this.projectIndex;
+    }
+
+    /**
+     * Returns the managed projects sorted by the manager's sort settings.
+     * The sorted view is cached, and only re-sorted after projects are added,
+     * removed or edited, or the sort settings change.
+     *
+     * @return a read-only sorted view of the managed projects
+     */
+    public synchronized List<Project> getSortedProjects() {
+        if (this.sortCache == null)
+            this.sortCache = new ProjectSortCache<>(Project::sortProjects);
+        return this.sortCache.get(this.managedProjects, getProjectsVersion(), getSortSetting(), getReverseSort());
+    }
+
+    /**
+     * Finds a managed project by name, ignoring case, through an index that is
+     * only rebuilt after projects are added, removed or renamed.
+     *
+     * @param name the name of the project
+     * @return the project, or null if the manager has no project of that name
+     */
+    public synchronized Project findProject(String name) {
+        if (this.nameIndex == null)
+            this.nameIndex = new ProjectNameIndex();
+        return this.nameIndex.get(this.managedProjects, getProjectsVersion(), name);
     }
 
     // Methods
@@ -53,26 +116,31 @@ public class Manager extends User {
      *                               project.
      * @param projectsList           The global list of projects to add the new
      *                               project to.
-     * @return true if the project is created successfully, false if it clashes with
-     *         another project.
+     * @return The new project, or null if it clashes with another project.
      */
-    public boolean createProject(String name, String neighbourhood, List<Unit> units,
+    public synchronized Project createProject(String name, String neighbourhood, List<Unit> units,
             LocalDate applicationOpenDate, LocalDate applicationClosingDate, boolean visibility,
             int officerSlots, List<Project> projectsList) {
         // check if project clashes with any other project
-        for (Project project : this.managedProjects) {
-            if (project.inDateRange(applicationOpenDate, applicationClosingDate)) {
-                return false;
-            }
+        if (getProjectIndex().overlaps(applicationOpenDate, applicationClosingDate, null)) {
+            return null;
         }
         // if new project does not clash with any others, create the object and form the
         // link
         Project tempProject = new Project(name, neighbourhood, units, applicationOpenDate,
                 applicationClosingDate, visibility, officerSlots);
         tempProject.setManager(this);
-        projectsList.add(tempProject);
+        ReentrantLock lock = ProjectLocks.forIndexes();
+        lock.lock();
+        try {
+            projectsList.add(tempProject);
+        } finally {
+            lock.unlock();
+        }
         this.managedProjects.add(tempProject);
-        return true;
+        getProjectIndex().add(tempProject);
+        projectsChanged();
+        return tempProject;
     }
 
     /**
@@ -90,26 +158,101 @@ public class Manager extends User {
      * @return true if the project is edited successfully, false if it clashes with
      *         another project.
      */
-    public boolean editProject(String name, String neighbourhood, List<Unit> units,
+    public synchronized boolean editProject(String name, String neighbourhood, List<Unit> units,
             LocalDate applicationOpenDate, LocalDate applicationClosingDate, boolean visibility,
             int officerSlots, Project currentProject) {
-        // create temporary list of managedProjects that excludes currentProject
-        List<Project> projects = new ArrayList<>(this.managedProjects);
-        projects.remove(currentProject);
-
-        // check if project clashes with any other project
-        for (Project project : projects) {
-            if (project.inDateRange(applicationOpenDate, applicationClosingDate)) {
-                return false;
-            }
+        // check if project clashes with any other project, excluding currentProject
+        if (getProjectIndex().overlaps(applicationOpenDate, applicationClosingDate, currentProject)) {
+            return false;
         }
 
         // if edited project does not clash with any others, edit the attributes
-        currentProject.setName(name);
-        currentProject.setNeighbourhood(neighbourhood);
-        currentProject.setUnits(units);
-        currentProject.setApplicationOpenDate(applicationOpenDate);
-        currentProject.setApplicationClosingDate(applicationClosingDate);
+        // under the project's lock, so listings never show a half-edited project
+        ReentrantLock lock = ProjectLocks.forProject(currentProject);
+        lock.lock();
+        try {
+            currentProject.setName(name);
+            currentProject.setNeighbourhood(neighbourhood);
+            currentProject.setUnits(units);
+            currentProject.setApplicationOpenDate(applicationOpenDate);
+            currentProject.setApplicationClosingDate(applicationClosingDate);
+        } finally {
+            lock.unlock();
+        }
+
+        // re-index the project under its new dates
+        getProjectIndex().add(currentProject);
+        for (Officer officer : currentProject.getAssignedOfficers()) {
+            officer.reindexProject(currentProject);
+        }
         return true;
     }
+
+    /**
+     * Removes a project from the list of managed projects.
+     *
+     * @param project The project to remove.
+     */
+    public synchronized void removeProject(Project project) {
+        this.managedProjects.remove(project);
+        getProjectIndex().remove(project);
+        projectsChanged();
+    }
+
+    /**
+     * Writes the manager in the compact form of the data file, see
+     * {@link EntityCodec}.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If the manager could not be written.
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        super.writeExternal(out);
+        EntityIds.writeRefs(out, this.managedProjects);
+    }
+
+    /**
+     * Reads the manager written by {@link #writeExternal}, to be linked to the
+     * entities it refers to once they have all been read.
+     *
+     * @param in The stream to read from.
+     * @throws IOException If the manager could not be read.
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        super.readExternal(in);
+        this.refs = EntityIds.readRefs(in);
+    }
+
+    @Override
+    public void link(EntityIds ids) {
+        super.link(ids);
+        EntityIds.Cursor refs = ids.cursor(this.refs);
+        this.managedProjects = refs.nextList(Project.class);
+        this.refs = null;
+    }
+
+    /**
+     * Writes the manager as a row of a {@link MappedSnapshot}, with the same
+     * fields as {@link #writeExternal}.
+     *
+     * @param row The row to write to.
+     */
+    @Override
+    public void writeRow(MappedSnapshot.RowWriter row) {
+        super.writeRow(row);
+        row.writeRefs(this.managedProjects);
+    }
+
+    /**
+     * Reads the manager from its row, written by {@link #writeRow}.
+     *
+     * @param row The row to read from.
+     */
+    @Override
+    public void readRow(MappedSnapshot.RowReader row) {
+        super.readRow(row);
+        this.managedProjects = row.readRefs(Project.class);
+    }
 }
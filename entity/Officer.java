@@ -1,7 +1,16 @@
 package entity;
 
 import enums.MaritalStatus;
+import shared.EntityCodec;
+import shared.EntityIds;
+import shared.MappedSnapshot;
+import shared.ProjectIntervalIndex;
+import shared.ProjectNameIndex;
+import shared.ProjectSortCache;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -9,12 +18,23 @@ import java.util.List;
  * An officer user in the BTO system.
  * An officer is a type of applicant that has the added responsibilities of
  * assigned projects and registrations.
+ * The assigned projects and registrations are guarded by a lock of their own,
+ * rather than the officer's monitor, as they change while the lock of the
+ * project concerned is held, which a thread holding the officer's monitor may
+ * be waiting for.
  */
 public class Officer extends Applicant {
 
+    private static final long serialVersionUID = 8266068846826569264L;
+
     // Attributes
-    private List<Project> assignedProjects;
-    private List<Registration> registrations;
+    private transient int[] refs; // Ids referred to in the data file, until linked
+    private transient List<Project> assignedProjects;
+    private transient List<Registration> registrations;
+    private transient ProjectIntervalIndex assignedIndex;
+    private transient ProjectSortCache<Project> sortCache;
+    private transient ProjectNameIndex nameIndex;
+    private final transient Object listLock = new Object();
 
     // Constructor
 
@@ -33,12 +53,201 @@ public class Officer extends Applicant {
         this.registrations = new ArrayList<>();
     }
 
+    /**
+     * Constructs an empty officer, to be read from the data file.
+     */
+    public Officer() {
+    }
+
     // Getters and Setters
     public List<Project> getAssignedProjects() {
-        return this.assignedProjects;
+        synchronized (this.listLock) {
+            return new ArrayList<>(this.assignedProjects);
+        }
     }
 
     public List<Registration> getRegistrations() {
-        return this.registrations;
+        synchronized (this.listLock) {
+            return new ArrayList<>(this.registrations);
+        }
+    }
+
+    /**
+     * Returns the assigned projects sorted by the officer's sort settings.
+     * The sorted view is cached, and only re-sorted after projects are
+     * assigned, unassigned or edited, or the sort settings change.
+     *
+     * @return a read-only sorted view of the assigned projects
+     */
+    public List<Project> getSortedProjects() {
+        synchronized (this.listLock) {
+            if (this.sortCache == null)
+                this.sortCache = new ProjectSortCache<>(Project::sortProjects);
+            return this.sortCache.get(this.assignedProjects, getProjectsVersion(), getSortSetting(),
+                    getReverseSort());
+        }
+    }
+
+    /**
+     * Finds an assigned project by name, ignoring case, through an index that
+     * is only rebuilt after projects are assigned, unassigned or renamed.
+     *
+     * @param name the name of the project
+     * @return the project, or null if the officer has no project of that name
+     */
+    public Project findAssignedProject(String name) {
+        synchronized (this.listLock) {
+            if (this.nameIndex == null)
+                this.nameIndex = new ProjectNameIndex();
+            return this.nameIndex.get(this.assignedProjects, getProjectsVersion(), name);
+        }
+    }
+
+    /**
+     * Returns the date index of the assigned projects, building it if it has
+     * not been built since the officer was loaded.
+     *
+     * @return the interval index of assigned projects
+     */
+    private ProjectIntervalIndex getAssignedIndex() {
+        if (this.assignedIndex == null)
+            this.assignedIndex = new ProjectIntervalIndex(this.assignedProjects);
+        return this.assignedIndex;
+    }
+
+    // Methods
+
+    /**
+     * Assigns a project to the officer.
+     *
+     * @param project The project to assign.
+     */
+    public void assignProject(Project project) {
+        synchronized (this.listLock) {
+            this.assignedProjects.add(project);
+            getAssignedIndex().add(project);
+            projectsChanged();
+        }
+    }
+
+    /**
+     * Removes a project from the officer's assigned projects.
+     *
+     * @param project The project to remove.
+     */
+    public void unassignProject(Project project) {
+        synchronized (this.listLock) {
+            this.assignedProjects.remove(project);
+            getAssignedIndex().remove(project);
+            projectsChanged();
+        }
+    }
+
+    /**
+     * Updates the date index after the dates of an assigned project change.
+     *
+     * @param project The assigned project that was edited.
+     */
+    public void reindexProject(Project project) {
+        synchronized (this.listLock) {
+            if (this.assignedIndex != null)
+                this.assignedIndex.add(project);
+        }
+    }
+
+    /**
+     * Checks if a project's application period clashes with any assigned
+     * project.
+     *
+     * @param project The project to check.
+     * @return True if the project overlaps an assigned project, false otherwise.
+     */
+    public boolean hasClash(Project project) {
+        synchronized (this.listLock) {
+            return getAssignedIndex().overlaps(project.getApplicationOpenDate(),
+                    project.getApplicationClosingDate(), null);
+        }
+    }
+
+    /**
+     * Adds a registration of the officer.
+     *
+     * @param registration The registration to add.
+     */
+    void addRegistration(Registration registration) {
+        synchronized (this.listLock) {
+            this.registrations.add(registration);
+        }
+    }
+
+    /**
+     * Removes a registration of the officer.
+     *
+     * @param registration The registration to remove.
+     */
+    void removeRegistration(Registration registration) {
+        synchronized (this.listLock) {
+            this.registrations.remove(registration);
+        }
+    }
+
+    /**
+     * Writes the officer in the compact form of the data file, see
+     * {@link EntityCodec}.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If the officer could not be written.
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        super.writeExternal(out);
+        EntityIds.writeRefs(out, this.assignedProjects, this.registrations);
+    }
+
+    /**
+     * Reads the officer written by {@link #writeExternal}, to be linked to the
+     * entities it refers to once they have all been read.
+     *
+     * @param in The stream to read from.
+     * @throws IOException If the officer could not be read.
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        super.readExternal(in);
+        this.refs = EntityIds.readRefs(in);
+    }
+
+    @Override
+    public void link(EntityIds ids) {
+        super.link(ids);
+        EntityIds.Cursor refs = ids.cursor(this.refs);
+        this.assignedProjects = refs.nextList(Project.class);
+        this.registrations = refs.nextList(Registration.class);
+        this.refs = null;
+    }
+
+    /**
+     * Writes the officer as a row of a {@link MappedSnapshot}, with the same
+     * fields as {@link #writeExternal}.
+     *
+     * @param row The row to write to.
+     */
+    @Override
+    public void writeRow(MappedSnapshot.RowWriter row) {
+        super.writeRow(row);
+        row.writeRefs(this.assignedProjects);
+        row.writeRefs(this.registrations);
+    }
+
+    /**
+     * Reads the officer from its row, written by {@link #writeRow}.
+     *
+     * @param row The row to read from.
+     */
+    @Override
+    public void readRow(MappedSnapshot.RowReader row) {
+        super.readRow(row);
+        this.assignedProjects = row.readRefs(Project.class);
+        this.registrations = row.readRefs(Registration.class);
     }
 }
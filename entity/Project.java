@@ -1,25 +1,43 @@
 package entity;
 
-import java.io.Serializable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.lang.ref.SoftReference;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 
 import enums.Status;
 import enums.UnitType;
 import shared.Data;
+import shared.EntityCodec;
+import shared.EntityIds;
+import shared.MappedSnapshot;
+import shared.ProjectLocks;
 
 /**
  * A project with various attributes, including information about units,
  * applications, bookings, and more.
  * This class provides methods for managing and interacting with project data.
  */
-public class Project implements Serializable {
+public class Project implements Identifiable {
+
+    private static final long serialVersionUID = 4267959420639997713L;
 
     // Attributes
-    private Manager manager;
+    private int id;
+    private transient int[] refs; // Ids referred to in the data file, until linked
+    private transient Manager manager;
     private String name;
     private String neighbourhood;
     private List<Unit> units;
@@ -27,11 +45,17 @@ public class Project implements Serializable {
     private LocalDate applicationClosingDate;
     private boolean visibility;
     private int officerSlots;
-    private List<Officer> assignedOfficers;
-    private List<Registration> registrations;
-    private List<Application> applications;
-    private List<Enquiry> enquiries;
-    private List<FlatBooking> bookings;
+    private transient OrderedSet<Officer> assignedOfficers;
+    private transient volatile Children children; // Null while read from a snapshot and unchanged
+    private transient SoftReference<Children> unchangedChildren;
+    private transient MappedSnapshot.Segment<Registration> registrationSegment;
+    private transient MappedSnapshot.Segment<Application> applicationSegment;
+    private transient MappedSnapshot.Segment<Enquiry> enquirySegment;
+    private transient MappedSnapshot.Segment<FlatBooking> bookingSegment;
+    private transient volatile Unit[] unitsByType;
+    private transient volatile boolean countersBuilt;
+    private transient volatile int successfulBookingCount;
+    private transient volatile int unansweredEnquiryCount;
 
     /**
      * Constructor to initialize a Project.
@@ -54,21 +78,33 @@ public class Project implements Serializable {
         this.applicationClosingDate = applicationClosingDate;
         this.visibility = visibility;
         this.officerSlots = officerSlots;
-        this.assignedOfficers = new ArrayList<>();
-        this.registrations = new ArrayList<>();
-        this.applications = new ArrayList<>();
-        this.enquiries = new ArrayList<>();
-        this.bookings = new ArrayList<>();
+        this.assignedOfficers = new OrderedSet<>(new ArrayList<>());
+        this.children = new Children(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+    }
+
+    /**
+     * Constructs an empty project, to be read from the data file.
+     */
+    public Project() {
     }
 
     // Getters and Setters
+    @Override
+    public int getId() {
+        return this.id;
+    }
+
+    @Override
+    public void setId(int id) {
+        this.id = id;
+    }
 
     public Manager getManager() {
         return manager;
     }
 
     public boolean setManager(Manager manager) {
-        if (this.manager != null) {
+        if (this.manager == null) {
             this.manager = manager;
             return true;
         }
@@ -76,7 +112,7 @@ public class Project implements Serializable {
     }
 
     public List<FlatBooking> getBookings() {
-        return this.bookings;
+        return viewOf(children -> children.bookings);
     }
 
     public String getName() {
@@ -85,6 +121,7 @@ public class Project implements Serializable {
 
     public void setName(String name) {
         this.name = name;
+        sortKeysChanged();
     }
 
     public String getNeighbourhood() {
@@ -93,10 +130,13 @@ public class Project implements Serializable {
 
     public void setNeighbourhood(String neighbourhood) {
         this.neighbourhood = neighbourhood;
+        sortKeysChanged();
     }
 
     public void setUnits(List<Unit> units) {
         this.units = units;
+        this.unitsByType = null;
+        sortKeysChanged();
     }
 
     public LocalDate getApplicationOpenDate() {
@@ -142,30 +182,287 @@ public class Project implements Serializable {
     }
 
     public List<Registration> getRegistrations() {
-        return this.registrations;
+        return viewOf(children -> children.registrations);
+    }
+
+    public List<Officer> getAssignedOfficers() {
+        return viewOf(children -> this.assignedOfficers);
     }
 
     public List<Application> getApplications() {
-        return this.applications;
+        return viewOf(children -> children.applications);
+    }
+
+    /**
+     * Gets the applications of the project to be iterated over in place,
+     * without taking a snapshot of them. The caller must hold the project's
+     * lock until it has finished iterating.
+     *
+     * @return The applications, in the order they were added.
+     */
+    public Iterable<Application> iterateApplications() {
+        return children().applications;
+    }
+
+    /**
+     * Gets the applications of the project with the given status.
+     *
+     * @param status The status of the applications.
+     * @return A read-only snapshot of the applications.
+     */
+    public List<Application> getApplications(Status status) {
+        return viewOf(children -> children.getApplicationsByStatus().get(status));
+    }
+
+    /**
+     * Gets the number of applications of the project with the given status.
+     *
+     * @param status The status of the applications.
+     * @return The number of applications.
+     */
+    public int getApplicationCount(Status status) {
+        ReentrantLock lock = ProjectLocks.forProject(this);
+        lock.lock();
+        try {
+            return children().getApplicationsByStatus().get(status).size();
+        } finally {
+            lock.unlock();
+        }
     }
 
     public List<Enquiry> getEnquiries() {
-        return this.enquiries;
+        return viewOf(children -> children.enquiries);
     }
 
     public int getOfficerSlots() {
         return this.officerSlots;
     }
 
+    /**
+     * Gets the number of bookings of the project that have been confirmed.
+     *
+     * @return The number of successful bookings.
+     */
+    public int getSuccessfulBookingCount() {
+        buildCounters();
+        return this.successfulBookingCount;
+    }
+
+    /**
+     * Gets the number of bookings of the project awaiting confirmation.
+     *
+     * @return The number of pending bookings.
+     */
+    public int getPendingBookingCount() {
+        buildCounters();
+        ReentrantLock lock = ProjectLocks.forProject(this);
+        lock.lock();
+        try {
+            return children().bookings.size() - this.successfulBookingCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of enquiries of the project without a reply.
+     *
+     * @return The number of unanswered enquiries.
+     */
+    public int getUnansweredEnquiryCount() {
+        buildCounters();
+        return this.unansweredEnquiryCount;
+    }
+
+    /**
+     * Counts the successful bookings and unanswered enquiries, if they have not
+     * been counted since the project was loaded. The counts are then kept up to
+     * date as bookings and enquiries are added, removed or changed.
+     */
+    private void buildCounters() {
+        if (this.countersBuilt)
+            return;
+        ReentrantLock lock = ProjectLocks.forProject(this);
+        lock.lock();
+        try {
+            if (this.countersBuilt)
+                return;
+            Children children = children();
+            this.successfulBookingCount = 0;
+            for (FlatBooking booking : children.bookings) {
+                if (booking.isBooked())
+                    this.successfulBookingCount++;
+            }
+            this.unansweredEnquiryCount = 0;
+            for (Enquiry enquiry : children.enquiries) {
+                if (!enquiry.isAnswered())
+                    this.unansweredEnquiryCount++;
+            }
+            this.countersBuilt = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     // Methods
 
+    /**
+     * Gets a read-only snapshot of one of the lists of the project while
+     * holding the project's lock, so the snapshot can be iterated while other
+     * sessions change the project. The snapshot is shared until the list next
+     * changes, so repeated reads of an unchanged list copy nothing.
+     *
+     * @param list The function getting the list from the project's children.
+     * @param <T>  The type of the elements of the list.
+     * @return A read-only snapshot of the list.
+     */
+    private <T> List<T> viewOf(Function<Children, OrderedSet<T>> list) {
+        ReentrantLock lock = ProjectLocks.forProject(this);
+        lock.lock();
+        try {
+            return list.apply(children()).view();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the registrations, applications, enquiries and bookings of the
+     * project. Those of a project read from a mapped snapshot are read from
+     * its segments on first use, and held only softly until they change, so
+     * the garbage collector may drop them when memory runs short; they are
+     * then read again the next time they are used.
+     *
+     * @return The children of the project.
+     */
+    private Children children() {
+        Children held = this.children;
+        if (held != null)
+            return held;
+        synchronized (this) {
+            held = this.children;
+            if (held == null && this.unchangedChildren != null)
+                held = this.unchangedChildren.get();
+            if (held == null) {
+                held = new Children(this.registrationSegment.read(), this.applicationSegment.read(),
+                        this.enquirySegment.read(), this.bookingSegment.read());
+                this.unchangedChildren = new SoftReference<>(held);
+            }
+            return held;
+        }
+    }
+
+    /**
+     * Gets the children of the project to be changed, and holds them from then
+     * on, so the change is kept until the data is saved.
+     *
+     * @return The children of the project.
+     */
+    private Children changeChildren() {
+        Children held = this.children;
+        if (held != null)
+            return held;
+        synchronized (this) {
+            held = children();
+            this.children = held;
+            this.unchangedChildren = null;
+            return held;
+        }
+    }
+
+    /**
+     * Holds the children of the project, after one of them was changed in a
+     * way the project is not otherwise told of.
+     */
+    void childChanged() {
+        changeChildren();
+    }
+
+    /**
+     * Adds a registration to the project, while the project's lock is held.
+     *
+     * @param registration The registration to be added.
+     */
+    void addRegistration(Registration registration) {
+        changeChildren().registrations.add(registration);
+    }
+
+    /**
+     * Removes a registration from the project, while the project's lock is
+     * held.
+     *
+     * @param registration The registration to be removed.
+     */
+    void removeRegistration(Registration registration) {
+        changeChildren().registrations.remove(registration);
+    }
+
     /**
      * Adds an application to the project.
      *
      * @param application The application to be added.
      */
     public void addApplication(Application application) {
-        this.applications.add(application);
+        Children children = changeChildren();
+        OrderedSet<Application> partition = children.getApplicationsByStatus().get(application.getStatus());
+        children.applications.add(application);
+        partition.add(application);
+    }
+
+    /**
+     * Removes an application from the project.
+     *
+     * @param application The application to be removed.
+     */
+    public void removeApplication(Application application) {
+        Children children = changeChildren();
+        if (children.applications.remove(application))
+            children.getApplicationsByStatus().get(application.getStatus()).remove(application);
+    }
+
+    /**
+     * Moves an application to the partition of its new status, if it belongs to
+     * the project.
+     *
+     * @param application The application whose status changed.
+     * @param previous    The status before the change.
+     */
+    void updateApplicationStatus(Application application, Status previous) {
+        Children children = changeChildren();
+        if (previous == application.getStatus() || children.applicationsByStatus == null)
+            return;
+        if (children.applicationsByStatus.get(previous).remove(application))
+            children.applicationsByStatus.get(application.getStatus()).add(application);
+    }
+
+    /**
+     * Settles pending applications of the project in one pass, approving the
+     * successful ones and rejecting the unsuccessful ones as
+     * {@link Application#approve()} and {@link Application#reject()} would,
+     * without moving each application between lists on its own.
+     *
+     * @param successful   The pending applications to approve.
+     * @param unsuccessful The pending applications to reject.
+     */
+    public void settleApplications(List<Application> successful, List<Application> unsuccessful) {
+        ReentrantLock lock = ProjectLocks.forProject(this);
+        lock.lock();
+        try {
+            Children children = changeChildren();
+            Map<Status, OrderedSet<Application>> byStatus = children.getApplicationsByStatus();
+            for (Application application : successful) {
+                application.settle(Status.Successful);
+                byStatus.get(Status.Pending).remove(application);
+                byStatus.get(Status.Successful).add(application);
+            }
+            for (Application application : unsuccessful) {
+                application.settle(Status.Unsuccessful);
+                byStatus.get(Status.Pending).remove(application);
+                children.applications.remove(application);
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -174,7 +471,22 @@ public class Project implements Serializable {
      * @param enquiry The enquiry to be added.
      */
     public void addEnquiry(Enquiry enquiry) {
-        this.enquiries.add(enquiry);
+        buildCounters();
+        changeChildren().enquiries.add(enquiry);
+        if (!enquiry.isAnswered())
+            this.unansweredEnquiryCount++;
+    }
+
+    /**
+     * Updates the unanswered enquiry count after an enquiry of the project is
+     * answered or its reply is cleared.
+     *
+     * @param enquiry The enquiry whose reply changed.
+     */
+    void updateEnquiryAnswered(Enquiry enquiry) {
+        changeChildren();
+        if (this.countersBuilt)
+            this.unansweredEnquiryCount += enquiry.isAnswered() ? -1 : 1;
     }
 
     /**
@@ -183,24 +495,114 @@ public class Project implements Serializable {
      * @param booking The booking to be added.
      */
     public void addBooking(FlatBooking booking) {
-        this.bookings.add(booking);
+        buildCounters();
+        changeChildren().bookings.add(booking);
+        if (booking.isBooked())
+            this.successfulBookingCount++;
+    }
+
+    /**
+     * Removes a booking from the project.
+     *
+     * @param booking The booking to be removed.
+     */
+    public void removeBooking(FlatBooking booking) {
+        buildCounters();
+        if (changeChildren().bookings.remove(booking) && booking.isBooked())
+            this.successfulBookingCount--;
     }
 
     /**
-     * Decrements the number of units available for a given unit type.
+     * Updates the successful booking count after a booking of the project is
+     * confirmed or unconfirmed.
      *
-     * @param unitType The unit type whose units are to be decremented.
-     * @return True if the units were decremented, false otherwise.
+     * @param booking The booking whose status changed.
      */
-    public boolean decrementUnits(UnitType unitType) {
-        Unit unit = this.units.stream()
-                .filter(p -> unitType.equals(p.getUnitType()))
-                .findFirst()
-                .orElse(null);
-        if (unit == null) {
+    void updateBookingConfirmed(FlatBooking booking) {
+        changeChildren();
+        if (this.countersBuilt)
+            this.successfulBookingCount += booking.isBooked() ? 1 : -1;
+    }
+
+    /**
+     * Reserves one unit of a given unit type, for a booking being confirmed.
+     * Called with the project's lock held, as the unit is not reserved
+     * atomically.
+     *
+     * @param unitType The unit type to reserve.
+     * @return True if a unit was reserved, false if the project has none of
+     *         that type left.
+     * @throws IllegalStateException If the project's lock is not held.
+     */
+    boolean reserveUnit(UnitType unitType) {
+        requireLocked();
+        Unit unit = getUnit(unitType);
+        if (unit == null || !unit.reserve()) {
             return false;
         }
-        return unit.decrementUnits();
+        sortKeysChanged();
+        return true;
+    }
+
+    /**
+     * Releases one unit of a given unit type, reserved for a confirmed booking
+     * that is being removed. Called with the project's lock held.
+     *
+     * @param unitType The unit type to release.
+     * @throws IllegalStateException If the project's lock is not held.
+     */
+    void releaseUnit(UnitType unitType) {
+        requireLocked();
+        Unit unit = getUnit(unitType);
+        if (unit == null)
+            return;
+        unit.release();
+        sortKeysChanged();
+    }
+
+    /**
+     * Checks that the current thread holds the project's lock.
+     *
+     * @throws IllegalStateException If the lock is not held.
+     */
+    private void requireLocked() {
+        if (!ProjectLocks.forProject(this).isHeldByCurrentThread())
+            throw new IllegalStateException("Lock of project " + this.name + " not held");
+    }
+
+    /**
+     * Tells the manager and the assigned officers of the project that its name,
+     * neighbourhood or units changed, so that their cached sorted views of
+     * their projects are re-sorted. Called with the project's lock held.
+     */
+    private void sortKeysChanged() {
+        if (this.manager != null)
+            this.manager.projectsChanged();
+        if (this.assignedOfficers != null) {
+            for (Officer officer : this.assignedOfficers) {
+                officer.projectsChanged();
+            }
+        }
+    }
+
+    /**
+     * Gets the unit of a given type, using a lookup table indexed by unit type
+     * ordinal that is rebuilt whenever the units are replaced.
+     *
+     * @param unitType The unit type.
+     * @return The unit of that type, or null if the project has none.
+     */
+    private Unit getUnit(UnitType unitType) {
+        Unit[] byType = this.unitsByType;
+        if (byType == null) {
+            byType = new Unit[UnitType.values().length];
+            for (Unit unit : this.units) {
+                if (byType[unit.getUnitType().ordinal()] == null)
+                    byType[unit.getUnitType().ordinal()] = unit;
+            }
+            this.unitsByType = byType;
+        }
+        return byType[unitType.ordinal()];
     }
 
     /**
@@ -232,6 +634,20 @@ public class Project implements Serializable {
         return false;
     }
 
+    /**
+     * Checks if the project has two-room units that are not sold out.
+     *
+     * @return True if there are two-room units available, false otherwise.
+     */
+    public boolean hasTwoRoomAvailable() {
+        for (Unit unit : this.units) {
+            if (unit.getUnitType() == UnitType.TWO_ROOM && unit.getUnitsAvailable() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Gets the list of unanswered enquiries for the project.
      *
@@ -239,7 +655,7 @@ public class Project implements Serializable {
      */
     public List<Enquiry> getUnansweredEnquiries() {
         List<Enquiry> unanswered = new ArrayList<>();
-        for (Enquiry enquiry : this.enquiries) {
+        for (Enquiry enquiry : getEnquiries()) {
             if (!enquiry.isAnswered()) {
                 unanswered.add(enquiry);
             }
@@ -253,13 +669,7 @@ public class Project implements Serializable {
      * @return The list of approved applications.
      */
     public List<Application> getApprovedApplications() {
-        List<Application> approved = new ArrayList<>();
-        for (Application application : this.applications) {
-            if (application.getStatus() == Status.Successful) {
-                approved.add(application);
-            }
-        }
-        return approved;
+        return getApplications(Status.Successful);
     }
 
     /**
@@ -269,7 +679,7 @@ public class Project implements Serializable {
      */
     public List<FlatBooking> getSuccessfulBookings() {
         List<FlatBooking> successful = new ArrayList<>();
-        for (FlatBooking booking : this.bookings) {
+        for (FlatBooking booking : getBookings()) {
             if (booking.isBooked()) {
                 successful.add(booking);
             }
@@ -284,7 +694,7 @@ public class Project implements Serializable {
      */
     public List<FlatBooking> getPendingBookings() {
         List<FlatBooking> pending = new ArrayList<>();
-        for (FlatBooking booking : this.bookings) {
+        for (FlatBooking booking : getBookings()) {
             if (!booking.isBooked()) {
                 pending.add(booking);
             }
@@ -299,7 +709,7 @@ public class Project implements Serializable {
      */
     public List<FlatBooking> getApprovedBookings() {
         List<FlatBooking> approved = new ArrayList<>();
-        for (FlatBooking booking : this.bookings) {
+        for (FlatBooking booking : getBookings()) {
             if (booking.isBooked()) {
                 approved.add(booking);
             }
@@ -326,28 +736,77 @@ public class Project implements Serializable {
      * @param <T>      The type of user.
      */
     public static <T extends User> void sortProjects(List<Project> projects, T user) {
-        switch (user.getSortSetting()) {
-            case 1:
-                projects.sort(Comparator.comparing(Project::getName));
-                break;
+        sortProjects(projects, user.getSortSetting(), user.getReverseSort());
+    }
+
+    /**
+     * Sorts a list of projects by a sort setting.
+     * 1: Name, 2: Neighbourhood, 3: Total units available, 4: Average price.
+     *
+     * @param projects    The list of projects to be sorted.
+     * @param sortSetting The sort setting.
+     * @param reverse     Whether to sort in descending order.
+     */
+    public static void sortProjects(List<Project> projects, int sortSetting, boolean reverse) {
+        switch (sortSetting) {
             case 2:
-                projects.sort(Comparator.comparing(Project::getNeighbourhood));
+                projects.sort(order(Comparator.comparing(Project::getNeighbourhood), reverse));
                 break;
             case 3:
-                projects.sort(Comparator.comparing(Project::getTotalUnits));
+                sortByKey(projects, Project::getTotalUnits, reverse);
                 break;
             case 4:
-                projects.sort(Comparator.comparing(Project::getAveragePrice));
+                sortByKey(projects, Project::getAveragePrice, reverse);
                 break;
             default:
-                projects.sort(Comparator.comparing(Project::getName));
+                projects.sort(order(Comparator.comparing(Project::getName), reverse));
         }
+    }
+
+    /**
+     * Sorts a list of projects by a computed key, computing the key once per
+     * project rather than on every comparison.
+     *
+     * @param projects The list of projects to be sorted.
+     * @param key      The function computing the sort key of a project.
+     * @param reverse  Whether to sort in descending order.
+     */
+    private static void sortByKey(List<Project> projects, ToDoubleFunction<Project> key, boolean reverse) {
+        List<SortEntry> entries = new ArrayList<>(projects.size());
+        for (Project project : projects) {
+            entries.add(new SortEntry(project, key.applyAsDouble(project)));
+        }
+        entries.sort(order(Comparator.comparingDouble(entry -> entry.key), reverse));
+        for (int i = 0; i < entries.size(); i++) {
+            projects.set(i, entries.get(i).project);
+        }
+    }
 
-        if (user.getReverseSort()) {
-            Collections.reverse(projects);
+    /**
+     * A project paired with its precomputed sort key.
+     */
+    private static class SortEntry {
+        private final Project project;
+        private final double key;
+
+        private SortEntry(Project project, double key) {
+            this.project = project;
+            this.key = key;
         }
     }
 
+    /**
+     * Returns a comparator in ascending or descending order.
+     *
+     * @param comparator The ascending comparator.
+     * @param reverse    Whether to reverse the order.
+     * @param <T>        The type of the compared objects.
+     * @return The comparator in the requested order.
+     */
+    private static <T> Comparator<T> order(Comparator<T> comparator, boolean reverse) {
+        return reverse ? comparator.reversed() : comparator;
+    }
+
     /**
      * Checks if the current project is within its application date range.
      *
@@ -386,7 +845,13 @@ public class Project implements Serializable {
      * Toggles the visibility of the project.
      */
     public void toggleVisibility() {
-        this.visibility = !visibility;
+        ReentrantLock lock = ProjectLocks.forProject(this);
+        lock.lock();
+        try {
+            this.visibility = !visibility;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -395,32 +860,45 @@ public class Project implements Serializable {
      * @param enquiry The enquiry to be removed.
      */
     public void removeEnquiry(Enquiry enquiry) {
-        this.enquiries.remove(enquiry);
+        buildCounters();
+        if (changeChildren().enquiries.remove(enquiry) && !enquiry.isAnswered())
+            this.unansweredEnquiryCount--;
     }
 
     /**
      * Deletes the project, removing it from all associated data and references.
+     * The project's lock is held while its children are deleted, so none can be
+     * added meanwhile, and released before the project is removed from its
+     * manager, whose monitor is taken before project locks.
      *
      * @param data The data object used for removing the project.
      */
     public void deleteProject(Data data) {
-        for (Registration registration : this.registrations) {
-            registration.deleteRegistration(data);
-        }
-        for (Officer officer : this.assignedOfficers) {
-            officer.getAssignedProjects().remove(this);
-        }
-        for (Application application : this.applications) {
-            application.deleteApplication(data);
-        }
-        for (FlatBooking booking : this.bookings) {
-            booking.deleteBooking(data);
-        }
-        for (Enquiry enquiry : this.enquiries) {
-            enquiry.deleteEnquiry(data);
+        ReentrantLock lock = ProjectLocks.forProject(this);
+        lock.lock();
+        try {
+            // Iterate over snapshots, as deleting each entity removes it from the project
+            Children children = changeChildren();
+            for (Registration registration : children.registrations.view()) {
+                registration.deleteRegistration(data);
+            }
+            for (Officer officer : this.assignedOfficers) {
+                officer.unassignProject(this);
+            }
+            for (Application application : children.applications.view()) {
+                application.deleteApplication(data);
+            }
+            for (FlatBooking booking : children.bookings.view()) {
+                booking.deleteBooking(data);
+            }
+            for (Enquiry enquiry : children.enquiries.view()) {
+                enquiry.deleteEnquiry(data);
+            }
+        } finally {
+            lock.unlock();
         }
-        this.manager.getProjects().remove(this);
-        data.getProjectList().remove(this);
+        this.manager.removeProject(this);
+        data.removeProject(this);
     }
 
     public String toString() {
@@ -429,7 +907,7 @@ public class Project implements Serializable {
 
     /**
      * Returns a string representation of the project, optionally including
-     * additional information.
+     * additional information, which is read with the project's lock held.
      *
      * @param showAdditionalInfo Flag indicating whether to show additional
      *                           information.
@@ -450,14 +928,256 @@ public class Project implements Serializable {
         if (showAdditionalInfo) {
             sb.append("Visibility\t\t: ").append(this.visibility).append("\n");
             sb.append("Officer Slots\t\t: ").append(this.officerSlots).append("\n");
-            sb.append("Assigned Officers\t: ").append(this.assignedOfficers).append("\n");
-            sb.append("Officer Registrations\t: ").append(this.registrations.size()).append("\n");
-            sb.append("Applications\t\t: ").append(this.applications.size()).append("\n");
-            sb.append("Pending Bookings\t: ").append(getPendingBookings().size()).append("\n");
-            sb.append("Successful Bookings\t: ").append(getSuccessfulBookings().size()).append("\n");
-            sb.append("Enquiries\t\t: ").append(this.enquiries.size()).append("\n");
-            sb.append("Unanswered Enquiries\t: ").append(getUnansweredEnquiries().size()).append("\n");
+            ReentrantLock lock = ProjectLocks.forProject(this);
+            lock.lock();
+            try {
+                sb.append("Assigned Officers\t: [");
+                String separator = "";
+                for (Officer officer : this.assignedOfficers) {
+                    sb.append(separator).append(officer.getName());
+                    separator = ", ";
+                }
+                sb.append("]\n");
+                Children children = children();
+                sb.append("Officer Registrations\t: ").append(children.registrations.size()).append("\n");
+                sb.append("Applications\t\t: ").append(children.applications.size()).append("\n");
+                sb.append("Pending Bookings\t: ").append(getPendingBookingCount()).append("\n");
+                sb.append("Successful Bookings\t: ").append(getSuccessfulBookingCount()).append("\n");
+                sb.append("Enquiries\t\t: ").append(children.enquiries.size()).append("\n");
+                sb.append("Unanswered Enquiries\t: ").append(getUnansweredEnquiryCount()).append("\n");
+            } finally {
+                lock.unlock();
+            }
         }
         return sb.toString();
     }
+
+    /**
+     * Writes the project in the compact form of the data file, see
+     * {@link EntityCodec}.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If the project could not be written.
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        EntityCodec.writeVarInt(out, this.id);
+        EntityCodec.writeString(out, this.name);
+        EntityCodec.writeString(out, this.neighbourhood);
+        Unit[] units = this.units.toArray(new Unit[0]);
+        EntityCodec.writeVarInt(out, units.length);
+        for (Unit unit : units) {
+            unit.writeExternal(out);
+        }
+        EntityCodec.writeDate(out, this.applicationOpenDate);
+        EntityCodec.writeDate(out, this.applicationClosingDate);
+        out.writeBoolean(this.visibility);
+        EntityCodec.writeVarInt(out, this.officerSlots);
+        Children children = children();
+        EntityIds.writeRefs(out, this.manager, this.assignedOfficers.view(), children.registrations.view(),
+                children.applications.view(), children.enquiries.view(), children.bookings.view());
+    }
+
+    /**
+     * Reads the project written by {@link #writeExternal}, to be linked to the
+     * entities it refers to once they have all been read.
+     *
+     * @param in The stream to read from.
+     * @throws IOException If the project could not be read.
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        this.id = EntityCodec.readVarInt(in);
+        this.name = EntityCodec.readString(in);
+        this.neighbourhood = EntityCodec.readString(in);
+        int unitCount = EntityCodec.readVarInt(in);
+        this.units = new ArrayList<>(unitCount);
+        for (int i = 0; i < unitCount; i++) {
+            Unit unit = new Unit();
+            unit.readExternal(in);
+            this.units.add(unit);
+        }
+        this.applicationOpenDate = EntityCodec.readDate(in);
+        this.applicationClosingDate = EntityCodec.readDate(in);
+        this.visibility = in.readBoolean();
+        this.officerSlots = EntityCodec.readVarInt(in);
+        this.refs = EntityIds.readRefs(in);
+        EntityIds.register(this);
+    }
+
+    @Override
+    public void link(EntityIds ids) {
+        EntityIds.Cursor refs = ids.cursor(this.refs);
+        this.manager = refs.next(Manager.class);
+        this.assignedOfficers = new OrderedSet<>(refs.nextList(Officer.class));
+        this.children = new Children(refs.nextList(Registration.class), refs.nextList(Application.class),
+                refs.nextList(Enquiry.class), refs.nextList(FlatBooking.class));
+        this.refs = null;
+    }
+
+    /**
+     * Writes the project as a row of a {@link MappedSnapshot}, with the same
+     * fields as {@link #writeExternal}. A row has the same columns as every
+     * other, so the units are written into one slot for each unit type, with
+     * the type of an unused slot left null.
+     *
+     * @param row The row to write to.
+     * @throws IllegalStateException If the project has more units than slots.
+     */
+    @Override
+    public void writeRow(MappedSnapshot.RowWriter row) {
+        Unit[] units = this.units.toArray(new Unit[0]);
+        int slots = UnitType.values().length;
+        if (units.length > slots)
+            throw new IllegalStateException("Project " + this.name + " has more than " + slots + " units");
+        row.writeString(this.name);
+        row.writeString(this.neighbourhood);
+        for (int i = 0; i < slots; i++) {
+            Unit unit = i < units.length ? units[i] : null;
+            row.writeEnum(unit == null ? null : unit.getUnitType());
+            row.writeInt(unit == null ? 0 : unit.getUnitsAvailable());
+            row.writeDouble(unit == null ? 0 : unit.getSellingPrice());
+        }
+        row.writeDate(this.applicationOpenDate);
+        row.writeDate(this.applicationClosingDate);
+        row.writeBoolean(this.visibility);
+        row.writeInt(this.officerSlots);
+        row.writeRef(this.manager);
+        row.writeRefs(this.assignedOfficers.view());
+        Children children = children();
+        row.writeRefs(children.registrations.view());
+        row.writeRefs(children.applications.view());
+        row.writeRefs(children.enquiries.view());
+        row.writeRefs(children.bookings.view());
+    }
+
+    /**
+     * Reads the project from its row, written by {@link #writeRow}. The
+     * registrations, applications, enquiries and bookings are not read until
+     * they are used, see {@link #children()}.
+     *
+     * @param row The row to read from.
+     */
+    @Override
+    public void readRow(MappedSnapshot.RowReader row) {
+        this.name = row.readString();
+        this.neighbourhood = row.readString();
+        int slots = UnitType.values().length;
+        this.units = new ArrayList<>(slots);
+        for (int i = 0; i < slots; i++) {
+            UnitType unitType = row.readEnum(UnitType.class);
+            int unitsAvailable = row.readInt();
+            double sellingPrice = row.readDouble();
+            if (unitType != null)
+                this.units.add(new Unit(unitType, unitsAvailable, sellingPrice));
+        }
+        this.applicationOpenDate = row.readDate();
+        this.applicationClosingDate = row.readDate();
+        this.visibility = row.readBoolean();
+        this.officerSlots = row.readInt();
+        this.manager = row.readRef(Manager.class);
+        this.assignedOfficers = new OrderedSet<>(row.readRefs(Officer.class));
+        this.registrationSegment = row.readSegment(Registration.class);
+        this.applicationSegment = row.readSegment(Application.class);
+        this.enquirySegment = row.readSegment(Enquiry.class);
+        this.bookingSegment = row.readSegment(FlatBooking.class);
+    }
+
+    /**
+     * The registrations, applications, enquiries and bookings of a project,
+     * held together so they can be read from a snapshot, and dropped, as one.
+     */
+    private static final class Children {
+
+        // Attributes
+        private final OrderedSet<Registration> registrations;
+        private final OrderedSet<Application> applications;
+        private final OrderedSet<Enquiry> enquiries;
+        private final OrderedSet<FlatBooking> bookings;
+        private Map<Status, OrderedSet<Application>> applicationsByStatus;
+
+        private Children(List<Registration> registrations, List<Application> applications,
+                List<Enquiry> enquiries, List<FlatBooking> bookings) {
+            this.registrations = new OrderedSet<>(registrations);
+            this.applications = new OrderedSet<>(applications);
+            this.enquiries = new OrderedSet<>(enquiries);
+            this.bookings = new OrderedSet<>(bookings);
+        }
+
+        /**
+         * Returns the applications partitioned by status, building the
+         * partitions if they have not been built since the children were
+         * loaded.
+         *
+         * @return The map of status to applications.
+         */
+        private Map<Status, OrderedSet<Application>> getApplicationsByStatus() {
+            if (this.applicationsByStatus == null) {
+                this.applicationsByStatus = new EnumMap<>(Status.class);
+                for (Status status : Status.values()) {
+                    this.applicationsByStatus.put(status, new OrderedSet<>(new ArrayList<>()));
+                }
+                for (Application application : this.applications) {
+                    this.applicationsByStatus.get(application.getStatus()).add(application);
+                }
+            }
+            return this.applicationsByStatus;
+        }
+    }
+
+    /**
+     * One of the lists of a project, kept in the order its elements were added
+     * but backed by a linked hash set, so an element is added, removed or
+     * moved between status partitions in constant time. Readers get a
+     * read-only snapshot of the list, which is only copied again once the
+     * list has changed. Changed with the project's lock held.
+     *
+     * @param <T> The type of the elements.
+     */
+    private static final class OrderedSet<T> implements Iterable<T> {
+
+        // Attributes
+        private final LinkedHashSet<T> elements;
+        private volatile List<T> view;
+
+        private OrderedSet(List<T> elements) {
+            this.elements = new LinkedHashSet<>(elements);
+        }
+
+        private void add(T element) {
+            if (this.elements.add(element))
+                this.view = null;
+        }
+
+        private boolean remove(T element) {
+            if (!this.elements.remove(element))
+                return false;
+            this.view = null;
+            return true;
+        }
+
+        private int size() {
+            return this.elements.size();
+        }
+
+        /**
+         * Gets a read-only snapshot of the elements, copying them only if they
+         * changed since the last snapshot was taken.
+         *
+         * @return The elements, in the order they were added.
+         */
+        private List<T> view() {
+            List<T> held = this.view;
+            if (held == null) {
+                held = Collections.unmodifiableList(new ArrayList<>(this.elements));
+                this.view = held;
+            }
+            return held;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return this.elements.iterator();
+        }
+    }
 }
@@ -0,0 +1,216 @@
+package entity;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import enums.UnitType;
+import shared.ProjectLocks;
+
+/**
+ * An immutable copy of the details of a project that applicants browse.
+ * A listing is taken while holding the project's lock, so it never shows a
+ * project halfway through an edit. The units are copied with the number
+ * available at the time, so a listing shares nothing that changes with the
+ * project; a new listing is published when a booking claims a unit.
+ */
+public final class ProjectListing {
+
+    // Attributes
+    private final Project project;
+    private final String name;
+    private final String neighbourhood;
+    private final LocalDate applicationOpenDate;
+    private final LocalDate applicationClosingDate;
+    private final boolean visibility;
+    private final List<Unit> units;
+    private final double averagePrice;
+
+    /**
+     * Takes a listing of a project's current details.
+     *
+     * @param project The project.
+     */
+    public ProjectListing(Project project) {
+        ReentrantLock lock = ProjectLocks.forProject(project);
+        lock.lock();
+        try {
+            this.project = project;
+            this.name = project.getName();
+            this.neighbourhood = project.getNeighbourhood();
+            this.applicationOpenDate = project.getApplicationOpenDate();
+            this.applicationClosingDate = project.getApplicationClosingDate();
+            this.visibility = project.getVisibility();
+            List<Unit> units = new ArrayList<>(project.getUnits().size());
+            for (Unit unit : project.getUnits()) {
+                units.add(new Unit(unit.getUnitType(), unit.getUnitsAvailable(), unit.getSellingPrice()));
+            }
+            this.units = Collections.unmodifiableList(units);
+            this.averagePrice = project.getAveragePrice();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Getters
+
+    public Project getProject() {
+        return this.project;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public String getNeighbourhood() {
+        return this.neighbourhood;
+    }
+
+    public LocalDate getApplicationOpenDate() {
+        return this.applicationOpenDate;
+    }
+
+    public LocalDate getApplicationClosingDate() {
+        return this.applicationClosingDate;
+    }
+
+    public boolean getVisibility() {
+        return this.visibility;
+    }
+
+    public double getAveragePrice() {
+        return this.averagePrice;
+    }
+
+    public int getTotalUnits() {
+        int total = 0;
+        for (Unit unit : this.units) {
+            total += unit.getUnitsAvailable();
+        }
+        return total;
+    }
+
+    // Methods
+
+    /**
+     * Checks if the project is open for applications on a given date.
+     *
+     * @param date The date.
+     * @return True if the project is visible and the date is within its
+     *         application period, false otherwise.
+     */
+    public boolean isOpen(LocalDate date) {
+        return this.visibility && !date.isBefore(this.applicationOpenDate)
+                && !date.isAfter(this.applicationClosingDate);
+    }
+
+    /**
+     * Checks if the project has two-room units available.
+     *
+     * @return True if there are two-room units available, false otherwise.
+     */
+    public boolean hasTwoRoomAvailable() {
+        for (Unit unit : this.units) {
+            if (unit.getUnitType() == UnitType.TWO_ROOM && unit.getUnitsAvailable() > 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the unit types that still have units available.
+     *
+     * @return The list of available unit types.
+     */
+    public List<UnitType> getAvailableUnitTypes() {
+        List<UnitType> unitTypes = new ArrayList<>();
+        for (Unit unit : this.units) {
+            if (unit.getUnitsAvailable() > 0)
+                unitTypes.add(unit.getUnitType());
+        }
+        return unitTypes;
+    }
+
+    /**
+     * Sorts a list of listings based on a user's settings, in the same orders
+     * as {@link Project#sortProjects(List, int, boolean)}.
+     *
+     * @param listings The list of listings to be sorted.
+     * @param user     The user whose settings will be used to sort the listings.
+     * @param <T>      The type of user.
+     */
+    public static <T extends User> void sortListings(List<ProjectListing> listings, T user) {
+        sortListings(listings, user.getSortSetting(), user.getReverseSort());
+    }
+
+    /**
+     * Sorts a list of listings by a sort setting.
+     * 1: Name, 2: Neighbourhood, 3: Total units available, 4: Average price.
+     *
+     * @param listings    The list of listings to be sorted.
+     * @param sortSetting The sort setting.
+     * @param reverse     Whether to sort in descending order.
+     */
+    public static void sortListings(List<ProjectListing> listings, int sortSetting, boolean reverse) {
+        Comparator<ProjectListing> comparator;
+        switch (sortSetting) {
+            case 2:
+                comparator = Comparator.comparing(ProjectListing::getNeighbourhood);
+                break;
+            case 3:
+                List<SortEntry> entries = new ArrayList<>(listings.size());
+                for (ProjectListing listing : listings) {
+                    entries.add(new SortEntry(listing, listing.getTotalUnits()));
+                }
+                Comparator<SortEntry> byTotal = Comparator.comparingInt(entry -> entry.total);
+                entries.sort(reverse ? byTotal.reversed() : byTotal);
+                for (int i = 0; i < entries.size(); i++) {
+                    listings.set(i, entries.get(i).listing);
+                }
+                return;
+            case 4:
+                comparator = Comparator.comparingDouble(ProjectListing::getAveragePrice);
+                break;
+            default:
+                comparator = Comparator.comparing(ProjectListing::getName);
+        }
+        listings.sort(reverse ? comparator.reversed() : comparator);
+    }
+
+    /**
+     * A listing paired with the units it had available when sorted.
+     */
+    private static class SortEntry {
+        private final ProjectListing listing;
+        private final int total;
+
+        private SortEntry(ProjectListing listing, int total) {
+            this.listing = listing;
+            this.total = total;
+        }
+    }
+
+    /**
+     * Returns a string representation of the listing, as shown to applicants.
+     *
+     * @return A string representation of the listing.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Project Name\t\t: ").append(this.name).append("\n");
+        sb.append("Neighbourhood\t\t: ").append(this.neighbourhood).append("\n");
+        for (Unit unit : this.units) {
+            sb.append(unit.getUnitType()).append(" Flats Available\t: ")
+                    .append(unit.getUnitsAvailable()).append("\n");
+            sb.append(unit.getUnitType()).append(" Selling Price\t: $")
+                    .append(unit.getSellingPrice()).append("\n");
+        }
+        sb.append("Open Date:\t\t: ").append(this.applicationOpenDate).append("\n");
+        sb.append("Close Date:\t\t: ").append(this.applicationClosingDate).append("\n");
+        return sb.toString();
+    }
+}
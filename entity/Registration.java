@@ -1,17 +1,29 @@
 package entity;
 
-import java.io.Serializable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.concurrent.locks.ReentrantLock;
 
 import shared.Data;
+import shared.EntityCodec;
+import shared.EntityIds;
+import shared.MappedSnapshot;
+import shared.ProjectLocks;
 import enums.Status;
 
 /**
  * A registration of an officer to a project with a specific status.
  */
-public class Registration implements Serializable {
+public class Registration implements Identifiable {
 
-    private Officer officer;
-    private Project project;
+    private static final long serialVersionUID = 6373413453054484285L;
+
+    // Attributes
+    private int id;
+    private transient int[] refs; // Ids referred to in the data file, until linked
+    private transient Officer officer;
+    private transient Project project;
     private Status status;
 
     /**
@@ -26,11 +38,32 @@ public class Registration implements Serializable {
         this.officer = officer;
         this.project = project;
         this.status = Status.Pending;
-        this.officer.getRegistrations().add(this);
-        this.project.getRegistrations().add(this);
+        ReentrantLock lock = ProjectLocks.forProject(project);
+        lock.lock();
+        try {
+            this.officer.addRegistration(this);
+            this.project.addRegistration(this);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Constructs an empty registration, to be read from the data file.
+     */
+    public Registration() {
     }
 
     // Getters and Setters
+    @Override
+    public int getId() {
+        return this.id;
+    }
+
+    @Override
+    public void setId(int id) {
+        this.id = id;
+    }
 
     public Officer getOfficer() {
         return officer;
@@ -38,6 +71,8 @@ public class Registration implements Serializable {
 
     public void setOfficer(Officer officer) {
         this.officer = officer;
+        if (this.project != null)
+            this.project.childChanged();
     }
 
     public Project getProject() {
@@ -46,6 +81,8 @@ public class Registration implements Serializable {
 
     public void setProject(Project project) {
         this.project = project;
+        if (this.project != null)
+            this.project.childChanged();
     }
 
     public Status getStatus() {
@@ -54,6 +91,8 @@ public class Registration implements Serializable {
 
     public void setStatus(Status status) {
         this.status = status;
+        if (this.project != null)
+            this.project.childChanged();
     }
 
     // Methods
@@ -63,8 +102,14 @@ public class Registration implements Serializable {
      * the registration from the project.
      */
     public void reject() {
-        this.status = Status.Unsuccessful;
-        this.project.getRegistrations().remove(this);
+        ReentrantLock lock = ProjectLocks.forProject(this.project);
+        lock.lock();
+        try {
+            this.status = Status.Unsuccessful;
+            this.project.removeRegistration(this);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -77,13 +122,19 @@ public class Registration implements Serializable {
      *         otherwise.
      */
     public boolean approve(Officer officer) {
-        if (!this.project.addOfficer(officer)) {
-            return false;
+        ReentrantLock lock = ProjectLocks.forProject(this.project);
+        lock.lock();
+        try {
+            if (!this.project.addOfficer(officer)) {
+                return false;
+            }
+            this.status = Status.Successful;
+            this.officer.assignProject(this.project);
+            this.project.removeRegistration(this);
+            return true;
+        } finally {
+            lock.unlock();
         }
-        this.status = Status.Successful;
-        this.officer.getAssignedProjects().add(this.project);
-        this.project.getRegistrations().remove(this);
-        return true;
     }
 
     /**
@@ -93,9 +144,15 @@ public class Registration implements Serializable {
      * @param data The data object that holds the list of registrations.
      */
     public void deleteRegistration(Data data) {
-        this.officer.getRegistrations().remove(this);
-        this.project.getRegistrations().remove(this);
-        data.getRegistrationList().remove(this);
+        ReentrantLock lock = ProjectLocks.forProject(this.project);
+        lock.lock();
+        try {
+            this.officer.removeRegistration(this);
+            this.project.removeRegistration(this);
+            data.removeRegistration(this);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -109,4 +166,66 @@ public class Registration implements Serializable {
         return this.project.toString() + "\nOfficer:\n" + this.officer.toString() +
                 "\nRegistration Status : " + this.status;
     }
+
+    /**
+     * Writes the registration in the compact form of the data file, see
+     * {@link EntityCodec}.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If the registration could not be written.
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        EntityCodec.writeVarInt(out, this.id);
+        EntityCodec.writeEnum(out, this.status);
+        EntityIds.writeRefs(out, this.officer, this.project);
+    }
+
+    /**
+     * Reads the registration written by {@link #writeExternal}, to be linked to the
+     * entities it refers to once they have all been read.
+     *
+     * @param in The stream to read from.
+     * @throws IOException If the registration could not be read.
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        this.id = EntityCodec.readVarInt(in);
+        this.status = EntityCodec.readEnum(in, Status.class);
+        this.refs = EntityIds.readRefs(in);
+        EntityIds.register(this);
+    }
+
+    @Override
+    public void link(EntityIds ids) {
+        EntityIds.Cursor refs = ids.cursor(this.refs);
+        this.officer = refs.next(Officer.class);
+        this.project = refs.next(Project.class);
+        this.refs = null;
+    }
+
+    /**
+     * Writes the registration as a row of a {@link MappedSnapshot}, with the same
+     * fields as {@link #writeExternal}.
+     *
+     * @param row The row to write to.
+     */
+    @Override
+    public void writeRow(MappedSnapshot.RowWriter row) {
+        row.writeEnum(this.status);
+        row.writeRef(this.officer);
+        row.writeRef(this.project);
+    }
+
+    /**
+     * Reads the registration from its row, written by {@link #writeRow}.
+     *
+     * @param row The row to read from.
+     */
+    @Override
+    public void readRow(MappedSnapshot.RowReader row) {
+        this.status = row.readEnum(Status.class);
+        this.officer = row.readRef(Officer.class);
+        this.project = row.readRef(Project.class);
+    }
 }
@@ -1,17 +1,28 @@
 package entity;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import enums.UnitType;
+import shared.EntityCodec;
 
 /**
  * A Unit that is available for sale, with attributes such as unit type,
  * available units, and selling price.
- * Implements Serializable for object serialization.
+ * Units are only reserved and released through their project, see
+ * {@link Project#reserveUnit}, which checks that the project's lock is held,
+ * so concurrent bookings can never take more units than there are. The
+ * available count is volatile so that it can be read without the lock.
+ * Written compactly in the data file, see {@link EntityCodec}.
  */
-public class Unit implements Serializable {
+public class Unit implements Externalizable {
+
+    private static final long serialVersionUID = 8898934034872161114L;
+
     // Attributes
     private UnitType unitType;
-    private int unitsAvailable;
+    private volatile int unitsAvailable;
     private double sellingPrice;
 
     /**
@@ -28,6 +39,12 @@ public class Unit implements Serializable {
         this.sellingPrice = sellingPrice;
     }
 
+    /**
+     * Constructs an empty unit, to be read from the data file.
+     */
+    public Unit() {
+    }
+
     // Getters and Setters
 
     public UnitType getUnitType() {
@@ -57,16 +74,52 @@ public class Unit implements Serializable {
     // Methods
 
     /**
-     * Decrements the number of available units by 1.
-     * If there are no units available, the decrement operation is not performed.
+     * Reserves one of the available units, for a booking being confirmed.
+     * If there are no units available, nothing is reserved. Only called by
+     * {@link Project#reserveUnit}, with the lock of the unit's project held.
+     *
+     * @return true if a unit was reserved, false if none were left
+     */
+    boolean reserve() {
+        if (this.unitsAvailable <= 0)
+            return false;
+        this.unitsAvailable--;
+        return true;
+    }
+
+    /**
+     * Releases a unit reserved by {@link #reserve}, making it available again
+     * once its booking is removed. Only called by {@link Project#releaseUnit},
+     * with the lock of the unit's project held.
+     */
+    void release() {
+        this.unitsAvailable++;
+    }
+
+    /**
+     * Writes the unit in the compact form of the data file, see
+     * {@link EntityCodec}.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If the unit could not be written.
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        EntityCodec.writeEnum(out, this.unitType);
+        EntityCodec.writeVarInt(out, this.unitsAvailable);
+        out.writeDouble(this.sellingPrice);
+    }
+
+    /**
+     * Reads the unit written by {@link #writeExternal}.
      *
-     * @return true if the unit was successfully decremented, false otherwise
+     * @param in The stream to read from.
+     * @throws IOException If the unit could not be read.
      */
-    public boolean decrementUnits() {
-        if (this.unitsAvailable > 0) {
-            this.unitsAvailable = this.unitsAvailable - 1;
-            return true;
-        }
-        return false;
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        this.unitType = EntityCodec.readEnum(in, UnitType.class);
+        this.unitsAvailable = EntityCodec.readVarInt(in);
+        this.sellingPrice = in.readDouble();
     }
 }
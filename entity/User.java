@@ -1,18 +1,27 @@
 package entity;
 
-import java.io.Serializable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.concurrent.atomic.AtomicLong;
 import enums.MaritalStatus;
+import shared.EntityCodec;
+import shared.EntityIds;
+import shared.MappedSnapshot;
 
 /**
  * Abstract class representing a user in the system.
  * Includes personal information and sorting preferences.
  * Acts as template for all user classes: Applicant, Officer, Manager.
  */
-public abstract class User implements Serializable {
+public abstract class User implements Identifiable {
+
+    private static final long serialVersionUID = 1990895463699394879L;
 
     public static final String fileName = null;
 
     // Attributes
+    private int id;
     private String NRIC;
     private String password;
     private String name;
@@ -20,6 +29,7 @@ public abstract class User implements Serializable {
     private MaritalStatus maritalStatus;
     private int sortSetting; // 1: Name Alphabetical (Default), 2: Location, 3: Units Available, 4: Price
     private boolean reverseSort;
+    private final transient AtomicLong projectsVersion = new AtomicLong(); // Of the projects managed or assigned
 
     // Constructor
 
@@ -41,11 +51,31 @@ public abstract class User implements Serializable {
         this.reverseSort = false;
     }
 
+    /**
+     * Constructs an empty user, to be read from the data file.
+     */
+    protected User() {
+    }
+
     // Getters and Setters
+    @Override
+    public int getId() {
+        return this.id;
+    }
+
+    @Override
+    public void setId(int id) {
+        this.id = id;
+    }
+
     public String getNRIC() {
         return this.NRIC;
     }
 
+    public String getName() {
+        return this.name;
+    }
+
     public int getAge() {
         return this.age;
     }
@@ -54,6 +84,10 @@ public abstract class User implements Serializable {
         return this.maritalStatus;
     }
 
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
     public int getSortSetting() {
         return this.sortSetting;
     }
@@ -66,6 +100,10 @@ public abstract class User implements Serializable {
         return this.reverseSort;
     }
 
+    public long getProjectsVersion() {
+        return this.projectsVersion.get();
+    }
+
     // Methods
 
     /**
@@ -75,6 +113,15 @@ public abstract class User implements Serializable {
         this.reverseSort = !this.reverseSort;
     }
 
+    /**
+     * Records that the projects the user manages or is assigned to have
+     * changed, either by being added or removed, or in their sort keys, so
+     * that cached sorted views of them are re-sorted.
+     */
+    public void projectsChanged() {
+        this.projectsVersion.incrementAndGet();
+    }
+
     /**
      * Resets sorting preferences to default.
      */
@@ -150,4 +197,81 @@ public abstract class User implements Serializable {
         }
         return this.name;
     }
+
+    /**
+     * Writes the user in the compact form of the data file, see
+     * {@link EntityCodec}.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If the user could not be written.
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        EntityCodec.writeVarInt(out, this.id);
+        EntityCodec.writeUniqueString(out, this.NRIC);
+        EntityCodec.writeString(out, this.password);
+        EntityCodec.writeString(out, this.name);
+        EntityCodec.writeVarInt(out, this.age);
+        EntityCodec.writeEnum(out, this.maritalStatus);
+        EntityCodec.writeVarInt(out, this.sortSetting);
+        out.writeBoolean(this.reverseSort);
+    }
+
+    /**
+     * Reads the user written by {@link #writeExternal}, to be linked to the
+     * entities it refers to once they have all been read.
+     *
+     * @param in The stream to read from.
+     * @throws IOException If the user could not be read.
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        this.id = EntityCodec.readVarInt(in);
+        this.NRIC = EntityCodec.readString(in);
+        this.password = EntityCodec.readString(in);
+        this.name = EntityCodec.readString(in);
+        this.age = EntityCodec.readVarInt(in);
+        this.maritalStatus = EntityCodec.readEnum(in, MaritalStatus.class);
+        this.sortSetting = EntityCodec.readVarInt(in);
+        this.reverseSort = in.readBoolean();
+        EntityIds.register(this);
+    }
+
+    @Override
+    public void link(EntityIds ids) {
+        // A user on its own refers to no other entities
+    }
+
+    /**
+     * Writes the user as a row of a {@link MappedSnapshot}, with the same
+     * fields as {@link #writeExternal}.
+     *
+     * @param row The row to write to.
+     */
+    @Override
+    public void writeRow(MappedSnapshot.RowWriter row) {
+        row.writeString(this.NRIC);
+        row.writeString(this.password);
+        row.writeString(this.name);
+        row.writeInt(this.age);
+        row.writeEnum(this.maritalStatus);
+        row.writeInt(this.sortSetting);
+        row.writeBoolean(this.reverseSort);
+    }
+
+    /**
+     * Reads the user from its row, written by {@link #writeRow}.
+     *
+     * @param row The row to read from.
+     */
+    @Override
+    public void readRow(MappedSnapshot.RowReader row) {
+        this.NRIC = row.readString();
+        this.password = row.readString();
+        this.name = row.readString();
+        this.age = row.readInt();
+        this.maritalStatus = row.readEnum(MaritalStatus.class);
+        this.sortSetting = row.readInt();
+        this.reverseSort = row.readBoolean();
+    }
 }
@@ -1,18 +1,31 @@
 package entity;
 
-import java.io.Serializable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.concurrent.locks.ReentrantLock;
+
 import enums.Status;
 import shared.Data;
+import shared.EntityCodec;
+import shared.EntityIds;
+import shared.MappedSnapshot;
+import shared.ProjectLocks;
 
 /**
  * A Withdrawal request from an applicant, with the associated application,
  * applicant, and status.
- * Implements Serializable for object serialization.
+ * Written compactly in the data file, see {@link shared.EntityCodec}.
  */
-public class Withdrawal implements Serializable {
+public class Withdrawal implements Identifiable {
+
+    private static final long serialVersionUID = -7147416155906798866L;
+
     // Attributes
-    private Application application;
-    private Applicant applicant;
+    private int id;
+    private transient int[] refs; // Ids referred to in the data file, until linked
+    private transient Application application;
+    private transient Applicant applicant;
     private Status status;
 
     /**
@@ -27,11 +40,40 @@ public class Withdrawal implements Serializable {
     public Withdrawal(Application application, Applicant applicant) {
         this.application = application;
         this.applicant = applicant;
-        this.applicant.setWithdrawal(this);
         this.status = Status.Pending;
+        ReentrantLock lock = ProjectLocks.forProject(application.getProject());
+        lock.lock();
+        try {
+            this.applicant.setWithdrawal(this);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Constructs an empty withdrawal, to be read from the data file.
+     */
+    public Withdrawal() {
     }
 
     // Getters and Setters
+    @Override
+    public int getId() {
+        return this.id;
+    }
+
+    @Override
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public Application getApplication() {
+        return this.application;
+    }
+
+    public Applicant getApplicant() {
+        return this.applicant;
+    }
 
     public Status getStatus() {
         return this.status;
@@ -51,9 +93,15 @@ public class Withdrawal implements Serializable {
      * @param data the data object containing the list of withdrawals
      */
     public void approve(Data data) {
-        this.status = Status.Successful;
-        this.application.getApplicant().clearApplication();
-        data.getWithdrawals().remove(this);
+        ReentrantLock lock = ProjectLocks.forProject(this.application.getProject());
+        lock.lock();
+        try {
+            this.status = Status.Successful;
+            this.application.getApplicant().clearApplication();
+            data.removeWithdrawal(this);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -63,8 +111,14 @@ public class Withdrawal implements Serializable {
      * @param data the data object containing the list of withdrawals
      */
     public void reject(Data data) {
-        this.status = Status.Unsuccessful;
-        data.getWithdrawals().remove(this);
+        ReentrantLock lock = ProjectLocks.forProject(this.application.getProject());
+        lock.lock();
+        try {
+            this.status = Status.Unsuccessful;
+            data.removeWithdrawal(this);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -77,4 +131,66 @@ public class Withdrawal implements Serializable {
     public String toString() {
         return this.application.toString();
     }
+
+    /**
+     * Writes the withdrawal in the compact form of the data file, see
+     * {@link EntityCodec}.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If the withdrawal could not be written.
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        EntityCodec.writeVarInt(out, this.id);
+        EntityCodec.writeEnum(out, this.status);
+        EntityIds.writeRefs(out, this.application, this.applicant);
+    }
+
+    /**
+     * Reads the withdrawal written by {@link #writeExternal}, to be linked to the
+     * entities it refers to once they have all been read.
+     *
+     * @param in The stream to read from.
+     * @throws IOException If the withdrawal could not be read.
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        this.id = EntityCodec.readVarInt(in);
+        this.status = EntityCodec.readEnum(in, Status.class);
+        this.refs = EntityIds.readRefs(in);
+        EntityIds.register(this);
+    }
+
+    @Override
+    public void link(EntityIds ids) {
+        EntityIds.Cursor refs = ids.cursor(this.refs);
+        this.application = refs.next(Application.class);
+        this.applicant = refs.next(Applicant.class);
+        this.refs = null;
+    }
+
+    /**
+     * Writes the withdrawal as a row of a {@link MappedSnapshot}, with the same
+     * fields as {@link #writeExternal}.
+     *
+     * @param row The row to write to.
+     */
+    @Override
+    public void writeRow(MappedSnapshot.RowWriter row) {
+        row.writeEnum(this.status);
+        row.writeRef(this.application);
+        row.writeRef(this.applicant);
+    }
+
+    /**
+     * Reads the withdrawal from its row, written by {@link #writeRow}.
+     *
+     * @param row The row to read from.
+     */
+    @Override
+    public void readRow(MappedSnapshot.RowReader row) {
+        this.status = row.readEnum(Status.class);
+        this.application = row.readRef(Application.class);
+        this.applicant = row.readRef(Applicant.class);
+    }
 }
@@ -0,0 +1,39 @@
+package enums;
+
+/**
+ * Enum representing the mutations that can be made to the application data.
+ * Each constant identifies one type of record in the data journal, which is
+ * replayed on startup to rebuild changes made since the last saved snapshot.
+ * Users are referenced by NRIC, and other entities by their id. Records that
+ * create an entity carry the id it was given, so it is given the same one on
+ * replay.
+ */
+public enum Operation {
+    REGISTER_USER,
+    CHANGE_PASSWORD,
+    SET_SORT,
+    ADD_MANAGER_CODE,
+    REMOVE_MANAGER_CODE,
+    ADD_OFFICER_CODE,
+    REMOVE_OFFICER_CODE,
+    CREATE_PROJECT,
+    EDIT_PROJECT,
+    DELETE_PROJECT,
+    TOGGLE_VISIBILITY,
+    REGISTER_OFFICER,
+    APPROVE_REGISTRATION,
+    REJECT_REGISTRATION,
+    APPLY,
+    APPROVE_APPLICATION,
+    REJECT_APPLICATION,
+    BOOK,
+    CONFIRM_BOOKING,
+    ENQUIRE,
+    EDIT_ENQUIRY,
+    DELETE_ENQUIRY,
+    REPLY_ENQUIRY,
+    REQUEST_WITHDRAWAL,
+    APPROVE_WITHDRAWAL,
+    REJECT_WITHDRAWAL,
+    RUN_BALLOT
+}
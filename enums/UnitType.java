@@ -32,4 +32,20 @@ public enum UnitType {
     public String toString() {
         return displayName;
     }
+
+    /**
+     * Finds the unit type with the given name, e.g. {@code TWO_ROOM}, or
+     * display name, e.g. {@code 2-Room}, ignoring case.
+     *
+     * @param value The name or display name of the unit type.
+     * @return The unit type.
+     * @throws IllegalArgumentException If there is no such unit type.
+     */
+    public static UnitType fromString(String value) {
+        for (UnitType unitType : values()) {
+            if (unitType.name().equalsIgnoreCase(value) || unitType.displayName.equalsIgnoreCase(value))
+                return unitType;
+        }
+        throw new IllegalArgumentException("Invalid flat type " + value + ".");
+    }
 }
@@ -0,0 +1,257 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import entity.Applicant;
+import entity.Application;
+import entity.Enquiry;
+import entity.FlatBooking;
+import entity.Officer;
+import entity.Project;
+import entity.ProjectListing;
+import entity.Withdrawal;
+import enums.Operation;
+import enums.Status;
+import enums.UnitType;
+import shared.Data;
+import shared.ProjectLocks;
+
+/**
+ * The ApplicantService class carries out the actions an applicant can take,
+ * without any prompts, so they can be called from the interfaces and from
+ * batch callers alike.
+ * Each method checks that the action is allowed, makes the change, and records
+ * it in the journal, holding the change lock of {@link ProjectLocks}
+ * throughout, so a checkpoint never copies half of the change. An action
+ * that is not allowed throws an exception whose message can be shown to the
+ * user, and changes nothing.
+ */
+public class ApplicantService {
+
+    /**
+     * Gets the listings of projects that an applicant is eligible to apply for,
+     * based on their marital status and age. The listings come from the catalog
+     * published by the data object, which already applies the visibility and
+     * date range filters, so browsing takes no lock.
+     *
+     * @param applicant the applicant
+     * @param data      the data object publishing the project catalog
+     * @return a list of listings of projects that the applicant can apply for
+     */
+    public static List<ProjectListing> getApplicableListings(Applicant applicant, Data data) {
+        // Married applicants can apply if 21 years and above
+        // Single applicants must be 35 years and above, and can only apply for 2-Room
+        List<ProjectListing> applicableListings = new ArrayList<>(data.getCatalog()
+                .getEligibleListings(applicant.isMarried(), applicant.getAge()));
+        removeAssigned(applicant, applicableListings);
+        return applicableListings;
+    }
+
+    /**
+     * Gets the listings of projects that an applicant is eligible to apply for,
+     * sorted by the applicant's sort settings. The sorted listings are cached
+     * by the applicant, and only sorted again once the catalog has been
+     * published anew or the sort settings change.
+     *
+     * @param applicant the applicant
+     * @param data      the data object publishing the project catalog
+     * @return a list of listings of projects that the applicant can apply for,
+     *         which may be read-only
+     */
+    public static List<ProjectListing> getSortedListings(Applicant applicant, Data data) {
+        List<ProjectListing> sortedListings = applicant.getSortedListings(data.getCatalog()
+                .getEligibleListings(applicant.isMarried(), applicant.getAge()));
+        if (!(applicant instanceof Officer) || sortedListings.isEmpty())
+            return sortedListings;
+        List<ProjectListing> applicableListings = new ArrayList<>(sortedListings);
+        removeAssigned(applicant, applicableListings);
+        return applicableListings;
+    }
+
+    /**
+     * Removes the listings of projects an officer using the applicant interface
+     * is assigned to, as they cannot apply for those.
+     *
+     * @param applicant the applicant, who may be an officer
+     * @param listings  the listings to filter
+     */
+    private static void removeAssigned(Applicant applicant, List<ProjectListing> listings) {
+        if (applicant instanceof Officer && !listings.isEmpty()) {
+            Set<Project> assigned = new HashSet<>(((Officer) applicant).getAssignedProjects());
+            listings.removeIf(listing -> assigned.contains(listing.getProject()));
+        }
+    }
+
+    /**
+     * Applies for a unit type in a project.
+     * The application is added and recorded with the project's lock held, so
+     * the journal records the applications of a project in the order they
+     * were added, before any ballot that drew from them.
+     *
+     * @param applicant the applicant
+     * @param project   the project to apply for
+     * @param unitType  the unit type to apply for
+     * @param data      the data object to add the application to
+     * @return the new application
+     * @throws IllegalStateException    if the applicant already has an
+     *                                  application that was not unsuccessful
+     * @throws IllegalArgumentException if the applicant is not eligible for the
+     *                                  project or unit type
+     */
+    public static Application apply(Applicant applicant, Project project, UnitType unitType, Data data) {
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        try {
+            synchronized (applicant) {
+                Application current = applicant.getApplication();
+                if (current != null && current.getStatus() != Status.Unsuccessful)
+                    throw new IllegalStateException(
+                            "You already have an application. Withdraw to apply for a new project.");
+                ProjectListing listing = null;
+                for (ProjectListing applicable : getApplicableListings(applicant, data)) {
+                    if (applicable.getProject() == project)
+                        listing = applicable;
+                }
+                if (listing == null)
+                    throw new IllegalArgumentException("Not eligible to apply for " + project.getName() + ".");
+                if (!applicant.isMarried() && unitType != UnitType.TWO_ROOM)
+                    throw new IllegalArgumentException("Single applicants can only apply for 2-Room flats.");
+                if (!listing.getAvailableUnitTypes().contains(unitType))
+                    throw new IllegalArgumentException("No " + unitType + " units left in " + project.getName() + ".");
+
+                ReentrantLock projectLock = ProjectLocks.forProject(project);
+                projectLock.lock();
+                try {
+                    Application application = new Application(applicant, project, unitType);
+                    data.addApplication(application);
+                    data.record(Operation.APPLY, applicant, project, unitType, application);
+                    return application;
+                } finally {
+                    projectLock.unlock();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Books a flat for the applicant's successful application.
+     *
+     * @param applicant the applicant
+     * @param data      the data object to add the booking to
+     * @return the new booking, awaiting confirmation by an officer
+     * @throws IllegalStateException if the applicant has no successful
+     *                               application, or has already booked
+     */
+    public static FlatBooking book(Applicant applicant, Data data) {
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        try {
+            synchronized (applicant) {
+                Application application = applicant.getApplication();
+                if (application == null || application.getStatus() != Status.Successful)
+                    throw new IllegalStateException("No successful application to book a flat for.");
+                if (applicant.getBooking() != null)
+                    throw new IllegalStateException("Flat already booked.");
+                application.book(data);
+                data.record(Operation.BOOK, application, applicant.getBooking());
+                return applicant.getBooking();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Makes an enquiry about a project.
+     *
+     * @param applicant the applicant
+     * @param project   the project
+     * @param header    the header of the enquiry
+     * @param body      the body of the enquiry
+     * @param data      the data object to add the enquiry to
+     * @return the new enquiry
+     */
+    public static Enquiry enquire(Applicant applicant, Project project, String header, String body, Data data) {
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        try {
+            Enquiry enquiry = new Enquiry(applicant, project, header, body);
+            data.addEnquiry(enquiry);
+            data.record(Operation.ENQUIRE, applicant, project, header, body, enquiry);
+            return enquiry;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Changes the body of one of the applicant's enquiries.
+     *
+     * @param enquiry the enquiry
+     * @param body    the new body
+     * @param data    the data object recording the change
+     */
+    public static void editEnquiry(Enquiry enquiry, String body, Data data) {
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        try {
+            enquiry.editEnquiry(body);
+            data.record(Operation.EDIT_ENQUIRY, enquiry, body);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes one of the applicant's enquiries.
+     *
+     * @param enquiry the enquiry
+     * @param data    the data object to remove the enquiry from
+     */
+    public static void deleteEnquiry(Enquiry enquiry, Data data) {
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        try {
+            data.record(Operation.DELETE_ENQUIRY, enquiry);
+            enquiry.deleteEnquiry(data);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Requests withdrawal of the applicant's application.
+     *
+     * @param applicant the applicant
+     * @param data      the data object to add the withdrawal to
+     * @return the new withdrawal request
+     * @throws IllegalStateException if the applicant has no application, or
+     *                               their flat is already booked
+     */
+    public static Withdrawal requestWithdrawal(Applicant applicant, Data data) {
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        try {
+            synchronized (applicant) {
+                Application application = applicant.getApplication();
+                if (application == null)
+                    throw new IllegalStateException("No application to withdraw from.");
+                if (application.getStatus() == Status.Booked)
+                    throw new IllegalStateException("HDB already booked and approved!");
+                Withdrawal withdrawal = new Withdrawal(application, applicant);
+                data.addWithdrawal(withdrawal);
+                data.record(Operation.REQUEST_WITHDRAWAL, applicant, withdrawal);
+                return withdrawal;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
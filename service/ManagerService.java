@@ -0,0 +1,413 @@
+package service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import control.BallotControl;
+import control.BallotControl.BallotResult;
+import entity.Application;
+import entity.Enquiry;
+import entity.Manager;
+import entity.Project;
+import entity.Registration;
+import entity.Unit;
+import entity.Withdrawal;
+import enums.Operation;
+import enums.Status;
+import shared.Data;
+import shared.ProjectLocks;
+
+/**
+ * The ManagerService class carries out the actions a manager can take,
+ * without any prompts, so they can be called from the interfaces and from
+ * batch callers alike.
+ * Each method checks that the action is allowed, makes the change, and records
+ * it in the journal, holding the change lock of {@link ProjectLocks}
+ * throughout, so a checkpoint never copies half of the change. An action
+ * that is not allowed throws an exception whose message can be shown to the
+ * user, and changes nothing.
+ */
+public class ManagerService {
+
+    /** The most officers that can be assigned to a project. */
+    public static final int MAX_OFFICER_SLOTS = 10;
+
+    /**
+     * Creates a project managed by the given manager.
+     *
+     * @param manager       the manager
+     * @param name          the name of the project
+     * @param neighbourhood the neighbourhood of the project
+     * @param units         the units of the project, at least one
+     * @param openingDate   the opening date of the application period
+     * @param closingDate   the closing date of the application period
+     * @param officerSlots  the number of officer slots, at most 10
+     * @param data          the data object to add the project to
+     * @return the new project
+     * @throws IllegalArgumentException if the details are invalid, or the
+     *                                  application period clashes with another
+     *                                  of the manager's projects
+     */
+    public static Project createProject(Manager manager, String name, String neighbourhood, List<Unit> units,
+            LocalDate openingDate, LocalDate closingDate, int officerSlots, Data data) {
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        try {
+            validate(units, openingDate, closingDate, officerSlots);
+            Project project = manager.createProject(name, neighbourhood, units, openingDate, closingDate, true,
+                    officerSlots, data.getProjectList());
+            if (project == null)
+                throw new IllegalArgumentException("There is a clash in dates! "
+                        + "Please double check your existing projects before creating a new one.");
+            data.assignId(project);
+            data.publishProject(project);
+            data.record(Operation.CREATE_PROJECT, manager, project, name, neighbourhood, openingDate, closingDate,
+                    true, officerSlots, units);
+            return project;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Edits the details of one of the manager's projects.
+     *
+     * @param manager       the manager
+     * @param project       the project
+     * @param name          the new name of the project
+     * @param neighbourhood the new neighbourhood of the project
+     * @param units         the new units of the project, at least one
+     * @param openingDate   the new opening date of the application period
+     * @param closingDate   the new closing date of the application period
+     * @param officerSlots  the number of officer slots, at most 10
+     * @param data          the data object recording the edit
+     * @throws IllegalArgumentException if the details are invalid, or the
+     *                                  application period clashes with another
+     *                                  of the manager's projects
+     */
+    public static void editProject(Manager manager, Project project, String name, String neighbourhood,
+            List<Unit> units, LocalDate openingDate, LocalDate closingDate, int officerSlots, Data data) {
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        try {
+            validate(units, openingDate, closingDate, officerSlots);
+            if (!manager.editProject(name, neighbourhood, units, openingDate, closingDate, true, officerSlots, project))
+                throw new IllegalArgumentException("There is a clash in dates! "
+                        + "Please double check your existing projects before creating a new one.");
+            data.publishProject(project);
+            data.record(Operation.EDIT_PROJECT, manager, project, name, neighbourhood, openingDate, closingDate,
+                    true, officerSlots, units);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks the details of a project being created or edited.
+     *
+     * @param units        the units of the project
+     * @param openingDate  the opening date of the application period
+     * @param closingDate  the closing date of the application period
+     * @param officerSlots the number of officer slots
+     * @throws IllegalArgumentException if any of the details are invalid
+     */
+    private static void validate(List<Unit> units, LocalDate openingDate, LocalDate closingDate,
+            int officerSlots) {
+        if (units.isEmpty())
+            throw new IllegalArgumentException("No units input.");
+        if (openingDate.isAfter(closingDate))
+            throw new IllegalArgumentException("Error! Opening date is after closing date. Please try again.");
+        if (officerSlots < 0 || officerSlots > MAX_OFFICER_SLOTS)
+            throw new IllegalArgumentException("Officer slots exceeded 10. Please try again.");
+    }
+
+    /**
+     * Toggles the visibility of a project, and publishes its new listing to
+     * applicants.
+     *
+     * @param project the project
+     * @param data    the data object recording the change
+     */
+    public static void toggleVisibility(Project project, Data data) {
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        try {
+            project.toggleVisibility();
+            data.publishProject(project);
+            data.record(Operation.TOGGLE_VISIBILITY, project);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes a project, with its registrations, applications, bookings and
+     * enquiries.
+     *
+     * @param project the project
+     * @param data    the data object to remove the project from
+     */
+    public static void deleteProject(Project project, Data data) {
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        try {
+            data.record(Operation.DELETE_PROJECT, project);
+            project.deleteProject(data);
+            data.unpublishProject(project);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Approves an officer's registration to handle a project.
+     *
+     * @param registration the registration
+     * @param data         the data object recording the approval
+     * @throws IllegalStateException if the project has no officer slots left
+     */
+    public static void approveRegistration(Registration registration, Data data) {
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        try {
+            if (!registration.approve(registration.getOfficer()))
+                throw new IllegalStateException(
+                        "No officer slots left in " + registration.getProject().getName() + ".");
+            data.record(Operation.APPROVE_REGISTRATION, registration);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rejects an officer's registration to handle a project.
+     *
+     * @param registration the registration
+     * @param data         the data object recording the rejection
+     */
+    public static void rejectRegistration(Registration registration, Data data) {
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        try {
+            registration.reject();
+            data.record(Operation.REJECT_REGISTRATION, registration);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Approves a pending application. The application is checked, approved
+     * and recorded with its project's lock held, so a ballot over the project
+     * never runs in between and the journal holds both in the order they ran.
+     *
+     * @param application the application
+     * @param data        the data object recording the approval
+     * @throws IllegalStateException if the application is not pending
+     */
+    public static void approveApplication(Application application, Data data) {
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        try {
+            ReentrantLock projectLock = ProjectLocks.forProject(application.getProject());
+            projectLock.lock();
+            try {
+                requirePending(application);
+                application.approve();
+                data.record(Operation.APPROVE_APPLICATION, application);
+            } finally {
+                projectLock.unlock();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rejects a pending application, with its project's lock held as for
+     * {@link #approveApplication}.
+     *
+     * @param application the application
+     * @param data        the data object recording the rejection
+     * @throws IllegalStateException if the application is not pending
+     */
+    public static void rejectApplication(Application application, Data data) {
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        try {
+            ReentrantLock projectLock = ProjectLocks.forProject(application.getProject());
+            projectLock.lock();
+            try {
+                requirePending(application);
+                application.reject();
+                data.record(Operation.REJECT_APPLICATION, application);
+            } finally {
+                projectLock.unlock();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks that an application is pending.
+     *
+     * @param application the application
+     * @throws IllegalStateException if the application is not pending
+     */
+    private static void requirePending(Application application) {
+        if (application.getStatus() != Status.Pending)
+            throw new IllegalStateException("Application is " + application.getStatus() + ", not Pending.");
+    }
+
+    /**
+     * Runs a ballot over all pending applications of a project, approving as
+     * many as there are units left for each flat type and rejecting the rest.
+     * The ballot is recorded before the project's lock is released, so the
+     * journal holds exactly the applications it was drawn from before it.
+     *
+     * @param project the project
+     * @param seed    the seed of the draw
+     * @param data    the data object recording the ballot
+     * @return the outcome of the ballot
+     */
+    public static BallotResult runBallot(Project project, long seed, Data data) {
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        try {
+            ReentrantLock projectLock = ProjectLocks.forProject(project);
+            projectLock.lock();
+            try {
+                BallotResult result = BallotControl.runBallot(project, seed);
+                data.record(Operation.RUN_BALLOT, project, seed);
+                return result;
+            } finally {
+                projectLock.unlock();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Approves a withdrawal request, removing the applicant's application.
+     * The withdrawal is recorded and approved with the project's lock held, as
+     * for {@link #approveApplication}.
+     *
+     * @param withdrawal the withdrawal request
+     * @param data       the data object to remove the withdrawal from
+     */
+    public static void approveWithdrawal(Withdrawal withdrawal, Data data) {
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        try {
+            ReentrantLock projectLock = ProjectLocks.forProject(withdrawal.getApplication().getProject());
+            projectLock.lock();
+            try {
+                data.record(Operation.APPROVE_WITHDRAWAL, withdrawal);
+                withdrawal.approve(data);
+            } finally {
+                projectLock.unlock();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rejects a withdrawal request.
+     *
+     * @param withdrawal the withdrawal request
+     * @param data       the data object to remove the withdrawal from
+     */
+    public static void rejectWithdrawal(Withdrawal withdrawal, Data data) {
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        try {
+            data.record(Operation.REJECT_WITHDRAWAL, withdrawal);
+            withdrawal.reject(data);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replies to an enquiry about one of the manager's projects.
+     *
+     * @param manager the manager
+     * @param enquiry the enquiry
+     * @param reply   the reply
+     * @param data    the data object recording the reply
+     * @throws IllegalArgumentException if the manager does not manage the
+     *                                  project
+     */
+    public static void reply(Manager manager, Enquiry enquiry, String reply, Data data) {
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        try {
+            if (enquiry.getProject().getManager() != manager)
+                throw new IllegalArgumentException("You can only reply to enquiries about your own projects.");
+            enquiry.setReply(reply);
+            data.record(Operation.REPLY_ENQUIRY, enquiry, reply);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes a report for a project, with a section for each application
+     * accepted by the filter.
+     * The applications are written straight from the project with its lock
+     * held, so the report needs no copy of them however many there are, and
+     * changes to the project wait until the report is written.
+     *
+     * @param project the project
+     * @param filter  the filter applications must pass to be reported
+     * @param writer  the writer of the report
+     * @param console the writer of the console, or null
+     * @throws IOException if the report could not be written
+     */
+    public static void writeReport(Project project, ReportFilter filter, Writer writer, Writer console)
+            throws IOException {
+        ReentrantLock lock = ProjectLocks.forProject(project);
+        lock.lock();
+        try {
+            write(writer, console, "| Report for Project |\n" + filter.describe() + project.toString(true) + "\n");
+
+            boolean empty = true;
+            for (Application application : project.iterateApplications()) {
+                if (!filter.test(application))
+                    continue;
+                empty = false;
+                write(writer, console, "\n------------------------------\nApplicant:\n");
+                write(writer, console, application.getApplicant().toString(true));
+                write(writer, console, "\nFlat Booking:\n");
+                write(writer, console, application.getUnitType().toString());
+            }
+            if (empty) {
+                write(writer, console, "No applications.");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes a section of a report to the report writer, and to the console if
+     * one is given.
+     *
+     * @param writer  the writer of the report
+     * @param console the writer of the console, or null
+     * @param text    the section to write
+     * @throws IOException if the section could not be written
+     */
+    private static void write(Writer writer, Writer console, String text) throws IOException {
+        writer.write(text);
+        if (console != null)
+            console.write(text);
+    }
+}
@@ -0,0 +1,177 @@
+package service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+
+import entity.Applicant;
+import entity.Application;
+import entity.Enquiry;
+import entity.FlatBooking;
+import entity.Officer;
+import entity.Project;
+import entity.Registration;
+import enums.Operation;
+import shared.Data;
+import shared.ProjectLocks;
+
+/**
+ * The OfficerService class carries out the actions an officer can take on the
+ * projects they handle, without any prompts, so they can be called from the
+ * interfaces and from batch callers alike.
+ * Each method checks that the action is allowed, makes the change, and records
+ * it in the journal, holding the change lock of {@link ProjectLocks}
+ * throughout, so a checkpoint never copies half of the change. An action
+ * that is not allowed throws an exception whose message can be shown to the
+ * user, and changes nothing.
+ */
+public class OfficerService {
+
+    /**
+     * Gets the projects an officer can register for. Projects that are not
+     * already applied for, assigned, or registered for, and have officer slots
+     * remaining, are included.
+     * Projects that clash with currently assigned projects are excluded from
+     * the list.
+     *
+     * @param officer the officer who is registering for a project
+     * @param data    the data object containing the list of all projects
+     * @return the list of projects the officer can register for
+     */
+    public static List<Project> getRegistrableProjects(Officer officer, Data data) {
+        // Filter out projects that 1. Officer applied for 2. Officer already assigned
+        // 3. Officer already registered for
+        Set<Project> excluded = new HashSet<>(officer.getAssignedProjects());
+        if (officer.getApplication() != null)
+            excluded.add(officer.getApplication().getProject());
+        for (Registration registration : officer.getRegistrations()) {
+            excluded.add(registration.getProject());
+        }
+
+        // Filter out projects with no officer slots remaining, and projects that
+        // clash with currently assigned projects
+        return data.copyOf(data.getProjectList()).stream()
+                .filter(project -> !excluded.contains(project))
+                .filter(project -> project.getOfficerSlots() > 0)
+                .filter(project -> !officer.hasClash(project))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Checks if an officer can register for a project, by the same rules as
+     * {@link #getRegistrableProjects}, without going through every project.
+     * The project must also still be held in the data.
+     *
+     * @param officer the officer who is registering for the project
+     * @param project the project
+     * @param data    the data object containing the project
+     * @return true if the officer can register for the project
+     */
+    private static boolean canRegister(Officer officer, Project project, Data data) {
+        if (data.findEntity(project.getId()) != project || project.getOfficerSlots() <= 0
+                || project.getAssignedOfficers().contains(officer))
+            return false;
+        Application application = officer.getApplication();
+        if (application != null && application.getProject() == project)
+            return false;
+        for (Registration registration : officer.getRegistrations()) {
+            if (registration.getProject() == project)
+                return false;
+        }
+        return !officer.hasClash(project);
+    }
+
+    /**
+     * Registers an officer to handle a project, pending the manager's approval.
+     *
+     * @param officer the officer
+     * @param project the project
+     * @param data    the data object to add the registration to
+     * @return the new registration
+     * @throws IllegalArgumentException if the officer cannot register for the
+     *                                  project
+     */
+    public static Registration register(Officer officer, Project project, Data data) {
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        try {
+            synchronized (officer) {
+                if (!canRegister(officer, project, data))
+                    throw new IllegalArgumentException("Cannot register for " + project.getName() + ".");
+                Registration registration = new Registration(officer, project);
+                data.addRegistration(registration);
+                data.record(Operation.REGISTER_OFFICER, officer, project, registration);
+                return registration;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Confirms a booking, claiming a unit of the booked type, and publishes the
+     * project's listing with the unit gone.
+     *
+     * @param booking the booking
+     * @param data    the data object recording the confirmation
+     * @throws IllegalStateException if the booking is already confirmed, or no
+     *                               units of its type are left
+     */
+    public static void confirmBooking(FlatBooking booking, Data data) {
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        try {
+            if (booking.isBooked())
+                throw new IllegalStateException("Booking already confirmed.");
+            if (!booking.confirm())
+                throw new IllegalStateException("No " + booking.getUnitType() + " units left, booking not confirmed.");
+            data.publishProject(booking.getProject());
+            data.record(Operation.CONFIRM_BOOKING, booking);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replies to an enquiry about a project the officer is assigned to.
+     *
+     * @param officer the officer
+     * @param enquiry the enquiry
+     * @param reply   the reply
+     * @param data    the data object recording the reply
+     * @throws IllegalArgumentException if the officer is not assigned to the
+     *                                  project
+     */
+    public static void reply(Officer officer, Enquiry enquiry, String reply, Data data) {
+        Lock lock = ProjectLocks.forChanges().readLock();
+        lock.lock();
+        try {
+            if (!officer.getAssignedProjects().contains(enquiry.getProject()))
+                throw new IllegalArgumentException("You can only reply to enquiries about your assigned projects.");
+            enquiry.setReply(reply);
+            data.record(Operation.REPLY_ENQUIRY, enquiry, reply);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Builds the receipt of a confirmed booking.
+     *
+     * @param booking the booking
+     * @return the text of the receipt
+     */
+    public static String receipt(FlatBooking booking) {
+        Applicant applicant = booking.getApplicant();
+        Project project = booking.getProject();
+        String s = "";
+        s += applicant.toString(true);
+        s += "\nFlat Type\t:" + booking.getApplication().getUnitType();
+        s += "\nProject\t: " + project.getName();
+        s += "\nNeighbourhood\t: " + project.getNeighbourhood();
+        s += project;
+        return s;
+    }
+}
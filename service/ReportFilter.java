@@ -0,0 +1,76 @@
+package service;
+
+import java.util.function.Predicate;
+
+import entity.Applicant;
+import entity.Application;
+import enums.MaritalStatus;
+import enums.UnitType;
+
+/**
+ * The ReportFilter class selects the applications included in a project
+ * report, by flat type, applicant age range and applicant marital status.
+ * Each criterion is optional; a filter without criteria includes every
+ * application.
+ */
+public final class ReportFilter implements Predicate<Application> {
+
+    /** The filter including every application. */
+    public static final ReportFilter ALL = new ReportFilter(null, 0, 0, null);
+
+    // Attributes
+    private final UnitType unitType;
+    private final int minAge;
+    private final int maxAge;
+    private final MaritalStatus maritalStatus;
+
+    /**
+     * Creates a filter with the given criteria.
+     *
+     * @param unitType      the flat type applied for, or null for any
+     * @param minAge        the minimum age of the applicant, or 0 for any
+     * @param maxAge        the maximum age of the applicant, or 0 for any
+     * @param maritalStatus the marital status of the applicant, or null for any
+     */
+    public ReportFilter(UnitType unitType, int minAge, int maxAge, MaritalStatus maritalStatus) {
+        this.unitType = unitType;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        this.maritalStatus = maritalStatus;
+    }
+
+    /**
+     * Checks if an application is included in the report.
+     *
+     * @param application the application
+     * @return true if the application meets every criterion, false otherwise
+     */
+    @Override
+    public boolean test(Application application) {
+        Applicant applicant = application.getApplicant();
+        return (this.unitType == null || application.getUnitType() == this.unitType)
+                && (this.minAge == 0 || applicant.getAge() >= this.minAge)
+                && (this.maxAge == 0 || applicant.getAge() <= this.maxAge)
+                && (this.maritalStatus == null || applicant.getMaritalStatus() == this.maritalStatus);
+    }
+
+    /**
+     * Describes the criteria of the filter, for the header of the report.
+     *
+     * @return the filter settings, or an empty string if there are no criteria
+     */
+    public String describe() {
+        if (this.unitType == null && this.minAge == 0 && this.maxAge == 0 && this.maritalStatus == null)
+            return "";
+        StringBuilder sb = new StringBuilder("\nFilter settings:");
+        if (this.unitType != null)
+            sb.append("\nFlat Type: ").append(this.unitType);
+        if (this.minAge != 0)
+            sb.append("\nMin Age: ").append(this.minAge);
+        if (this.maxAge != 0)
+            sb.append("\nMax Age: ").append(this.maxAge);
+        if (this.maritalStatus != null)
+            sb.append("\nMarital Status: ").append(this.maritalStatus);
+        return sb.append("\n").toString();
+    }
+}
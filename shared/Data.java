@@ -1,29 +1,98 @@
 package shared;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
+import control.Journal;
 import entity.*;
+import enums.Operation;
 
 /**
  * A Data Transfer Object (DTO), or container, for data collections.
  * Stores lists of managers, officers, applicants, projects, and entity objects.
+ * The add and remove methods, and user lookups, hold the index lock from
+ * {@link ProjectLocks}, so they can be called from concurrent sessions. A
+ * session iterating one of the lists iterates a copy from {@link #copyOf}.
+ * Applicants browse projects through a published {@link ProjectCatalog},
+ * which is replaced whenever a manager changes a project.
+ * Every entity is given a numeric id when it is added, by which it can be
+ * found again, such as by the records of the journal. In the data file, each
+ * list is written as a table of flat records referring to each other by id,
+ * and the references are resolved in one pass when the file is read, see
+ * {@link EntityIds}. Each record is written in the compact form of
+ * {@link EntityCodec}.
+ * Data opened from a {@link MappedSnapshot} reads its entities from the
+ * snapshot as they are got, and finds users through the snapshot's index
+ * until they are first found.
+ * Data saved in shards keeps track of which shards its changes fall in, so
+ * only those are written again, see {@link ShardedSnapshot}.
  */
 public class Data implements Serializable {
 
+    private static final long serialVersionUID = -6874656350936498742L;
+
     // Attributes
-    private List<Manager> managerList = new ArrayList<>();
-    private List<Officer> officerList = new ArrayList<>();
-    private List<Applicant> applicantList = new ArrayList<>();
-    private List<Project> projectList = new ArrayList<>();
-    private List<Application> applicationList = new ArrayList<>();
-    private List<Registration> registrationList = new ArrayList<>();
-    private List<Enquiry> enquiryList = new ArrayList<>();
-    private List<FlatBooking> flatBookings = new ArrayList<>();
-    private List<Withdrawal> withdrawals = new ArrayList<>();
+    // The lists of entities are written as tables by writeObject
+    private transient List<Manager> managerList = new ArrayList<>();
+    private transient List<Officer> officerList = new ArrayList<>();
+    private transient List<Applicant> applicantList = new ArrayList<>();
+    private transient List<Project> projectList = new ArrayList<>();
+    private transient List<Application> applicationList = new ArrayList<>();
+    private transient List<Registration> registrationList = new ArrayList<>();
+    private transient List<Enquiry> enquiryList = new ArrayList<>();
+    private transient List<FlatBooking> flatBookings = new ArrayList<>();
+    private transient List<Withdrawal> withdrawals = new ArrayList<>();
     private List<String> managerCodes = new ArrayList<>();
     private List<String> officerCodes = new ArrayList<>();
+    private long journalSequence;
+    private int nextId;
+    private transient Journal journal;
+    private transient Map<String, User> userIndex; // Keyed by lowercase NRIC
+    private transient Identifiable[] entityIndex; // By id
+    private transient BitSet removedIds; // Removed since the snapshot was opened
+    private transient volatile ProjectCatalog catalog;
+    private transient MappedSnapshot snapshot;
+    private transient ShardedSnapshot.Shards shards; // The shards saved, and those changed since
+
+    /**
+     * Constructs empty data.
+     */
+    public Data() {
+    }
+
+    /**
+     * Constructs the data held in a mapped snapshot. No entity is read until
+     * it is got from a list or found by NRIC.
+     *
+     * @param snapshot The snapshot.
+     */
+    Data(MappedSnapshot snapshot) {
+        this.snapshot = snapshot;
+        this.managerList = snapshot.getTable(0, Manager.class);
+        this.officerList = snapshot.getTable(1, Officer.class);
+        this.applicantList = snapshot.getTable(2, Applicant.class);
+        this.projectList = snapshot.getTable(3, Project.class);
+        this.registrationList = snapshot.getTable(4, Registration.class);
+        this.applicationList = snapshot.getTable(5, Application.class);
+        this.flatBookings = snapshot.getTable(6, FlatBooking.class);
+        this.withdrawals = snapshot.getTable(7, Withdrawal.class);
+        this.enquiryList = snapshot.getTable(8, Enquiry.class);
+        this.managerCodes = snapshot.getManagerCodes();
+        this.officerCodes = snapshot.getOfficerCodes();
+        this.journalSequence = snapshot.getJournalSequence();
+        this.nextId = snapshot.getNextId();
+        this.entityIndex = new Identifiable[16]; // Holds only the entities given an id since
+    }
 
     // Getters and Setters
     public List<Manager> getManagerList() {
@@ -70,8 +139,136 @@ public class Data implements Serializable {
         return officerCodes;
     }
 
+    public long getJournalSequence() {
+        return journalSequence;
+    }
+
+    public void setJournalSequence(long journalSequence) {
+        this.journalSequence = journalSequence;
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    ShardedSnapshot.Shards getShards() {
+        return shards;
+    }
+
+    void setShards(ShardedSnapshot.Shards shards) {
+        this.shards = shards;
+    }
+
+    void setNextId(int nextId) {
+        this.nextId = nextId;
+    }
+
+    /**
+     * Gets the published catalog of projects, taking it on first use.
+     * Reading the catalog takes no lock.
+     *
+     * @return The current catalog.
+     */
+    public ProjectCatalog getCatalog() {
+        ProjectCatalog current = catalog;
+        if (current != null)
+            return current;
+        synchronized (this) {
+            if (catalog == null) {
+                List<Project> projects;
+                ReentrantLock lock = ProjectLocks.forIndexes();
+                lock.lock();
+                try {
+                    projects = new ArrayList<>(projectList);
+                    for (Project project : projects) {
+                        if (project.getId() == 0)
+                            assignId(project);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                catalog = ProjectCatalog.of(projects);
+            }
+            return catalog;
+        }
+    }
+
+    /**
+     * Publishes a new catalog with a project's listing taken afresh, after the
+     * project was created or changed by its manager, or one of its units was
+     * claimed.
+     * Publishing takes the project's lock while holding this object's monitor,
+     * so it must not be called while holding a project lock.
+     *
+     * @param project The project that was created or changed.
+     */
+    public synchronized void publishProject(Project project) {
+        if (catalog != null) {
+            if (project.getId() == 0)
+                assignId(project);
+            catalog = catalog.with(project);
+        }
+    }
+
+    /**
+     * Publishes a new catalog without a deleted project's listing.
+     *
+     * @param project The project that was deleted.
+     */
+    public synchronized void unpublishProject(Project project) {
+        if (catalog != null)
+            catalog = catalog.without(project);
+    }
+
     // Methods
 
+    /**
+     * Records a mutation in the journal, if one is attached.
+     *
+     * @param operation The type of mutation.
+     * @param args      The arguments needed to replay the mutation.
+     */
+    public void record(Operation operation, Object... args) {
+        if (shards != null)
+            shards.record(operation, args);
+        if (journal != null) {
+            journal.append(operation, args);
+        }
+    }
+
+    /**
+     * Marks the shards a change replayed from the journal falls in, as
+     * {@link #record} does when the change is made, by finding the entities
+     * named by the ids among its arguments. An argument that only looks like
+     * an id may mark a shard that did not change, which is then written again.
+     *
+     * @param operation The type of change.
+     * @param args      The recorded arguments of the change.
+     */
+    public void replayed(Operation operation, String[] args) {
+        if (shards == null)
+            return;
+        Object[] entities = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] != null && args[i].matches("[0-9]{1,9}"))
+                entities[i] = findEntity(Integer.parseInt(args[i]));
+        }
+        shards.record(operation, entities);
+    }
+
+    /**
+     * Marks all of the data as changed since it was last saved, after changes
+     * that were not recorded, such as those replayed from the journal.
+     */
+    public void markAllChanged() {
+        if (shards != null)
+            shards.markAll();
+    }
+
     /**
      * Adds a manager code to the list if it does not already exist.
      *
@@ -124,11 +321,36 @@ public class Data implements Serializable {
      *         code, default "Applicant".
      */
     public String checkCode(String code) {
-        if (managerCodes.contains(code))
-            return "Manager";
-        if (officerCodes.contains(code))
-            return "Officer";
-        return "Applicant";
+        ReentrantLock lock = ProjectLocks.forIndexes();
+        lock.lock();
+        try {
+            if (managerCodes.contains(code))
+                return "Manager";
+            if (officerCodes.contains(code))
+                return "Officer";
+            return "Applicant";
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Copies one of the lists of this object while holding the index lock, so
+     * the copy can be iterated while other sessions add to or remove from the
+     * list.
+     *
+     * @param list The list, got from this object.
+     * @param <T>  The type of the elements of the list.
+     * @return A copy of the list.
+     */
+    public <T> List<T> copyOf(List<T> list) {
+        ReentrantLock lock = ProjectLocks.forIndexes();
+        lock.lock();
+        try {
+            return new ArrayList<>(list);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -137,7 +359,16 @@ public class Data implements Serializable {
      * @param manager The manager to add.
      */
     public void addManager(Manager manager) {
-        managerList.add(manager);
+        ReentrantLock lock = ProjectLocks.forIndexes();
+        lock.lock();
+        try {
+            assignId(manager);
+            managerList.add(manager);
+            changed(manager);
+            getUserIndex().put(manager.getNRIC().toLowerCase(), manager);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -146,7 +377,16 @@ public class Data implements Serializable {
      * @param officer The officer to add.
      */
     public void addOfficer(Officer officer) {
-        officerList.add(officer);
+        ReentrantLock lock = ProjectLocks.forIndexes();
+        lock.lock();
+        try {
+            assignId(officer);
+            officerList.add(officer);
+            changed(officer);
+            getUserIndex().put(officer.getNRIC().toLowerCase(), officer);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -155,6 +395,487 @@ public class Data implements Serializable {
      * @param applicant The applicant to add.
      */
     public void addApplicant(Applicant applicant) {
-        applicantList.add(applicant);
+        ReentrantLock lock = ProjectLocks.forIndexes();
+        lock.lock();
+        try {
+            assignId(applicant);
+            applicantList.add(applicant);
+            changed(applicant);
+            getUserIndex().put(applicant.getNRIC().toLowerCase(), applicant);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds users of any type to their lists in one batch, holding the index
+     * lock once for the whole batch.
+     *
+     * @param users The users to add.
+     */
+    public void addUsers(List<? extends User> users) {
+        ReentrantLock lock = ProjectLocks.forIndexes();
+        lock.lock();
+        try {
+            Map<String, User> index = getUserIndex();
+            for (User user : users) {
+                assignId(user);
+                if (user instanceof Manager)
+                    managerList.add((Manager) user);
+                else if (user instanceof Officer)
+                    officerList.add((Officer) user);
+                else
+                    applicantList.add((Applicant) user);
+                index.put(user.getNRIC().toLowerCase(), user);
+                changed(user);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Finds a user of any type by NRIC, ignoring case.
+     *
+     * @param NRIC The NRIC of the user.
+     * @return The user with the given NRIC, or null if there is none.
+     */
+    public User findUser(String NRIC) {
+        ReentrantLock lock = ProjectLocks.forIndexes();
+        lock.lock();
+        try {
+            String key = NRIC.toLowerCase();
+            User user = getUserIndex().get(key);
+            if (user == null && snapshot != null) {
+                user = snapshot.findUser(key);
+                if (user != null)
+                    userIndex.put(key, user);
+            }
+            return user;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds a project to the project list.
+     *
+     * @param project The project to add.
+     */
+    public void addProject(Project project) {
+        add(projectList, project);
+    }
+
+    /**
+     * Removes a project from the project list.
+     *
+     * @param project The project to remove.
+     */
+    public void removeProject(Project project) {
+        remove(projectList, project);
+    }
+
+    /**
+     * Adds an application to the application list.
+     *
+     * @param application The application to add.
+     */
+    public void addApplication(Application application) {
+        add(applicationList, application);
+    }
+
+    /**
+     * Removes an application from the application list.
+     *
+     * @param application The application to remove.
+     */
+    public void removeApplication(Application application) {
+        remove(applicationList, application);
+    }
+
+    /**
+     * Adds a registration to the registration list.
+     *
+     * @param registration The registration to add.
+     */
+    public void addRegistration(Registration registration) {
+        add(registrationList, registration);
+    }
+
+    /**
+     * Removes a registration from the registration list.
+     *
+     * @param registration The registration to remove.
+     */
+    public void removeRegistration(Registration registration) {
+        remove(registrationList, registration);
+    }
+
+    /**
+     * Adds an enquiry to the enquiry list.
+     *
+     * @param enquiry The enquiry to add.
+     */
+    public void addEnquiry(Enquiry enquiry) {
+        add(enquiryList, enquiry);
+    }
+
+    /**
+     * Removes an enquiry from the enquiry list.
+     *
+     * @param enquiry The enquiry to remove.
+     */
+    public void removeEnquiry(Enquiry enquiry) {
+        remove(enquiryList, enquiry);
+    }
+
+    /**
+     * Adds a flat booking to the flat booking list.
+     *
+     * @param booking The flat booking to add.
+     */
+    public void addFlatBooking(FlatBooking booking) {
+        add(flatBookings, booking);
+    }
+
+    /**
+     * Removes a flat booking from the flat booking list.
+     *
+     * @param booking The flat booking to remove.
+     */
+    public void removeFlatBooking(FlatBooking booking) {
+        remove(flatBookings, booking);
+    }
+
+    /**
+     * Adds a withdrawal to the withdrawal list.
+     *
+     * @param withdrawal The withdrawal to add.
+     */
+    public void addWithdrawal(Withdrawal withdrawal) {
+        add(withdrawals, withdrawal);
+    }
+
+    /**
+     * Removes a withdrawal from the withdrawal list.
+     *
+     * @param withdrawal The withdrawal to remove.
+     */
+    public void removeWithdrawal(Withdrawal withdrawal) {
+        remove(withdrawals, withdrawal);
+    }
+
+    /**
+     * Adds an item to a global list while holding the index lock, giving it
+     * an id if it has none.
+     *
+     * @param <T>  The type of the items.
+     * @param list The list to add to.
+     * @param item The item to add.
+     */
+    private <T extends Identifiable> void add(List<T> list, T item) {
+        ReentrantLock lock = ProjectLocks.forIndexes();
+        lock.lock();
+        try {
+            assignId(item);
+            list.add(item);
+            changed(item);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes an item from a global list while holding the index lock.
+     *
+     * @param <T>  The type of the items.
+     * @param list The list to remove from.
+     * @param item The item to remove.
+     */
+    private <T extends Identifiable> void remove(List<T> list, T item) {
+        ReentrantLock lock = ProjectLocks.forIndexes();
+        lock.lock();
+        try {
+            list.remove(item);
+            changed(item);
+            int id = item.getId();
+            if (entityIndex != null && id > 0 && id < entityIndex.length && entityIndex[id] == item)
+                entityIndex[id] = null;
+            if (snapshot != null && id > 0) {
+                if (removedIds == null)
+                    removedIds = new BitSet();
+                removedIds.set(id);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks the shard an entity is saved in as changed, if the data is saved
+     * in shards.
+     *
+     * @param entity The entity added or removed.
+     */
+    private void changed(Identifiable entity) {
+        if (shards != null)
+            shards.changed(entity);
+    }
+
+    /**
+     * Gives an entity the next id, if it has none.
+     *
+     * @param entity The entity.
+     */
+    public void assignId(Identifiable entity) {
+        ReentrantLock lock = ProjectLocks.forIndexes();
+        lock.lock();
+        try {
+            if (entity.getId() == 0)
+                entity.setId(++nextId);
+            indexEntity(entity);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives an entity the id it was given before, such as when a change that
+     * created it is replayed from the journal, so later records find it by
+     * the same id.
+     *
+     * @param entity The entity.
+     * @param id     The id it was given.
+     */
+    public void restoreId(Identifiable entity, int id) {
+        ReentrantLock lock = ProjectLocks.forIndexes();
+        lock.lock();
+        try {
+            int previous = entity.getId();
+            if (entityIndex != null && previous > 0 && previous < entityIndex.length
+                    && entityIndex[previous] == entity)
+                entityIndex[previous] = null;
+            entity.setId(id);
+            if (id > nextId)
+                nextId = id;
+            indexEntity(entity);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Finds an entity by its id, among those held in the lists when the data
+     * was loaded and those given an id since. An entity removed since a
+     * snapshot was opened is not read from the snapshot again.
+     *
+     * @param id The id.
+     * @return The entity, or null if there is none with the id.
+     */
+    public Identifiable findEntity(int id) {
+        ReentrantLock lock = ProjectLocks.forIndexes();
+        lock.lock();
+        try {
+            Identifiable[] index = getEntityIndex();
+            Identifiable entity = id > 0 && id < index.length ? index[id] : null;
+            if (entity == null && snapshot != null && (removedIds == null || !removedIds.get(id)))
+                entity = snapshot.find(id);
+            return entity;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives every entity held in the lists an id, if it has none. Entities
+     * added straight to a list, such as projects created by a manager, are
+     * given theirs here.
+     */
+    public void assignIds() {
+        ReentrantLock lock = ProjectLocks.forIndexes();
+        lock.lock();
+        try {
+            for (List<? extends Identifiable> table : getTables()) {
+                for (Identifiable entity : table) {
+                    if (entity.getId() == 0) {
+                        entity.setId(++nextId);
+                        indexEntity(entity);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the lists of entities, in the order they are written.
+     *
+     * @return The lists of entities.
+     */
+    List<List<? extends Identifiable>> getTables() {
+        return List.of(managerList, officerList, applicantList, projectList, registrationList, applicationList,
+                flatBookings, withdrawals, enquiryList);
+    }
+
+    /**
+     * Returns the last id given out.
+     *
+     * @return The last id, or 0 if none has been given out.
+     */
+    int getNextId() {
+        return nextId;
+    }
+
+    /**
+     * Writes the data as tables of flat records, followed by any entities
+     * referred to but not held in the tables, in batches ending with null.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If the data could not be written.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        assignIds();
+        EntityIds ids = EntityIds.beginWrite(this, getTables());
+        try {
+            out.defaultWriteObject();
+            for (List<? extends Identifiable> table : getTables()) {
+                writeTable(out, table);
+            }
+            for (List<Identifiable> detached = ids.takeDetached(); !detached.isEmpty();
+                    detached = ids.takeDetached()) {
+                out.writeObject(detached);
+            }
+            out.writeObject(null);
+        } finally {
+            EntityIds.end();
+        }
+    }
+
+    /**
+     * Reads the data written by {@link #writeObject}, then resolves the ids the
+     * entities refer to each other by.
+     *
+     * @param in The stream to read from.
+     * @throws IOException            If the data could not be read.
+     * @throws ClassNotFoundException If the data refers to an unknown class.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        EntityIds ids = EntityIds.beginRead();
+        try {
+            in.defaultReadObject();
+            managerList = readTable(in, Manager::new);
+            officerList = readTable(in, Officer::new);
+            applicantList = readTable(in, Applicant::new);
+            projectList = readTable(in, Project::new);
+            registrationList = readTable(in, Registration::new);
+            applicationList = readTable(in, Application::new);
+            flatBookings = readTable(in, FlatBooking::new);
+            withdrawals = readTable(in, Withdrawal::new);
+            enquiryList = readTable(in, Enquiry::new);
+            while (in.readObject() != null) {
+                // Detached entities register themselves as they are read
+            }
+            ids.link();
+        } finally {
+            EntityIds.end();
+        }
+    }
+
+    /**
+     * Writes a list of entities as a table: the number of entities, then the
+     * record of each. The class of each entity is not written, as every
+     * entity of a table has the same one.
+     *
+     * @param out   The stream to write to.
+     * @param table The entities.
+     * @throws IOException If the table could not be written.
+     */
+    static void writeTable(ObjectOutputStream out, List<? extends Identifiable> table) throws IOException {
+        EntityCodec.writeVarInt(out, table.size());
+        for (Identifiable entity : table) {
+            entity.writeExternal(out);
+        }
+    }
+
+    /**
+     * Reads a table written by {@link #writeTable}.
+     *
+     * @param <T>         The type of the entities.
+     * @param in          The stream to read from.
+     * @param constructor Constructs an empty entity to read each record into.
+     * @return The list of entities.
+     * @throws IOException            If the table could not be read.
+     * @throws ClassNotFoundException If a record refers to an unknown class.
+     */
+    static <T extends Identifiable> List<T> readTable(ObjectInputStream in, Supplier<T> constructor)
+            throws IOException, ClassNotFoundException {
+        int size = EntityCodec.readVarInt(in);
+        List<T> table = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            T entity = constructor.get();
+            entity.readExternal(in);
+            table.add(entity);
+        }
+        return table;
+    }
+
+    /**
+     * Returns the id index of all entities, building it from the lists if it
+     * has not been built since the data was loaded. For data opened from a
+     * snapshot, the index holds only the entities given an id since, as the
+     * others are found through the snapshot.
+     *
+     * @return The entities, by id.
+     */
+    private Identifiable[] getEntityIndex() {
+        if (entityIndex == null) {
+            entityIndex = new Identifiable[nextId + 1];
+            for (List<? extends Identifiable> table : getTables()) {
+                for (Identifiable entity : table) {
+                    indexEntity(entity);
+                }
+            }
+        }
+        return entityIndex;
+    }
+
+    /**
+     * Adds an entity to the id index, if it has been built.
+     *
+     * @param entity The entity.
+     */
+    private void indexEntity(Identifiable entity) {
+        int id = entity.getId();
+        if (entityIndex == null || id <= 0)
+            return;
+        if (removedIds != null)
+            removedIds.clear(id);
+        if (id >= entityIndex.length)
+            entityIndex = Arrays.copyOf(entityIndex, Math.max(id + 1, entityIndex.length * 2));
+        entityIndex[id] = entity;
+    }
+
+    /**
+     * Returns the NRIC index of all users, building it from the user lists if
+     * it has not been built since the data was loaded.
+     * Managers take precedence over officers, and officers over applicants.
+     * For data opened from a snapshot, the index starts empty and holds only
+     * the users added or found since, so the lists are not read.
+     *
+     * @return The map of lowercase NRIC to user.
+     */
+    private Map<String, User> getUserIndex() {
+        if (userIndex == null) {
+            userIndex = new HashMap<>();
+            if (snapshot != null)
+                return userIndex;
+            for (List<? extends User> userList : List.of(applicantList, officerList, managerList)) {
+                for (User user : userList) {
+                    userIndex.put(user.getNRIC().toLowerCase(), user);
+                }
+            }
+        }
+        return userIndex;
     }
 }
@@ -0,0 +1,243 @@
+package shared;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * The EntityCodec class holds the compact encodings entities write their
+ * fields with in the data file, in place of the field names and types that
+ * default serialization writes alongside each value.
+ * Counts, ids and other small numbers are written as variable-length integers,
+ * seven bits to a byte, so most take one or two bytes. Enums are written as
+ * their ordinals and dates as days since the epoch. Strings that repeat, such
+ * as neighbourhoods and default passwords, are written out once per file and
+ * then referred to by their position among the strings written so far.
+ */
+public class EntityCodec {
+
+    /** The code written for a string not seen before, to be referred to again. */
+    private static final int NEW_STRING = 1;
+
+    /** The code written for a string not seen before, not to be referred to. */
+    private static final int UNIQUE_STRING = 2;
+
+    /** The first code referring to a string written earlier. */
+    private static final int FIRST_SEEN = 3;
+
+    /** The constants of each enum read, so they are not copied for every value. */
+    private static final ClassValue<Object[]> enumConstants = new ClassValue<>() {
+        @Override
+        protected Object[] computeValue(Class<?> type) {
+            return type.getEnumConstants();
+        }
+    };
+
+    /**
+     * Writes a non-negative int in as few bytes as it needs. Negative values
+     * are written correctly, but take five bytes.
+     *
+     * @param out   the stream to write to
+     * @param value the value
+     * @throws IOException if the value could not be written
+     */
+    public static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Reads an int written by {@link #writeVarInt}.
+     *
+     * @param in the stream to read from
+     * @return the value
+     * @throws IOException if the value could not be read
+     */
+    public static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed variable-length int in the data file");
+    }
+
+    /**
+     * Writes an enum constant as its ordinal.
+     *
+     * @param out   the stream to write to
+     * @param value the constant, or null
+     * @throws IOException if the value could not be written
+     */
+    public static void writeEnum(DataOutput out, Enum<?> value) throws IOException {
+        writeVarInt(out, value == null ? 0 : value.ordinal() + 1);
+    }
+
+    /**
+     * Reads an enum constant written by {@link #writeEnum}.
+     *
+     * @param <E>  the type of the enum
+     * @param in   the stream to read from
+     * @param type the class of the enum
+     * @return the constant, or null
+     * @throws IOException if the value could not be read, or is not a constant
+     *                     of the enum
+     */
+    public static <E extends Enum<E>> E readEnum(DataInput in, Class<E> type) throws IOException {
+        int code = readVarInt(in);
+        if (code == 0)
+            return null;
+        E constant = constant(type, code - 1);
+        if (constant == null)
+            throw new IOException("No " + type.getSimpleName() + " with ordinal " + (code - 1) + " in the data file");
+        return constant;
+    }
+
+    /**
+     * Gets the constant of an enum with the given ordinal.
+     *
+     * @param <E>     the type of the enum
+     * @param type    the class of the enum
+     * @param ordinal the ordinal
+     * @return the constant, or null if the enum has no constant with the
+     *         ordinal
+     */
+    static <E extends Enum<E>> E constant(Class<E> type, int ordinal) {
+        Object[] constants = enumConstants.get(type);
+        return ordinal >= 0 && ordinal < constants.length ? type.cast(constants[ordinal]) : null;
+    }
+
+    /**
+     * Writes a date as the number of days since the epoch.
+     *
+     * @param out  the stream to write to
+     * @param date the date, or null
+     * @throws IOException if the date could not be written
+     */
+    public static void writeDate(DataOutput out, LocalDate date) throws IOException {
+        if (date == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        // Zigzag encode the day, so dates before the epoch stay short too
+        long day = date.toEpochDay();
+        writeVarInt(out, (int) ((day << 1) ^ (day >> 63)) + 1);
+    }
+
+    /**
+     * Reads a date written by {@link #writeDate}.
+     *
+     * @param in the stream to read from
+     * @return the date, or null
+     * @throws IOException if the date could not be read
+     */
+    public static LocalDate readDate(DataInput in) throws IOException {
+        int code = readVarInt(in);
+        if (code == 0)
+            return null;
+        int day = code - 1;
+        return LocalDate.ofEpochDay((day >>> 1) ^ -(day & 1));
+    }
+
+    /**
+     * Writes a string that may repeat elsewhere in the file. The first time a
+     * string is written it is written in full, and every later time as a
+     * reference to the first.
+     *
+     * @param out   the stream to write to
+     * @param value the string, or null
+     * @throws IOException if the string could not be written
+     */
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        EntityIds ids = EntityIds.current("written");
+        Integer seen = ids.stringIds.putIfAbsent(value, ids.stringIds.size());
+        if (seen != null) {
+            writeVarInt(out, FIRST_SEEN + seen);
+            return;
+        }
+        writeVarInt(out, NEW_STRING);
+        writeChars(out, value);
+    }
+
+    /**
+     * Writes a string that is not expected to repeat, such as an NRIC, in
+     * full, without keeping it to be referred to again.
+     *
+     * @param out   the stream to write to
+     * @param value the string, or null
+     * @throws IOException if the string could not be written
+     */
+    public static void writeUniqueString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        writeVarInt(out, UNIQUE_STRING);
+        writeChars(out, value);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString} or
+     * {@link #writeUniqueString}.
+     *
+     * @param in the stream to read from
+     * @return the string, or null
+     * @throws IOException if the string could not be read
+     */
+    public static String readString(DataInput in) throws IOException {
+        int code = readVarInt(in);
+        switch (code) {
+            case 0:
+                return null;
+            case NEW_STRING:
+                String value = readChars(in);
+                EntityIds.current("read").strings.add(value);
+                return value;
+            case UNIQUE_STRING:
+                return readChars(in);
+            default:
+                EntityIds ids = EntityIds.current("read");
+                if (code - FIRST_SEEN >= ids.strings.size())
+                    throw new IOException("No string " + (code - FIRST_SEEN) + " in the data file");
+                return ids.strings.get(code - FIRST_SEEN);
+        }
+    }
+
+    /**
+     * Writes the characters of a string as UTF-8, preceded by their length in
+     * bytes.
+     *
+     * @param out   the stream to write to
+     * @param value the string
+     * @throws IOException if the string could not be written
+     */
+    private static void writeChars(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads the characters of a string written by {@link #writeChars}.
+     *
+     * @param in the stream to read from
+     * @return the string
+     * @throws IOException if the string could not be read
+     */
+    private static String readChars(DataInput in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,397 @@
+package shared;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import entity.Identifiable;
+
+/**
+ * The EntityIds class writes and reads the references between entities as
+ * ids, so that the data file holds each entity as a flat record instead of as
+ * part of one deep graph of objects, which took a stack as deep as the graph
+ * to write and read.
+ * While the data is written, each entity writes its own fields followed by the
+ * ids of the entities it refers to. An entity whose id is already taken by
+ * another, such as one moved over from another data object, is given a new id. An entity that is referred to but not held
+ * in any list of the data, such as a settled withdrawal, is written after the
+ * lists, so every id in the file can be resolved.
+ * While the data is read, each entity registers itself under its id and keeps
+ * the ids it refers to. Once every entity has been read, the ids are resolved
+ * into entities in a single pass.
+ * The strings written so far are also kept here, so {@link EntityCodec} can
+ * write each repeated string only once.
+ * Data saved in shards is written as several streams under one set of ids,
+ * with the strings started afresh for each stream, and read as one set of ids
+ * per stream, merged before the references are resolved, see
+ * {@link ShardedSnapshot}.
+ */
+public final class EntityIds {
+
+    /** The ids being written or read on the current thread. */
+    private static final ThreadLocal<EntityIds> current = new ThreadLocal<>();
+
+    // Attributes
+    private final Data data;
+    private final List<Identifiable> detached = new ArrayList<>();
+    private final BitSet unlisted = new BitSet(); // Ids of the detached entities
+    private final List<Identifiable> unlistedRefs = new ArrayList<>();
+    private Identifiable[] entities = new Identifiable[1024];
+    private List<Identifiable> registered; // Entities read, by a read to be merged
+    private boolean renumbered;
+    final Map<String, Integer> stringIds = new HashMap<>(); // Strings written, by position
+    final List<String> strings = new ArrayList<>(); // Strings read, in order
+
+    /**
+     * Creates the ids of a write or read of the given data.
+     *
+     * @param data the data being written, or null when reading
+     */
+    private EntityIds(Data data) {
+        this.data = data;
+    }
+
+    /**
+     * Starts writing the given data on the current thread. Every entity held
+     * in a list of the data is taken as written.
+     *
+     * @param data   the data being written
+     * @param tables the lists of entities of the data
+     * @return the ids of the write
+     */
+    static EntityIds beginWrite(Data data, List<List<? extends Identifiable>> tables) {
+        EntityIds ids = new EntityIds(data);
+        for (List<? extends Identifiable> table : tables) {
+            for (Identifiable entity : table) {
+                ids.claim(entity);
+            }
+        }
+        current.set(ids);
+        return ids;
+    }
+
+    /**
+     * Starts reading data on the current thread.
+     *
+     * @return the ids of the read
+     */
+    static EntityIds beginRead() {
+        EntityIds ids = new EntityIds(null);
+        current.set(ids);
+        return ids;
+    }
+
+    /**
+     * Starts reading part of the data on the current thread, such as one of
+     * its shards. The entities read are only kept in order, to be found by id
+     * once the parts are merged.
+     *
+     * @return the ids of the read
+     */
+    static EntityIds beginPartialRead() {
+        EntityIds ids = beginRead();
+        ids.registered = new ArrayList<>();
+        return ids;
+    }
+
+    /**
+     * Ends the write or read on the current thread.
+     */
+    static void end() {
+        current.remove();
+    }
+
+    /**
+     * Merges the ids of several partial reads, such as one for each shard of
+     * the data, so references between them can be resolved.
+     *
+     * @param reads the ids of the reads, from {@link #beginPartialRead}
+     * @return the merged ids
+     * @throws IllegalStateException if two reads have an entity with the same
+     *                               id
+     */
+    static EntityIds merge(List<EntityIds> reads) {
+        EntityIds merged = new EntityIds(null);
+        for (EntityIds read : reads) {
+            for (Identifiable entity : read.registered) {
+                merged.put(entity);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Starts a new stream of the same write, whose strings are written out
+     * afresh.
+     */
+    void resetStrings() {
+        this.stringIds.clear();
+    }
+
+    /**
+     * Checks if any entity was given a new id because its id was taken by
+     * another.
+     *
+     * @return true if an entity was renumbered
+     */
+    boolean isRenumbered() {
+        return this.renumbered;
+    }
+
+    /**
+     * Takes the entities referred to since the last call that are not held in
+     * any list of the data, including those referred to before.
+     *
+     * @return the entities, which may be empty or repeat
+     */
+    List<Identifiable> takeUnlistedRefs() {
+        List<Identifiable> taken = new ArrayList<>(this.unlistedRefs);
+        this.unlistedRefs.clear();
+        return taken;
+    }
+
+    /**
+     * Takes the entities referred to since the last call that are not held in
+     * any list of the data, so they can be written too.
+     *
+     * @return the entities, which may be empty
+     */
+    List<Identifiable> takeDetached() {
+        List<Identifiable> taken = new ArrayList<>(this.detached);
+        this.detached.clear();
+        return taken;
+    }
+
+    /**
+     * Resolves the references of every entity read.
+     */
+    void link() {
+        for (Identifiable entity : this.entities) {
+            if (entity != null)
+                entity.link(this);
+        }
+    }
+
+    /**
+     * Writes the ids of the entities an entity refers to. Each reference is
+     * either an entity, which may be null, or a list of entities.
+     *
+     * @param out  the stream the entity is written to
+     * @param refs the references of the entity, in the order
+     *             {@link Cursor} reads them back
+     * @throws IOException if the ids could not be written
+     */
+    public static void writeRefs(ObjectOutput out, Object... refs) throws IOException {
+        EntityIds ids = current("written");
+
+        // Copy lists first, so their sizes cannot change while they are written
+        Object[][] lists = new Object[refs.length][];
+        int length = 0;
+        for (int i = 0; i < refs.length; i++) {
+            if (refs[i] instanceof List) {
+                lists[i] = ((List<?>) refs[i]).toArray();
+                length += 1 + lists[i].length;
+            } else {
+                length++;
+            }
+        }
+
+        EntityCodec.writeVarInt(out, length);
+        for (int i = 0; i < refs.length; i++) {
+            if (lists[i] == null) {
+                EntityCodec.writeVarInt(out, ids.idOf((Identifiable) refs[i]));
+                continue;
+            }
+            EntityCodec.writeVarInt(out, lists[i].length);
+            for (Object entity : lists[i]) {
+                EntityCodec.writeVarInt(out, ids.idOf((Identifiable) entity));
+            }
+        }
+    }
+
+    /**
+     * Reads the ids an entity refers to, to be resolved by
+     * {@link Identifiable#link} once every entity has been read.
+     *
+     * @param in the stream the entity is read from
+     * @return the ids
+     * @throws IOException if the ids could not be read
+     */
+    public static int[] readRefs(ObjectInput in) throws IOException {
+        int[] refs = new int[EntityCodec.readVarInt(in)];
+        for (int i = 0; i < refs.length; i++) {
+            refs[i] = EntityCodec.readVarInt(in);
+        }
+        return refs;
+    }
+
+    /**
+     * Registers an entity that has been read under its id.
+     *
+     * @param entity the entity
+     */
+    public static void register(Identifiable entity) {
+        EntityIds ids = current("read");
+        if (ids.registered != null)
+            ids.registered.add(entity);
+        else
+            ids.put(entity);
+    }
+
+    /**
+     * Puts an entity that has been read under its id.
+     *
+     * @param entity the entity
+     * @throws IllegalStateException if another entity was read with the id
+     */
+    private void put(Identifiable entity) {
+        int id = entity.getId();
+        ensureCapacity(id);
+        if (this.entities[id] != null)
+            throw new IllegalStateException("Duplicate id " + id + " in the data file");
+        this.entities[id] = entity;
+    }
+
+    /**
+     * Takes an entity being written as written, giving it an id if it has none
+     * or if its id is already taken by another entity.
+     *
+     * @param entity the entity
+     * @return true if the entity had not been taken as written yet
+     */
+    private boolean claim(Identifiable entity) {
+        while (true) {
+            if (entity.getId() == 0)
+                this.data.assignId(entity);
+            int id = entity.getId();
+            ensureCapacity(id);
+            if (this.entities[id] == entity)
+                return false;
+            if (this.entities[id] == null) {
+                this.entities[id] = entity;
+                return true;
+            }
+            entity.setId(0);
+            this.renumbered = true;
+        }
+    }
+
+    /**
+     * Grows the array of entities to hold the given id.
+     *
+     * @param id the id
+     */
+    private void ensureCapacity(int id) {
+        if (id >= this.entities.length)
+            this.entities = Arrays.copyOf(this.entities, Math.max(id + 1, this.entities.length * 2));
+    }
+
+    /**
+     * Gets the id of an entity being referred to. An entity not yet taken as
+     * written is queued to be written after the lists of the data.
+     *
+     * @param entity the entity, or null
+     * @return the id of the entity, or 0 for null
+     */
+    int idOf(Identifiable entity) {
+        if (entity == null)
+            return 0;
+        if (claim(entity)) {
+            this.detached.add(entity);
+            this.unlisted.set(entity.getId());
+        }
+        if (this.unlisted.get(entity.getId()))
+            this.unlistedRefs.add(entity);
+        return entity.getId();
+    }
+
+    /**
+     * Gets an entity that has been read by its id.
+     *
+     * @param <T>  the type of the entity
+     * @param type the class of the entity
+     * @param id   the id, or 0 for none
+     * @return the entity, or null for 0
+     * @throws IllegalStateException if no entity was read with the id
+     */
+    <T> T get(Class<T> type, int id) {
+        if (id == 0)
+            return null;
+        Identifiable entity = id < this.entities.length ? this.entities[id] : null;
+        if (entity == null)
+            throw new IllegalStateException("No entity with id " + id + " in the data file");
+        return type.cast(entity);
+    }
+
+    /**
+     * Creates a cursor over the ids an entity referred to.
+     *
+     * @param refs the ids, as read by {@link #readRefs}
+     * @return the cursor
+     */
+    public Cursor cursor(int[] refs) {
+        return new Cursor(refs);
+    }
+
+    /**
+     * Gets the ids being written or read on the current thread.
+     *
+     * @param action what is being done, for the error message
+     * @return the ids
+     * @throws IllegalStateException if no data is being written or read
+     */
+    static EntityIds current(String action) {
+        EntityIds ids = current.get();
+        if (ids == null)
+            throw new IllegalStateException("Entities can only be " + action + " as part of the data");
+        return ids;
+    }
+
+    /**
+     * A cursor reading the references of an entity back, in the order they
+     * were written.
+     */
+    public final class Cursor {
+
+        // Attributes
+        private final int[] refs;
+        private int position;
+
+        private Cursor(int[] refs) {
+            this.refs = refs;
+        }
+
+        /**
+         * Reads a reference to a single entity.
+         *
+         * @param <T>  the type of the entity
+         * @param type the class of the entity
+         * @return the entity, or null
+         */
+        public <T> T next(Class<T> type) {
+            return get(type, this.refs[this.position++]);
+        }
+
+        /**
+         * Reads a reference to a list of entities.
+         *
+         * @param <T>  the type of the entities
+         * @param type the class of the entities
+         * @return a new list of the entities
+         */
+        public <T> List<T> nextList(Class<T> type) {
+            int size = this.refs[this.position++];
+            List<T> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add(get(type, this.refs[this.position++]));
+            }
+            return list;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package shared;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * A list whose elements are read from a {@link MappedSnapshot} the first time
+ * they are got, so a list of a million entities costs little more than an
+ * array of their keys until it is used.
+ * Each position either holds an element already got or added, or the key the
+ * element is read by, which is a row of a table or the id of an entity.
+ * Finding an element by {@link #indexOf} compares keys, so it does not read
+ * the elements it passes over.
+ * Like {@link java.util.ArrayList}, changes must be guarded by the caller, but
+ * elements may be got from several threads at once.
+ *
+ * @param <T> the type of the elements
+ */
+class LazyList<T> extends AbstractList<T> implements RandomAccess {
+
+    /** Atomic access to the elements, so an element read on one thread is seen whole on another. */
+    private static final VarHandle ITEMS = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    // Attributes
+    private final IntFunction<T> reader;
+    private final ToIntFunction<Object> keyOf;
+    private Object[] items;
+    private int[] keys; // Null while the key of each position is the position itself
+    private int size;
+
+    /**
+     * Creates a list of elements to be read by key.
+     *
+     * @param size   the number of elements
+     * @param keys   the key of each element, or null if the keys are the
+     *               positions of the elements
+     * @param reader reads the element with a key
+     * @param keyOf  gets the key of an element, or -1 if it has none
+     */
+    LazyList(int size, int[] keys, IntFunction<T> reader, ToIntFunction<Object> keyOf) {
+        this.size = size;
+        this.items = new Object[Math.max(size, 10)];
+        this.keys = keys == null ? null : Arrays.copyOf(keys, this.items.length);
+        this.reader = reader;
+        this.keyOf = keyOf;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        checkIndex(index, this.size);
+        Object item = ITEMS.getAcquire(this.items, index);
+        if (item == null) {
+            item = this.reader.apply(keyAt(index));
+            ITEMS.setRelease(this.items, index, item);
+        }
+        return (T) item;
+    }
+
+    @Override
+    public T set(int index, T element) {
+        T previous = get(index);
+        ensureKeys();
+        this.items[index] = element;
+        this.keys[index] = -1;
+        return previous;
+    }
+
+    @Override
+    public void add(int index, T element) {
+        checkIndex(index, this.size + 1);
+        if (index < this.size)
+            ensureKeys();
+        if (this.size == this.items.length) {
+            this.items = Arrays.copyOf(this.items, this.size + (this.size >> 1) + 1);
+            if (this.keys != null)
+                this.keys = Arrays.copyOf(this.keys, this.items.length);
+        }
+        System.arraycopy(this.items, index, this.items, index + 1, this.size - index);
+        this.items[index] = element;
+        if (this.keys != null) {
+            System.arraycopy(this.keys, index, this.keys, index + 1, this.size - index);
+            this.keys[index] = -1;
+        }
+        this.size++;
+        this.modCount++;
+    }
+
+    @Override
+    public T remove(int index) {
+        T previous = get(index);
+        ensureKeys();
+        int moved = this.size - index - 1;
+        System.arraycopy(this.items, index + 1, this.items, index, moved);
+        System.arraycopy(this.keys, index + 1, this.keys, index, moved);
+        this.items[--this.size] = null;
+        this.modCount++;
+        return previous;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0)
+            return false;
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    /**
+     * Finds the first position of an element, reading no elements: a position
+     * matches if it holds the element, or has not been read yet and has the
+     * element's key.
+     *
+     * @param o the element
+     * @return the position, or -1 if the list does not hold the element
+     */
+    @Override
+    public int indexOf(Object o) {
+        if (o == null)
+            return super.indexOf(null);
+        int key = this.keyOf.applyAsInt(o);
+        for (int i = 0; i < this.size; i++) {
+            Object item = ITEMS.getAcquire(this.items, i);
+            if (item == o || (item == null && key >= 0 && keyAt(i) == key))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the key of a position.
+     *
+     * @param index the position
+     * @return the key
+     */
+    private int keyAt(int index) {
+        return this.keys == null ? index : this.keys[index];
+    }
+
+    /**
+     * Copies the keys into an array, before positions are moved or replaced.
+     */
+    private void ensureKeys() {
+        if (this.keys != null)
+            return;
+        this.keys = new int[this.items.length];
+        for (int i = 0; i < this.size; i++) {
+            this.keys[i] = i;
+        }
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+    }
+}
@@ -0,0 +1,497 @@
+package shared;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import entity.Applicant;
+import entity.Application;
+import entity.Enquiry;
+import entity.FlatBooking;
+import entity.Manager;
+import entity.Officer;
+import entity.Project;
+import entity.Registration;
+import entity.Withdrawal;
+import enums.MaritalStatus;
+import enums.Status;
+import enums.UnitType;
+
+/**
+ * The LegacyData class reads data files written before entities were given
+ * ids, in which every entity was written by default serialization. Those
+ * files cannot be read by the entity classes, which now write themselves as
+ * compact records, so the old entities are read into copies of their old
+ * classes instead. The copies are then written as records, in the order the
+ * entity classes read them, and read back as entities. The data is written
+ * in the current form the next time it is saved.
+ */
+public final class LegacyData {
+
+    /** The old classes of the data file, by the name they were written under. */
+    private static final Map<String, Class<?>> OLD_CLASSES = Map.ofEntries(
+            Map.entry("shared.Data", OldData.class),
+            Map.entry("entity.User", OldUser.class),
+            Map.entry("entity.Applicant", OldApplicant.class),
+            Map.entry("entity.Officer", OldOfficer.class),
+            Map.entry("entity.Manager", OldManager.class),
+            Map.entry("entity.Project", OldProject.class),
+            Map.entry("entity.Unit", OldUnit.class),
+            Map.entry("entity.Application", OldApplication.class),
+            Map.entry("entity.Registration", OldRegistration.class),
+            Map.entry("entity.Enquiry", OldEnquiry.class),
+            Map.entry("entity.FlatBooking", OldFlatBooking.class),
+            Map.entry("entity.Withdrawal", OldWithdrawal.class));
+
+    /** The number of tables of the data, one for each kind of entity. */
+    private static final int TABLES = 9;
+
+    // Attributes
+    private final Map<Object, Integer> ids = new IdentityHashMap<>();
+    private List<List<Object>> detached = newTables(); // Referred to but not listed, by table
+    private int nextId;
+
+    private LegacyData() {
+    }
+
+    // Methods
+    /**
+     * Reads a data file written before entities were given ids.
+     *
+     * @param dataFile the path to the data file
+     * @return the data held in the file
+     * @throws IOException            if the file could not be read
+     * @throws ClassNotFoundException if the file refers to an unknown class
+     */
+    public static Data read(String dataFile) throws IOException, ClassNotFoundException {
+        OldData old;
+        try (ObjectInputStream in = new OldInputStream(new FileInputStream(dataFile))) {
+            old = (OldData) in.readObject();
+        }
+        return new LegacyData().convert(old);
+    }
+
+    /**
+     * Converts the old data to the current entities, giving every entity an
+     * id: those listed in the data first, in the order of its tables, then
+     * those only referred to.
+     *
+     * @param old the old data
+     * @return the data
+     * @throws IOException            if the records could not be written or
+     *                                read back
+     * @throws ClassNotFoundException if a record refers to an unknown class
+     */
+    private Data convert(OldData old) throws IOException, ClassNotFoundException {
+        List<List<Object>> listed = newTables();
+        List<List<?>> oldTables = List.of(old.managerList, old.officerList, old.applicantList, old.projectList,
+                old.registrationList, old.applicationList, old.flatBookings, old.withdrawals, old.enquiryList);
+        for (int i = 0; i < TABLES; i++) {
+            for (Object entity : list(oldTables.get(i))) {
+                if (entity != null && !this.ids.containsKey(entity)) {
+                    this.ids.put(entity, ++this.nextId);
+                    listed.get(i).add(entity);
+                }
+            }
+        }
+
+        // Write the records as Data.writeObject does, with strings shared
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EntityIds.beginWrite(new Data(), List.of());
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            writeTables(out, listed);
+            while (this.detached.stream().anyMatch(table -> !table.isEmpty())) {
+                List<List<Object>> batch = this.detached;
+                this.detached = newTables();
+                out.writeBoolean(true);
+                writeTables(out, batch);
+            }
+            out.writeBoolean(false);
+        } finally {
+            EntityIds.end();
+        }
+
+        Data data = new Data();
+        EntityIds ids = EntityIds.beginRead();
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            List<Manager> managers = Data.readTable(in, Manager::new);
+            List<Officer> officers = Data.readTable(in, Officer::new);
+            List<Applicant> applicants = Data.readTable(in, Applicant::new);
+            List<Project> projects = Data.readTable(in, Project::new);
+            List<Registration> registrations = Data.readTable(in, Registration::new);
+            List<Application> applications = Data.readTable(in, Application::new);
+            List<FlatBooking> bookings = Data.readTable(in, FlatBooking::new);
+            List<Withdrawal> withdrawals = Data.readTable(in, Withdrawal::new);
+            List<Enquiry> enquiries = Data.readTable(in, Enquiry::new);
+            while (in.readBoolean()) {
+                readTables(in); // Detached entities register themselves as they are read
+            }
+            ids.link();
+
+            data.setNextId(this.nextId);
+            data.addUsers(managers);
+            data.addUsers(officers);
+            data.addUsers(applicants);
+            projects.forEach(data::addProject);
+            registrations.forEach(data::addRegistration);
+            applications.forEach(data::addApplication);
+            bookings.forEach(data::addFlatBooking);
+            withdrawals.forEach(data::addWithdrawal);
+            enquiries.forEach(data::addEnquiry);
+        } finally {
+            EntityIds.end();
+        }
+        for (Object code : list(old.managerCodes)) {
+            data.addManagerCode((String) code);
+        }
+        for (Object code : list(old.officerCodes)) {
+            data.addOfficerCode((String) code);
+        }
+        return data;
+    }
+
+    /**
+     * Writes one table of records for each kind of entity.
+     *
+     * @param out    the stream to write to
+     * @param tables the entities of each table
+     * @throws IOException if a record could not be written
+     */
+    private void writeTables(ObjectOutputStream out, List<List<Object>> tables) throws IOException {
+        for (List<Object> table : tables) {
+            EntityCodec.writeVarInt(out, table.size());
+            for (Object entity : table) {
+                write(out, entity);
+            }
+        }
+    }
+
+    /**
+     * Reads one table of records for each kind of entity, registering each
+     * entity read under its id.
+     *
+     * @param in the stream to read from
+     * @throws IOException            if a record could not be read
+     * @throws ClassNotFoundException if a record refers to an unknown class
+     */
+    private static void readTables(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        Data.readTable(in, Manager::new);
+        Data.readTable(in, Officer::new);
+        Data.readTable(in, Applicant::new);
+        Data.readTable(in, Project::new);
+        Data.readTable(in, Registration::new);
+        Data.readTable(in, Application::new);
+        Data.readTable(in, FlatBooking::new);
+        Data.readTable(in, Withdrawal::new);
+        Data.readTable(in, Enquiry::new);
+    }
+
+    /**
+     * Writes an old entity as the record its current class reads.
+     *
+     * @param out    the stream to write to
+     * @param entity the old entity
+     * @throws IOException if the record could not be written
+     */
+    private void write(ObjectOutputStream out, Object entity) throws IOException {
+        EntityCodec.writeVarInt(out, this.ids.get(entity));
+        if (entity instanceof OldUser) {
+            OldUser user = (OldUser) entity;
+            EntityCodec.writeUniqueString(out, user.NRIC);
+            EntityCodec.writeString(out, user.password);
+            EntityCodec.writeString(out, user.name);
+            EntityCodec.writeVarInt(out, user.age);
+            EntityCodec.writeEnum(out, user.maritalStatus);
+            EntityCodec.writeVarInt(out, user.sortSetting);
+            out.writeBoolean(user.reverseSort);
+            if (user instanceof OldApplicant) {
+                OldApplicant applicant = (OldApplicant) user;
+                EntityCodec.writeEnum(out, applicant.unitType);
+                writeRefs(out, applicant.application, applicant.booking, list(applicant.enquiries),
+                        applicant.withdrawalRequest);
+            }
+            if (user instanceof OldOfficer) {
+                OldOfficer officer = (OldOfficer) user;
+                writeRefs(out, list(officer.assignedProjects), list(officer.registrations));
+            }
+            if (user instanceof OldManager)
+                writeRefs(out, list(((OldManager) user).managedProjects));
+        } else if (entity instanceof OldProject) {
+            OldProject project = (OldProject) entity;
+            EntityCodec.writeString(out, project.name);
+            EntityCodec.writeString(out, project.neighbourhood);
+            List<?> units = list(project.units);
+            EntityCodec.writeVarInt(out, units.size());
+            for (Object unit : units) {
+                EntityCodec.writeEnum(out, ((OldUnit) unit).unitType);
+                EntityCodec.writeVarInt(out, ((OldUnit) unit).unitsAvailable);
+                out.writeDouble(((OldUnit) unit).sellingPrice);
+            }
+            EntityCodec.writeDate(out, project.applicationOpenDate);
+            EntityCodec.writeDate(out, project.applicationClosingDate);
+            out.writeBoolean(project.visibility);
+            EntityCodec.writeVarInt(out, project.officerSlots);
+            writeRefs(out, project.manager, list(project.assignedOfficers), list(project.registrations),
+                    list(project.applications), list(project.enquiries), list(project.bookings));
+        } else if (entity instanceof OldRegistration) {
+            OldRegistration registration = (OldRegistration) entity;
+            EntityCodec.writeEnum(out, registration.status);
+            writeRefs(out, registration.officer, registration.project);
+        } else if (entity instanceof OldApplication) {
+            OldApplication application = (OldApplication) entity;
+            EntityCodec.writeEnum(out, application.unitType);
+            EntityCodec.writeEnum(out, application.status);
+            writeRefs(out, application.applicant, application.project);
+        } else if (entity instanceof OldFlatBooking) {
+            OldFlatBooking booking = (OldFlatBooking) entity;
+            out.writeBoolean(booking.booked);
+            writeRefs(out, booking.applicant, booking.application, booking.project);
+        } else if (entity instanceof OldWithdrawal) {
+            OldWithdrawal withdrawal = (OldWithdrawal) entity;
+            EntityCodec.writeEnum(out, withdrawal.status);
+            writeRefs(out, withdrawal.application, withdrawal.applicant);
+        } else {
+            OldEnquiry enquiry = (OldEnquiry) entity;
+            EntityCodec.writeString(out, enquiry.enquiryHeader);
+            EntityCodec.writeString(out, enquiry.enquiryText);
+            EntityCodec.writeString(out, enquiry.reply);
+            writeRefs(out, enquiry.applicant, enquiry.project);
+        }
+    }
+
+    /**
+     * Writes the ids of the entities an old entity refers to, in the form of
+     * {@link EntityIds#writeRefs}.
+     *
+     * @param out  the stream to write to
+     * @param refs the references, each an entity, which may be null, or a
+     *             list of entities
+     * @throws IOException if the ids could not be written
+     */
+    private void writeRefs(ObjectOutputStream out, Object... refs) throws IOException {
+        int length = 0;
+        for (Object ref : refs) {
+            length += ref instanceof List ? 1 + ((List<?>) ref).size() : 1;
+        }
+        EntityCodec.writeVarInt(out, length);
+        for (Object ref : refs) {
+            if (!(ref instanceof List)) {
+                EntityCodec.writeVarInt(out, idOf(ref));
+                continue;
+            }
+            EntityCodec.writeVarInt(out, ((List<?>) ref).size());
+            for (Object entity : (List<?>) ref) {
+                EntityCodec.writeVarInt(out, idOf(entity));
+            }
+        }
+    }
+
+    /**
+     * Gets the id of an old entity being referred to. An entity not listed in
+     * the data is given the next id, and queued to be written after the
+     * tables.
+     *
+     * @param entity the old entity, or null
+     * @return the id of the entity, or 0 for null
+     */
+    private int idOf(Object entity) {
+        if (entity == null)
+            return 0;
+        Integer id = this.ids.get(entity);
+        if (id != null)
+            return id;
+        this.ids.put(entity, ++this.nextId);
+        this.detached.get(tableOf(entity)).add(entity);
+        return this.nextId;
+    }
+
+    /**
+     * Gets the table an old entity belongs in, in the order of
+     * {@link Data#getTables}.
+     *
+     * @param entity the old entity
+     * @return the index of the table
+     */
+    private static int tableOf(Object entity) {
+        if (entity instanceof OldManager)
+            return 0;
+        if (entity instanceof OldOfficer)
+            return 1;
+        if (entity instanceof OldApplicant)
+            return 2;
+        if (entity instanceof OldProject)
+            return 3;
+        if (entity instanceof OldRegistration)
+            return 4;
+        if (entity instanceof OldApplication)
+            return 5;
+        if (entity instanceof OldFlatBooking)
+            return 6;
+        if (entity instanceof OldWithdrawal)
+            return 7;
+        return 8;
+    }
+
+    /**
+     * Creates an empty list of entities for each table.
+     *
+     * @return the lists
+     */
+    private static List<List<Object>> newTables() {
+        List<List<Object>> tables = new ArrayList<>(TABLES);
+        for (int i = 0; i < TABLES; i++) {
+            tables.add(new ArrayList<>());
+        }
+        return tables;
+    }
+
+    /**
+     * Returns an old list, or an empty list if it was never set.
+     *
+     * @param list the old list, or null
+     * @return the list
+     */
+    private static List<?> list(List<?> list) {
+        return list == null ? List.of() : list;
+    }
+
+    /**
+     * An ObjectInputStream reading the old classes of the data file into
+     * their copies. The fields of each copy have the same names and types as
+     * those of its old class, so the old values are read into them in order.
+     */
+    private static class OldInputStream extends ObjectInputStream {
+
+        OldInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+            ObjectStreamClass written = super.readClassDescriptor();
+            Class<?> copy = OLD_CLASSES.get(written.getName());
+            return copy == null ? written : ObjectStreamClass.lookup(copy);
+        }
+    }
+
+    // The old classes of the data file, with only the fields that were written
+    private static class OldData implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private List<?> managerList;
+        private List<?> officerList;
+        private List<?> applicantList;
+        private List<?> projectList;
+        private List<?> applicationList;
+        private List<?> registrationList;
+        private List<?> enquiryList;
+        private List<?> flatBookings;
+        private List<?> withdrawals;
+        private List<?> managerCodes;
+        private List<?> officerCodes;
+    }
+
+    private abstract static class OldUser implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private String NRIC;
+        private String password;
+        private String name;
+        private int age;
+        private MaritalStatus maritalStatus;
+        private int sortSetting;
+        private boolean reverseSort;
+    }
+
+    private static class OldApplicant extends OldUser {
+        private static final long serialVersionUID = 1L;
+        private Object application;
+        private Object booking;
+        private List<?> enquiries;
+        private UnitType unitType;
+        private Object withdrawalRequest;
+    }
+
+    private static class OldOfficer extends OldApplicant {
+        private static final long serialVersionUID = 1L;
+        private List<?> assignedProjects;
+        private List<?> registrations;
+    }
+
+    private static class OldManager extends OldUser {
+        private static final long serialVersionUID = 1L;
+        private List<?> managedProjects;
+    }
+
+    private static class OldProject implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private Object manager;
+        private String name;
+        private String neighbourhood;
+        private List<?> units;
+        private LocalDate applicationOpenDate;
+        private LocalDate applicationClosingDate;
+        private boolean visibility;
+        private int officerSlots;
+        private List<?> assignedOfficers;
+        private List<?> registrations;
+        private List<?> applications;
+        private List<?> enquiries;
+        private List<?> bookings;
+    }
+
+    private static class OldUnit implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private UnitType unitType;
+        private int unitsAvailable;
+        private double sellingPrice;
+    }
+
+    private static class OldApplication implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private Object applicant;
+        private Object project;
+        private UnitType unitType;
+        private Status status;
+    }
+
+    private static class OldRegistration implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private Object officer;
+        private Object project;
+        private Status status;
+    }
+
+    private static class OldEnquiry implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private Object applicant;
+        private Object project;
+        private String enquiryHeader;
+        private String enquiryText;
+        private String reply;
+    }
+
+    private static class OldFlatBooking implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private Object applicant;
+        private Object application;
+        private Object project;
+        private boolean booked;
+    }
+
+    private static class OldWithdrawal implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private Object application;
+        private Object applicant;
+        private Status status;
+    }
+}
@@ -0,0 +1,1009 @@
+package shared;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import entity.Applicant;
+import entity.Application;
+import entity.Enquiry;
+import entity.FlatBooking;
+import entity.Identifiable;
+import entity.Manager;
+import entity.Officer;
+import entity.Project;
+import entity.Registration;
+import entity.User;
+import entity.Withdrawal;
+
+/**
+ * The MappedSnapshot class writes the data as a snapshot laid out in columns,
+ * and opens such a snapshot by mapping it into memory, so startup takes about
+ * the same time however much data there is.
+ * Each list of entities is a table, and each field of its entities a column of
+ * fixed-width values, so the value of any row is found by its position alone.
+ * Strings and lists of references are kept in heaps that the columns point
+ * into. A directory gives the table and row of every id, and a sorted index
+ * gives the id of every NRIC, so users can log in without any table being read.
+ * An opened snapshot reads nothing up front. Entities are read from their rows
+ * the first time they are got from a list, found by NRIC, or referred to by an
+ * entity being read; lists held by entities are read the same way.
+ * The lists of references of each project are written one after another, as
+ * the project's segment of the reference heap, which the project reads from
+ * on first use, see {@link Segment}. Registrations, applications, bookings
+ * and enquiries that have been read are kept only weakly, so those a project
+ * drops under memory pressure are read again when next needed, while those
+ * still used elsewhere are found again as the same objects.
+ * The snapshot is written in full from the entities, so saving reads every
+ * entity first.
+ * Each snapshot is kept in a new file of a directory named after the data
+ * file, data.mapped for data.bin, and the data file only names the snapshot
+ * in use. The data file can therefore be replaced while a snapshot is mapped,
+ * which Windows does not allow for a mapped file.
+ */
+public final class MappedSnapshot {
+
+    /** The bytes a snapshot starts with, "BTOSNAP" and the format version. */
+    private static final long MAGIC = 0x42544F534E415001L;
+
+    /** The bytes a data file naming a snapshot starts with, "BTOMAPT" and the format version. */
+    private static final long NAMED = 0x42544F4D41505401L;
+
+    /** The entity types of the tables, in the order of {@link Data#getTables}. */
+    private static final List<Class<? extends Identifiable>> TYPES = List.of(Manager.class, Officer.class,
+            Applicant.class, Project.class, Registration.class, Application.class, FlatBooking.class,
+            Withdrawal.class, Enquiry.class);
+
+    /** Constructs an empty entity of each table, to be read from a row. */
+    private static final List<Supplier<? extends Identifiable>> CONSTRUCTORS = List.of(Manager::new,
+            Officer::new, Applicant::new, Project::new, Registration::new, Application::new, FlatBooking::new,
+            Withdrawal::new, Enquiry::new);
+
+    /**
+     * Whether the entities of each table are kept weakly once read: those of
+     * the tables of project children, whose lists a project may drop.
+     */
+    private static final boolean[] WEAK = { false, false, false, false, true, true, true, false, true };
+
+    /**
+     * The bytes of the header besides the layout of each table: the magic, the
+     * next id, the journal sequence and the table count before the tables, and
+     * the offsets and counts of the sections after them.
+     */
+    private static final int HEADER_SIZE = 8 + 16 + 24;
+
+    /** The bits of a directory entry holding the row, below those of the table. */
+    private static final int ROW_BITS = 28;
+
+    // Kinds of column
+    private static final byte INT = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte ENUM = 3;
+    private static final byte DATE = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte STRING = 6;
+    private static final byte REF = 7;
+    private static final byte REFS = 8;
+
+    /** The width in bytes of a value of each kind of column. */
+    private static final int[] WIDTHS = { 0, 4, 1, 1, 4, 8, 4, 4, 4 };
+
+    /** The value of a null date. */
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    // Attributes
+    private final ByteBuffer buffer;
+    private final int nextId;
+    private final long journalSequence;
+    private final int[] rows;
+    private final int[] listed;
+    private final byte[][] kinds;
+    private final int[][] columns;
+    private final int directory;
+    private final int userIndex;
+    private final int userCount;
+    private final int codes;
+    private final int strings;
+    private final int refs;
+    private final Object[] entities; // Each entity read, or a weak reference to it
+
+    /**
+     * Reads the layout of a mapped snapshot.
+     *
+     * @param buffer the snapshot
+     * @throws IOException if the buffer does not hold a snapshot
+     */
+    private MappedSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < 8 || buffer.getLong(0) != MAGIC)
+            throw new IOException("Not a mapped snapshot");
+        int position = 8;
+        this.nextId = buffer.getInt(position);
+        this.journalSequence = buffer.getLong(position + 4);
+        int tables = buffer.getInt(position + 12);
+        position += 16;
+        if (tables != TYPES.size())
+            throw new IOException("Snapshot has " + tables + " tables, expected " + TYPES.size());
+
+        this.rows = new int[tables];
+        this.listed = new int[tables];
+        this.kinds = new byte[tables][];
+        this.columns = new int[tables][];
+        for (int table = 0; table < tables; table++) {
+            this.rows[table] = buffer.getInt(position);
+            this.listed[table] = buffer.getInt(position + 4);
+            int count = buffer.getInt(position + 8);
+            position += 12;
+            this.kinds[table] = new byte[count];
+            this.columns[table] = new int[count];
+            for (int column = 0; column < count; column++) {
+                this.kinds[table][column] = buffer.get(position);
+                this.columns[table][column] = buffer.getInt(position + 1);
+                position += 5;
+            }
+        }
+        this.directory = buffer.getInt(position);
+        this.userIndex = buffer.getInt(position + 4);
+        this.userCount = buffer.getInt(position + 8);
+        this.codes = buffer.getInt(position + 12);
+        this.strings = buffer.getInt(position + 16);
+        this.refs = buffer.getInt(position + 20);
+        this.entities = new Object[this.nextId + 1];
+    }
+
+    /**
+     * Checks if a file holds or names a mapped snapshot.
+     *
+     * @param file the path to the file
+     * @return true if the file starts like a mapped snapshot, or like a data
+     *         file naming one
+     */
+    public static boolean isSnapshot(String file) {
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            ByteBuffer start = ByteBuffer.allocate(8);
+            while (start.hasRemaining() && channel.read(start) >= 0) {
+                // Read until the start is full or the file ends
+            }
+            return !start.hasRemaining() && (start.getLong(0) == MAGIC || start.getLong(0) == NAMED);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Opens the mapped snapshot named by a data file. Only its layout is read;
+     * entities are read as they are got.
+     * A snapshot held in the data file itself, as written by earlier versions,
+     * is first linked into the directory of snapshots and named by the data
+     * file, so that the data file is never mapped.
+     *
+     * @param file the path to the data file
+     * @return the data held in the snapshot
+     * @throws IOException if the file could not be mapped, or is not a snapshot
+     */
+    public static Data open(String file) throws IOException {
+        Path dataFile = Paths.get(file);
+        Path snapshot = named(dataFile);
+        if (snapshot == null) {
+            Path directory = directory(dataFile);
+            Files.createDirectories(directory);
+            snapshot = Files.createTempFile(directory, "snapshot", ".bin");
+            try {
+                Files.delete(snapshot);
+                Files.createLink(snapshot, dataFile);
+            } catch (UnsupportedOperationException | FileSystemException e) {
+                Files.copy(dataFile, snapshot, StandardCopyOption.REPLACE_EXISTING);
+            }
+            replace(dataFile, name(snapshot));
+        }
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("Snapshot is too large to map: " + size + " bytes");
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new Data(new MappedSnapshot(buffer));
+        }
+    }
+
+    /**
+     * Writes the data as a mapped snapshot. Every entity is read, if it has
+     * not been already.
+     *
+     * @param data the data to write
+     * @return the bytes of the snapshot
+     * @throws IOException if the data is too large for a snapshot
+     */
+    public static byte[] write(Data data) throws IOException {
+        data.assignIds();
+        List<List<? extends Identifiable>> tables = data.getTables();
+        EntityIds ids = EntityIds.beginWrite(data, tables);
+        try {
+            int rows = 0;
+            for (List<? extends Identifiable> table : tables) {
+                rows += table.size();
+            }
+            return new Writer(ids, data.getNextId(), rows).write(data, tables);
+        } finally {
+            EntityIds.end();
+        }
+    }
+
+    /**
+     * Stores a snapshot of a data file in a new file of its directory of
+     * snapshots, and forces it to disk. The snapshot is in use once the data
+     * file is replaced with the returned name.
+     *
+     * @param snapshot the bytes of the snapshot
+     * @param file     the path to the data file
+     * @return the bytes of a data file naming the snapshot
+     * @throws IOException if the snapshot could not be written
+     */
+    public static byte[] store(byte[] snapshot, String file) throws IOException {
+        Path directory = directory(Paths.get(file));
+        Files.createDirectories(directory);
+        Path stored = Files.createTempFile(directory, "snapshot", ".bin");
+        try (FileOutputStream out = new FileOutputStream(stored.toFile())) {
+            out.write(snapshot);
+            out.getFD().sync();
+        }
+        return name(stored);
+    }
+
+    /**
+     * Deletes the snapshots of a data file other than the one it names. A
+     * snapshot that cannot be deleted yet, such as one still mapped on
+     * Windows, is left for the next save to delete.
+     *
+     * @param file the path to the data file
+     */
+    public static void deleteUnused(String file) {
+        Path dataFile = Paths.get(file);
+        Path directory = directory(dataFile);
+        if (!Files.isDirectory(directory))
+            return;
+        Path kept;
+        try {
+            kept = named(dataFile);
+        } catch (IOException e) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.bin")) {
+            for (Path stored : files) {
+                if (stored.equals(kept))
+                    continue;
+                try {
+                    Files.deleteIfExists(stored);
+                } catch (IOException e) {
+                    // Left for the next save to delete
+                }
+            }
+        } catch (IOException e) {
+            // Left for the next save to delete
+        }
+    }
+
+    /**
+     * Gets the snapshot named by a data file.
+     *
+     * @param dataFile the path to the data file
+     * @return the path to the snapshot, or null if the data file does not name
+     *         one
+     * @throws IOException if the data file could not be read
+     */
+    private static Path named(Path dataFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(dataFile))) {
+            if (in.readLong() != NAMED)
+                return null;
+            return directory(dataFile).resolve(in.readUTF());
+        }
+    }
+
+    /**
+     * Gets the bytes of a data file naming a snapshot.
+     *
+     * @param snapshot the path to the snapshot
+     * @return the bytes of the data file
+     * @throws IOException if the name could not be written
+     */
+    private static byte[] name(Path snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(NAMED);
+            out.writeUTF(snapshot.getFileName().toString());
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Replaces a data file with the given bytes, by way of a temporary file
+     * forced to disk and renamed over it.
+     *
+     * @param dataFile the path to the data file
+     * @param bytes    the new contents of the data file
+     * @throws IOException if the data file could not be replaced
+     */
+    private static void replace(Path dataFile, byte[] bytes) throws IOException {
+        Path temp = dataFile.resolveSibling(dataFile.getFileName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp.toFile())) {
+            out.write(bytes);
+            out.getFD().sync();
+        }
+        Files.move(temp, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Gets the directory the snapshots of a data file are kept in, named after
+     * the data file: data.mapped for data.bin.
+     *
+     * @param dataFile the path to the data file
+     * @return the path to the directory
+     */
+    private static Path directory(Path dataFile) {
+        String name = dataFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dataFile.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".mapped");
+    }
+
+    // Methods used by Data
+
+    long getJournalSequence() {
+        return this.journalSequence;
+    }
+
+    int getNextId() {
+        return this.nextId;
+    }
+
+    List<String> getManagerCodes() {
+        return readCodes(this.codes);
+    }
+
+    List<String> getOfficerCodes() {
+        return readCodes(this.codes + 4 + 4 * this.buffer.getInt(this.codes));
+    }
+
+    /**
+     * Gets the list of entities held in a table, to be read as they are got.
+     *
+     * @param <T>   the type of the entities
+     * @param table the index of the table
+     * @param type  the class of the entities
+     * @return the list
+     */
+    <T extends Identifiable> List<T> getTable(int table, Class<T> type) {
+        return new LazyList<>(this.listed[table], null, row -> type.cast(read(table, row)),
+                entity -> rowOf(table, entity));
+    }
+
+    /**
+     * Finds a user by NRIC, reading the user if it has not been read yet.
+     *
+     * @param NRIC the lowercase NRIC
+     * @return the user, or null if there is none
+     */
+    User findUser(String NRIC) {
+        int low = 0;
+        int high = this.userCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = this.userIndex + middle * 8;
+            int comparison = readString(this.buffer.getInt(entry)).compareTo(NRIC);
+            if (comparison < 0)
+                low = middle + 1;
+            else if (comparison > 0)
+                high = middle - 1;
+            else
+                return (User) entity(this.buffer.getInt(entry + 4));
+        }
+        return null;
+    }
+
+    /**
+     * Finds an entity by id, reading it if it has not been read yet.
+     *
+     * @param id the id
+     * @return the entity, or null if the snapshot has none with the id
+     */
+    Identifiable find(int id) {
+        if (id <= 0 || id > this.nextId || this.buffer.getInt(this.directory + id * 4) == -1)
+            return null;
+        return entity(id);
+    }
+
+    /**
+     * Gets the entity with an id, reading it if it has not been read yet.
+     *
+     * @param id the id, or 0 for none
+     * @return the entity, or null for 0
+     * @throws IllegalStateException if the snapshot has no entity with the id
+     */
+    private Identifiable entity(int id) {
+        if (id == 0)
+            return null;
+        int entry = id <= this.nextId ? this.buffer.getInt(this.directory + id * 4) : -1;
+        if (entry == -1)
+            throw new IllegalStateException("No entity with id " + id + " in the snapshot");
+        return read(entry >>> ROW_BITS, entry & ((1 << ROW_BITS) - 1));
+    }
+
+    /**
+     * Gets the entity in a row of a table, reading it if it has not been read
+     * yet. The entity is kept before its row is read, so entities referring to
+     * each other are read once each.
+     *
+     * @param table the index of the table
+     * @param row   the row
+     * @return the entity
+     */
+    private synchronized Identifiable read(int table, int row) {
+        int id = this.buffer.getInt(this.columns[table][0] + row * WIDTHS[INT]);
+        Object cached = this.entities[id];
+        Identifiable entity = (Identifiable) (cached instanceof WeakReference ? ((WeakReference<?>) cached).get()
+                : cached);
+        if (entity == null) {
+            entity = CONSTRUCTORS.get(table).get();
+            entity.setId(id);
+            this.entities[id] = WEAK[table] ? new WeakReference<>(entity) : entity;
+            RowReader reader = new RowReader(table, row);
+            reader.column = 1;
+            entity.readRow(reader);
+        }
+        return entity;
+    }
+
+    /**
+     * Gets the row of an entity in a table, without reading the table.
+     *
+     * @param table  the index of the table
+     * @param entity the entity
+     * @return the row, or -1 if the entity is not in the table
+     */
+    private int rowOf(int table, Object entity) {
+        if (!(entity instanceof Identifiable))
+            return -1;
+        int id = ((Identifiable) entity).getId();
+        if (id <= 0 || id > this.nextId)
+            return -1;
+        int entry = this.buffer.getInt(this.directory + id * 4);
+        return entry != -1 && entry >>> ROW_BITS == table ? entry & ((1 << ROW_BITS) - 1) : -1;
+    }
+
+    /**
+     * Reads a string from the string heap.
+     *
+     * @param offset the offset of the string in the heap, or -1 for null
+     * @return the string, or null
+     */
+    private String readString(int offset) {
+        if (offset == -1)
+            return null;
+        int position = this.strings + offset;
+        byte[] bytes = new byte[this.buffer.getInt(position)];
+        this.buffer.get(position + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a list of references from the reference heap.
+     *
+     * @param <T>    the type of the entities
+     * @param offset the offset of the list in the heap, or -1 for null
+     * @param type   the class of the entities
+     * @return a new list of the entities, which are read as they are got, or
+     *         null
+     */
+    private <T> List<T> readRefs(int offset, Class<T> type) {
+        if (offset == -1)
+            return null;
+        int position = this.refs + offset;
+        int[] ids = new int[this.buffer.getInt(position)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = this.buffer.getInt(position + 4 + 4 * i);
+        }
+        return new LazyList<>(ids.length, ids, id -> type.cast(entity(id)),
+                entity -> entity instanceof Identifiable ? ((Identifiable) entity).getId() : -1);
+    }
+
+    /**
+     * Reads a list of codes: their number, then the offset of each.
+     *
+     * @param position the position of the list
+     * @return a new list of the codes
+     */
+    private List<String> readCodes(int position) {
+        int count = this.buffer.getInt(position);
+        List<String> codes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            codes.add(readString(this.buffer.getInt(position + 4 + 4 * i)));
+        }
+        return codes;
+    }
+
+    /**
+     * Reads the fields of an entity from its row, one column after another, in
+     * the order {@link RowWriter} wrote them.
+     */
+    public final class RowReader {
+
+        // Attributes
+        private final int table;
+        private final int row;
+        private int column;
+
+        private RowReader(int table, int row) {
+            this.table = table;
+            this.row = row;
+        }
+
+        /**
+         * Moves to the next column, which must be of the given kind.
+         *
+         * @param kind the kind of the column
+         * @return the position of the row's value in the column
+         */
+        private int next(byte kind) {
+            byte[] tableKinds = MappedSnapshot.this.kinds[this.table];
+            if (this.column >= tableKinds.length || tableKinds[this.column] != kind)
+                throw new IllegalStateException("Column " + this.column + " of the "
+                        + TYPES.get(this.table).getSimpleName() + " table does not match its entity");
+            return MappedSnapshot.this.columns[this.table][this.column++] + this.row * WIDTHS[kind];
+        }
+
+        public int readInt() {
+            return buffer.getInt(next(INT));
+        }
+
+        public boolean readBoolean() {
+            return buffer.get(next(BOOLEAN)) != 0;
+        }
+
+        public double readDouble() {
+            return buffer.getDouble(next(DOUBLE));
+        }
+
+        public <E extends Enum<E>> E readEnum(Class<E> type) {
+            int code = buffer.get(next(ENUM));
+            return code == 0 ? null : EntityCodec.constant(type, code - 1);
+        }
+
+        public LocalDate readDate() {
+            int day = buffer.getInt(next(DATE));
+            return day == NO_DATE ? null : LocalDate.ofEpochDay(day);
+        }
+
+        public String readString() {
+            return MappedSnapshot.this.readString(buffer.getInt(next(STRING)));
+        }
+
+        /**
+         * Reads a reference to a single entity, reading the entity if it has
+         * not been read yet.
+         *
+         * @param <T>  the type of the entity
+         * @param type the class of the entity
+         * @return the entity, or null
+         */
+        public <T> T readRef(Class<T> type) {
+            return type.cast(entity(buffer.getInt(next(REF))));
+        }
+
+        /**
+         * Reads a reference to a list of entities, which are read as they are
+         * got from the list.
+         *
+         * @param <T>  the type of the entities
+         * @param type the class of the entities
+         * @return the list, or null
+         */
+        public <T> List<T> readRefs(Class<T> type) {
+            return MappedSnapshot.this.readRefs(buffer.getInt(next(REFS)), type);
+        }
+
+        /**
+         * Reads where a list of entities is kept, to be read only when it is
+         * first used.
+         *
+         * @param <T>  the type of the entities
+         * @param type the class of the entities
+         * @return the segment holding the list
+         */
+        public <T> Segment<T> readSegment(Class<T> type) {
+            return new Segment<>(buffer.getInt(next(REFS)), type);
+        }
+    }
+
+    /**
+     * The place in the reference heap of a list of entities, which can be read
+     * from it any number of times.
+     *
+     * @param <T> the type of the entities
+     */
+    public final class Segment<T> {
+
+        // Attributes
+        private final int offset;
+        private final Class<T> type;
+
+        private Segment(int offset, Class<T> type) {
+            this.offset = offset;
+            this.type = type;
+        }
+
+        /**
+         * Reads the list. Its entities are read as they are got, or found
+         * again if they are still in memory.
+         *
+         * @return a new list of the entities, or null
+         */
+        public List<T> read() {
+            return readRefs(this.offset, this.type);
+        }
+    }
+
+    /**
+     * Writes the fields of an entity as its row, one column after another.
+     * The first row written to a table sets the kinds of its columns, and every
+     * later row must write the same kinds in the same order.
+     */
+    public static final class RowWriter {
+
+        // Attributes
+        private final Writer writer;
+        private final Table table;
+        private int column;
+
+        private RowWriter(Writer writer, Table table) {
+            this.writer = writer;
+            this.table = table;
+        }
+
+        /**
+         * Moves to the next column, which must be of the given kind.
+         *
+         * @param kind the kind of the column
+         * @return the column
+         */
+        private Bytes next(byte kind) {
+            if (this.table.rows == 0 && this.column == this.table.kinds.size()) {
+                this.table.kinds.add(kind);
+                this.table.columns.add(new Bytes());
+            }
+            if (this.column >= this.table.kinds.size() || this.table.kinds.get(this.column) != kind)
+                throw new IllegalStateException("Column " + this.column + " of the " + this.table.name
+                        + " table is written differently by different rows");
+            return this.table.columns.get(this.column++);
+        }
+
+        public void writeInt(int value) {
+            next(INT).putInt(value);
+        }
+
+        public void writeBoolean(boolean value) {
+            next(BOOLEAN).put(value ? 1 : 0);
+        }
+
+        public void writeDouble(double value) {
+            next(DOUBLE).putLong(Double.doubleToRawLongBits(value));
+        }
+
+        public void writeEnum(Enum<?> value) {
+            next(ENUM).put(value == null ? 0 : value.ordinal() + 1);
+        }
+
+        public void writeDate(LocalDate date) {
+            next(DATE).putInt(date == null ? NO_DATE : (int) date.toEpochDay());
+        }
+
+        public void writeString(String value) {
+            next(STRING).putInt(this.writer.string(value));
+        }
+
+        /**
+         * Writes a reference to a single entity.
+         *
+         * @param entity the entity, or null
+         */
+        public void writeRef(Identifiable entity) {
+            next(REF).putInt(this.writer.ids.idOf(entity));
+        }
+
+        /**
+         * Writes a reference to a list of entities.
+         *
+         * @param entities the entities, or null
+         */
+        public void writeRefs(List<? extends Identifiable> entities) {
+            next(REFS).putInt(this.writer.refs(entities));
+        }
+    }
+
+    /**
+     * The columns of a table being written.
+     */
+    private static final class Table {
+
+        // Attributes
+        private final String name;
+        private final List<Byte> kinds = new ArrayList<>();
+        private final List<Bytes> columns = new ArrayList<>();
+        private int rows;
+        private int listed;
+
+        private Table(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Writes the tables, heaps and indexes of a snapshot.
+     */
+    private static final class Writer {
+
+        // Attributes
+        private final EntityIds ids;
+        private final Table[] tables = new Table[TYPES.size()];
+        private final Map<String, Integer> stringOffsets;
+        private final Bytes strings = new Bytes();
+        private final Bytes refs = new Bytes();
+        private int[] directory;
+
+        /**
+         * Creates a writer, sized for the data so its tables rarely grow.
+         *
+         * @param ids    the ids of the write
+         * @param nextId the last id given out
+         * @param rows   the number of entities held in the lists
+         */
+        private Writer(EntityIds ids, int nextId, int rows) {
+            this.ids = ids;
+            this.stringOffsets = new HashMap<>(rows * 2);
+            this.directory = new int[nextId + 1];
+            for (int table = 0; table < this.tables.length; table++) {
+                this.tables[table] = new Table(TYPES.get(table).getSimpleName());
+            }
+            Arrays.fill(this.directory, -1);
+        }
+
+        /**
+         * Writes the snapshot. Entities referred to but not held in any list
+         * are written after the listed rows of their table.
+         *
+         * @param data   the data
+         * @param tables the lists of entities of the data
+         * @return the bytes of the snapshot
+         * @throws IOException if the data is too large for a snapshot
+         */
+        private byte[] write(Data data, List<List<? extends Identifiable>> tables) throws IOException {
+            for (int table = 0; table < tables.size(); table++) {
+                for (Identifiable entity : tables.get(table)) {
+                    writeRow(table, entity);
+                }
+            }
+            for (Table table : this.tables) {
+                table.listed = table.rows;
+            }
+            for (List<Identifiable> detached = this.ids.takeDetached(); !detached.isEmpty();
+                    detached = this.ids.takeDetached()) {
+                for (Identifiable entity : detached) {
+                    writeRow(TYPES.indexOf(entity.getClass()), entity);
+                }
+            }
+
+            int nextId = data.getNextId();
+            Bytes userIndex = writeUserIndex(data);
+            Bytes codes = new Bytes();
+            for (List<String> list : List.of(data.getManagerCodes(), data.getOfficerCodes())) {
+                codes.putInt(list.size());
+                for (String code : list) {
+                    codes.putInt(string(code));
+                }
+            }
+
+            // Lay out the header, then each section after it
+            long size = HEADER_SIZE;
+            for (Table table : this.tables) {
+                size += 12 + 5 * table.kinds.size();
+            }
+            long[] offsets = new long[6];
+            for (Table table : this.tables) {
+                size += table.columns.stream().mapToLong(column -> column.size).sum();
+            }
+            offsets[0] = size;
+            size += 4L * (nextId + 1);
+            offsets[1] = size;
+            size += userIndex.size;
+            offsets[2] = size;
+            size += codes.size;
+            offsets[3] = size;
+            size += this.strings.size;
+            offsets[4] = size;
+            size += this.refs.size;
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("Data is too large for a mapped snapshot: " + size + " bytes");
+
+            ByteBuffer out = ByteBuffer.allocate((int) size);
+            out.putLong(MAGIC).putInt(nextId).putLong(data.getJournalSequence()).putInt(this.tables.length);
+            int position = HEADER_SIZE;
+            for (Table table : this.tables) {
+                position += 12 + 5 * table.kinds.size();
+            }
+            for (Table table : this.tables) {
+                out.putInt(table.rows).putInt(table.listed).putInt(table.kinds.size());
+                for (int column = 0; column < table.kinds.size(); column++) {
+                    out.put(table.kinds.get(column)).putInt(position);
+                    position += table.columns.get(column).size;
+                }
+            }
+            out.putInt((int) offsets[0]).putInt((int) offsets[1]).putInt(userIndex.size / 8)
+                    .putInt((int) offsets[2]).putInt((int) offsets[3]).putInt((int) offsets[4]);
+
+            for (Table table : this.tables) {
+                for (Bytes column : table.columns) {
+                    out.put(column.bytes, 0, column.size);
+                }
+            }
+            for (int id = 0; id <= nextId; id++) {
+                out.putInt(id < this.directory.length ? this.directory[id] : -1);
+            }
+            out.put(userIndex.bytes, 0, userIndex.size);
+            out.put(codes.bytes, 0, codes.size);
+            out.put(this.strings.bytes, 0, this.strings.size);
+            out.put(this.refs.bytes, 0, this.refs.size);
+            return out.array();
+        }
+
+        /**
+         * Writes an entity as the next row of a table, with its id first.
+         *
+         * @param index  the index of the table
+         * @param entity the entity
+         */
+        private void writeRow(int index, Identifiable entity) {
+            Table table = this.tables[index];
+            if (table.rows >= 1 << ROW_BITS)
+                throw new IllegalStateException("Too many rows in the " + table.name + " table");
+            RowWriter writer = new RowWriter(this, table);
+            writer.writeInt(entity.getId());
+            entity.writeRow(writer);
+            if (writer.column != table.kinds.size())
+                throw new IllegalStateException("Row of the " + table.name + " table is missing columns");
+
+            int id = entity.getId();
+            if (id >= this.directory.length) {
+                int length = this.directory.length;
+                this.directory = Arrays.copyOf(this.directory, Math.max(id + 1, length * 2));
+                Arrays.fill(this.directory, length, this.directory.length, -1);
+            }
+            this.directory[id] = index << ROW_BITS | table.rows;
+            table.rows++;
+        }
+
+        /**
+         * Writes the index of users by lowercase NRIC, sorted by NRIC.
+         * Managers take precedence over officers, and officers over applicants,
+         * as in {@link Data#findUser}.
+         *
+         * @param data the data
+         * @return the index, as the string offset of each NRIC and the user's id
+         */
+        private Bytes writeUserIndex(Data data) {
+            int count = data.getApplicantList().size() + data.getOfficerList().size()
+                    + data.getManagerList().size();
+            Map<String, Integer> users = new HashMap<>(count * 4 / 3 + 1);
+            for (List<? extends User> list : List.of(data.getApplicantList(), data.getOfficerList(),
+                    data.getManagerList())) {
+                for (User user : list) {
+                    users.put(user.getNRIC().toLowerCase(), user.getId());
+                }
+            }
+            String[] nrics = users.keySet().toArray(new String[0]);
+            Arrays.sort(nrics);
+            Bytes index = new Bytes();
+            for (String nric : nrics) {
+                index.putInt(string(nric));
+                index.putInt(users.get(nric));
+            }
+            return index;
+        }
+
+        /**
+         * Adds a string to the string heap, once however often it is written.
+         *
+         * @param value the string, or null
+         * @return the offset of the string in the heap, or -1 for null
+         */
+        private int string(String value) {
+            if (value == null)
+                return -1;
+            Integer offset = this.stringOffsets.get(value);
+            if (offset == null) {
+                offset = this.strings.size;
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                this.strings.putInt(bytes.length);
+                this.strings.put(bytes);
+                this.stringOffsets.put(value, offset);
+            }
+            return offset;
+        }
+
+        /**
+         * Adds a list of references to the reference heap, as the number of
+         * entities and then the id of each.
+         *
+         * @param entities the entities, or null
+         * @return the offset of the list in the heap, or -1 for null
+         */
+        private int refs(List<? extends Identifiable> entities) {
+            if (entities == null)
+                return -1;
+            // Copy the list first, so its size cannot change while it is written
+            Object[] copy = entities.toArray();
+            int offset = this.refs.size;
+            this.refs.putInt(copy.length);
+            for (Object entity : copy) {
+                this.refs.putInt(this.ids.idOf((Identifiable) entity));
+            }
+            return offset;
+        }
+    }
+
+    /**
+     * A growable array of bytes, written big-endian like {@link ByteBuffer}.
+     */
+    private static final class Bytes {
+
+        // Attributes
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        private void ensure(int more) {
+            if (this.size + more > this.bytes.length)
+                this.bytes = Arrays.copyOf(this.bytes, Math.max(this.size + more, this.bytes.length * 2));
+        }
+
+        private void put(int value) {
+            ensure(1);
+            this.bytes[this.size++] = (byte) value;
+        }
+
+        private void put(byte[] values) {
+            ensure(values.length);
+            System.arraycopy(values, 0, this.bytes, this.size, values.length);
+            this.size += values.length;
+        }
+
+        private void putInt(int value) {
+            ensure(4);
+            this.bytes[this.size++] = (byte) (value >>> 24);
+            this.bytes[this.size++] = (byte) (value >>> 16);
+            this.bytes[this.size++] = (byte) (value >>> 8);
+            this.bytes[this.size++] = (byte) value;
+        }
+
+        private void putLong(long value) {
+            putInt((int) (value >>> 32));
+            putInt((int) value);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package shared;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import entity.Project;
+import entity.ProjectListing;
+
+/**
+ * An immutable catalog of the listings of all projects, which applicants
+ * browse without taking any lock.
+ * A catalog is never changed once published. Creating, editing, toggling or
+ * deleting a project, or confirming a booking of one of its units, publishes a
+ * new catalog with that project's listing replaced, so readers see either the
+ * old or the new listing, never a mix. Listings are found by project id.
+ * Married applicants aged 21 and above can apply for any visible project
+ * within its application period. Single applicants aged 35 and above can only
+ * apply for those that still have two-room units available. The open projects,
+ * for either, are worked out once a day for each catalog.
+ */
+public final class ProjectCatalog {
+
+    /** The minimum age of married applicants. */
+    public static final int MARRIED_MIN_AGE = 21;
+
+    /** The minimum age of single applicants. */
+    public static final int SINGLE_MIN_AGE = 35;
+
+    /** The catalog of no projects. */
+    public static final ProjectCatalog EMPTY = new ProjectCatalog(Collections.emptyList(), Collections.emptyMap());
+
+    // Attributes
+    private final List<ProjectListing> listings;
+    private final Map<Integer, Integer> positions; // Of each listing, by project id
+    private volatile OpenListings open;
+
+    /**
+     * Creates a catalog of the given listings.
+     *
+     * @param listings  The listings, which the catalog takes ownership of.
+     * @param positions The position of each listing by project id, which the
+     *                  catalog takes ownership of, and may share with others.
+     */
+    private ProjectCatalog(List<ProjectListing> listings, Map<Integer, Integer> positions) {
+        this.listings = Collections.unmodifiableList(listings);
+        this.positions = positions;
+    }
+
+    /**
+     * Takes a catalog of the given projects.
+     *
+     * @param projects The projects.
+     * @return The catalog.
+     */
+    public static ProjectCatalog of(List<Project> projects) {
+        List<ProjectListing> listings = new ArrayList<>(projects.size());
+        Map<Integer, Integer> positions = new HashMap<>();
+        for (Project project : projects) {
+            positions.put(project.getId(), listings.size());
+            listings.add(new ProjectListing(project));
+        }
+        return new ProjectCatalog(listings, positions);
+    }
+
+    /**
+     * Gets the listings of all projects.
+     *
+     * @return A read-only list of listings.
+     */
+    public List<ProjectListing> getListings() {
+        return this.listings;
+    }
+
+    /**
+     * Creates a copy of this catalog with a project's listing taken afresh,
+     * adding it if the project is new.
+     *
+     * @param project The project that was created or changed.
+     * @return The new catalog.
+     */
+    public ProjectCatalog with(Project project) {
+        List<ProjectListing> listings = new ArrayList<>(this.listings);
+        ProjectListing listing = new ProjectListing(project);
+        Integer index = this.positions.get(project.getId());
+        if (index != null) {
+            // The positions are unchanged, so the new catalog shares them
+            listings.set(index, listing);
+            return new ProjectCatalog(listings, this.positions);
+        }
+        Map<Integer, Integer> positions = new HashMap<>(this.positions);
+        positions.put(project.getId(), listings.size());
+        listings.add(listing);
+        return new ProjectCatalog(listings, positions);
+    }
+
+    /**
+     * Creates a copy of this catalog without a project's listing.
+     *
+     * @param project The project that was deleted.
+     * @return The new catalog.
+     */
+    public ProjectCatalog without(Project project) {
+        Integer index = this.positions.get(project.getId());
+        if (index == null)
+            return this;
+        List<ProjectListing> listings = new ArrayList<>(this.listings);
+        listings.remove((int) index);
+        Map<Integer, Integer> positions = new HashMap<>();
+        for (int i = 0; i < listings.size(); i++) {
+            positions.put(listings.get(i).getProject().getId(), i);
+        }
+        return new ProjectCatalog(listings, positions);
+    }
+
+    /**
+     * Gets the listings of the projects an applicant of the given marital
+     * status and age is eligible to apply for today.
+     *
+     * @param married Whether the applicant is married.
+     * @param age     The age of the applicant.
+     * @return A read-only list of eligible listings.
+     */
+    public List<ProjectListing> getEligibleListings(boolean married, int age) {
+        OpenListings open = getOpenListings(LocalDate.now());
+        if (married)
+            return age >= MARRIED_MIN_AGE ? open.openToMarried : Collections.emptyList();
+        return age >= SINGLE_MIN_AGE ? open.openToSingles : Collections.emptyList();
+    }
+
+    /**
+     * Gets the listings open for applications on a given date, working them out
+     * if they were last worked out for another date.
+     *
+     * @param today The date.
+     * @return The open listings.
+     */
+    private OpenListings getOpenListings(LocalDate today) {
+        OpenListings open = this.open;
+        if (open != null && open.today.equals(today))
+            return open;
+
+        // Listings hold the units available when they were taken, and are
+        // taken again when a unit is claimed, so the singles' list is fixed too
+        List<ProjectListing> married = new ArrayList<>();
+        List<ProjectListing> singles = new ArrayList<>();
+        for (ProjectListing listing : this.listings) {
+            if (!listing.isOpen(today))
+                continue;
+            married.add(listing);
+            if (listing.hasTwoRoomAvailable())
+                singles.add(listing);
+        }
+        open = new OpenListings(today, married, singles);
+        this.open = open;
+        return open;
+    }
+
+    /**
+     * The listings open for applications on one date.
+     */
+    private static class OpenListings {
+        private final LocalDate today;
+        private final List<ProjectListing> openToMarried;
+        private final List<ProjectListing> openToSingles;
+
+        private OpenListings(LocalDate today, List<ProjectListing> openToMarried,
+                List<ProjectListing> openToSingles) {
+            this.today = today;
+            this.openToMarried = Collections.unmodifiableList(openToMarried);
+            this.openToSingles = Collections.unmodifiableList(openToSingles);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package shared;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import entity.Project;
+
+/**
+ * An interval tree over the application date ranges of a set of projects.
+ * Answers whether a date range overlaps any indexed project, and which
+ * projects it overlaps, in logarithmic time plus the number of results.
+ * Implemented as a treap ordered by opening date, where each node also keeps
+ * the latest closing date in its subtree.
+ */
+public class ProjectIntervalIndex {
+
+    /**
+     * A node of the tree, holding the date range a project was indexed with.
+     */
+    private static class Node {
+        private final Project project;
+        private final long start;
+        private final long end;
+        private final long sequence; // Tiebreak for projects opening on the same day
+        private final int priority;
+        private long maxEnd;
+        private Node left;
+        private Node right;
+
+        private Node(Project project, long sequence, int priority) {
+            this.project = project;
+            this.start = project.getApplicationOpenDate().toEpochDay();
+            this.end = project.getApplicationClosingDate().toEpochDay();
+            this.sequence = sequence;
+            this.priority = priority;
+            this.maxEnd = this.end;
+        }
+
+        private int compareTo(long start, long sequence) {
+            if (this.start != start)
+                return Long.compare(this.start, start);
+            return Long.compare(this.sequence, sequence);
+        }
+    }
+
+    // Attributes
+    private final Map<Project, Node> nodes = new IdentityHashMap<>();
+    private final Random random = new Random(0);
+    private Node root;
+    private long sequence;
+
+    /**
+     * Builds an index over the given projects.
+     *
+     * @param projects The projects to index.
+     */
+    public ProjectIntervalIndex(List<Project> projects) {
+        for (Project project : projects) {
+            add(project);
+        }
+    }
+
+    /**
+     * Returns the number of indexed projects.
+     *
+     * @return The number of projects.
+     */
+    public int size() {
+        return this.nodes.size();
+    }
+
+    /**
+     * Adds a project to the index, or re-indexes it with its current dates if it
+     * is already present.
+     *
+     * @param project The project to add.
+     */
+    public void add(Project project) {
+        remove(project);
+        Node node = new Node(project, this.sequence++, this.random.nextInt());
+        this.nodes.put(project, node);
+        this.root = insert(this.root, node);
+    }
+
+    /**
+     * Removes a project from the index, using the dates it was indexed with.
+     *
+     * @param project The project to remove.
+     */
+    public void remove(Project project) {
+        Node node = this.nodes.remove(project);
+        if (node != null)
+            this.root = delete(this.root, node.start, node.sequence);
+    }
+
+    /**
+     * Checks if a date range overlaps any indexed project.
+     *
+     * @param startDate The start date of the range.
+     * @param endDate   The end date of the range.
+     * @param exclude   A project to ignore, or null.
+     * @return True if an indexed project other than {@code exclude} overlaps the
+     *         range, false otherwise.
+     */
+    public boolean overlaps(LocalDate startDate, LocalDate endDate, Project exclude) {
+        return search(this.root, startDate.toEpochDay(), endDate.toEpochDay(), exclude, null);
+    }
+
+    /**
+     * Gets the indexed projects overlapping a date range.
+     *
+     * @param startDate The start date of the range.
+     * @param endDate   The end date of the range.
+     * @return The list of overlapping projects, ordered by opening date.
+     */
+    public List<Project> overlapping(LocalDate startDate, LocalDate endDate) {
+        List<Project> result = new ArrayList<>();
+        search(this.root, startDate.toEpochDay(), endDate.toEpochDay(), null, result);
+        return result;
+    }
+
+    /**
+     * Searches a subtree for projects overlapping a range. Subtrees that close
+     * before the range starts, or open after it ends, are skipped.
+     *
+     * @param node    The root of the subtree.
+     * @param start   The start of the range, in epoch days.
+     * @param end     The end of the range, in epoch days.
+     * @param exclude A project to ignore, or null.
+     * @param result  The list to collect matches in, or null to stop at the
+     *                first match.
+     * @return True if a match was found and no list was given.
+     */
+    private static boolean search(Node node, long start, long end, Project exclude, List<Project> result) {
+        if (node == null || node.maxEnd < start)
+            return false;
+        if (search(node.left, start, end, exclude, result))
+            return true;
+        if (node.start > end)
+            return false;
+        if (node.end >= start && node.project != exclude) {
+            if (result == null)
+                return true;
+            result.add(node.project);
+        }
+        return search(node.right, start, end, exclude, result);
+    }
+
+    private static Node insert(Node node, Node inserted) {
+        if (node == null)
+            return inserted;
+        if (node.compareTo(inserted.start, inserted.sequence) > 0) {
+            node.left = insert(node.left, inserted);
+            if (node.left.priority > node.priority)
+                node = rotateRight(node);
+        } else {
+            node.right = insert(node.right, inserted);
+            if (node.right.priority > node.priority)
+                node = rotateLeft(node);
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node delete(Node node, long start, long sequence) {
+        if (node == null)
+            return null;
+        int cmp = node.compareTo(start, sequence);
+        if (cmp > 0) {
+            node.left = delete(node.left, start, sequence);
+        } else if (cmp < 0) {
+            node.right = delete(node.right, start, sequence);
+        } else if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        } else if (node.left.priority > node.right.priority) {
+            node = rotateRight(node);
+            node.right = delete(node.right, start, sequence);
+        } else {
+            node = rotateLeft(node);
+            node.left = delete(node.left, start, sequence);
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        long maxEnd = node.end;
+        if (node.left != null)
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        if (node.right != null)
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        node.maxEnd = maxEnd;
+    }
+}
@@ -0,0 +1,74 @@
+package shared;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import entity.Project;
+
+/**
+ * Locks serializing concurrent changes to the application's data.
+ * Each project maps to one of a fixed set of striped locks, which guards the
+ * project's lists and the entities linked to them while an application,
+ * registration, booking, withdrawal or enquiry is changed. Changes to
+ * different projects therefore run in parallel, while changes to the same
+ * project run one at a time.
+ * A separate lock guards the global lists and user index in {@link Data}. It
+ * is only ever taken last and held briefly, so a thread holding it never waits
+ * for a project lock.
+ * Every change, from making it to recording it in the journal, also holds the
+ * read side of the change lock, which many changes hold at once. A checkpoint
+ * of data without a journal holds its write side while it takes a copy of the
+ * data, so the copy never holds half of a change, nor a change whose journal
+ * record comes after it. Data with a journal is checkpointed from its records
+ * instead, which the journal orders by itself.
+ * Locks are taken in this order: the change lock, the monitor of the user
+ * making the change, the project lock, and the index lock.
+ * Applications and ballots are recorded in the journal with the project lock
+ * still held, so the journal orders them as they ran; the journal takes no
+ * lock of its own beyond its monitor.
+ */
+public class ProjectLocks {
+
+    /** The number of project lock stripes, a power of two. */
+    private static final int STRIPES = 64;
+
+    private static final ReentrantLock[] projectLocks = new ReentrantLock[STRIPES];
+    private static final ReentrantLock indexLock = new ReentrantLock();
+    private static final ReentrantReadWriteLock changeLock = new ReentrantReadWriteLock();
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            projectLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Gets the lock guarding changes to a project.
+     *
+     * @param project The project.
+     * @return The lock of the project's stripe.
+     */
+    public static ReentrantLock forProject(Project project) {
+        int hash = System.identityHashCode(project);
+        return projectLocks[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    /**
+     * Gets the lock guarding the global lists and user index.
+     *
+     * @return The index lock.
+     */
+    public static ReentrantLock forIndexes() {
+        return indexLock;
+    }
+
+    /**
+     * Gets the lock held while the data is changed, shared by the changes and
+     * exclusive to checkpoints.
+     *
+     * @return The change lock.
+     */
+    public static ReentrantReadWriteLock forChanges() {
+        return changeLock;
+    }
+}
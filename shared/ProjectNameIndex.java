@@ -0,0 +1,47 @@
+package shared;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import entity.Project;
+
+/**
+ * An index of a list of projects by name, ignoring case, so a project can be
+ * found by name without scanning the list.
+ * The index is rebuilt only when the source list is replaced, or its version
+ * has changed since the index was built. The owner of the list changes the
+ * version whenever projects are added to or removed from it, or one of them is
+ * renamed, as for {@link ProjectSortCache}. Where two projects share a name,
+ * the first in the list is found.
+ */
+public class ProjectNameIndex {
+
+    // Attributes
+    private Map<String, Project> byName;
+    private Object source;
+    private long listVersion;
+
+    /**
+     * Finds a project by name, rebuilding the index only if needed.
+     *
+     * @param projects    The source list of projects.
+     * @param listVersion A counter that changes whenever the source list, or
+     *                    the names of its projects, change.
+     * @param name        The name of the project, in any case.
+     * @return The project, or null if there is no project of that name.
+     */
+    public synchronized Project get(List<Project> projects, long listVersion, String name) {
+        if (this.byName == null || this.source != projects || this.listVersion != listVersion) {
+            Map<String, Project> byName = new HashMap<>();
+            for (Project project : projects) {
+                byName.putIfAbsent(project.getName().toLowerCase(Locale.ROOT), project);
+            }
+            this.byName = byName;
+            this.source = projects;
+            this.listVersion = listVersion;
+        }
+        return this.byName.get(name.toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,85 @@
+package shared;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A cache of sorted views of a list of projects or their listings, one for
+ * each sort setting (1 to 4) in ascending and descending order.
+ * A view is re-sorted only when the source list is replaced, or its version
+ * has changed since the view was built, so repeated menu visits reuse the
+ * same view. The owner of the list changes the version whenever projects are
+ * added to or removed from it, or the sort keys of one of them change.
+ * Views are built under the cache's own monitor, so the cache can be shared
+ * by sessions of the same user.
+ *
+ * @param <T> the type of the items sorted: projects or listings
+ */
+public class ProjectSortCache<T> {
+
+    /** The number of sort settings, each with an ascending and descending view. */
+    private static final int SORT_SETTINGS = 4;
+
+    // Attributes
+    private final Sorter<T> sorter;
+    private final List<List<T>> views = new ArrayList<>();
+    private final Object[] sources = new Object[SORT_SETTINGS * 2];
+    private final long[] listVersions = new long[SORT_SETTINGS * 2];
+
+    /**
+     * Sorts a list of items by a sort setting, in place.
+     *
+     * @param <T> the type of the items
+     */
+    public interface Sorter<T> {
+
+        /**
+         * Sorts the items.
+         *
+         * @param items       The items to sort.
+         * @param sortSetting The sort setting, from 1 to 4.
+         * @param reverse     Whether to sort in descending order.
+         */
+        void sort(List<T> items, int sortSetting, boolean reverse);
+    }
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param sorter Sorts the items of a view.
+     */
+    public ProjectSortCache(Sorter<T> sorter) {
+        this.sorter = sorter;
+        for (int i = 0; i < SORT_SETTINGS * 2; i++) {
+            this.views.add(null);
+        }
+    }
+
+    /**
+     * Gets the items sorted by the given setting, re-sorting only if needed.
+     *
+     * @param items       The source list of items.
+     * @param listVersion A counter that changes whenever the source list, or
+     *                    the sort keys of its items, change.
+     * @param sortSetting The sort setting, from 1 to 4.
+     * @param reverse     Whether to sort in descending order.
+     * @return A read-only sorted view of the items.
+     */
+    public synchronized List<T> get(List<T> items, long listVersion, int sortSetting, boolean reverse) {
+        if (sortSetting < 1 || sortSetting > SORT_SETTINGS)
+            sortSetting = 1;
+        int slot = (sortSetting - 1) * 2 + (reverse ? 1 : 0);
+
+        List<T> view = this.views.get(slot);
+        if (view == null || this.sources[slot] != items || this.listVersions[slot] != listVersion) {
+            List<T> sorted = new ArrayList<>(items);
+            this.sorter.sort(sorted, sortSetting, reverse);
+            view = Collections.unmodifiableList(sorted);
+            this.views.set(slot, view);
+            this.sources[slot] = items;
+            this.listVersions[slot] = listVersion;
+        }
+        return view;
+    }
+}
@@ -0,0 +1,750 @@
+package shared;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import entity.Applicant;
+import entity.Application;
+import entity.Enquiry;
+import entity.FlatBooking;
+import entity.Identifiable;
+import entity.Manager;
+import entity.Officer;
+import entity.Project;
+import entity.Registration;
+import entity.User;
+import entity.Withdrawal;
+import enums.Operation;
+
+/**
+ * The ShardedSnapshot class saves the data in shards: one file for the users,
+ * and one for each project with its registrations, applications, bookings and
+ * enquiries, kept in a directory next to the data file. The data file itself
+ * becomes a small manifest naming the shards, and holding the order of the
+ * lists and the codes.
+ * Each shard is written in the compact form of {@link EntityCodec}, with the
+ * entities of different shards referring to each other by id. Entities held
+ * in no list, such as settled withdrawals, are written in the users shard.
+ * The data remembers which shards its changes fall in, from the changes it
+ * records and the entities added to or removed from its lists, and only
+ * those shards are written again when it is saved. Each shard written is a
+ * new file, and the manifest is replaced last, so a crash part way through a
+ * save leaves the previous shards in place and named by the previous manifest.
+ * When the data is loaded, the shards are read in parallel, and the ids they
+ * refer to each other by are resolved once they have all been read.
+ */
+public final class ShardedSnapshot {
+
+    /** The bytes a manifest starts with, "BTOSHRD" and the format version. */
+    private static final long MAGIC = 0x42544F5348524401L;
+
+    /**
+     * Checks if a file holds the manifest of a sharded snapshot.
+     *
+     * @param file the path to the file
+     * @return true if the file starts like a manifest
+     */
+    public static boolean isSnapshot(String file) {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(Paths.get(file)))) {
+            return in.readLong() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Loads the data from the shards named by a manifest, reading the shards
+     * in parallel.
+     *
+     * @param file the path to the manifest
+     * @return the data held in the shards
+     * @throws IOException if the manifest or a shard could not be read
+     */
+    public static Data open(String file) throws IOException {
+        Path directory = directory(Paths.get(file));
+        Data data = new Data();
+        Shards shards = new Shards();
+        int[] projectIds;
+        int[] projectGenerations;
+        int[][] childIds = new int[4][];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(Paths.get(file))))) {
+            if (in.readLong() != MAGIC)
+                throw new IOException("Not a sharded snapshot: " + file);
+            shards.generation = EntityCodec.readVarInt(in);
+            data.setNextId(EntityCodec.readVarInt(in));
+            data.setJournalSequence(in.readLong());
+            readCodes(in, data.getManagerCodes());
+            readCodes(in, data.getOfficerCodes());
+            shards.usersGeneration = EntityCodec.readVarInt(in);
+            projectIds = new int[EntityCodec.readVarInt(in)];
+            projectGenerations = new int[projectIds.length];
+            for (int i = 0; i < projectIds.length; i++) {
+                projectIds[i] = EntityCodec.readVarInt(in);
+                projectGenerations[i] = EntityCodec.readVarInt(in);
+            }
+            for (int table = 0; table < childIds.length; table++) {
+                childIds[table] = readIds(in);
+            }
+        }
+
+        // Read every shard at once, each with ids of its own
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        Shard users;
+        List<Shard> projects = new ArrayList<>(projectIds.length);
+        try {
+            Path usersFile = usersFile(directory, shards.usersGeneration);
+            ForkJoinTask<Shard> usersTask = pool.submit(() -> readUsers(usersFile));
+            List<ForkJoinTask<Shard>> projectTasks = new ArrayList<>(projectIds.length);
+            for (int i = 0; i < projectIds.length; i++) {
+                Path projectFile = projectFile(directory, projectIds[i], projectGenerations[i]);
+                projectTasks.add(pool.submit(() -> readProject(projectFile)));
+            }
+            users = await(usersTask);
+            for (ForkJoinTask<Shard> task : projectTasks) {
+                projects.add(await(task));
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        List<EntityIds> reads = new ArrayList<>(projects.size() + 1);
+        reads.add(users.ids);
+        for (Shard shard : projects) {
+            reads.add(shard.ids);
+        }
+        EntityIds ids = EntityIds.merge(reads);
+        ids.link();
+
+        data.getManagerList().addAll(users.managers);
+        data.getOfficerList().addAll(users.officers);
+        data.getApplicantList().addAll(users.applicants);
+        data.getWithdrawals().addAll(users.withdrawals);
+        for (int i = 0; i < projects.size(); i++) {
+            Shard shard = projects.get(i);
+            data.getProjectList().add(shard.project);
+            shards.projectGenerations.put(shard.project, projectGenerations[i]);
+            List<Identifiable> unlistedRefs = new ArrayList<>(shard.unlistedIds.length);
+            for (int id : shard.unlistedIds) {
+                unlistedRefs.add(ids.get(Identifiable.class, id));
+            }
+            shards.unlistedRefs.put(shard.project, unlistedRefs);
+        }
+        addAll(ids, data.getRegistrationList(), Registration.class, childIds[0]);
+        addAll(ids, data.getApplicationList(), Application.class, childIds[1]);
+        addAll(ids, data.getFlatBookings(), FlatBooking.class, childIds[2]);
+        addAll(ids, data.getEnquiryList(), Enquiry.class, childIds[3]);
+        shards.usersUnlisted.addAll(users.detached);
+        shards.all = false;
+        data.setShards(shards);
+        return data;
+    }
+
+    /**
+     * Captures the shards of the data that changed since it was last saved,
+     * and a manifest naming them and the unchanged shards. Every shard is
+     * captured if the data was not loaded from shards.
+     *
+     * @param data the data to save
+     * @param file the path to the manifest
+     * @return the shards and manifest, to be written
+     * @throws IOException if the data could not be captured
+     */
+    public static Checkpoint capture(Data data, String file) throws IOException {
+        data.assignIds();
+        Shards shards = data.getShards();
+        if (shards == null) {
+            shards = new Shards();
+            data.setShards(shards);
+        }
+        Checkpoint checkpoint = new Checkpoint(directory(Paths.get(file)), shards);
+        List<List<? extends Identifiable>> tables = data.getTables();
+        EntityIds ids = EntityIds.beginWrite(data, tables);
+        try {
+            boolean all;
+            boolean usersChanged;
+            Set<Project> changed;
+            synchronized (shards) {
+                all = shards.all || ids.isRenumbered();
+                usersChanged = shards.users;
+                changed = shards.projects;
+                shards.all = false;
+                shards.users = false;
+                shards.projects = identitySet();
+            }
+            int generation = shards.generation + 1;
+
+            // Group the children by the project they are saved with
+            List<Project> projects = data.getProjectList();
+            Map<Project, Children> children = new IdentityHashMap<>();
+            for (Project project : projects) {
+                children.put(project, new Children());
+            }
+            Children orphans = new Children();
+            for (Registration registration : data.getRegistrationList()) {
+                children.getOrDefault(registration.getProject(), orphans).registrations.add(registration);
+            }
+            for (Application application : data.getApplicationList()) {
+                children.getOrDefault(application.getProject(), orphans).applications.add(application);
+            }
+            for (FlatBooking booking : data.getFlatBookings()) {
+                children.getOrDefault(booking.getProject(), orphans).bookings.add(booking);
+            }
+            for (Enquiry enquiry : data.getEnquiryList()) {
+                children.getOrDefault(enquiry.getProject(), orphans).enquiries.add(enquiry);
+            }
+
+            Map<Project, Integer> generations = new IdentityHashMap<>();
+            Map<Project, List<Identifiable>> unlistedRefs = new IdentityHashMap<>();
+            for (Project project : projects) {
+                Integer saved = shards.projectGenerations.get(project);
+                if (!all && saved != null && !changed.contains(project)) {
+                    generations.put(project, saved);
+                    unlistedRefs.put(project, shards.unlistedRefs.getOrDefault(project, List.of()));
+                    checkpoint.keep(projectFile(checkpoint.directory, project.getId(), saved));
+                    continue;
+                }
+                ids.resetStrings();
+                ids.takeUnlistedRefs();
+                checkpoint.add(projectFile(checkpoint.directory, project.getId(), generation),
+                        writeProject(project, children.get(project), ids));
+                generations.put(project, generation);
+                unlistedRefs.put(project, ids.takeUnlistedRefs());
+            }
+
+            // Children of projects no longer listed are now saved with the users
+            for (Project project : changed) {
+                if (!generations.containsKey(project))
+                    usersChanged = true;
+            }
+            for (List<Identifiable> refs : unlistedRefs.values()) {
+                for (Identifiable entity : refs) {
+                    if (!shards.usersUnlisted.contains(entity))
+                        usersChanged = true;
+                }
+            }
+
+            int usersGeneration = shards.usersGeneration;
+            Set<Identifiable> usersUnlisted = shards.usersUnlisted;
+            if (all || usersChanged) {
+                // Queue the entities referred to by unchanged shards, so they are written again
+                for (List<Identifiable> refs : unlistedRefs.values()) {
+                    for (Identifiable entity : refs) {
+                        ids.idOf(entity);
+                    }
+                }
+                ids.resetStrings();
+                usersUnlisted = identitySet();
+                checkpoint.add(usersFile(checkpoint.directory, generation),
+                        writeUsers(data, orphans, ids, usersUnlisted));
+                usersGeneration = generation;
+            } else {
+                checkpoint.keep(usersFile(checkpoint.directory, usersGeneration));
+            }
+
+            checkpoint.manifest = writeManifest(data, generation, usersGeneration, generations);
+            synchronized (shards) {
+                shards.generation = generation;
+                shards.usersGeneration = usersGeneration;
+                shards.projectGenerations = generations;
+                shards.unlistedRefs = unlistedRefs;
+                shards.usersUnlisted = usersUnlisted;
+            }
+            return checkpoint;
+        } finally {
+            EntityIds.end();
+        }
+    }
+
+    /**
+     * Writes the shard of a project: the project, then its registrations,
+     * applications, bookings and enquiries, then the ids of the entities they
+     * refer to that are held in no list.
+     *
+     * @param project  the project
+     * @param children the children saved with the project
+     * @param ids      the ids of the write
+     * @return the bytes of the shard
+     * @throws IOException if the shard could not be written
+     */
+    private static byte[] writeProject(Project project, Children children, EntityIds ids) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(buffer)) {
+            Data.writeTable(out, List.of(project));
+            Data.writeTable(out, children.registrations);
+            Data.writeTable(out, children.applications);
+            Data.writeTable(out, children.bookings);
+            Data.writeTable(out, children.enquiries);
+            Set<Identifiable> unlisted = identitySet();
+            unlisted.addAll(ids.takeUnlistedRefs());
+            EntityCodec.writeVarInt(out, unlisted.size());
+            for (Identifiable entity : unlisted) {
+                EntityCodec.writeVarInt(out, entity.getId());
+            }
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Writes the shard of the users: the managers, officers, applicants and
+     * withdrawals, the children of no listed project, and then every entity
+     * referred to that is held in no list, in batches ending with null.
+     *
+     * @param data     the data
+     * @param orphans  the children of no listed project
+     * @param ids      the ids of the write
+     * @param unlisted the set to add the entities held in no list to
+     * @return the bytes of the shard
+     * @throws IOException if the shard could not be written
+     */
+    private static byte[] writeUsers(Data data, Children orphans, EntityIds ids, Set<Identifiable> unlisted)
+            throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(buffer)) {
+            Data.writeTable(out, data.getManagerList());
+            Data.writeTable(out, data.getOfficerList());
+            Data.writeTable(out, data.getApplicantList());
+            Data.writeTable(out, data.getWithdrawals());
+            Data.writeTable(out, orphans.registrations);
+            Data.writeTable(out, orphans.applications);
+            Data.writeTable(out, orphans.bookings);
+            Data.writeTable(out, orphans.enquiries);
+            for (List<Identifiable> detached = ids.takeDetached(); !detached.isEmpty();
+                    detached = ids.takeDetached()) {
+                out.writeObject(detached);
+                unlisted.addAll(detached);
+            }
+            out.writeObject(null);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Writes the manifest: the ids and journal sequence of the data, its
+     * codes, the generation of each shard, and the order of the lists held
+     * in the project shards.
+     *
+     * @param data            the data
+     * @param generation      the generation of this save
+     * @param usersGeneration the generation of the users shard
+     * @param generations     the generation of each project's shard, in the
+     *                        order of the projects
+     * @return the bytes of the manifest
+     * @throws IOException if the manifest could not be written
+     */
+    private static byte[] writeManifest(Data data, int generation, int usersGeneration,
+            Map<Project, Integer> generations) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeLong(MAGIC);
+            EntityCodec.writeVarInt(out, generation);
+            EntityCodec.writeVarInt(out, data.getNextId());
+            out.writeLong(data.getJournalSequence());
+            writeCodes(out, data.getManagerCodes());
+            writeCodes(out, data.getOfficerCodes());
+            EntityCodec.writeVarInt(out, usersGeneration);
+            EntityCodec.writeVarInt(out, data.getProjectList().size());
+            for (Project project : data.getProjectList()) {
+                EntityCodec.writeVarInt(out, project.getId());
+                EntityCodec.writeVarInt(out, generations.get(project));
+            }
+            writeIds(out, data.getRegistrationList());
+            writeIds(out, data.getApplicationList());
+            writeIds(out, data.getFlatBookings());
+            writeIds(out, data.getEnquiryList());
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Reads the shard of the users, written by {@link #writeUsers}.
+     *
+     * @param file the path to the shard
+     * @return the shard
+     * @throws IOException if the shard could not be read
+     */
+    @SuppressWarnings("unchecked")
+    private static Shard readUsers(Path file) throws IOException {
+        Shard shard = new Shard(EntityIds.beginPartialRead());
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            shard.managers = Data.readTable(in, Manager::new);
+            shard.officers = Data.readTable(in, Officer::new);
+            shard.applicants = Data.readTable(in, Applicant::new);
+            shard.withdrawals = Data.readTable(in, Withdrawal::new);
+            Data.readTable(in, Registration::new);
+            Data.readTable(in, Application::new);
+            Data.readTable(in, FlatBooking::new);
+            Data.readTable(in, Enquiry::new);
+            for (Object detached = in.readObject(); detached != null; detached = in.readObject()) {
+                shard.detached.addAll((List<Identifiable>) detached);
+            }
+            return shard;
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unknown class in " + file, e);
+        } finally {
+            EntityIds.end();
+        }
+    }
+
+    /**
+     * Reads the shard of a project, written by {@link #writeProject}.
+     *
+     * @param file the path to the shard
+     * @return the shard
+     * @throws IOException if the shard could not be read
+     */
+    private static Shard readProject(Path file) throws IOException {
+        Shard shard = new Shard(EntityIds.beginPartialRead());
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            List<Project> project = Data.readTable(in, Project::new);
+            if (project.size() != 1)
+                throw new IOException("No project in " + file);
+            shard.project = project.get(0);
+            Data.readTable(in, Registration::new);
+            Data.readTable(in, Application::new);
+            Data.readTable(in, FlatBooking::new);
+            Data.readTable(in, Enquiry::new);
+            shard.unlistedIds = new int[EntityCodec.readVarInt(in)];
+            for (int i = 0; i < shard.unlistedIds.length; i++) {
+                shard.unlistedIds[i] = EntityCodec.readVarInt(in);
+            }
+            return shard;
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unknown class in " + file, e);
+        } finally {
+            EntityIds.end();
+        }
+    }
+
+    /**
+     * Waits for a shard to be read.
+     *
+     * @param task the task reading the shard
+     * @return the shard
+     * @throws IOException if the shard could not be read
+     */
+    private static Shard await(ForkJoinTask<Shard> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading the data", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IOException("Could not read a shard of the data", e.getCause());
+        }
+    }
+
+    /**
+     * Adds the entities with the given ids to a list, in order.
+     *
+     * @param <T>  the type of the entities
+     * @param ids  the entities read, by id
+     * @param list the list to add to
+     * @param type the class of the entities
+     * @param add  the ids
+     * @throws IllegalStateException if no entity was read with one of the ids
+     */
+    private static <T> void addAll(EntityIds ids, List<T> list, Class<T> type, int[] add) {
+        for (int id : add) {
+            list.add(ids.get(type, id));
+        }
+    }
+
+    private static void writeCodes(DataOutputStream out, List<String> codes) throws IOException {
+        EntityCodec.writeVarInt(out, codes.size());
+        for (String code : codes) {
+            out.writeUTF(code);
+        }
+    }
+
+    private static void readCodes(DataInputStream in, List<String> codes) throws IOException {
+        int count = EntityCodec.readVarInt(in);
+        for (int i = 0; i < count; i++) {
+            codes.add(in.readUTF());
+        }
+    }
+
+    private static void writeIds(DataOutputStream out, List<? extends Identifiable> entities) throws IOException {
+        EntityCodec.writeVarInt(out, entities.size());
+        for (Identifiable entity : entities) {
+            EntityCodec.writeVarInt(out, entity.getId());
+        }
+    }
+
+    private static int[] readIds(DataInputStream in) throws IOException {
+        int[] ids = new int[EntityCodec.readVarInt(in)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = EntityCodec.readVarInt(in);
+        }
+        return ids;
+    }
+
+    /**
+     * Gets the directory the shards of a data file are kept in, named after
+     * the data file: data.shards for data.bin.
+     *
+     * @param dataFile the path to the data file
+     * @return the path to the directory
+     */
+    private static Path directory(Path dataFile) {
+        String name = dataFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dataFile.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".shards");
+    }
+
+    private static Path usersFile(Path directory, int generation) {
+        return directory.resolve("users." + generation + ".bin");
+    }
+
+    private static Path projectFile(Path directory, int id, int generation) {
+        return directory.resolve("project-" + id + "." + generation + ".bin");
+    }
+
+    private static <T> Set<T> identitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    /**
+     * Which shards the data was last saved in, and which have changed since.
+     * Changes are marked by {@link Data} as they are recorded, and as
+     * entities are added to and removed from its lists.
+     */
+    static final class Shards {
+
+        // Attributes
+        private int generation;
+        private int usersGeneration;
+        private Map<Project, Integer> projectGenerations = new IdentityHashMap<>();
+        private Map<Project, List<Identifiable>> unlistedRefs = new IdentityHashMap<>();
+        private Set<Identifiable> usersUnlisted = identitySet(); // Entities in no list, saved with the users
+        private boolean all = true;
+        private boolean users;
+        private Set<Project> projects = identitySet();
+
+        /**
+         * Marks the shards a recorded change falls in. Most changes also
+         * change a user, such as an applicant applying for a project; those
+         * made by managers and officers to a project's own children do not.
+         *
+         * @param operation the type of change
+         * @param args      the arguments of the change
+         */
+        synchronized void record(Operation operation, Object[] args) {
+            switch (operation) {
+                case ADD_MANAGER_CODE:
+                case REMOVE_MANAGER_CODE:
+                case ADD_OFFICER_CODE:
+                case REMOVE_OFFICER_CODE:
+                    // The codes are saved in the manifest, which is written every time
+                    return;
+                case EDIT_PROJECT:
+                case TOGGLE_VISIBILITY:
+                case APPROVE_APPLICATION:
+                case REJECT_APPLICATION:
+                case EDIT_ENQUIRY:
+                case REPLY_ENQUIRY:
+                case RUN_BALLOT:
+                    break;
+                default:
+                    this.users = true;
+                    break;
+            }
+            for (Object arg : args) {
+                Project project = projectOf(arg);
+                if (project != null)
+                    this.projects.add(project);
+            }
+        }
+
+        /**
+         * Marks the shard of an entity added to or removed from a list of the
+         * data.
+         *
+         * @param entity the entity
+         */
+        synchronized void changed(Identifiable entity) {
+            Project project = projectOf(entity);
+            if (project != null)
+                this.projects.add(project);
+            if (project == null || this.usersUnlisted.contains(entity))
+                this.users = true;
+        }
+
+        /**
+         * Marks every shard as changed.
+         */
+        synchronized void markAll() {
+            this.all = true;
+        }
+
+        /**
+         * Gets the project whose shard an entity is saved in.
+         *
+         * @param entity the entity, or any other argument of a change
+         * @return the project, or null if the entity is saved with the users
+         */
+        private static Project projectOf(Object entity) {
+            if (entity instanceof Project)
+                return (Project) entity;
+            if (entity instanceof Registration)
+                return ((Registration) entity).getProject();
+            if (entity instanceof Application)
+                return ((Application) entity).getProject();
+            if (entity instanceof FlatBooking)
+                return ((FlatBooking) entity).getProject();
+            if (entity instanceof Enquiry)
+                return ((Enquiry) entity).getProject();
+            if (entity instanceof Withdrawal && ((Withdrawal) entity).getApplication() != null)
+                return ((Withdrawal) entity).getApplication().getProject();
+            return null;
+        }
+    }
+
+    /**
+     * The shards of a save and its manifest, captured in memory to be written
+     * to disk.
+     */
+    public static final class Checkpoint {
+
+        // Attributes
+        private final Path directory;
+        private final Shards shards;
+        private final Map<Path, byte[]> written = new LinkedHashMap<>();
+        private final Set<Path> kept = new HashSet<>();
+        private byte[] manifest;
+
+        private Checkpoint(Path directory, Shards shards) {
+            this.directory = directory;
+            this.shards = shards;
+        }
+
+        private void add(Path file, byte[] bytes) {
+            this.written.put(file, bytes);
+            this.kept.add(file);
+        }
+
+        private void keep(Path file) {
+            this.kept.add(file);
+        }
+
+        /**
+         * Gets the manifest, to be written over the data file once the
+         * shards are on disk.
+         *
+         * @return the bytes of the manifest
+         */
+        public byte[] getManifest() {
+            return this.manifest;
+        }
+
+        /**
+         * Gets the number of shards written by this save.
+         *
+         * @return the number of shards
+         */
+        public int getShardCount() {
+            return this.written.size();
+        }
+
+        /**
+         * Writes the changed shards, each to a new file, and forces them to
+         * disk.
+         *
+         * @throws IOException if a shard could not be written
+         */
+        public void writeShards() throws IOException {
+            Files.createDirectories(this.directory);
+            for (Map.Entry<Path, byte[]> shard : this.written.entrySet()) {
+                try (FileOutputStream out = new FileOutputStream(shard.getKey().toFile())) {
+                    out.write(shard.getValue());
+                    out.getFD().sync();
+                }
+            }
+            try (FileChannel channel = FileChannel.open(this.directory, StandardOpenOption.READ)) {
+                channel.force(true);
+            } catch (IOException e) {
+                // Not supported on this platform
+            }
+        }
+
+        /**
+         * Deletes the shards no longer named by the manifest, once it has been
+         * written.
+         */
+        public void deleteUnused() {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, "*.bin")) {
+                for (Path file : files) {
+                    if (!this.kept.contains(file))
+                        Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                // Left for the next save to delete
+            }
+        }
+
+        /**
+         * Marks every shard as changed after the save failed, so the next
+         * save writes them all again.
+         */
+        public void failed() {
+            this.shards.markAll();
+        }
+    }
+
+    /**
+     * The entities read from a shard, before they are linked.
+     */
+    private static final class Shard {
+
+        // Attributes
+        private final EntityIds ids;
+        private List<Manager> managers;
+        private List<Officer> officers;
+        private List<Applicant> applicants;
+        private List<Withdrawal> withdrawals;
+        private final List<Identifiable> detached = new ArrayList<>();
+        private Project project;
+        private int[] unlistedIds;
+
+        private Shard(EntityIds ids) {
+            this.ids = ids;
+        }
+    }
+
+    /**
+     * The registrations, applications, bookings and enquiries saved in a
+     * shard.
+     */
+    private static final class Children {
+
+        // Attributes
+        private final List<Registration> registrations = new ArrayList<>();
+        private final List<Application> applications = new ArrayList<>();
+        private final List<FlatBooking> bookings = new ArrayList<>();
+        private final List<Enquiry> enquiries = new ArrayList<>();
+    }
+}